@@ -12,9 +12,12 @@
 
 package ai.picovoice.picovoicedemo;
 
+import ai.picovoice.picovoice.ChannelMixer;
+import ai.picovoice.picovoice.FrameAssembler;
 import ai.picovoice.picovoice.Picovoice;
 import ai.picovoice.picovoice.PicovoiceInferenceCallback;
 import ai.picovoice.picovoice.PicovoiceWakeWordCallback;
+import ai.picovoice.picovoice.Resampler;
 import org.apache.commons.cli.*;
 
 import javax.sound.sampled.AudioFormat;
@@ -25,15 +28,19 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
 import java.util.Map;
 
 public class FileDemo {
 
+    private static final int READ_BLOCK_FRAMES = 4096;
+
     public static void runDemo(
             String accessKey, File inputAudioFile, String keywordPath, String contextPath,
             String porcupineLibraryPath, String porcupineModelPath, float porcupineSensitivity,
             String rhinoLibraryPath, String rhinoModelPath, float rhinoSensitivity,
-            float rhinoEndpointDuration, boolean requireEndpoint) {
+            float rhinoEndpointDuration, boolean requireEndpoint, ChannelMixer.Mode channelMode) {
 
         AudioInputStream audioInputStream;
         try {
@@ -84,35 +91,58 @@ public class FileDemo {
 
             AudioFormat audioFormat = audioInputStream.getFormat();
 
-            if (audioFormat.getSampleRate() != (float) picovoice.getSampleRate() ||
-                    audioFormat.getSampleSizeInBits() != 16) {
-                throw new IllegalArgumentException(String.format("Invalid input audio file format. " +
-                        "Input file must be a %dkHz, 16-bit audio file.", picovoice.getSampleRate()));
+            final boolean isFloat = audioFormat.getEncoding() == AudioFormat.Encoding.PCM_FLOAT;
+            if (!(audioFormat.getSampleSizeInBits() == 16 && !isFloat) &&
+                    !(audioFormat.getSampleSizeInBits() == 32 && isFloat)) {
+                throw new IllegalArgumentException("Invalid input audio file format. " +
+                        "Input file must be a 16-bit or 32-bit floating-point audio file.");
             }
 
-            if (audioFormat.getChannels() > 1) {
-                System.out.println("Picovoice processes single-channel audio, but a multi-channel file was provided. " +
-                        "Processing leftmost channel only.");
+            final int numChannels = audioFormat.getChannels();
+            if (numChannels > 1) {
+                System.out.printf("Picovoice processes single-channel audio, but a %d-channel file was provided. " +
+                        "Mixing channels with mode '%s'.%n", numChannels, channelMode);
+            }
+            ChannelMixer channelMixer = new ChannelMixer(numChannels, channelMode);
+
+            Resampler resampler = null;
+            if (audioFormat.getSampleRate() != (float) picovoice.getSampleRate()) {
+                System.out.printf("Resampling input audio from %dHz to %dHz.%n",
+                        (int) audioFormat.getSampleRate(),
+                        picovoice.getSampleRate());
+                resampler = new Resampler((int) audioFormat.getSampleRate(), picovoice.getSampleRate());
             }
 
-            int frameIndex = 0;
-            short[] picovoiceFrame = new short[picovoice.getFrameLength()];
-
-            ByteBuffer sampleBuffer = ByteBuffer.allocate(audioFormat.getFrameSize());
-            sampleBuffer.order(ByteOrder.LITTLE_ENDIAN);
-            while (audioInputStream.available() != 0) {
-
-                int numBytesRead = audioInputStream.read(sampleBuffer.array());
-                if (numBytesRead < 2) {
-                    break;
+            FrameAssembler frameAssembler = new FrameAssembler(picovoice);
+
+            // read large blocks of interleaved audio and convert them with bulk views over the read buffer
+            final int frameSize = audioFormat.getFrameSize();
+            byte[] readBuffer = new byte[READ_BLOCK_FRAMES * frameSize];
+            ByteBuffer byteView = ByteBuffer.wrap(readBuffer);
+            byteView.order(audioFormat.isBigEndian() ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+            ShortBuffer shortView = byteView.asShortBuffer();
+            FloatBuffer floatView = byteView.asFloatBuffer();
+            short[] interleaved = new short[isFloat ? 0 : READ_BLOCK_FRAMES * numChannels];
+            float[] interleavedFloat = new float[isFloat ? READ_BLOCK_FRAMES * numChannels : 0];
+            short[] mono = new short[READ_BLOCK_FRAMES];
+
+            int numBytesRead;
+            while ((numBytesRead = audioInputStream.read(readBuffer)) > 0) {
+                int numFrames = numBytesRead / frameSize;
+                if (isFloat) {
+                    floatView.clear();
+                    floatView.get(interleavedFloat, 0, numFrames * numChannels);
+                    channelMixer.process(interleavedFloat, 0, numFrames, mono, 0);
+                } else {
+                    shortView.clear();
+                    shortView.get(interleaved, 0, numFrames * numChannels);
+                    channelMixer.process(interleaved, 0, numFrames, mono, 0);
                 }
 
-                picovoiceFrame[frameIndex++] = sampleBuffer.getShort(0);
-
-                if (frameIndex == picovoiceFrame.length) {
-
-                    picovoice.process(picovoiceFrame);
-                    frameIndex = 0;
+                if (resampler != null) {
+                    resampler.process(mono, 0, numFrames, frameAssembler);
+                } else {
+                    frameAssembler.write(mono, 0, numFrames);
                 }
             }
         } catch (Exception e) {
@@ -158,6 +188,7 @@ public class FileDemo {
         String rhinoSensitivityStr = cmd.getOptionValue("rhino_sensitivity");
         String endpointDurationStr = cmd.getOptionValue("endpoint_duration");
         String requireEndpointValue = cmd.getOptionValue("require_endpoint");
+        String channelModeStr = cmd.getOptionValue("channel_mode");
 
         if (accessKey == null || accessKey.length() == 0) {
             throw new IllegalArgumentException("AccessKey is required for Picovoice.");
@@ -236,9 +267,27 @@ public class FileDemo {
             requireEndpoint = false;
         }
 
+        ChannelMixer.Mode channelMode = ChannelMixer.Mode.SELECT;
+        if (channelModeStr != null) {
+            switch (channelModeStr.toLowerCase()) {
+                case "left":
+                    channelMode = ChannelMixer.Mode.SELECT;
+                    break;
+                case "average":
+                    channelMode = ChannelMixer.Mode.AVERAGE;
+                    break;
+                case "max_energy":
+                    channelMode = ChannelMixer.Mode.MAX_ENERGY;
+                    break;
+                default:
+                    throw new IllegalArgumentException(String.format("Channel mode '%s' is not valid. " +
+                            "Must be one of 'left', 'average' or 'max_energy'.", channelModeStr));
+            }
+        }
+
         runDemo(accessKey, inputAudioFile, keywordPath, contextPath,
                 porcupineLibraryPath, porcupineModelPath, porcupineSensitivity,
-                rhinoLibraryPath, rhinoModelPath, rhinoSensitivity, endpointDuration, requireEndpoint);
+                rhinoLibraryPath, rhinoModelPath, rhinoSensitivity, endpointDuration, requireEndpoint, channelMode);
     }
 
     private static Options buildCommandLineOptions() {
@@ -329,6 +378,14 @@ public class FileDemo {
                         "speech (e.g. people talking in the background).")
                 .build());
 
+        options.addOption(Option.builder("cm")
+                .longOpt("channel_mode")
+                .hasArg(true)
+                .desc("How multi-channel files are mixed down to the single channel Picovoice processes: " +
+                        "'left' (leftmost channel only), 'average' (average of all channels) or 'max_energy' " +
+                        "(loudest channel). Defaults to 'left'.")
+                .build());
+
         options.addOption(new Option("h", "help", false, ""));
 
         return options;
@@ -12,9 +12,11 @@
 
 package ai.picovoice.picovoicedemo;
 
+import ai.picovoice.picovoice.FrameAssembler;
 import ai.picovoice.picovoice.Picovoice;
 import ai.picovoice.picovoice.PicovoiceInferenceCallback;
 import ai.picovoice.picovoice.PicovoiceWakeWordCallback;
+import ai.picovoice.picovoice.Resampler;
 import org.apache.commons.cli.*;
 
 import javax.sound.sampled.*;
@@ -24,6 +26,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
 import java.util.Map;
 
 public class MicDemo {
@@ -31,13 +34,13 @@ public class MicDemo {
             String accessKey, String keywordPath, String contextPath,
             String porcupineLibraryPath, String porcupineModelPath, float porcupineSensitivity,
             String rhinoLibraryPath, String rhinoModelPath, float rhinoSensitivity, float rhinoEndpointDuration,
-            int audioDeviceIndex, String outputPath, boolean requireEndpoint) {
+            int audioDeviceIndex, int captureSampleRate, String outputPath, boolean requireEndpoint) {
 
         // for file output
         File outputFile = null;
         ByteArrayOutputStream outputStream = null;
         long totalBytesCaptured = 0;
-        AudioFormat format = new AudioFormat(16000f, 16, 1, true, false);
+        AudioFormat format = new AudioFormat((float) captureSampleRate, 16, 1, true, false);
 
         // get audio capture device
         DataLine.Info dataLineInfo = new DataLine.Info(TargetDataLine.class, format);
@@ -97,11 +100,20 @@ public class MicDemo {
             System.out.println("Press enter to stop recording.");
             System.out.println("Listening...");
 
+            // capture at the device rate and resample only if it differs from the rate Picovoice expects
+            Resampler resampler = null;
+            if (captureSampleRate != picovoice.getSampleRate()) {
+                resampler = new Resampler(captureSampleRate, picovoice.getSampleRate());
+            }
+            FrameAssembler frameAssembler = new FrameAssembler(picovoice);
+
             // buffers for processing audio
-            int frameLength = picovoice.getFrameLength();
-            ByteBuffer captureBuffer = ByteBuffer.allocate(frameLength * 2);
+            int captureLength = (int) ((long) picovoice.getFrameLength() * captureSampleRate /
+                    picovoice.getSampleRate());
+            ByteBuffer captureBuffer = ByteBuffer.allocate(captureLength * 2);
             captureBuffer.order(ByteOrder.LITTLE_ENDIAN);
-            short[] picovoiceBuffer = new short[frameLength];
+            ShortBuffer captureView = captureBuffer.asShortBuffer();
+            short[] picovoiceBuffer = new short[captureLength];
 
             int numBytesRead;
             while (System.in.available() == 0) {
@@ -115,16 +127,17 @@ public class MicDemo {
                     outputStream.write(captureBuffer.array(), 0, numBytesRead);
                 }
 
-                // don't pass to Picovoice if we don't have a full buffer
-                if (numBytesRead != frameLength * 2) {
-                    continue;
-                }
-
                 // copy into 16-bit buffer
-                captureBuffer.asShortBuffer().get(picovoiceBuffer);
+                int numSamplesRead = numBytesRead / 2;
+                captureView.clear();
+                captureView.get(picovoiceBuffer, 0, numSamplesRead);
 
                 // process with picovoice
-                picovoice.process(picovoiceBuffer);
+                if (resampler != null) {
+                    resampler.process(picovoiceBuffer, 0, numSamplesRead, frameAssembler);
+                } else {
+                    frameAssembler.write(picovoiceBuffer, 0, numSamplesRead);
+                }
             }
             System.out.println("Stopping...");
         } catch (Exception e) {
@@ -173,7 +186,8 @@ public class MicDemo {
 
         if (!AudioSystem.isLineSupported(dataLineInfo)) {
             throw new LineUnavailableException("Default capture device does not support the audio " +
-                    "format required by Picovoice (16kHz, 16-bit, linearly-encoded, single-channel PCM).");
+                    "format required by Picovoice (16-bit, linearly-encoded, single-channel PCM) " +
+                    "at the requested sample rate.");
         }
 
         return (TargetDataLine) AudioSystem.getLine(dataLineInfo);
@@ -241,6 +255,7 @@ public class MicDemo {
         String rhinoSensitivityStr = cmd.getOptionValue("rhino_sensitivity");
         String endpointDurationStr = cmd.getOptionValue("endpoint_duration");
         String audioDeviceIndexStr = cmd.getOptionValue("audio_device_index");
+        String captureSampleRateStr = cmd.getOptionValue("capture_sample_rate");
         String outputPath = cmd.getOptionValue("output_path");
         String requireEndpointValue = cmd.getOptionValue("require_endpoint");
 
@@ -322,6 +337,20 @@ public class MicDemo {
             }
         }
 
+        int captureSampleRate = 16000;
+        if (captureSampleRateStr != null) {
+            try {
+                captureSampleRate = Integer.parseInt(captureSampleRateStr);
+            } catch (Exception e) {
+                throw new IllegalArgumentException(String.format("Capture sample rate '%s' is not a " +
+                        "valid positive integer.", captureSampleRateStr));
+            }
+            if (captureSampleRate <= 0) {
+                throw new IllegalArgumentException(String.format("Capture sample rate '%s' is not a " +
+                        "valid positive integer.", captureSampleRateStr));
+            }
+        }
+
         boolean requireEndpoint = true;
         if (requireEndpointValue != null && requireEndpointValue.toLowerCase().equals("false")) {
             requireEndpoint = false;
@@ -330,7 +359,7 @@ public class MicDemo {
         runDemo(accessKey, keywordPath, contextPath,
                 porcupineLibraryPath, porcupineModelPath, porcupineSensitivity,
                 rhinoLibraryPath, rhinoModelPath, rhinoSensitivity, endpointDuration,
-                audioDeviceIndex, outputPath, requireEndpoint);
+                audioDeviceIndex, captureSampleRate, outputPath, requireEndpoint);
     }
 
     private static Options buildCommandLineOptions() {
@@ -426,6 +455,13 @@ public class MicDemo {
                 .desc("Index of input audio device.")
                 .build());
 
+        options.addOption(Option.builder("sr")
+                .longOpt("capture_sample_rate")
+                .hasArg(true)
+                .desc("Sample rate to capture audio at (e.g. 44100 or 48000). Audio is resampled to the " +
+                        "sample rate required by Picovoice. Defaults to 16000.")
+                .build());
+
         options.addOption(new Option("sd", "show_audio_devices", false, "Print available recording devices."));
         options.addOption(new Option("h", "help", false, ""));
 
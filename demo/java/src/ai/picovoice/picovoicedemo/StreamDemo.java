@@ -0,0 +1,407 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoicedemo;
+
+import ai.picovoice.picovoice.FrameAssembler;
+import ai.picovoice.picovoice.Picovoice;
+import ai.picovoice.picovoice.PicovoiceEvent;
+import ai.picovoice.picovoice.PicovoiceEventPublisher;
+import ai.picovoice.picovoice.Resampler;
+import ai.picovoice.rhino.RhinoInference;
+import org.apache.commons.cli.*;
+
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Flow;
+
+public class StreamDemo {
+
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+
+    public static void runDemo(
+            String accessKey, String inputPath, String keywordPath, String contextPath,
+            String porcupineLibraryPath, String porcupineModelPath, float porcupineSensitivity,
+            String rhinoLibraryPath, String rhinoModelPath, float rhinoSensitivity,
+            float rhinoEndpointDuration, boolean requireEndpoint, int inputSampleRate, float commandTimeout) {
+
+        PicovoiceEventPublisher publisher = null;
+        try (ReadableByteChannel input = inputPath == null || inputPath.equals("-") ?
+                new FileInputStream(FileDescriptor.in).getChannel() :
+                FileChannel.open(Paths.get(inputPath), StandardOpenOption.READ)) {
+            publisher = new PicovoiceEventPublisher.Builder()
+                    .setPicovoiceBuilder(new Picovoice.Builder()
+                            .setAccessKey(accessKey)
+                            .setKeywordPath(keywordPath)
+                            .setContextPath(contextPath)
+                            .setPorcupineLibraryPath(porcupineLibraryPath)
+                            .setPorcupineModelPath(porcupineModelPath)
+                            .setPorcupineSensitivity(porcupineSensitivity)
+                            .setRhinoLibraryPath(rhinoLibraryPath)
+                            .setRhinoModelPath(rhinoModelPath)
+                            .setRhinoSensitivity(rhinoSensitivity)
+                            .setRhinoEndpointDuration(rhinoEndpointDuration)
+                            .setRequireEndpoint(requireEndpoint))
+                    .setCommandTimeoutSec(commandTimeout)
+                    .build();
+
+            final int sampleRate = publisher.getSampleRate();
+            publisher.subscribe(new Flow.Subscriber<PicovoiceEvent>() {
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscription.request(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onNext(PicovoiceEvent event) {
+                    // one line per event, flushed as soon as it happens
+                    System.out.println(toJson(event, sampleRate));
+                    System.out.flush();
+                }
+
+                @Override
+                public void onError(Throwable throwable) { }
+
+                @Override
+                public void onComplete() { }
+            });
+
+            Resampler resampler = null;
+            if (inputSampleRate != sampleRate) {
+                System.err.printf("Resampling input audio from %dHz to %dHz.%n", inputSampleRate, sampleRate);
+                resampler = new Resampler(inputSampleRate, sampleRate);
+            }
+            FrameAssembler frameAssembler = new FrameAssembler(publisher.getFrameLength(), publisher::process);
+
+            // read large chunks straight into a direct buffer and convert them with a bulk view over it
+            ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            ShortBuffer shortView = readBuffer.asShortBuffer();
+            short[] samples = new short[READ_BUFFER_BYTES / 2];
+
+            while (input.read(readBuffer) >= 0) {
+                final int numBytes = readBuffer.position();
+                final int numSamples = numBytes / 2;
+                shortView.clear();
+                shortView.get(samples, 0, numSamples);
+                if (resampler != null) {
+                    resampler.process(samples, 0, numSamples, frameAssembler);
+                } else {
+                    frameAssembler.write(samples, 0, numSamples);
+                }
+
+                // keep the first byte of a sample split across reads
+                readBuffer.clear();
+                if (numBytes % 2 != 0) {
+                    readBuffer.put(readBuffer.get(numBytes - 1));
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to read input audio: " + e);
+        } catch (Exception e) {
+            System.err.println(e.toString());
+        } finally {
+            if (publisher != null) {
+                publisher.delete();
+            }
+        }
+    }
+
+    private static String toJson(PicovoiceEvent event, int sampleRate) {
+        final StringBuilder json = new StringBuilder()
+                .append("{\"event\":\"").append(event.getType().name().toLowerCase(Locale.ROOT))
+                .append("\",\"sample\":").append(event.getSampleIndex())
+                .append(",\"seconds\":")
+                .append(String.format(Locale.ROOT, "%.3f", (double) event.getSampleIndex() / sampleRate));
+
+        final RhinoInference inference = event.getInference();
+        if (inference != null) {
+            json.append(",\"is_understood\":").append(inference.getIsUnderstood());
+            if (inference.getIsUnderstood()) {
+                json.append(",\"intent\":\"").append(escape(inference.getIntent())).append("\",\"slots\":{");
+                boolean isFirst = true;
+                for (Map.Entry<String, String> slot : inference.getSlots().entrySet()) {
+                    json.append(isFirst ? "\"" : ",\"").append(escape(slot.getKey())).append("\":\"")
+                            .append(escape(slot.getValue())).append('"');
+                    isFirst = false;
+                }
+                json.append('}');
+            }
+        }
+        if (event.getError() != null) {
+            json.append(",\"message\":\"").append(escape(String.valueOf(event.getError().getMessage()))).append('"');
+        }
+        return json.append('}').toString();
+    }
+
+    private static String escape(String s) {
+        final StringBuilder escaped = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < 0x20) {
+                escaped.append(String.format("\\u%04x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    public static void main(String[] args) {
+
+        Options options = buildCommandLineOptions();
+        CommandLineParser parser = new DefaultParser();
+        HelpFormatter formatter = new HelpFormatter();
+
+        CommandLine cmd;
+        try {
+            cmd = parser.parse(options, args);
+        } catch (ParseException e) {
+            System.err.println(e.getMessage());
+            formatter.printHelp("picovoicestreamdemo", options);
+            System.exit(1);
+            return;
+        }
+
+        if (cmd.hasOption("help")) {
+            formatter.printHelp("picovoicestreamdemo", options);
+            return;
+        }
+
+        String accessKey = cmd.getOptionValue("access_key");
+        String inputPath = cmd.getOptionValue("input_path");
+        String keywordPath = cmd.getOptionValue("keyword_path");
+        String contextPath = cmd.getOptionValue("context_path");
+        String porcupineLibraryPath = cmd.getOptionValue("porcupine_library_path");
+        String porcupineModelPath = cmd.getOptionValue("porcupine_model_path");
+        String porcupineSensitivityStr = cmd.getOptionValue("porcupine_sensitivity");
+        String rhinoLibraryPath = cmd.getOptionValue("rhino_library_path");
+        String rhinoModelPath = cmd.getOptionValue("rhino_model_path");
+        String rhinoSensitivityStr = cmd.getOptionValue("rhino_sensitivity");
+        String endpointDurationStr = cmd.getOptionValue("endpoint_duration");
+        String requireEndpointValue = cmd.getOptionValue("require_endpoint");
+        String sampleRateStr = cmd.getOptionValue("sample_rate");
+        String commandTimeoutStr = cmd.getOptionValue("command_timeout");
+
+        if (accessKey == null || accessKey.length() == 0) {
+            throw new IllegalArgumentException("AccessKey is required for Picovoice.");
+        }
+
+        // Parse sensitivities
+        float porcupineSensitivity = 0.5f;
+        if (porcupineSensitivityStr != null) {
+            try {
+                porcupineSensitivity = Float.parseFloat(porcupineSensitivityStr);
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Failed to parse Porcupine sensitivity value. " +
+                        "Must be a floating-point number between [0,1].");
+            }
+            if (porcupineSensitivity < 0 || porcupineSensitivity > 1) {
+                throw new IllegalArgumentException(String.format("Failed to parse Porcupine sensitivity value (%s). " +
+                        "Must be a floating-point number between [0,1].", porcupineSensitivity));
+            }
+        }
+        float rhinoSensitivity = 0.5f;
+        if (rhinoSensitivityStr != null) {
+            try {
+                rhinoSensitivity = Float.parseFloat(rhinoSensitivityStr);
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Failed to parse Rhino sensitivity value. " +
+                        "Must be a floating-point number between [0,1].");
+            }
+            if (rhinoSensitivity < 0 || rhinoSensitivity > 1) {
+                throw new IllegalArgumentException(String.format("Failed to parse Rhino sensitivity value (%s). " +
+                        "Must be a floating-point number between [0,1].", rhinoSensitivity));
+            }
+        }
+
+        // Parse endpoint duration
+        float endpointDuration = 1.0f;
+        if (endpointDurationStr != null) {
+            try {
+                endpointDuration = Float.parseFloat(endpointDurationStr);
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Failed to parse endpointDuration value. " +
+                        "Must be a floating-point number between [0.5, 5.0].");
+            }
+
+            if (endpointDuration < 0.5 || endpointDuration > 5.0) {
+                throw new IllegalArgumentException(String.format("Failed to parse endpointDuration value (%s). " +
+                        "Must be a floating-point number between [0.5, 5.0].", endpointDuration));
+            }
+        }
+
+        int sampleRate = 16000;
+        if (sampleRateStr != null) {
+            try {
+                sampleRate = Integer.parseInt(sampleRateStr);
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Failed to parse sample rate. Must be a positive integer.");
+            }
+            if (sampleRate <= 0) {
+                throw new IllegalArgumentException(String.format("Failed to parse sample rate (%d). " +
+                        "Must be a positive integer.", sampleRate));
+            }
+        }
+
+        float commandTimeout = 0f;
+        if (commandTimeoutStr != null) {
+            try {
+                commandTimeout = Float.parseFloat(commandTimeoutStr);
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Failed to parse command timeout. " +
+                        "Must be a non-negative number of seconds.");
+            }
+            if (commandTimeout < 0) {
+                throw new IllegalArgumentException(String.format("Failed to parse command timeout (%s). " +
+                        "Must be a non-negative number of seconds.", commandTimeout));
+            }
+        }
+
+        if (keywordPath == null) {
+            throw new IllegalArgumentException("No keyword file provided. This is a required argument.");
+        }
+        if (!Paths.get(keywordPath).toFile().exists()) {
+            throw new IllegalArgumentException(String.format("Keyword file at path %s does not exits.", keywordPath));
+        }
+
+        if (contextPath == null) {
+            throw new IllegalArgumentException("No context file provided. This is a required argument.");
+        }
+        if (!Paths.get(contextPath).toFile().exists()) {
+            throw new IllegalArgumentException(String.format("Context file at path '%s' does not exist", contextPath));
+        }
+
+        boolean requireEndpoint = true;
+        if (requireEndpointValue != null && requireEndpointValue.toLowerCase().equals("false")) {
+            requireEndpoint = false;
+        }
+
+        runDemo(accessKey, inputPath, keywordPath, contextPath,
+                porcupineLibraryPath, porcupineModelPath, porcupineSensitivity,
+                rhinoLibraryPath, rhinoModelPath, rhinoSensitivity, endpointDuration, requireEndpoint,
+                sampleRate, commandTimeout);
+    }
+
+    private static Options buildCommandLineOptions() {
+        Options options = new Options();
+
+        options.addOption(Option.builder("a")
+                .longOpt("access_key")
+                .hasArg(true)
+                .desc("AccessKey obtained from Picovoice Console (https://console.picovoice.ai/).")
+                .build());
+
+        options.addOption(Option.builder("i")
+                .longOpt("input_path")
+                .hasArg(true)
+                .desc("Path to a file or named pipe of raw 16-bit little-endian single-channel PCM. " +
+                        "Defaults to '-' (standard input).")
+                .build());
+
+        options.addOption(Option.builder("k")
+                .longOpt("keyword_path")
+                .hasArg(true)
+                .desc("Absolute path to a Porcupine keyword file.")
+                .build());
+
+        options.addOption(Option.builder("c")
+                .longOpt("context_path")
+                .hasArg(true)
+                .desc("Absolute path to a Rhino context file.")
+                .build());
+
+        options.addOption(Option.builder("pl")
+                .longOpt("porcupine_library_path")
+                .hasArg(true)
+                .desc("Absolute path to the Porcupine native runtime library.")
+                .build());
+
+        options.addOption(Option.builder("pm")
+                .longOpt("porcupine_model_path")
+                .hasArg(true)
+                .desc("Absolute path to Porcupine's model file.")
+                .build());
+
+        options.addOption(Option.builder("ps")
+                .longOpt("porcupine_sensitivity")
+                .hasArgs()
+                .desc("Sensitivity for detecting wake word. Each value should be a number within [0, 1]. A higher " +
+                        "sensitivity results in fewer misses at the cost of increasing the false alarm rate.")
+                .build());
+
+        options.addOption(Option.builder("rl")
+                .longOpt("rhino_library_path")
+                .hasArg(true)
+                .desc("Absolute path to the Rhino native runtime library.")
+                .build());
+
+        options.addOption(Option.builder("rm")
+                .longOpt("rhino_model_path")
+                .hasArg(true)
+                .desc("Absolute path to Rhino's model file.")
+                .build());
+
+        options.addOption(Option.builder("rs")
+                .longOpt("rhino_sensitivity")
+                .hasArgs()
+                .desc("Inference sensitivity. It should be a number within [0, 1]. A higher sensitivity value " +
+                        "results in fewer misses at the cost of (potentially) increasing the " +
+                        "erroneous inference rate.")
+                .build());
+
+        options.addOption(Option.builder("u")
+                .longOpt("endpoint_duration")
+                .hasArgs()
+                .desc("Endpoint duration in seconds. An endpoint is a chunk of silence at the end of an " +
+                        "utterance that marks the end of spoken command. It should be a positive number " +
+                        "within [0.5, 5].")
+                .build());
+
+        options.addOption(Option.builder("e")
+                .longOpt("require_endpoint")
+                .hasArg(true)
+                .desc("If set to `true`, Rhino requires an endpoint (a chunk of silence) after the " +
+                        "spoken command. If set to `false`, Rhino tries to detect silence, but if it cannot, it " +
+                        "still will provide inference regardless.")
+                .build());
+
+        options.addOption(Option.builder("sr")
+                .longOpt("sample_rate")
+                .hasArg(true)
+                .desc("Sample rate of the input audio. Audio at other rates than 16000 is resampled. " +
+                        "Defaults to 16000.")
+                .build());
+
+        options.addOption(Option.builder("t")
+                .longOpt("command_timeout")
+                .hasArg(true)
+                .desc("Seconds after the wake word after which an unfinished command is abandoned and a " +
+                        "'timeout' event is written. Defaults to 0 (disabled).")
+                .build());
+
+        options.addOption(new Option("h", "help", false, ""));
+
+        return options;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import java.util.Locale;
+
+/**
+ * Time spent in each phase of creating a ${@link Picovoice} instance.
+ */
+public final class BuildReport {
+
+    /**
+     * Phases of creating an instance, in the order they run.
+     */
+    public enum Phase {
+        /**
+         * Creating Porcupine: copying its model and keyword out of the assets, loading its library,
+         * parsing them and validating the AccessKey.
+         */
+        PORCUPINE_INIT,
+        /**
+         * Creating Rhino: copying its model and context out of the assets, loading its library,
+         * parsing them and validating the AccessKey.
+         */
+        RHINO_INIT,
+        /** Checking the engine versions. */
+        VERSION_CHECKS,
+        /** Reading the context information and setting up callback delivery. */
+        CONFIGURE
+    }
+
+    private final long[] phaseNanos = new long[Phase.values().length];
+
+    BuildReport() { }
+
+    /**
+     * Adds the time elapsed since {@code startNanos} to a phase.
+     *
+     * @return The current time, which starts the next phase.
+     */
+    long lap(Phase phase, long startNanos) {
+        final long nowNanos = System.nanoTime();
+        phaseNanos[phase.ordinal()] += nowNanos - startNanos;
+        return nowNanos;
+    }
+
+    /**
+     * Getter for the time spent in a phase.
+     *
+     * @param phase Phase.
+     * @return Time spent in the phase, in nanoseconds. 0 if the phase did not run.
+     */
+    public long getPhaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * Getter for the time spent in all phases.
+     *
+     * @return Total time, in nanoseconds.
+     */
+    public long getTotalNanos() {
+        long totalNanos = 0;
+        for (long nanos : phaseNanos) {
+            totalNanos += nanos;
+        }
+        return totalNanos;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("BuildReport{");
+        for (Phase phase : Phase.values()) {
+            builder.append(String.format(Locale.ROOT, "%s=%.3fms, ", phase, getPhaseNanos(phase) / 1e6));
+        }
+        return builder.append(String.format(Locale.ROOT, "total=%.3fms}", getTotalNanos() / 1e6)).toString();
+    }
+}
@@ -0,0 +1,167 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free queue of audio frames between a single producer (the capture thread) and a single
+ * consumer (the processing thread). All frame slots are allocated up front and frames are copied in
+ * and out, so neither side allocates or blocks.
+ *
+ * <p>When the queue is full, the ${@link PicovoiceManager.OverrunPolicy} decides whether the
+ * incoming frame or the oldest queued frame is dropped. Dropping the oldest frame moves the read
+ * index from the producer side; the consumer detects this when it tries to commit its read and
+ * retries with the next frame, so a frame overwritten while being copied out is never processed.
+ *
+ * <p>Each frame can carry a non-negative tag (e.g. its capture index) and a capture timestamp that
+ * are returned with it.
+ */
+final class FrameRingBuffer {
+    private final short[][] slots;
+    private final long[] tags;
+    private final long[] timestamps;
+    private final PicovoiceManager.OverrunPolicy overrunPolicy;
+    private final AtomicLong readIndex = new AtomicLong(0);
+    private final AtomicLong writeIndex = new AtomicLong(0);
+    private final AtomicLong numDroppedFrames = new AtomicLong(0);
+    private long polledTimestampNanos = 0;
+
+    FrameRingBuffer(int capacity, int frameLength, PicovoiceManager.OverrunPolicy overrunPolicy) {
+        this.slots = new short[capacity][frameLength];
+        this.tags = new long[capacity];
+        this.timestamps = new long[capacity];
+        this.overrunPolicy = overrunPolicy;
+    }
+
+    /**
+     * Copies a frame into the queue. Must only be called from the producer thread.
+     *
+     * @param frame Frame of audio.
+     * @return Whether the frame was queued. Returns false if the frame was dropped.
+     */
+    boolean offer(short[] frame) {
+        return offer(frame, 0);
+    }
+
+    /**
+     * Copies a tagged frame into the queue. Must only be called from the producer thread.
+     *
+     * @param frame Frame of audio.
+     * @param tag   Non-negative tag returned with the frame by ${@link #pollTagged(short[])}.
+     * @return Whether the frame was queued. Returns false if the frame was dropped.
+     */
+    boolean offer(short[] frame, long tag) {
+        return offer(frame, tag, 0);
+    }
+
+    /**
+     * Copies a tagged and timestamped frame into the queue. Must only be called from the producer
+     * thread.
+     *
+     * @param frame          Frame of audio.
+     * @param tag            Non-negative tag returned with the frame by ${@link #pollTagged(short[])}.
+     * @param timestampNanos Capture time returned by ${@link #getPolledTimestampNanos()} once the frame
+     *                       has been polled.
+     * @return Whether the frame was queued. Returns false if the frame was dropped.
+     */
+    boolean offer(short[] frame, long tag, long timestampNanos) {
+        final long write = writeIndex.get();
+        long read = readIndex.get();
+        while (write - read >= slots.length) {
+            if (overrunPolicy == PicovoiceManager.OverrunPolicy.DROP_NEWEST) {
+                numDroppedFrames.incrementAndGet();
+                return false;
+            }
+            if (readIndex.compareAndSet(read, read + 1)) {
+                numDroppedFrames.incrementAndGet();
+                break;
+            }
+            read = readIndex.get();
+        }
+
+        final int slotIndex = (int) (write % slots.length);
+        final short[] slot = slots[slotIndex];
+        System.arraycopy(frame, 0, slot, 0, Math.min(frame.length, slot.length));
+        tags[slotIndex] = tag;
+        timestamps[slotIndex] = timestampNanos;
+        writeIndex.lazySet(write + 1);
+        return true;
+    }
+
+    /**
+     * Copies the oldest queued frame out of the queue. Must only be called from the consumer thread.
+     *
+     * @param frame Buffer receiving the frame.
+     * @return Whether a frame was available.
+     */
+    boolean poll(short[] frame) {
+        return pollTagged(frame) >= 0;
+    }
+
+    /**
+     * Copies the oldest queued frame out of the queue. Must only be called from the consumer thread.
+     *
+     * @param frame Buffer receiving the frame.
+     * @return Tag of the frame, or -1 if no frame was available.
+     */
+    long pollTagged(short[] frame) {
+        while (true) {
+            final long read = readIndex.get();
+            if (read >= writeIndex.get()) {
+                return -1;
+            }
+            final int slotIndex = (int) (read % slots.length);
+            System.arraycopy(slots[slotIndex], 0, frame, 0, frame.length);
+            final long tag = tags[slotIndex];
+            final long timestampNanos = timestamps[slotIndex];
+            if (readIndex.compareAndSet(read, read + 1)) {
+                polledTimestampNanos = timestampNanos;
+                return tag;
+            }
+        }
+    }
+
+    /**
+     * Getter for the capture timestamp of the frame returned by the last successful
+     * ${@link #pollTagged(short[])}. Must only be called from the consumer thread.
+     *
+     * @return Timestamp given to ${@link #offer(short[], long, long)}.
+     */
+    long getPolledTimestampNanos() {
+        return polledTimestampNanos;
+    }
+
+    /**
+     * Getter for the number of queued frames.
+     *
+     * @return Number of queued frames.
+     */
+    int size() {
+        return (int) Math.max(0, writeIndex.get() - readIndex.get());
+    }
+
+    /**
+     * Discards all queued frames. Must only be called from the consumer thread.
+     */
+    void clear() {
+        long read = readIndex.get();
+        while (!readIndex.compareAndSet(read, Math.max(read, writeIndex.get()))) {
+            read = readIndex.get();
+        }
+    }
+
+    long getNumDroppedFrames() {
+        return numDroppedFrames.get();
+    }
+}
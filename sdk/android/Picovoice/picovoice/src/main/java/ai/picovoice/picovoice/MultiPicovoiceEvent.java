@@ -0,0 +1,114 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import ai.picovoice.rhino.RhinoInference;
+
+/**
+ * Wake word or inference event raised by one of the engines of a ${@link MultiPicovoiceManager}.
+ * Events of all engines are delivered through the same callback; the frame index places them on the
+ * shared capture timeline.
+ *
+ * <p>Event objects are preallocated by the manager and reused, so an event is only valid until the
+ * callback it was passed to returns. Copy the values that are needed later.
+ */
+public class MultiPicovoiceEvent {
+
+    /**
+     * Kind of event.
+     */
+    public enum Type {
+        WAKE_WORD,
+        INFERENCE
+    }
+
+    private String engineName;
+    private Type type;
+    private RhinoInference inference;
+    private long frameIndex;
+    private long timestampNanos;
+    private long lagNanos;
+
+    MultiPicovoiceEvent() { }
+
+    void set(
+            String engineName,
+            Type type,
+            RhinoInference inference,
+            long frameIndex,
+            long timestampNanos,
+            long lagNanos) {
+        this.engineName = engineName;
+        this.type = type;
+        this.inference = inference;
+        this.frameIndex = frameIndex;
+        this.timestampNanos = timestampNanos;
+        this.lagNanos = lagNanos;
+    }
+
+    /**
+     * Getter for the name of the engine that raised the event.
+     *
+     * @return Engine name.
+     */
+    public String getEngineName() {
+        return engineName;
+    }
+
+    /**
+     * Getter for the kind of event.
+     *
+     * @return Event type.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Getter for the inference of an ${@link Type#INFERENCE} event.
+     *
+     * @return Inference, or null for wake word events.
+     */
+    public RhinoInference getInference() {
+        return inference;
+    }
+
+    /**
+     * Getter for the index of the captured frame that completed the event, counted from the start
+     * of recording.
+     *
+     * @return Frame index.
+     */
+    public long getFrameIndex() {
+        return frameIndex;
+    }
+
+    /**
+     * Getter for the time at which the end of the frame that completed the event was captured, on
+     * the ${@link android.os.SystemClock#elapsedRealtimeNanos()} clock.
+     *
+     * @return Capture timestamp in nanoseconds.
+     */
+    public long getTimestampNanos() {
+        return timestampNanos;
+    }
+
+    /**
+     * Getter for how long after capture the engine processed the frame that completed the event.
+     *
+     * @return Processing lag in nanoseconds.
+     */
+    public long getLagNanos() {
+        return lagNanos;
+    }
+}
@@ -0,0 +1,611 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import ai.picovoice.android.voiceprocessor.VoiceProcessor;
+import ai.picovoice.android.voiceprocessor.VoiceProcessorErrorListener;
+import ai.picovoice.android.voiceprocessor.VoiceProcessorException;
+import ai.picovoice.android.voiceprocessor.VoiceProcessorFrameListener;
+import ai.picovoice.rhino.RhinoInference;
+
+/**
+ * Runs several ${@link Picovoice} instances (e.g. one per language or product feature) on the same
+ * microphone stream. Each captured frame is copied once into a lock-free queue per instance, and
+ * the instances are processed in parallel on a small pool of worker threads, so adding an engine
+ * does not add its processing time to every other engine's latency.
+ *
+ * <p>Wake word and inference events of all instances are merged into a single
+ * ${@link MultiPicovoiceEventCallback}. Each event carries the engine name, the index and capture
+ * time of the frame that completed it and how far behind capture the engine was at that point.
+ */
+public class MultiPicovoiceManager {
+    private static final int MAX_PENDING_EVENTS = 16;
+
+    private final VoiceProcessor voiceProcessor;
+    private final VoiceProcessorFrameListener vpFrameListener;
+    private final VoiceProcessorErrorListener vpErrorListener;
+    private final PicovoiceManagerErrorCallback processErrorCallback;
+    private final MultiPicovoiceEventCallback eventCallback;
+    private final Executor eventExecutor;
+    private final Map<String, Engine> engines;
+    private final Engine[] engineArray;
+    private final HandlerThread[] workers;
+    private final int frameLength;
+    private final int sampleRate;
+    private final AtomicBoolean isListening = new AtomicBoolean(false);
+    private volatile boolean isDeleted = false;
+
+    // written by the capture thread only; start() resets it before the frame listener is added
+    private volatile long numCapturedFrames = 0;
+    // frames captured before the last stop() are discarded by the workers instead of being cleared
+    // from the queues by stop(), which could otherwise race with a following start()
+    private volatile long discardBeforeNanos = 0;
+
+    private final MultiPicovoiceEvent[] eventSlots = new MultiPicovoiceEvent[MAX_PENDING_EVENTS];
+    private final boolean[] isEventSlotInUse = new boolean[MAX_PENDING_EVENTS];
+    private long eventWriteIndex = 0;
+    private long eventReadIndex = 0;
+    private final Runnable dispatchRunnable;
+
+    /**
+     * Per-instance state. The queue is fed by the capture thread and drained on the instance's
+     * worker thread, which is the only thread touching the instance while recording.
+     */
+    private static final class Engine {
+        private final String name;
+        private final AtomicBoolean isDrainScheduled = new AtomicBoolean(false);
+        private final AtomicBoolean isResetPending = new AtomicBoolean(false);
+        private Picovoice picovoice;
+        private MultiPicovoiceManager manager;
+        private FrameRingBuffer frameBuffer;
+        private short[] frame;
+        private Handler handler;
+        private Runnable drainRunnable;
+        private long currentFrameIndex = 0;
+        private long currentCaptureTimeNanos = 0;
+        private volatile long lagNanos = 0;
+
+        Engine(String name) {
+            this.name = name;
+        }
+
+        void attach(
+                MultiPicovoiceManager manager,
+                Looper looper,
+                int queueCapacity,
+                PicovoiceManager.OverrunPolicy overrunPolicy) {
+            this.manager = manager;
+            this.frameBuffer = new FrameRingBuffer(queueCapacity, picovoice.getFrameLength(), overrunPolicy);
+            this.frame = new short[picovoice.getFrameLength()];
+            this.handler = new Handler(looper);
+            this.drainRunnable = new Runnable() {
+                @Override
+                public void run() {
+                    isDrainScheduled.set(false);
+                    resetIfPending();
+                    long frameIndex;
+                    while ((frameIndex = frameBuffer.pollTagged(frame)) >= 0) {
+                        resetIfPending();
+                        final long captureTimeNanos = frameBuffer.getPolledTimestampNanos();
+                        if (captureTimeNanos < Engine.this.manager.discardBeforeNanos) {
+                            continue;
+                        }
+                        currentFrameIndex = frameIndex;
+                        currentCaptureTimeNanos = captureTimeNanos;
+                        try {
+                            picovoice.process(frame);
+                        } catch (PicovoiceException e) {
+                            Engine.this.manager.reportError(e);
+                        }
+                        lagNanos = SystemClock.elapsedRealtimeNanos() - captureTimeNanos;
+                    }
+                }
+            };
+        }
+
+        void offer(short[] capturedFrame, long frameIndex, long captureTimeNanos) {
+            frameBuffer.offer(capturedFrame, frameIndex, captureTimeNanos);
+            if (isDrainScheduled.compareAndSet(false, true)) {
+                handler.post(drainRunnable);
+            }
+        }
+
+        /**
+         * Asks the worker to reset the instance before it processes another frame.
+         */
+        void requestReset() {
+            isResetPending.set(true);
+            handler.post(drainRunnable);
+        }
+
+        private void resetIfPending() {
+            if (isResetPending.compareAndSet(true, false)) {
+                try {
+                    picovoice.reset();
+                } catch (PicovoiceException e) {
+                    manager.reportError(e);
+                }
+            }
+        }
+
+        void onEvent(MultiPicovoiceEvent.Type type, RhinoInference inference) {
+            manager.dispatch(
+                    name,
+                    type,
+                    inference,
+                    currentFrameIndex,
+                    currentCaptureTimeNanos,
+                    SystemClock.elapsedRealtimeNanos() - currentCaptureTimeNanos);
+        }
+    }
+
+    private MultiPicovoiceManager(
+            Map<String, Engine> engines,
+            int numWorkers,
+            int workerPriority,
+            int queueCapacity,
+            PicovoiceManager.OverrunPolicy overrunPolicy,
+            MultiPicovoiceEventCallback eventCallback,
+            Executor eventExecutor,
+            PicovoiceManagerErrorCallback processErrorCallback) {
+        this.engines = engines;
+        this.eventCallback = eventCallback;
+        this.eventExecutor = eventExecutor;
+        this.processErrorCallback = processErrorCallback;
+        this.voiceProcessor = VoiceProcessor.getInstance();
+
+        final Engine first = engines.values().iterator().next();
+        this.frameLength = first.picovoice.getFrameLength();
+        this.sampleRate = first.picovoice.getSampleRate();
+
+        // events are handed to the event executor through preallocated slots and a single runnable
+        for (int i = 0; i < eventSlots.length; i++) {
+            eventSlots[i] = new MultiPicovoiceEvent();
+        }
+        this.dispatchRunnable = new Runnable() {
+            @Override
+            public void run() {
+                deliverNextEvent();
+            }
+        };
+
+        // instances are spread round-robin; instances sharing a worker are processed one after another
+        this.workers = new HandlerThread[numWorkers];
+        for (int i = 0; i < numWorkers; i++) {
+            workers[i] = new HandlerThread("PicovoiceWorker" + i, workerPriority);
+            workers[i].start();
+        }
+        int workerIndex = 0;
+        for (Engine engine : engines.values()) {
+            engine.attach(this, workers[workerIndex].getLooper(), queueCapacity, overrunPolicy);
+            workerIndex = (workerIndex + 1) % numWorkers;
+        }
+
+        this.engineArray = engines.values().toArray(new Engine[0]);
+        this.vpFrameListener = new VoiceProcessorFrameListener() {
+            @Override
+            public void onFrame(short[] frame) {
+                if (!isListening.get()) {
+                    return;
+                }
+                offerFrame(frame, SystemClock.elapsedRealtimeNanos());
+            }
+        };
+        this.vpErrorListener = new VoiceProcessorErrorListener() {
+            @Override
+            public void onError(VoiceProcessorException error) {
+                reportError(new PicovoiceException(error));
+            }
+        };
+    }
+
+    /**
+     * Queues a captured frame for every instance. Must only be called from one thread at a time: the
+     * capture thread while recording, or a test feeding recorded audio instead of the microphone.
+     */
+    void offerFrame(short[] frame, long captureTimeNanos) {
+        final long frameIndex = numCapturedFrames;
+        numCapturedFrames = frameIndex + 1;
+        for (Engine engine : engineArray) {
+            engine.offer(frame, frameIndex, captureTimeNanos);
+        }
+    }
+
+    private void dispatch(
+            String engineName,
+            MultiPicovoiceEvent.Type type,
+            RhinoInference inference,
+            long frameIndex,
+            long timestampNanos,
+            long lagNanos) {
+        if (eventCallback == null) {
+            return;
+        }
+        synchronized (eventSlots) {
+            // a slot is busy until its event has been delivered, so a slow executor never sees it change
+            final int slotIndex = (int) (eventWriteIndex % eventSlots.length);
+            if (isEventSlotInUse[slotIndex]) {
+                Log.w("MultiPicovoiceManager", "Event callbacks are falling behind, dropping an event");
+                return;
+            }
+            eventSlots[slotIndex].set(engineName, type, inference, frameIndex, timestampNanos, lagNanos);
+            isEventSlotInUse[slotIndex] = true;
+            eventWriteIndex++;
+        }
+        eventExecutor.execute(dispatchRunnable);
+    }
+
+    private void deliverNextEvent() {
+        final int slotIndex;
+        synchronized (eventSlots) {
+            if (eventReadIndex == eventWriteIndex) {
+                return;
+            }
+            slotIndex = (int) (eventReadIndex++ % eventSlots.length);
+        }
+        try {
+            eventCallback.invoke(eventSlots[slotIndex]);
+        } finally {
+            synchronized (eventSlots) {
+                eventSlots[slotIndex].set(null, null, null, 0, 0, 0);
+                isEventSlotInUse[slotIndex] = false;
+            }
+        }
+    }
+
+    private void reportError(PicovoiceException e) {
+        if (processErrorCallback != null) {
+            processErrorCallback.invoke(e);
+        } else {
+            Log.e("MultiPicovoiceManager", e.toString());
+        }
+    }
+
+    /**
+     * Starts recording audio from the microphone and processes it with every instance.
+     *
+     * @throws PicovoiceException if an error is encountered while attempting to start.
+     */
+    public void start() throws PicovoiceException {
+        if (isDeleted) {
+            throw new PicovoiceInvalidStateException("Cannot start - resources have been released");
+        }
+        if (!isListening.compareAndSet(false, true)) {
+            return;
+        }
+
+        numCapturedFrames = 0;
+        voiceProcessor.addFrameListener(vpFrameListener);
+        voiceProcessor.addErrorListener(vpErrorListener);
+        try {
+            voiceProcessor.start(frameLength, sampleRate);
+        } catch (VoiceProcessorException e) {
+            isListening.set(false);
+            voiceProcessor.removeErrorListener(vpErrorListener);
+            voiceProcessor.removeFrameListener(vpFrameListener);
+            throw new PicovoiceException(e);
+        }
+    }
+
+    /**
+     * Stops recording audio from the microphone. Frames already queued are discarded and every
+     * instance is reset.
+     *
+     * @throws PicovoiceException if an error is encountered while attempting to stop.
+     */
+    public void stop() throws PicovoiceException {
+        if (!isListening.compareAndSet(true, false)) {
+            return;
+        }
+
+        voiceProcessor.removeErrorListener(vpErrorListener);
+        voiceProcessor.removeFrameListener(vpFrameListener);
+        try {
+            if (voiceProcessor.getNumFrameListeners() == 0) {
+                voiceProcessor.stop();
+            }
+        } catch (VoiceProcessorException e) {
+            throw new PicovoiceException(e);
+        } finally {
+            discardBeforeNanos = SystemClock.elapsedRealtimeNanos();
+            for (Engine engine : engines.values()) {
+                engine.requestReset();
+            }
+        }
+    }
+
+    /**
+     * Stops recording and releases the resources of every instance. Each instance is released on
+     * its worker thread once it has finished the frame it is processing.
+     */
+    public void delete() {
+        if (isDeleted) {
+            return;
+        }
+        isDeleted = true;
+        try {
+            stop();
+        } catch (PicovoiceException e) {
+            reportError(e);
+        }
+        for (final Engine engine : engines.values()) {
+            engine.handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    engine.picovoice.delete();
+                }
+            });
+        }
+        for (HandlerThread worker : workers) {
+            worker.quitSafely();
+        }
+    }
+
+    /**
+     * Getter for number of audio samples per frame.
+     *
+     * @return Frame length.
+     */
+    public int getFrameLength() {
+        return frameLength;
+    }
+
+    /**
+     * Getter for audio sample rate accepted by Picovoice.
+     *
+     * @return Sample rate.
+     */
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Getter for the names of the instances, in the order they were added.
+     *
+     * @return Instance names.
+     */
+    public List<String> getEngineNames() {
+        return new ArrayList<>(engines.keySet());
+    }
+
+    /**
+     * Getter for how far an instance is behind capture: the time between the capture of the last
+     * processed frame and the end of its processing.
+     *
+     * @param engineName Name of the instance.
+     * @return Processing lag in nanoseconds.
+     * @throws PicovoiceInvalidArgumentException if there is no instance with the given name.
+     */
+    public long getLagNanos(String engineName) throws PicovoiceInvalidArgumentException {
+        return getEngine(engineName).lagNanos;
+    }
+
+    /**
+     * Getter for the number of captured frames queued for an instance and not processed yet.
+     *
+     * @param engineName Name of the instance.
+     * @return Number of queued frames.
+     * @throws PicovoiceInvalidArgumentException if there is no instance with the given name.
+     */
+    public int getNumQueuedFrames(String engineName) throws PicovoiceInvalidArgumentException {
+        return getEngine(engineName).frameBuffer.size();
+    }
+
+    /**
+     * Getter for the number of frames an instance dropped because it fell behind capture.
+     *
+     * @param engineName Name of the instance.
+     * @return Number of dropped frames.
+     * @throws PicovoiceInvalidArgumentException if there is no instance with the given name.
+     */
+    public long getNumDroppedFrames(String engineName) throws PicovoiceInvalidArgumentException {
+        return getEngine(engineName).frameBuffer.getNumDroppedFrames();
+    }
+
+    private Engine getEngine(String engineName) throws PicovoiceInvalidArgumentException {
+        final Engine engine = engines.get(engineName);
+        if (engine == null) {
+            throw new PicovoiceInvalidArgumentException(
+                    String.format("No Picovoice instance named '%s'", engineName));
+        }
+        return engine;
+    }
+
+    /**
+     * Builder for creating an instance of MultiPicovoiceManager.
+     */
+    public static class Builder {
+        private final Map<String, Picovoice.Builder> picovoiceBuilders = new LinkedHashMap<>();
+        private int numWorkers = 0;
+        private int workerPriority = Process.THREAD_PRIORITY_URGENT_AUDIO;
+        private int queueCapacity = 16;
+        private PicovoiceManager.OverrunPolicy overrunPolicy = PicovoiceManager.OverrunPolicy.DROP_OLDEST;
+        private MultiPicovoiceEventCallback eventCallback = null;
+        private Executor eventExecutor = null;
+        private PicovoiceManagerErrorCallback processErrorCallback = null;
+
+        /**
+         * Adds a Picovoice instance.
+         *
+         * @param engineName       Unique name reported with the instance's events.
+         * @param picovoiceBuilder Configured builder of the instance. Its wake word and inference
+         *                         callbacks are replaced by the manager's event callback.
+         */
+        public MultiPicovoiceManager.Builder addPicovoice(String engineName, Picovoice.Builder picovoiceBuilder) {
+            this.picovoiceBuilders.put(engineName, picovoiceBuilder);
+            return this;
+        }
+
+        /**
+         * Setter for the number of worker threads.
+         *
+         * @param numWorkers Number of threads processing the instances. Defaults to the smaller of the
+         *                   number of instances and the number of available processors.
+         */
+        public MultiPicovoiceManager.Builder setNumWorkers(int numWorkers) {
+            this.numWorkers = numWorkers;
+            return this;
+        }
+
+        /**
+         * Setter for the priority of the worker threads.
+         *
+         * @param workerPriority Linux thread priority as used by ${@link Process}. Defaults to
+         *                       ${@link Process#THREAD_PRIORITY_URGENT_AUDIO}.
+         */
+        public MultiPicovoiceManager.Builder setWorkerPriority(int workerPriority) {
+            this.workerPriority = workerPriority;
+            return this;
+        }
+
+        /**
+         * Setter for the capacity of each instance's frame queue.
+         *
+         * @param queueCapacity Number of frames that can be queued per instance. Defaults to 16.
+         */
+        public MultiPicovoiceManager.Builder setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * Setter for the queue overrun policy.
+         *
+         * @param overrunPolicy What to drop when an instance's queue is full. Defaults to
+         *                      ${@link PicovoiceManager.OverrunPolicy#DROP_OLDEST}.
+         */
+        public MultiPicovoiceManager.Builder setOverrunPolicy(PicovoiceManager.OverrunPolicy overrunPolicy) {
+            this.overrunPolicy = overrunPolicy;
+            return this;
+        }
+
+        /**
+         * Setter for the merged event callback.
+         *
+         * @param eventCallback User-defined callback invoked upon wake word detection and inference
+         *                      completion of any instance.
+         */
+        public MultiPicovoiceManager.Builder setEventCallback(MultiPicovoiceEventCallback eventCallback) {
+            this.eventCallback = eventCallback;
+            return this;
+        }
+
+        /**
+         * Setter for the executor events are delivered on.
+         *
+         * @param eventExecutor Executor running the event callback. Defaults to the main thread.
+         */
+        public MultiPicovoiceManager.Builder setEventExecutor(Executor eventExecutor) {
+            this.eventExecutor = eventExecutor;
+            return this;
+        }
+
+        /**
+         * Setter for error callback.
+         *
+         * @param processErrorCallback User-defined callback invoked when an error is encountered while
+         *                             processing audio.
+         */
+        public MultiPicovoiceManager.Builder setProcessErrorCallback(
+                PicovoiceManagerErrorCallback processErrorCallback) {
+            this.processErrorCallback = processErrorCallback;
+            return this;
+        }
+
+        /**
+         * Validates properties and creates an instance of the MultiPicovoiceManager.
+         *
+         * @param appContext Android app context (for extracting Picovoice resources)
+         * @return An instance of MultiPicovoiceManager
+         * @throws PicovoiceException if an instance cannot be created or the instances are incompatible.
+         */
+        public MultiPicovoiceManager build(Context appContext) throws PicovoiceException {
+            if (picovoiceBuilders.isEmpty()) {
+                throw new PicovoiceInvalidArgumentException("At least one Picovoice instance is required");
+            }
+            if (queueCapacity <= 0) {
+                throw new PicovoiceInvalidArgumentException(String.format(
+                        "Queue capacity must be a positive number. Received %d.", queueCapacity));
+            }
+            if (overrunPolicy == null) {
+                throw new PicovoiceInvalidArgumentException("Overrun policy is required");
+            }
+
+            final Map<String, Engine> engines = new LinkedHashMap<>();
+            try {
+                for (Map.Entry<String, Picovoice.Builder> entry : picovoiceBuilders.entrySet()) {
+                    // events are raised inline on the worker thread and then handed to the event executor
+                    final Engine engine = new Engine(entry.getKey());
+                    engine.picovoice = entry.getValue()
+                            .setCallbackExecutor(Picovoice.DIRECT_EXECUTOR)
+                            .setWakeWordCallback(new PicovoiceWakeWordCallback() {
+                                @Override
+                                public void invoke() {
+                                    engine.onEvent(MultiPicovoiceEvent.Type.WAKE_WORD, null);
+                                }
+                            })
+                            .setInferenceCallback(new PicovoiceInferenceCallback() {
+                                @Override
+                                public void invoke(RhinoInference inference) {
+                                    engine.onEvent(MultiPicovoiceEvent.Type.INFERENCE, inference);
+                                }
+                            })
+                            .build(appContext);
+                    engines.put(engine.name, engine);
+                }
+
+                final Engine first = engines.values().iterator().next();
+                for (Engine engine : engines.values()) {
+                    if (engine.picovoice.getFrameLength() != first.picovoice.getFrameLength() ||
+                            engine.picovoice.getSampleRate() != first.picovoice.getSampleRate()) {
+                        throw new PicovoiceInvalidArgumentException(String.format(
+                                "Picovoice instances '%s' and '%s' expect different audio formats",
+                                first.name,
+                                engine.name));
+                    }
+                }
+            } catch (PicovoiceException e) {
+                for (Engine engine : engines.values()) {
+                    engine.picovoice.delete();
+                }
+                throw e;
+            }
+
+            final int availableProcessors = Runtime.getRuntime().availableProcessors();
+            return new MultiPicovoiceManager(
+                    engines,
+                    numWorkers > 0 ? numWorkers : Math.max(1, Math.min(engines.size(), availableProcessors)),
+                    workerPriority,
+                    queueCapacity,
+                    overrunPolicy,
+                    eventCallback,
+                    eventExecutor != null ? eventExecutor : new Picovoice.HandlerExecutor(Looper.getMainLooper()),
+                    processErrorCallback);
+        }
+    }
+}
@@ -15,6 +15,15 @@ package ai.picovoice.picovoice;
 import android.content.Context;
 import android.os.Handler;
 import android.os.Looper;
+import android.util.Log;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 import ai.picovoice.porcupine.*;
 import ai.picovoice.rhino.*;
@@ -35,12 +44,46 @@ import ai.picovoice.rhino.*;
  * engine for intent inference.
  */
 public class Picovoice {
+
+    /**
+     * Executor that runs callbacks inline on the thread calling ${@link #process(short[])}. Callbacks
+     * are delivered without any thread hop, so they must return quickly.
+     */
+    public static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private static final float RHINO_LOAD_BUFFER_SEC = 3.0f;
+    private static final int MAX_PENDING_INFERENCES = 8;
+
     private final PicovoiceWakeWordCallback wakeWordCallback;
     private final PicovoiceInferenceCallback inferenceCallback;
     private Porcupine porcupine;
-    private Rhino rhino;
+    private volatile Rhino rhino;
     private boolean isWakeWordDetected = false;
-    private final Handler callbackHandler = new Handler(Looper.getMainLooper());
+    private final Executor callbackExecutor;
+    private final Runnable wakeWordRunnable;
+    private final Runnable inferenceRunnable;
+    private final RhinoInference[] pendingInferences = new RhinoInference[MAX_PENDING_INFERENCES];
+    private int pendingInferenceHead = 0;
+    private int numPendingInferences = 0;
+
+    private final Rhino.Builder rhinoBuilder;
+    private final Context appContext;
+    private final String rhinoVersion;
+    private final String contextInformation;
+    private final AtomicReference<Rhino> loadedRhino = new AtomicReference<>(null);
+    private volatile boolean isRhinoUnloadRequested = false;
+    private volatile boolean isRhinoLoading = false;
+    private volatile boolean isDeleted = false;
+    private volatile RhinoException rhinoLoadError = null;
+    private short[][] loadBuffer = null;
+    private int numLoadBufferFrames = 0;
+    private final ReentrantLock engineLock = new ReentrantLock();
+    private final BuildReport buildReport;
 
     /**
      * Private Constructor.
@@ -53,32 +96,105 @@ public class Picovoice {
      * @param inferenceCallback User-defined callback invoked upon completion of intent inference.
      *                          #{@link PicovoiceInferenceCallback} defines the interface of the
      *                          callback.
+     * @param callbackExecutor  Executor the callbacks are delivered on.
+     * @param rhinoBuilder      Builder used to recreate Rhino after ${@link #unloadRhino()}.
+     * @param appContext        Android app context used to recreate Rhino.
+     * @param buildReport       Time spent in each phase of creating the instance.
      */
     private Picovoice(
             Porcupine porcupine,
             PicovoiceWakeWordCallback wakeWordCallback,
             Rhino rhino,
-            PicovoiceInferenceCallback inferenceCallback) {
+            PicovoiceInferenceCallback inferenceCallback,
+            Executor callbackExecutor,
+            Rhino.Builder rhinoBuilder,
+            Context appContext,
+            BuildReport buildReport) throws RhinoException {
         this.porcupine = porcupine;
+        this.buildReport = buildReport;
         this.wakeWordCallback = wakeWordCallback;
         this.rhino = rhino;
         this.inferenceCallback = inferenceCallback;
+        this.callbackExecutor = callbackExecutor;
+        this.rhinoBuilder = rhinoBuilder;
+        this.appContext = appContext;
+        this.rhinoVersion = rhino.getVersion();
+        this.contextInformation = rhino.getContextInformation();
+
+        // callbacks are posted through runnables created once, so processing does not allocate per event
+        this.wakeWordRunnable = new Runnable() {
+            @Override
+            public void run() {
+                wakeWordCallback.invoke();
+            }
+        };
+        this.inferenceRunnable = new Runnable() {
+            @Override
+            public void run() {
+                final RhinoInference inference = takePendingInference();
+                if (inference != null) {
+                    inferenceCallback.invoke(inference);
+                }
+            }
+        };
     }
 
     /**
      * Releases resources acquired by Picovoice.
      */
     public void delete() {
-        if (porcupine != null) {
-            porcupine.delete();
-            porcupine = null;
+        isDeleted = true;
+        engineLock.lock();
+        try {
+            if (porcupine != null) {
+                porcupine.delete();
+                porcupine = null;
+            }
+            if (rhino != null) {
+                rhino.delete();
+                rhino = null;
+            }
+            final Rhino loaded = loadedRhino.getAndSet(null);
+            if (loaded != null) {
+                loaded.delete();
+            }
+        } finally {
+            engineLock.unlock();
         }
-        if (rhino != null) {
-            rhino.delete();
-            rhino = null;
+    }
+
+    /**
+     * Releases the Rhino instance to reduce memory use, e.g. from
+     * ${@link android.content.ComponentCallbacks2#onTrimMemory(int)}. Wake word detection continues.
+     * If no frame is being processed and no command is in progress, e.g. while audio capture is
+     * paused or stopped, the instance is released right away. Otherwise it is released by the next
+     * call to ${@link #process(short[])} outside of a command. When the wake word is detected again,
+     * Rhino is recreated on a background thread and the audio captured in the meantime (up to three
+     * seconds) is buffered and processed once it is ready. It is safe to call this method from any
+     * thread.
+     */
+    public void unloadRhino() {
+        isRhinoUnloadRequested = true;
+        if (engineLock.tryLock()) {
+            try {
+                if (!isDeleted && !isWakeWordDetected) {
+                    releaseRhino();
+                }
+            } finally {
+                engineLock.unlock();
+            }
         }
     }
 
+    /**
+     * Getter for whether Rhino is currently loaded.
+     *
+     * @return Whether Rhino is loaded.
+     */
+    public boolean getIsRhinoLoaded() {
+        return rhino != null;
+    }
+
     /**
      * Processes a frame of the incoming audio stream. Upon detection of wake word and completion
      * of follow-on command inference invokes user-defined callbacks.
@@ -90,7 +206,7 @@ public class Picovoice {
      * @throws PicovoiceException if there is an error while processing the audio frame.
      */
     public void process(short[] pcm) throws PicovoiceException {
-        if (porcupine == null || rhino == null) {
+        if (porcupine == null) {
             throw new PicovoiceInvalidStateException("Cannot process frame - resources have been released");
         }
 
@@ -104,34 +220,165 @@ public class Picovoice {
                         "Received frame of size %d.", getFrameLength(), pcm.length));
         }
 
+        engineLock.lock();
         try {
-            if (!isWakeWordDetected) {
-                isWakeWordDetected = (porcupine.process(pcm) == 0);
-                if (isWakeWordDetected && wakeWordCallback != null) {
-                    callbackHandler.post(new Runnable() {
-                        @Override
-                        public void run() {
-                            wakeWordCallback.invoke();
+            if (porcupine == null) {
+                throw new PicovoiceInvalidStateException("Cannot process frame - resources have been released");
+            }
+            if (!isWakeWordDetected && isRhinoUnloadRequested) {
+                releaseRhino();
+            }
+            if (isWakeWordDetected && rhino == null && !takeLoadedRhino(pcm)) {
+                return;
+            }
+            processFrame(pcm);
+        } catch (PorcupineException | RhinoException e) {
+            throw mapToPicovoiceException(e);
+        } finally {
+            engineLock.unlock();
+        }
+    }
+
+    private void processFrame(short[] pcm) throws PorcupineException, RhinoException {
+        if (isWakeWordDetected) {
+            processCommand(pcm);
+            return;
+        }
+        isWakeWordDetected = (porcupine.process(pcm) == 0);
+        if (isWakeWordDetected) {
+            if (rhino == null) {
+                startRhinoLoad();
+            }
+            if (wakeWordCallback != null) {
+                callbackExecutor.execute(wakeWordRunnable);
+            }
+        }
+    }
+
+    private void processCommand(short[] pcm) throws RhinoException {
+        if (rhino.process(pcm)) {
+            if (inferenceCallback != null) {
+                putPendingInference(rhino.getInference());
+                callbackExecutor.execute(inferenceRunnable);
+            }
+            isWakeWordDetected = false;
+        }
+    }
+
+    /**
+     * Queues an inference for ${@link #inferenceRunnable}. Inferences are handed over through a fixed
+     * ring rather than captured by a new runnable, so delivering them does not allocate. If the
+     * callback executor falls so far behind that the ring is full, the oldest inference is dropped.
+     */
+    private void putPendingInference(RhinoInference inference) {
+        synchronized (pendingInferences) {
+            if (numPendingInferences == pendingInferences.length) {
+                Log.w("Picovoice", "Inference callbacks are falling behind, dropping the oldest inference");
+                pendingInferences[pendingInferenceHead] = null;
+                pendingInferenceHead = (pendingInferenceHead + 1) % pendingInferences.length;
+                numPendingInferences--;
+            }
+            pendingInferences[(pendingInferenceHead + numPendingInferences) % pendingInferences.length] = inference;
+            numPendingInferences++;
+        }
+    }
+
+    private RhinoInference takePendingInference() {
+        synchronized (pendingInferences) {
+            if (numPendingInferences == 0) {
+                return null;
+            }
+            final RhinoInference inference = pendingInferences[pendingInferenceHead];
+            pendingInferences[pendingInferenceHead] = null;
+            pendingInferenceHead = (pendingInferenceHead + 1) % pendingInferences.length;
+            numPendingInferences--;
+            return inference;
+        }
+    }
+
+    private void releaseRhino() {
+        isRhinoUnloadRequested = false;
+        final Rhino loaded = loadedRhino.getAndSet(null);
+        if (loaded != null) {
+            loaded.delete();
+        }
+        if (rhino == null) {
+            return;
+        }
+        rhino.delete();
+        rhino = null;
+        if (loadBuffer == null) {
+            final int frameLength = porcupine.getFrameLength();
+            final int capacity = (int) Math.ceil(RHINO_LOAD_BUFFER_SEC * porcupine.getSampleRate() / frameLength);
+            loadBuffer = new short[capacity][frameLength];
+        }
+    }
+
+    private void startRhinoLoad() {
+        numLoadBufferFrames = 0;
+        if (isRhinoLoading || loadedRhino.get() != null) {
+            return;
+        }
+        isRhinoLoading = true;
+        rhinoLoadError = null;
+        RhinoLoader.EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    loadedRhino.set(rhinoBuilder.build(appContext));
+                    if (isDeleted) {
+                        final Rhino loaded = loadedRhino.getAndSet(null);
+                        if (loaded != null) {
+                            loaded.delete();
                         }
-                    });
-                }
-            } else {
-                if (rhino.process(pcm)) {
-                    if (inferenceCallback != null) {
-                        final RhinoInference inference = rhino.getInference();
-                        callbackHandler.post(new Runnable() {
-                            @Override
-                            public void run() {
-                                inferenceCallback.invoke(inference);
-                            }
-                        });
                     }
-                    isWakeWordDetected = false;
+                } catch (RhinoException e) {
+                    rhinoLoadError = e;
+                } catch (RuntimeException e) {
+                    rhinoLoadError = new RhinoRuntimeException(e.getMessage());
+                } finally {
+                    isRhinoLoading = false;
                 }
             }
-        } catch (PorcupineException | RhinoException e) {
-            throw mapToPicovoiceException(e);
+        });
+    }
+
+    /**
+     * Buffers a command frame while Rhino is being recreated. Once it is ready, installs it and
+     * replays the buffered audio; audio following the end of the command goes back to wake word
+     * detection. If Rhino is not ready before the buffer fills up, the command is abandoned rather
+     * than inferred from audio with a gap in it.
+     *
+     * @return Whether Rhino is ready and the current frame still needs to be processed. Returns false
+     *         if the frame was buffered.
+     */
+    private boolean takeLoadedRhino(short[] pcm) throws PicovoiceException, PorcupineException, RhinoException {
+        final Rhino loaded = loadedRhino.getAndSet(null);
+        if (loaded == null) {
+            final RhinoException error = rhinoLoadError;
+            if (error != null) {
+                rhinoLoadError = null;
+                isWakeWordDetected = false;
+                throw error;
+            }
+            if (numLoadBufferFrames == loadBuffer.length) {
+                numLoadBufferFrames = 0;
+                isWakeWordDetected = false;
+                throw new PicovoiceRuntimeException(String.format(
+                        "Rhino was not reloaded within %.1f seconds of the wake word. The command was discarded.",
+                        RHINO_LOAD_BUFFER_SEC));
+            }
+            System.arraycopy(pcm, 0, loadBuffer[numLoadBufferFrames++], 0, pcm.length);
+            return false;
+        }
+
+        rhino = loaded;
+        final int numBufferedFrames = numLoadBufferFrames;
+        numLoadBufferFrames = 0;
+        for (int i = 0; i < numBufferedFrames; i++) {
+            processFrame(loadBuffer[i]);
         }
+        return true;
     }
 
     /**
@@ -141,14 +388,29 @@ public class Picovoice {
      * @throws PicovoiceException if reset fails.
      */
     public void reset() throws PicovoiceException {
+        engineLock.lock();
         try {
             this.isWakeWordDetected = false;
-            this.rhino.reset();
+            this.numLoadBufferFrames = 0;
+            if (this.rhino != null) {
+                this.rhino.reset();
+            }
         } catch (RhinoException e) {
             throw mapToPicovoiceException(e);
+        } finally {
+            engineLock.unlock();
         }
     }
 
+    /**
+     * Getter for the time spent in each phase of creating this instance.
+     *
+     * @return Build report.
+     */
+    public BuildReport getBuildReport() {
+        return buildReport;
+    }
+
     /**
      * Getter for version.
      *
@@ -182,11 +444,7 @@ public class Picovoice {
      * @return Rhino context
      */
     public String getContextInformation() throws PicovoiceException {
-        try {
-            return rhino != null ? rhino.getContextInformation() : "";
-        } catch (RhinoException e) {
-            throw mapToPicovoiceException(e);
-        }
+        return porcupine != null ? contextInformation : "";
     }
 
     /**
@@ -204,7 +462,7 @@ public class Picovoice {
      * @return Rhino version
      */
     public String getRhinoVersion() {
-        return rhino != null ? rhino.getVersion() : "";
+        return porcupine != null ? rhinoVersion : "";
     }
 
     /**
@@ -244,6 +502,44 @@ public class Picovoice {
         }
     }
 
+    /**
+     * Single background thread shared by all instances for recreating Rhino. The thread exits when
+     * it has been idle for a while.
+     */
+    private static final class RhinoLoader {
+        static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(
+                0,
+                1,
+                30,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        final Thread thread = new Thread(runnable, "PicovoiceRhinoLoader");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+
+    /**
+     * Executor that posts callbacks to a ${@link Looper}. Posting reuses the looper's pooled messages,
+     * so delivering a callback does not allocate.
+     */
+    static final class HandlerExecutor implements Executor {
+        private final Handler handler;
+
+        HandlerExecutor(Looper looper) {
+            this.handler = new Handler(looper);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            handler.post(command);
+        }
+    }
+
     /**
      * Builder for creating an instance of Picovoice with a mixture of default arguments.
      */
@@ -262,6 +558,8 @@ public class Picovoice {
         private boolean requireEndpoint = true;
         private PicovoiceInferenceCallback inferenceCallback = null;
 
+        private Executor callbackExecutor = null;
+
         /**
          * Setter for AccessKey.
          *
@@ -387,6 +685,29 @@ public class Picovoice {
             return this;
         }
 
+        /**
+         * Setter for the executor wake word and inference callbacks are delivered on.
+         *
+         * @param callbackExecutor Executor running the callbacks. Use ${@link #DIRECT_EXECUTOR} to
+         *                         invoke them inline on the processing thread. Defaults to the main
+         *                         thread.
+         */
+        public Picovoice.Builder setCallbackExecutor(Executor callbackExecutor) {
+            this.callbackExecutor = callbackExecutor;
+            return this;
+        }
+
+        /**
+         * Setter for the looper wake word and inference callbacks are posted to.
+         *
+         * @param callbackLooper Looper of the thread running the callbacks. Defaults to the main
+         *                       looper.
+         */
+        public Picovoice.Builder setCallbackLooper(Looper callbackLooper) {
+            this.callbackExecutor = callbackLooper != null ? new HandlerExecutor(callbackLooper) : null;
+            return this;
+        }
+
         /**
          * Validates properties and creates an instance of the Porcupine wake word engine.
          *
@@ -395,6 +716,8 @@ public class Picovoice {
          * @throws PicovoiceException if there is an error while initializing Porcupine.
          */
         public Picovoice build(Context appContext) throws PicovoiceException {
+            final BuildReport buildReport = new BuildReport();
+            long lapStartNanos = System.nanoTime();
             try {
                 Porcupine porcupine = new Porcupine.Builder()
                         .setAccessKey(accessKey)
@@ -402,6 +725,7 @@ public class Picovoice {
                         .setKeywordPath(keywordPath)
                         .setSensitivity(porcupineSensitivity)
                         .build(appContext);
+                lapStartNanos = buildReport.lap(BuildReport.Phase.PORCUPINE_INIT, lapStartNanos);
 
                 if (!porcupine.getVersion().startsWith("3.0.")) {
                     final String message = String.format(
@@ -409,15 +733,17 @@ public class Picovoice {
                             porcupine.getVersion());
                     throw new PicovoiceRuntimeException(message);
                 }
+                lapStartNanos = buildReport.lap(BuildReport.Phase.VERSION_CHECKS, lapStartNanos);
 
-                Rhino rhino = new Rhino.Builder()
+                Rhino.Builder rhinoBuilder = new Rhino.Builder()
                         .setAccessKey(accessKey)
                         .setModelPath(rhinoModelPath)
                         .setContextPath(contextPath)
                         .setSensitivity(rhinoSensitivity)
                         .setEndpointDurationSec(endpointDurationSec)
-                        .setRequireEndpoint(requireEndpoint)
-                        .build(appContext);
+                        .setRequireEndpoint(requireEndpoint);
+                Rhino rhino = rhinoBuilder.build(appContext);
+                lapStartNanos = buildReport.lap(BuildReport.Phase.RHINO_INIT, lapStartNanos);
 
                 if (!rhino.getVersion().startsWith("3.0.")) {
                     final String message = String.format(
@@ -425,12 +751,22 @@ public class Picovoice {
                             rhino.getVersion());
                     throw new PicovoiceRuntimeException(message);
                 }
+                lapStartNanos = buildReport.lap(BuildReport.Phase.VERSION_CHECKS, lapStartNanos);
 
-                return new Picovoice(
+                final Picovoice picovoice = new Picovoice(
                         porcupine,
                         wakeWordCallback,
                         rhino,
-                        inferenceCallback);
+                        inferenceCallback,
+                        callbackExecutor != null ?
+                                callbackExecutor :
+                                new HandlerExecutor(Looper.getMainLooper()),
+                        rhinoBuilder,
+                        appContext.getApplicationContext() != null ? appContext.getApplicationContext() : appContext,
+                        buildReport);
+                buildReport.lap(BuildReport.Phase.CONFIGURE, lapStartNanos);
+                Log.d("Picovoice", buildReport.toString());
+                return picovoice;
             } catch (PorcupineException | RhinoException e) {
                 throw mapToPicovoiceException(e);
             }
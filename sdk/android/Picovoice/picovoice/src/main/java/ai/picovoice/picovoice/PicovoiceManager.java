@@ -12,9 +12,19 @@
 
 package ai.picovoice.picovoice;
 
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
 import android.util.Log;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import ai.picovoice.android.voiceprocessor.VoiceProcessor;
 import ai.picovoice.android.voiceprocessor.VoiceProcessorErrorListener;
 import ai.picovoice.android.voiceprocessor.VoiceProcessorException;
@@ -26,39 +36,124 @@ import ai.picovoice.android.voiceprocessor.VoiceProcessorFrameListener;
  * of the wake word or completion of in voice command inference.
  */
 public class PicovoiceManager {
+
+    /**
+     * What to do with a captured frame when the processing thread has fallen behind and the frame
+     * buffer is full.
+     */
+    public enum OverrunPolicy {
+        /**
+         * Drops the incoming frame and keeps the queued audio.
+         */
+        DROP_NEWEST,
+        /**
+         * Drops the oldest queued frame to make room for the incoming one, keeping latency bounded.
+         */
+        DROP_OLDEST
+    }
+
+    private static final int STATE_IDLE = 0;
+    private static final int STATE_STARTING = 1;
+    private static final int STATE_LISTENING = 2;
+    private static final int STATE_STOPPING = 3;
+    private static final int STATE_PAUSED = 4;
+    private static final int STATE_PAUSED_DETACHED = 5;
+    private static final int STATE_DELETED = 6;
+
     private final VoiceProcessor voiceProcessor;
     private final VoiceProcessorFrameListener vpFrameListener;
     private final VoiceProcessorErrorListener vpErrorListener;
-    private boolean isListening;
+    private final PicovoiceManagerErrorCallback processErrorCallback;
+    private final AtomicInteger state = new AtomicInteger(STATE_IDLE);
+    private final AtomicInteger numFramesInFlight = new AtomicInteger(0);
+    private final AtomicInteger numInlineFrameWaiters = new AtomicInteger(0);
+    private final Object inlineFramesLock = new Object();
+    private volatile Thread captureThread = null;
+
+    private final HandlerThread processingThread;
+    private final Handler processingHandler;
+    private final FrameRingBuffer frameBuffer;
+    private final AtomicBoolean isDrainScheduled = new AtomicBoolean(false);
+    private final Runnable drainRunnable;
 
-    private Picovoice picovoice = null;
+    private final Context appContext;
+    private final ComponentCallbacks2 memoryCallbacks;
+
+    private volatile Picovoice picovoice;
 
     /**
      * Private constructor.
      *
-     * @param picovoice            An instance of the Picovoice engine.
-     * @param processErrorCallback A callback that reports errors encountered while processing audio.
+     * @param picovoice                 An instance of the Picovoice engine.
+     * @param processErrorCallback      A callback that reports errors encountered while processing audio.
+     * @param useProcessingThread       Whether frames are processed on a dedicated thread instead of the
+     *                                  capture thread.
+     * @param processingThreadPriority  Linux priority of the processing thread.
+     * @param frameBufferCapacity       Number of frames buffered between capture and processing threads.
+     * @param overrunPolicy             What to drop when the frame buffer is full.
+     * @param appContext                Android app context.
+     * @param unloadRhinoOnTrimMemory   Whether Rhino is released when the system is low on memory.
      */
     private PicovoiceManager(
             final Picovoice picovoice,
-            final PicovoiceManagerErrorCallback processErrorCallback) {
+            final PicovoiceManagerErrorCallback processErrorCallback,
+            boolean useProcessingThread,
+            int processingThreadPriority,
+            int frameBufferCapacity,
+            OverrunPolicy overrunPolicy,
+            Context appContext,
+            boolean unloadRhinoOnTrimMemory) {
         this.picovoice = picovoice;
+        this.processErrorCallback = processErrorCallback;
         this.voiceProcessor = VoiceProcessor.getInstance();
 
+        if (useProcessingThread) {
+            this.processingThread = new HandlerThread("PicovoiceProcessing", processingThreadPriority);
+            this.processingThread.start();
+            this.processingHandler = new Handler(processingThread.getLooper());
+            this.frameBuffer = new FrameRingBuffer(frameBufferCapacity, picovoice.getFrameLength(), overrunPolicy);
+            final short[] processingFrame = new short[picovoice.getFrameLength()];
+            this.drainRunnable = new Runnable() {
+                @Override
+                public void run() {
+                    isDrainScheduled.set(false);
+                    while (frameBuffer.poll(processingFrame)) {
+                        processFrame(processingFrame);
+                    }
+                }
+            };
+        } else {
+            this.processingThread = null;
+            this.processingHandler = null;
+            this.frameBuffer = null;
+            this.drainRunnable = null;
+        }
+
         this.vpFrameListener = new VoiceProcessorFrameListener() {
             @Override
             public void onFrame(short[] frame) {
-                synchronized (voiceProcessor) {
-                    if (picovoice == null || !isListening) {
-                        return;
+                if (state.get() != STATE_LISTENING) {
+                    return;
+                }
+                if (frameBuffer != null) {
+                    frameBuffer.offer(frame);
+                    if (isDrainScheduled.compareAndSet(false, true)) {
+                        processingHandler.post(drainRunnable);
                     }
-                    try {
-                        picovoice.process(frame);
-                    } catch (PicovoiceException e) {
-                        if (processErrorCallback != null) {
-                            processErrorCallback.invoke(new PicovoiceException(e));
-                        } else {
-                            Log.e("PicovoiceManager", e.toString());
+                    return;
+                }
+
+                // the count lets delete() and stop() wait for an inline call without a lock on this thread
+                numFramesInFlight.incrementAndGet();
+                captureThread = Thread.currentThread();
+                try {
+                    if (state.get() == STATE_LISTENING) {
+                        processFrame(frame);
+                    }
+                } finally {
+                    if (numFramesInFlight.decrementAndGet() == 0 && numInlineFrameWaiters.get() > 0) {
+                        synchronized (inlineFramesLock) {
+                            inlineFramesLock.notifyAll();
                         }
                     }
                 }
@@ -67,22 +162,136 @@ public class PicovoiceManager {
         this.vpErrorListener = new VoiceProcessorErrorListener() {
             @Override
             public void onError(VoiceProcessorException error) {
-                if (processErrorCallback != null) {
-                    processErrorCallback.invoke(new PicovoiceException(error));
-                } else {
-                    Log.e("PicovoiceManager", error.toString());
-                }
+                reportError(new PicovoiceException(error));
             }
         };
+
+        if (unloadRhinoOnTrimMemory) {
+            this.appContext = appContext.getApplicationContext() != null ?
+                    appContext.getApplicationContext() :
+                    appContext;
+            this.memoryCallbacks = new ComponentCallbacks2() {
+                @Override
+                public void onTrimMemory(int level) {
+                    if (level >= TRIM_MEMORY_BACKGROUND ||
+                            level == TRIM_MEMORY_RUNNING_LOW ||
+                            level == TRIM_MEMORY_RUNNING_CRITICAL) {
+                        unloadRhino();
+                    }
+                }
+
+                @Override
+                public void onLowMemory() {
+                    unloadRhino();
+                }
+
+                @Override
+                public void onConfigurationChanged(Configuration newConfig) { }
+            };
+            this.appContext.registerComponentCallbacks(memoryCallbacks);
+        } else {
+            this.appContext = null;
+            this.memoryCallbacks = null;
+        }
+    }
+
+    private void unloadRhino() {
+        final Picovoice picovoice = this.picovoice;
+        if (picovoice != null) {
+            picovoice.unloadRhino();
+        }
+    }
+
+    private void processFrame(short[] frame) {
+        final Picovoice picovoice = this.picovoice;
+        if (picovoice == null) {
+            return;
+        }
+        try {
+            picovoice.process(frame);
+        } catch (PicovoiceException e) {
+            reportError(new PicovoiceException(e));
+        }
+    }
+
+    private void reportError(PicovoiceException e) {
+        if (processErrorCallback != null) {
+            processErrorCallback.invoke(e);
+        } else {
+            Log.e("PicovoiceManager", e.toString());
+        }
+    }
+
+    private void awaitInlineFrames() {
+        // the error callback runs on the capture thread and may itself call stop() or delete()
+        if (Thread.currentThread() == captureThread) {
+            return;
+        }
+        // waiters register before checking the count and the capture thread checks for waiters after
+        // decrementing it, so either the waiter sees no frame in flight or the capture thread wakes it
+        numInlineFrameWaiters.incrementAndGet();
+        boolean isInterrupted = false;
+        try {
+            synchronized (inlineFramesLock) {
+                while (numFramesInFlight.get() > 0) {
+                    try {
+                        inlineFramesLock.wait();
+                    } catch (InterruptedException e) {
+                        isInterrupted = true;
+                    }
+                }
+            }
+        } finally {
+            numInlineFrameWaiters.decrementAndGet();
+        }
+        if (isInterrupted) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     /**
-     * Releases resources acquired by Picovoice.
+     * Releases resources acquired by Picovoice. If audio is still being recorded it is stopped first.
      */
     public void delete() {
+        int current = state.get();
+        while (current != STATE_DELETED && !state.compareAndSet(current, STATE_DELETED)) {
+            current = state.get();
+        }
+        if (current == STATE_DELETED) {
+            return;
+        }
+        if (memoryCallbacks != null) {
+            appContext.unregisterComponentCallbacks(memoryCallbacks);
+        }
+        if (current == STATE_LISTENING || current == STATE_PAUSED) {
+            try {
+                detachFromVoiceProcessor();
+            } catch (PicovoiceException e) {
+                reportError(e);
+            }
+        }
+
+        if (processingThread != null) {
+            // release the engine on the thread that uses it, after any frames still being processed
+            processingHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    frameBuffer.clear();
+                    releasePicovoice();
+                }
+            });
+            processingThread.quitSafely();
+        } else {
+            awaitInlineFrames();
+            releasePicovoice();
+        }
+    }
+
+    private void releasePicovoice() {
+        final Picovoice picovoice = this.picovoice;
+        this.picovoice = null;
         if (picovoice != null) {
             picovoice.delete();
-            picovoice = null;
         }
     }
 
@@ -90,63 +299,271 @@ public class PicovoiceManager {
      * Resets the internal state of PicovoiceManager. It can be called to
      * return to the wake word detection state before an inference has completed.
      *
+     * <p>When frames are processed on a dedicated thread (see
+     * ${@link Builder#setUseProcessingThread(boolean)}), the reset is queued behind the frames already
+     * captured and this method returns before it takes effect. Errors are then reported to the
+     * process error callback.
+     *
      * @throws PicovoiceException if an error is encountered while attempting to stop.
      */
     public void reset() throws PicovoiceException {
-        if (picovoice == null) {
+        if (state.get() == STATE_DELETED || picovoice == null) {
             throw new PicovoiceInvalidStateException("Cannot reset - resources have been released");
         }
 
-        picovoice.reset();
+        if (processingThread != null) {
+            processingHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    resetPicovoice();
+                }
+            });
+        } else {
+            picovoice.reset();
+        }
+    }
+
+    private void resetPicovoice() {
+        final Picovoice picovoice = this.picovoice;
+        if (picovoice == null) {
+            return;
+        }
+        try {
+            picovoice.reset();
+        } catch (PicovoiceException e) {
+            reportError(e);
+        }
     }
 
     /**
-     * Starts recording audio from the microphone and processes it using ${@link Picovoice}.
+     * Starts recording audio from the microphone and processes it using ${@link Picovoice}. If the
+     * manager is paused, it is resumed.
      *
      * @throws PicovoiceException if an error is encountered while attempting to start.
      */
     public void start() throws PicovoiceException {
-        if (picovoice == null) {
-            throw new PicovoiceInvalidStateException("Cannot start - resources have been released");
+        while (true) {
+            final int current = state.get();
+            switch (current) {
+                case STATE_DELETED:
+                    throw new PicovoiceInvalidStateException("Cannot start - resources have been released");
+                case STATE_STARTING:
+                case STATE_LISTENING:
+                    return;
+                case STATE_STOPPING:
+                    throw new PicovoiceInvalidStateException("Cannot start - PicovoiceManager is stopping");
+                case STATE_PAUSED:
+                case STATE_PAUSED_DETACHED:
+                    resume();
+                    return;
+                default:
+                    break;
+            }
+            if (state.compareAndSet(STATE_IDLE, STATE_STARTING)) {
+                break;
+            }
         }
 
-        if (!isListening) {
-            this.voiceProcessor.addFrameListener(vpFrameListener);
-            this.voiceProcessor.addErrorListener(vpErrorListener);
+        attachToVoiceProcessor(STATE_IDLE);
+    }
 
-            try {
-                voiceProcessor.start(picovoice.getFrameLength(), picovoice.getSampleRate());
-                isListening = true;
-            } catch (VoiceProcessorException e) {
-                throw new PicovoiceException(e);
+    /**
+     * Stops recording audio from the microphone and resets Picovoice.
+     *
+     * <p>When frames are processed on a dedicated thread (see
+     * ${@link Builder#setUseProcessingThread(boolean)}), frames still queued are discarded and the
+     * reset happens on that thread; this method returns before it takes effect.
+     *
+     * @throws PicovoiceException if an error is encountered while attempting to stop.
+     */
+    public void stop() throws PicovoiceException {
+        while (true) {
+            final int current = state.get();
+            if (current == STATE_DELETED) {
+                throw new PicovoiceInvalidStateException("Cannot stop - resources have been released");
+            }
+            if (current == STATE_PAUSED_DETACHED) {
+                if (state.compareAndSet(STATE_PAUSED_DETACHED, STATE_IDLE)) {
+                    break;
+                }
+                continue;
+            }
+            if (current != STATE_LISTENING && current != STATE_PAUSED) {
+                break;
+            }
+            if (state.compareAndSet(current, STATE_STOPPING)) {
+                try {
+                    detachFromVoiceProcessor();
+                } finally {
+                    state.compareAndSet(STATE_STOPPING, STATE_IDLE);
+                }
+                break;
             }
         }
+
+        resetEngine(true);
     }
 
     /**
-     * Stops recording audio from the microphone.
+     * Pauses processing while keeping the microphone and engines running, so that ${@link #resume()}
+     * takes effect immediately. Captured audio is discarded while paused.
      *
-     * @throws PicovoiceException if an error is encountered while attempting to stop.
+     * @throws PicovoiceException if an error is encountered while attempting to pause.
      */
-    public void stop() throws PicovoiceException {
-        if (picovoice == null) {
-            throw new PicovoiceInvalidStateException("Cannot stop - resources have been released");
+    public void pause() throws PicovoiceException {
+        pause(false);
+    }
+
+    /**
+     * Pauses processing while keeping the engines loaded.
+     *
+     * @param releaseMicrophone If true, the microphone is released (e.g. for the duration of a phone
+     *                          call) and reacquired on ${@link #resume()}. If false, recording continues
+     *                          and captured audio is discarded while paused.
+     * @throws PicovoiceException if an error is encountered while attempting to pause.
+     */
+    public void pause(boolean releaseMicrophone) throws PicovoiceException {
+        while (true) {
+            final int current = state.get();
+            switch (current) {
+                case STATE_DELETED:
+                    throw new PicovoiceInvalidStateException("Cannot pause - resources have been released");
+                case STATE_IDLE:
+                    throw new PicovoiceInvalidStateException("Cannot pause - PicovoiceManager is not started");
+                case STATE_STARTING:
+                case STATE_STOPPING:
+                    throw new PicovoiceInvalidStateException("Cannot pause - PicovoiceManager is starting or stopping");
+                case STATE_PAUSED_DETACHED:
+                    return;
+                case STATE_PAUSED:
+                    if (!releaseMicrophone) {
+                        return;
+                    }
+                    break;
+                default:
+                    break;
+            }
+
+            if (!releaseMicrophone) {
+                if (state.compareAndSet(STATE_LISTENING, STATE_PAUSED)) {
+                    return;
+                }
+            } else if (state.compareAndSet(current, STATE_STOPPING)) {
+                try {
+                    detachFromVoiceProcessor();
+                } finally {
+                    state.compareAndSet(STATE_STOPPING, STATE_PAUSED_DETACHED);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Resumes processing after ${@link #pause()}. Picovoice is reset, so it starts from wake word
+     * detection.
+     *
+     * @throws PicovoiceException if an error is encountered while attempting to resume.
+     */
+    public void resume() throws PicovoiceException {
+        while (true) {
+            final int current = state.get();
+            switch (current) {
+                case STATE_DELETED:
+                    throw new PicovoiceInvalidStateException("Cannot resume - resources have been released");
+                case STATE_IDLE:
+                    throw new PicovoiceInvalidStateException("Cannot resume - PicovoiceManager is not started");
+                case STATE_STOPPING:
+                    throw new PicovoiceInvalidStateException("Cannot resume - PicovoiceManager is stopping");
+                case STATE_STARTING:
+                case STATE_LISTENING:
+                    return;
+                default:
+                    break;
+            }
+
+            // audio from before the pause must not be combined with audio after it
+            resetEngine(false);
+            if (state.compareAndSet(STATE_PAUSED, STATE_LISTENING)) {
+                return;
+            }
+            if (state.compareAndSet(STATE_PAUSED_DETACHED, STATE_STARTING)) {
+                attachToVoiceProcessor(STATE_PAUSED_DETACHED);
+                return;
+            }
         }
+    }
 
-        if (isListening) {
+    /**
+     * Adds the listeners and starts the recorder. Must be called in the starting state; on failure
+     * the state returns to {@code previousState}.
+     */
+    private void attachToVoiceProcessor(int previousState) throws PicovoiceException {
+        final Picovoice picovoice = this.picovoice;
+        if (picovoice == null) {
+            state.compareAndSet(STATE_STARTING, previousState);
+            throw new PicovoiceInvalidStateException("Cannot start - resources have been released");
+        }
+        voiceProcessor.addFrameListener(vpFrameListener);
+        voiceProcessor.addErrorListener(vpErrorListener);
+        try {
+            voiceProcessor.start(picovoice.getFrameLength(), picovoice.getSampleRate());
+        } catch (VoiceProcessorException e) {
             voiceProcessor.removeErrorListener(vpErrorListener);
             voiceProcessor.removeFrameListener(vpFrameListener);
-            if (voiceProcessor.getNumFrameListeners() == 0) {
-                try {
-                    voiceProcessor.stop();
-                } catch (VoiceProcessorException e) {
-                    throw new PicovoiceException(e);
+            state.compareAndSet(STATE_STARTING, previousState);
+            throw new PicovoiceException(e);
+        }
+        if (!state.compareAndSet(STATE_STARTING, STATE_LISTENING)) {
+            // deleted while starting; delete() only detaches from a started recorder
+            detachFromVoiceProcessor();
+        }
+    }
+
+    /**
+     * Resets Picovoice once no frame is being processed, optionally discarding frames still queued
+     * for the processing thread.
+     */
+    private void resetEngine(final boolean discardQueuedFrames) throws PicovoiceException {
+        if (processingThread != null) {
+            processingHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (discardQueuedFrames) {
+                        frameBuffer.clear();
+                    }
+                    resetPicovoice();
                 }
+            });
+        } else {
+            awaitInlineFrames();
+            final Picovoice picovoice = this.picovoice;
+            if (picovoice != null) {
+                picovoice.reset();
+            }
+        }
+    }
+
+    private void detachFromVoiceProcessor() throws PicovoiceException {
+        voiceProcessor.removeErrorListener(vpErrorListener);
+        voiceProcessor.removeFrameListener(vpFrameListener);
+        if (voiceProcessor.getNumFrameListeners() == 0) {
+            try {
+                voiceProcessor.stop();
+            } catch (VoiceProcessorException e) {
+                throw new PicovoiceException(e);
             }
-            isListening = false;
         }
+    }
 
-        this.picovoice.reset();
+    /**
+     * Getter for the number of frames dropped because the processing thread fell behind capture.
+     * Always zero when frames are processed on the capture thread.
+     *
+     * @return Number of dropped frames.
+     */
+    public long getNumDroppedFrames() {
+        return frameBuffer != null ? frameBuffer.getNumDroppedFrames() : 0;
     }
 
     /**
@@ -204,6 +621,13 @@ public class PicovoiceManager {
         private PicovoiceInferenceCallback inferenceCallback = null;
 
         private PicovoiceManagerErrorCallback processErrorCallback = null;
+        private Executor callbackExecutor = null;
+
+        private boolean useProcessingThread = false;
+        private int processingThreadPriority = Process.THREAD_PRIORITY_URGENT_AUDIO;
+        private int frameBufferCapacity = 16;
+        private OverrunPolicy overrunPolicy = OverrunPolicy.DROP_OLDEST;
+        private boolean unloadRhinoOnTrimMemory = false;
 
         /**
          * Setter for AccessKey.
@@ -342,6 +766,89 @@ public class PicovoiceManager {
             return this;
         }
 
+        /**
+         * Setter for the executor wake word and inference callbacks are delivered on.
+         *
+         * @param callbackExecutor Executor running the callbacks. Use ${@link Picovoice#DIRECT_EXECUTOR}
+         *                         to invoke them inline on the thread processing audio. Defaults to the
+         *                         main thread.
+         */
+        public PicovoiceManager.Builder setCallbackExecutor(Executor callbackExecutor) {
+            this.callbackExecutor = callbackExecutor;
+            return this;
+        }
+
+        /**
+         * Setter for the looper wake word and inference callbacks are posted to.
+         *
+         * @param callbackLooper Looper of the thread running the callbacks. Defaults to the main
+         *                       looper.
+         */
+        public PicovoiceManager.Builder setCallbackLooper(Looper callbackLooper) {
+            this.callbackExecutor = callbackLooper != null ? new Picovoice.HandlerExecutor(callbackLooper) : null;
+            return this;
+        }
+
+        /**
+         * Setter for processing frames on a dedicated thread.
+         *
+         * @param useProcessingThread If true, captured frames are copied into a lock-free buffer and
+         *                            processed on a dedicated high-priority thread, so a slow frame
+         *                            never blocks the capture thread. If false (default), frames are
+         *                            processed on the capture thread.
+         */
+        public PicovoiceManager.Builder setUseProcessingThread(boolean useProcessingThread) {
+            this.useProcessingThread = useProcessingThread;
+            return this;
+        }
+
+        /**
+         * Setter for the priority of the processing thread.
+         *
+         * @param processingThreadPriority Linux thread priority as used by ${@link Process}. Defaults
+         *                                 to ${@link Process#THREAD_PRIORITY_URGENT_AUDIO}.
+         */
+        public PicovoiceManager.Builder setProcessingThreadPriority(int processingThreadPriority) {
+            this.processingThreadPriority = processingThreadPriority;
+            return this;
+        }
+
+        /**
+         * Setter for the capacity of the frame buffer feeding the processing thread.
+         *
+         * @param frameBufferCapacity Number of frames that can be queued while the processing thread
+         *                            catches up. Defaults to 16 frames (about half a second).
+         */
+        public PicovoiceManager.Builder setFrameBufferCapacity(int frameBufferCapacity) {
+            this.frameBufferCapacity = frameBufferCapacity;
+            return this;
+        }
+
+        /**
+         * Setter for the frame buffer overrun policy.
+         *
+         * @param overrunPolicy What to drop when the frame buffer is full. Defaults to
+         *                      ${@link OverrunPolicy#DROP_OLDEST}.
+         */
+        public PicovoiceManager.Builder setOverrunPolicy(OverrunPolicy overrunPolicy) {
+            this.overrunPolicy = overrunPolicy;
+            return this;
+        }
+
+        /**
+         * Setter for releasing Rhino under memory pressure.
+         *
+         * @param unloadRhinoOnTrimMemory If true, the Rhino instance is released when the system
+         *                                reports memory pressure (e.g. once the app is in the
+         *                                background), while wake word detection continues. Rhino is
+         *                                recreated in the background on the next wake word, and the
+         *                                audio captured meanwhile is buffered. Defaults to false.
+         */
+        public PicovoiceManager.Builder setUnloadRhinoOnTrimMemory(boolean unloadRhinoOnTrimMemory) {
+            this.unloadRhinoOnTrimMemory = unloadRhinoOnTrimMemory;
+            return this;
+        }
+
         /**
          * Validates properties and creates an instance of the PicovoiceManager.
          *
@@ -349,6 +856,17 @@ public class PicovoiceManager {
          * @return An instance of PicovoiceManager
          */
         public PicovoiceManager build(Context appContext) throws PicovoiceException {
+            if (useProcessingThread) {
+                if (frameBufferCapacity <= 0) {
+                    throw new PicovoiceInvalidArgumentException(String.format(
+                            "Frame buffer capacity must be a positive number. Received %d.",
+                            frameBufferCapacity));
+                }
+                if (overrunPolicy == null) {
+                    throw new PicovoiceInvalidArgumentException("Overrun policy is required");
+                }
+            }
+
             Picovoice picovoice = new Picovoice.Builder()
                     .setAccessKey(accessKey)
                     .setPorcupineModelPath(porcupineModelPath)
@@ -361,11 +879,18 @@ public class PicovoiceManager {
                     .setEndpointDurationSec(endpointDurationSec)
                     .setRequireEndpoint(requireEndpoint)
                     .setInferenceCallback(inferenceCallback)
+                    .setCallbackExecutor(callbackExecutor)
                     .build(appContext);
 
             return new PicovoiceManager(
                     picovoice,
-                    processErrorCallback);
+                    processErrorCallback,
+                    useProcessingThread,
+                    processingThreadPriority,
+                    frameBufferCapacity,
+                    overrunPolicy,
+                    appContext,
+                    unloadRhinoOnTrimMemory);
         }
     }
 }
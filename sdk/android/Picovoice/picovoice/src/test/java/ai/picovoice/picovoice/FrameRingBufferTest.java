@@ -0,0 +1,164 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class FrameRingBufferTest {
+
+    private static final int FRAME_LENGTH = 4;
+
+    private static short[] frameOf(int value) {
+        final short[] frame = new short[FRAME_LENGTH];
+        Arrays.fill(frame, (short) value);
+        return frame;
+    }
+
+    @Test
+    public void testFramesArePolledInOrderWithTagsAndTimestamps() {
+        final FrameRingBuffer buffer = new FrameRingBuffer(4, FRAME_LENGTH, PicovoiceManager.OverrunPolicy.DROP_OLDEST);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(buffer.offer(frameOf(i), i + 10, i + 100));
+        }
+        assertEquals(3, buffer.size());
+
+        final short[] frame = new short[FRAME_LENGTH];
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i + 10, buffer.pollTagged(frame));
+            assertArrayEquals(frameOf(i), frame);
+            assertEquals(i + 100, buffer.getPolledTimestampNanos());
+        }
+        assertEquals(-1, buffer.pollTagged(frame));
+        assertFalse(buffer.poll(frame));
+        assertEquals(0, buffer.size());
+        assertEquals(0, buffer.getNumDroppedFrames());
+    }
+
+    @Test
+    public void testDropNewestKeepsQueuedFrames() {
+        final FrameRingBuffer buffer = new FrameRingBuffer(2, FRAME_LENGTH, PicovoiceManager.OverrunPolicy.DROP_NEWEST);
+        assertTrue(buffer.offer(frameOf(0), 0));
+        assertTrue(buffer.offer(frameOf(1), 1));
+        assertFalse(buffer.offer(frameOf(2), 2));
+        assertFalse(buffer.offer(frameOf(3), 3));
+        assertEquals(2, buffer.getNumDroppedFrames());
+        assertEquals(2, buffer.size());
+
+        final short[] frame = new short[FRAME_LENGTH];
+        assertEquals(0, buffer.pollTagged(frame));
+        assertArrayEquals(frameOf(0), frame);
+        assertEquals(1, buffer.pollTagged(frame));
+        assertArrayEquals(frameOf(1), frame);
+        assertEquals(-1, buffer.pollTagged(frame));
+
+        assertTrue(buffer.offer(frameOf(4), 4));
+        assertEquals(4, buffer.pollTagged(frame));
+        assertEquals(2, buffer.getNumDroppedFrames());
+    }
+
+    @Test
+    public void testDropOldestKeepsNewestFrames() {
+        final FrameRingBuffer buffer = new FrameRingBuffer(2, FRAME_LENGTH, PicovoiceManager.OverrunPolicy.DROP_OLDEST);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(buffer.offer(frameOf(i), i));
+        }
+        assertEquals(3, buffer.getNumDroppedFrames());
+        assertEquals(2, buffer.size());
+
+        final short[] frame = new short[FRAME_LENGTH];
+        assertEquals(3, buffer.pollTagged(frame));
+        assertArrayEquals(frameOf(3), frame);
+        assertEquals(4, buffer.pollTagged(frame));
+        assertArrayEquals(frameOf(4), frame);
+        assertEquals(-1, buffer.pollTagged(frame));
+    }
+
+    @Test
+    public void testDropOldestWhileConsumerPolls() throws InterruptedException {
+        final int numFrames = 200000;
+        final FrameRingBuffer buffer = new FrameRingBuffer(4, 256, PicovoiceManager.OverrunPolicy.DROP_OLDEST);
+        final AtomicReference<String> failure = new AtomicReference<>();
+        final long[] numPolled = new long[1];
+
+        final Thread consumer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                final short[] frame = new short[256];
+                long lastTag = -1;
+                while (lastTag < numFrames - 1) {
+                    final long tag = buffer.pollTagged(frame);
+                    if (tag < 0) {
+                        continue;
+                    }
+                    numPolled[0]++;
+                    if (tag <= lastTag) {
+                        failure.compareAndSet(null, String.format("frame %d polled after frame %d", tag, lastTag));
+                        return;
+                    }
+                    for (short sample : frame) {
+                        // a frame overwritten by the producer while being copied out must not be returned
+                        if (sample != (short) tag) {
+                            failure.compareAndSet(
+                                    null,
+                                    String.format("frame %d contains a sample of another frame", tag));
+                            return;
+                        }
+                    }
+                    lastTag = tag;
+                }
+            }
+        });
+        consumer.start();
+
+        final short[] frame = new short[256];
+        for (int i = 0; i < numFrames; i++) {
+            Arrays.fill(frame, (short) i);
+            assertTrue(buffer.offer(frame, i));
+        }
+        consumer.join(30000);
+
+        assertFalse(consumer.isAlive());
+        assertNull(failure.get());
+        assertEquals(numFrames, numPolled[0] + buffer.getNumDroppedFrames());
+    }
+
+    @Test
+    public void testClearDiscardsQueuedFrames() {
+        final FrameRingBuffer buffer = new FrameRingBuffer(4, FRAME_LENGTH, PicovoiceManager.OverrunPolicy.DROP_NEWEST);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(buffer.offer(frameOf(i), i));
+        }
+        buffer.clear();
+        assertEquals(0, buffer.size());
+
+        final short[] frame = new short[FRAME_LENGTH];
+        assertFalse(buffer.poll(frame));
+
+        // clearing frees the slots, so a full queue no longer drops
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(frameOf(i + 3), i + 3));
+        }
+        assertEquals(0, buffer.getNumDroppedFrames());
+        assertEquals(3, buffer.pollTagged(frame));
+        assertArrayEquals(frameOf(3), frame);
+    }
+}
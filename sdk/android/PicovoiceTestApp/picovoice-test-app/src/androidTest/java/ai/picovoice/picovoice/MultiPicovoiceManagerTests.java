@@ -0,0 +1,280 @@
+package ai.picovoice.picovoice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.Manifest;
+import android.os.SystemClock;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.rule.GrantPermissionRule;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import ai.picovoice.picovoice.testapp.BaseTest;
+import ai.picovoice.rhino.RhinoInference;
+
+// in the library's package, so that recorded audio can be fed in place of the microphone
+@RunWith(AndroidJUnit4.class)
+public class MultiPicovoiceManagerTests extends BaseTest {
+
+    @Rule
+    public GrantPermissionRule recordAudioPermissionRule =
+            GrantPermissionRule.grant(Manifest.permission.RECORD_AUDIO);
+
+    static final class RecordedEvent {
+        final String engineName;
+        final MultiPicovoiceEvent.Type type;
+        final RhinoInference inference;
+        final long frameIndex;
+        final long timestampNanos;
+
+        RecordedEvent(MultiPicovoiceEvent event) {
+            this.engineName = event.getEngineName();
+            this.type = event.getType();
+            this.inference = event.getInference();
+            this.frameIndex = event.getFrameIndex();
+            this.timestampNanos = event.getTimestampNanos();
+        }
+    }
+
+    final List<RecordedEvent> events = Collections.synchronizedList(new ArrayList<RecordedEvent>());
+    final MultiPicovoiceEventCallback eventCallback = new MultiPicovoiceEventCallback() {
+        @Override
+        public void invoke(MultiPicovoiceEvent event) {
+            events.add(new RecordedEvent(event));
+        }
+    };
+    final List<PicovoiceException> processErrors = Collections.synchronizedList(new ArrayList<PicovoiceException>());
+    final PicovoiceManagerErrorCallback processErrorCallback = new PicovoiceManagerErrorCallback() {
+        @Override
+        public void invoke(PicovoiceException error) {
+            processErrors.add(error);
+        }
+    };
+
+    MultiPicovoiceManager manager = null;
+
+    @After
+    public void TearDown() {
+        if (manager != null) {
+            manager.delete();
+        }
+    }
+
+    Picovoice.Builder getPicovoiceBuilder() {
+        File keywordPath = new File(testResourcesPath, "keyword_files/en/picovoice_android.ppn");
+        File contextPath = new File(testResourcesPath, "context_files/en/coffee_maker_android.rhn");
+        return new Picovoice.Builder()
+                .setAccessKey(accessKey)
+                .setKeywordPath(keywordPath.getAbsolutePath())
+                .setContextPath(contextPath.getAbsolutePath());
+    }
+
+    MultiPicovoiceManager.Builder getManagerBuilder(int queueCapacity) {
+        return new MultiPicovoiceManager.Builder()
+                .addPicovoice("first", getPicovoiceBuilder())
+                .addPicovoice("second", getPicovoiceBuilder().setPorcupineSensitivity(0.7f))
+                .setNumWorkers(2)
+                .setQueueCapacity(queueCapacity)
+                .setEventCallback(eventCallback)
+                .setEventExecutor(Picovoice.DIRECT_EXECUTOR)
+                .setProcessErrorCallback(processErrorCallback);
+    }
+
+    List<short[]> readTestAudio(MultiPicovoiceManager manager) throws Exception {
+        File testAudio = new File(testResourcesPath, "audio_samples/picovoice-coffee.wav");
+        return readTestAudio(manager.getFrameLength(), testAudio);
+    }
+
+    long getFrameDurationNanos(MultiPicovoiceManager manager) {
+        return manager.getFrameLength() * 1000000000L / manager.getSampleRate();
+    }
+
+    /**
+     * Feeds frames as if they had been captured one after another from the given time on, and
+     * returns the capture time following the last frame.
+     */
+    long feedTestAudio(MultiPicovoiceManager manager, List<short[]> frames, long firstCaptureTimeNanos) {
+        long captureTimeNanos = firstCaptureTimeNanos;
+        for (short[] frame : frames) {
+            manager.offerFrame(frame, captureTimeNanos);
+            captureTimeNanos += getFrameDurationNanos(manager);
+        }
+        return captureTimeNanos;
+    }
+
+    void waitForEvents(int numEvents) throws InterruptedException {
+        final long endTime = System.currentTimeMillis() + 10000;
+        while (events.size() < numEvents && System.currentTimeMillis() < endTime) {
+            Thread.sleep(20);
+        }
+        assertEquals(numEvents, events.size());
+    }
+
+    void waitForQueuesToDrain(MultiPicovoiceManager manager) throws Exception {
+        final long endTime = System.currentTimeMillis() + 10000;
+        for (String engineName : manager.getEngineNames()) {
+            while (manager.getNumQueuedFrames(engineName) > 0 && System.currentTimeMillis() < endTime) {
+                Thread.sleep(20);
+            }
+            assertEquals(0, manager.getNumQueuedFrames(engineName));
+        }
+        // the last polled frame may still be in process
+        Thread.sleep(500);
+    }
+
+    List<RecordedEvent> getEvents(String engineName) {
+        final List<RecordedEvent> engineEvents = new ArrayList<>();
+        synchronized (events) {
+            for (RecordedEvent event : events) {
+                if (event.engineName.equals(engineName)) {
+                    engineEvents.add(event);
+                }
+            }
+        }
+        return engineEvents;
+    }
+
+    void assertCoffeeOrder(RhinoInference inference) {
+        assertTrue(inference.getIsUnderstood());
+        assertEquals("orderBeverage", inference.getIntent());
+        assertEquals("large", inference.getSlots().get("size"));
+        assertEquals("coffee", inference.getSlots().get("beverage"));
+    }
+
+    @Test
+    public void testEventsOfAllEngines() throws Exception {
+        manager = getManagerBuilder(256).build(appContext);
+        final List<short[]> frames = readTestAudio(manager);
+
+        final long firstCaptureTimeNanos = SystemClock.elapsedRealtimeNanos();
+        feedTestAudio(manager, frames, firstCaptureTimeNanos);
+        waitForEvents(4);
+
+        for (String engineName : manager.getEngineNames()) {
+            final List<RecordedEvent> engineEvents = getEvents(engineName);
+            assertEquals(2, engineEvents.size());
+
+            final RecordedEvent wakeWord = engineEvents.get(0);
+            final RecordedEvent inference = engineEvents.get(1);
+            assertEquals(MultiPicovoiceEvent.Type.WAKE_WORD, wakeWord.type);
+            assertNull(wakeWord.inference);
+            assertEquals(MultiPicovoiceEvent.Type.INFERENCE, inference.type);
+            assertCoffeeOrder(inference.inference);
+            assertTrue(wakeWord.frameIndex < inference.frameIndex);
+
+            // each event carries the capture time of the frame that completed it
+            for (RecordedEvent event : engineEvents) {
+                assertEquals(
+                        firstCaptureTimeNanos + event.frameIndex * getFrameDurationNanos(manager),
+                        event.timestampNanos);
+            }
+            assertEquals(0, manager.getNumDroppedFrames(engineName));
+        }
+        assertTrue(processErrors.isEmpty());
+    }
+
+    @Test
+    public void testEventsAreDroppedWhenCallbacksFallBehind() throws Exception {
+        final List<Runnable> pendingDeliveries = Collections.synchronizedList(new ArrayList<Runnable>());
+        manager = getManagerBuilder(1024)
+                .setEventExecutor(new Executor() {
+                    @Override
+                    public void execute(Runnable command) {
+                        pendingDeliveries.add(command);
+                    }
+                })
+                .build(appContext);
+        final List<short[]> frames = readTestAudio(manager);
+
+        // five commands on two engines raise twenty events, four more than can be pending
+        long captureTimeNanos = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < 5; i++) {
+            captureTimeNanos = feedTestAudio(manager, frames, captureTimeNanos);
+        }
+        waitForQueuesToDrain(manager);
+        assertEquals(16, pendingDeliveries.size());
+
+        for (Runnable delivery : new ArrayList<>(pendingDeliveries)) {
+            delivery.run();
+        }
+        assertEquals(16, events.size());
+        pendingDeliveries.clear();
+
+        // delivered events free their slots
+        feedTestAudio(manager, frames, captureTimeNanos);
+        waitForQueuesToDrain(manager);
+        assertEquals(4, pendingDeliveries.size());
+        for (Runnable delivery : new ArrayList<>(pendingDeliveries)) {
+            delivery.run();
+        }
+        assertEquals(20, events.size());
+        assertTrue(processErrors.isEmpty());
+    }
+
+    @Test
+    public void testStopDiscardsQueuedFramesAndResetsEngines() throws Exception {
+        manager = getManagerBuilder(256).build(appContext);
+        final List<short[]> frames = readTestAudio(manager);
+
+        // stop after the wake word of both engines and before the command; the whole recording is
+        // timestamped as if it had been captured before the stop
+        final long firstCaptureTimeNanos =
+                SystemClock.elapsedRealtimeNanos() - frames.size() * getFrameDurationNanos(manager);
+        final long commandCaptureTimeNanos = feedTestAudio(manager, frames.subList(0, 70), firstCaptureTimeNanos);
+        waitForEvents(2);
+        manager.start();
+        manager.stop();
+        Thread.sleep(100);
+
+        // audio captured before the stop is discarded
+        feedTestAudio(manager, frames.subList(70, frames.size()), commandCaptureTimeNanos);
+        waitForQueuesToDrain(manager);
+        assertEquals(2, events.size());
+
+        // both engines were reset, so a new command starts with its wake word again
+        feedTestAudio(manager, frames, SystemClock.elapsedRealtimeNanos());
+        waitForEvents(6);
+        for (String engineName : manager.getEngineNames()) {
+            final List<RecordedEvent> engineEvents = getEvents(engineName);
+            assertEquals(3, engineEvents.size());
+            assertEquals(MultiPicovoiceEvent.Type.WAKE_WORD, engineEvents.get(0).type);
+            assertEquals(MultiPicovoiceEvent.Type.WAKE_WORD, engineEvents.get(1).type);
+            assertEquals(MultiPicovoiceEvent.Type.INFERENCE, engineEvents.get(2).type);
+            assertCoffeeOrder(engineEvents.get(2).inference);
+        }
+        assertTrue(processErrors.isEmpty());
+    }
+
+    @Test
+    public void testDeleteReleasesEnginesAfterQueuedFrames() throws Exception {
+        manager = getManagerBuilder(256).build(appContext);
+        final List<short[]> frames = readTestAudio(manager);
+
+        // each engine is released on its worker once the frames queued before delete() are processed
+        feedTestAudio(manager, frames, SystemClock.elapsedRealtimeNanos());
+        manager.delete();
+        waitForEvents(4);
+        Thread.sleep(500);
+        assertTrue(processErrors.isEmpty());
+
+        boolean didFail = false;
+        try {
+            manager.start();
+        } catch (PicovoiceInvalidStateException e) {
+            didFail = true;
+        }
+        assertTrue(didFail);
+    }
+}
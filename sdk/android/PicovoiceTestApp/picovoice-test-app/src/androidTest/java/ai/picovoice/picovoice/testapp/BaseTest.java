@@ -20,6 +20,8 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
 
 import ai.picovoice.picovoice.Picovoice;
 import ai.picovoice.picovoice.PicovoiceInferenceCallback;
@@ -46,10 +48,10 @@ public class BaseTest {
     Picovoice picovoice = null;
 
     Context testContext;
-    Context appContext;
+    protected Context appContext;
     AssetManager assetManager;
-    String testResourcesPath;
-    String accessKey;
+    protected String testResourcesPath;
+    protected String accessKey;
 
     @Before
     public void Setup() throws IOException {
@@ -110,6 +112,27 @@ public class BaseTest {
         os.close();
     }
 
+    protected List<short[]> readTestAudio(int frameLength, File testAudio) throws IOException {
+        FileInputStream audioInputStream = new FileInputStream(testAudio);
+
+        byte[] rawData = new byte[frameLength * 2];
+        ByteBuffer pcmBuff = ByteBuffer.wrap(rawData).order(ByteOrder.LITTLE_ENDIAN);
+
+        assertEquals(44, audioInputStream.skip(44));
+
+        List<short[]> frames = new ArrayList<>();
+        while (audioInputStream.available() > 0) {
+            int numRead = audioInputStream.read(pcmBuff.array());
+            if (numRead == frameLength * 2) {
+                short[] pcm = new short[frameLength];
+                pcmBuff.asShortBuffer().get(pcm);
+                frames.add(pcm);
+            }
+        }
+        audioInputStream.close();
+        return frames;
+    }
+
     void processTestAudio(Picovoice p, File testAudio) throws Exception {
         FileInputStream audioInputStream = new FileInputStream(testAudio);
 
@@ -0,0 +1,369 @@
+package ai.picovoice.picovoice.testapp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.Manifest;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.rule.GrantPermissionRule;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ai.picovoice.android.voiceprocessor.VoiceProcessor;
+import ai.picovoice.android.voiceprocessor.VoiceProcessorFrameListener;
+import ai.picovoice.picovoice.PicovoiceException;
+import ai.picovoice.picovoice.PicovoiceInvalidArgumentException;
+import ai.picovoice.picovoice.PicovoiceInvalidStateException;
+import ai.picovoice.picovoice.PicovoiceManager;
+import ai.picovoice.picovoice.PicovoiceManagerErrorCallback;
+
+@RunWith(AndroidJUnit4.class)
+public class PicovoiceManagerTests extends BaseTest {
+
+    @Rule
+    public GrantPermissionRule recordAudioPermissionRule =
+            GrantPermissionRule.grant(Manifest.permission.RECORD_AUDIO);
+
+    final List<PicovoiceException> processErrors = Collections.synchronizedList(new ArrayList<PicovoiceException>());
+    final PicovoiceManagerErrorCallback processErrorCallback = new PicovoiceManagerErrorCallback() {
+        @Override
+        public void invoke(PicovoiceException error) {
+            processErrors.add(error);
+        }
+    };
+
+    final AtomicInteger numCapturedFrames = new AtomicInteger(0);
+    final VoiceProcessorFrameListener frameCounter = new VoiceProcessorFrameListener() {
+        @Override
+        public void onFrame(short[] frame) {
+            numCapturedFrames.incrementAndGet();
+        }
+    };
+
+    PicovoiceManager picovoiceManager = null;
+
+    @After
+    public void TearDown() {
+        VoiceProcessor.getInstance().removeFrameListener(frameCounter);
+        if (picovoiceManager != null) {
+            picovoiceManager.delete();
+        }
+    }
+
+    PicovoiceManager.Builder getManagerBuilder() {
+        File keywordPath = new File(testResourcesPath, "keyword_files/en/picovoice_android.ppn");
+        File contextPath = new File(testResourcesPath, "context_files/en/coffee_maker_android.rhn");
+        return new PicovoiceManager.Builder()
+                .setAccessKey(accessKey)
+                .setKeywordPath(keywordPath.getAbsolutePath())
+                .setContextPath(contextPath.getAbsolutePath())
+                .setWakeWordCallback(wakeWordCallback)
+                .setInferenceCallback(inferenceCallback)
+                .setProcessErrorCallback(processErrorCallback);
+    }
+
+    void waitForCapturedFrames(int numFrames) throws InterruptedException {
+        final int target = numCapturedFrames.get() + numFrames;
+        final long endTime = System.currentTimeMillis() + 5000;
+        while (numCapturedFrames.get() < target && System.currentTimeMillis() < endTime) {
+            Thread.sleep(20);
+        }
+        assertTrue(numCapturedFrames.get() >= target);
+    }
+
+    void waitForRelease(PicovoiceManager manager) throws InterruptedException {
+        final long endTime = System.currentTimeMillis() + 2000;
+        while (!manager.getVersion().equals("") && System.currentTimeMillis() < endTime) {
+            Thread.sleep(20);
+        }
+        assertEquals("", manager.getVersion());
+    }
+
+    void assertInvalidState(Runnable operation) {
+        boolean didFail = false;
+        try {
+            operation.run();
+        } catch (RuntimeException e) {
+            didFail = e.getCause() instanceof PicovoiceInvalidStateException;
+        }
+        assertTrue(didFail);
+    }
+
+    Runnable pauseOperation(final PicovoiceManager manager, final boolean releaseMicrophone) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    manager.pause(releaseMicrophone);
+                } catch (PicovoiceException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+    }
+
+    Runnable resumeOperation(final PicovoiceManager manager) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    manager.resume();
+                } catch (PicovoiceException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+    }
+
+    Runnable stopOperation(final PicovoiceManager manager) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    manager.stop();
+                } catch (PicovoiceException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+    }
+
+    @Test
+    public void testPauseAndResume() throws Exception {
+        picovoiceManager = getManagerBuilder().build(appContext);
+
+        assertInvalidState(pauseOperation(picovoiceManager, false));
+        assertInvalidState(resumeOperation(picovoiceManager));
+
+        picovoiceManager.start();
+        picovoiceManager.pause();
+        // the microphone keeps running so that resuming is immediate
+        assertTrue(VoiceProcessor.getInstance().getIsRecording());
+        picovoiceManager.pause();
+
+        picovoiceManager.resume();
+        picovoiceManager.resume();
+        assertTrue(VoiceProcessor.getInstance().getIsRecording());
+
+        // start() resumes a paused manager
+        picovoiceManager.pause();
+        picovoiceManager.start();
+        picovoiceManager.pause();
+
+        // stopping from PAUSED releases the microphone and returns to IDLE
+        picovoiceManager.stop();
+        assertFalse(VoiceProcessor.getInstance().getIsRecording());
+        assertInvalidState(resumeOperation(picovoiceManager));
+        assertInvalidState(pauseOperation(picovoiceManager, false));
+
+        picovoiceManager.start();
+        assertTrue(VoiceProcessor.getInstance().getIsRecording());
+        picovoiceManager.stop();
+        assertTrue(processErrors.isEmpty());
+    }
+
+    @Test
+    public void testPauseReleasingMicrophone() throws Exception {
+        picovoiceManager = getManagerBuilder().build(appContext);
+
+        picovoiceManager.start();
+        picovoiceManager.pause(true);
+        assertFalse(VoiceProcessor.getInstance().getIsRecording());
+        // pausing again, with or without the microphone, keeps it released
+        picovoiceManager.pause(false);
+        picovoiceManager.pause(true);
+        assertFalse(VoiceProcessor.getInstance().getIsRecording());
+
+        picovoiceManager.resume();
+        assertTrue(VoiceProcessor.getInstance().getIsRecording());
+
+        // a pause that keeps the microphone can be turned into one that releases it
+        picovoiceManager.pause(false);
+        picovoiceManager.pause(true);
+        assertFalse(VoiceProcessor.getInstance().getIsRecording());
+
+        // stopping from PAUSED_DETACHED returns to IDLE without touching the microphone
+        picovoiceManager.stop();
+        assertFalse(VoiceProcessor.getInstance().getIsRecording());
+        assertInvalidState(resumeOperation(picovoiceManager));
+
+        picovoiceManager.start();
+        assertTrue(VoiceProcessor.getInstance().getIsRecording());
+        picovoiceManager.stop();
+        assertTrue(processErrors.isEmpty());
+    }
+
+    @Test
+    public void testPauseWithProcessingThread() throws Exception {
+        picovoiceManager = getManagerBuilder()
+                .setUseProcessingThread(true)
+                .build(appContext);
+
+        picovoiceManager.start();
+        picovoiceManager.pause();
+        picovoiceManager.resume();
+        picovoiceManager.pause(true);
+        assertFalse(VoiceProcessor.getInstance().getIsRecording());
+        picovoiceManager.resume();
+        assertTrue(VoiceProcessor.getInstance().getIsRecording());
+
+        VoiceProcessor.getInstance().addFrameListener(frameCounter);
+        waitForCapturedFrames(10);
+        VoiceProcessor.getInstance().removeFrameListener(frameCounter);
+
+        picovoiceManager.stop();
+        assertFalse(VoiceProcessor.getInstance().getIsRecording());
+        assertTrue(processErrors.isEmpty());
+    }
+
+    @Test
+    public void testPauseDuringStart() throws Exception {
+        picovoiceManager = getManagerBuilder().build(appContext);
+
+        for (int i = 0; i < 10; i++) {
+            final PicovoiceException[] startError = new PicovoiceException[1];
+            final Thread startThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        picovoiceManager.start();
+                    } catch (PicovoiceException e) {
+                        startError[0] = e;
+                    }
+                }
+            });
+            startThread.start();
+
+            // pausing is refused while the manager is idle or still starting, and succeeds once it listens
+            boolean isPaused = false;
+            final long endTime = System.currentTimeMillis() + 5000;
+            while (!isPaused && System.currentTimeMillis() < endTime) {
+                try {
+                    picovoiceManager.pause(i % 2 == 0);
+                    isPaused = true;
+                } catch (PicovoiceInvalidStateException e) {
+                    Thread.yield();
+                }
+            }
+            startThread.join(5000);
+
+            assertTrue(isPaused);
+            assertFalse(startThread.isAlive());
+            assertNull(startError[0]);
+
+            picovoiceManager.resume();
+            assertTrue(VoiceProcessor.getInstance().getIsRecording());
+            picovoiceManager.stop();
+            assertFalse(VoiceProcessor.getInstance().getIsRecording());
+        }
+        assertTrue(processErrors.isEmpty());
+    }
+
+    @Test
+    public void testPauseAndResumeAfterDelete() throws Exception {
+        picovoiceManager = getManagerBuilder().build(appContext);
+
+        picovoiceManager.start();
+        picovoiceManager.pause(true);
+        picovoiceManager.delete();
+
+        assertInvalidState(resumeOperation(picovoiceManager));
+        assertInvalidState(pauseOperation(picovoiceManager, false));
+        assertInvalidState(stopOperation(picovoiceManager));
+        assertFalse(VoiceProcessor.getInstance().getIsRecording());
+
+        picovoiceManager = getManagerBuilder().build(appContext);
+        picovoiceManager.start();
+        picovoiceManager.pause();
+        picovoiceManager.delete();
+
+        // deleting while paused releases the microphone that was kept running
+        assertFalse(VoiceProcessor.getInstance().getIsRecording());
+        assertInvalidState(resumeOperation(picovoiceManager));
+        assertTrue(processErrors.isEmpty());
+    }
+
+    @Test
+    public void testProcessingThread() throws Exception {
+        picovoiceManager = getManagerBuilder()
+                .setUseProcessingThread(true)
+                .setFrameBufferCapacity(16)
+                .build(appContext);
+
+        picovoiceManager.start();
+        VoiceProcessor.getInstance().addFrameListener(frameCounter);
+        waitForCapturedFrames(30);
+
+        // processing silence keeps up with capture
+        assertEquals(0, picovoiceManager.getNumDroppedFrames());
+
+        // queued behind the captured frames and applied on the processing thread
+        picovoiceManager.reset();
+        waitForCapturedFrames(10);
+
+        VoiceProcessor.getInstance().removeFrameListener(frameCounter);
+        picovoiceManager.stop();
+        assertFalse(VoiceProcessor.getInstance().getIsRecording());
+
+        picovoiceManager.start();
+        assertTrue(VoiceProcessor.getInstance().getIsRecording());
+        picovoiceManager.stop();
+
+        // the engine is released on the processing thread after the frames still queued
+        picovoiceManager.delete();
+        waitForRelease(picovoiceManager);
+        assertTrue(processErrors.isEmpty());
+
+        boolean didFail = false;
+        try {
+            picovoiceManager.start();
+        } catch (PicovoiceInvalidStateException e) {
+            didFail = true;
+        }
+        assertTrue(didFail);
+    }
+
+    @Test
+    public void testProcessingThreadDeleteWhileListening() throws Exception {
+        picovoiceManager = getManagerBuilder()
+                .setUseProcessingThread(true)
+                .setOverrunPolicy(PicovoiceManager.OverrunPolicy.DROP_NEWEST)
+                .build(appContext);
+
+        picovoiceManager.start();
+        VoiceProcessor.getInstance().addFrameListener(frameCounter);
+        waitForCapturedFrames(10);
+        VoiceProcessor.getInstance().removeFrameListener(frameCounter);
+
+        picovoiceManager.delete();
+        assertFalse(VoiceProcessor.getInstance().getIsRecording());
+        waitForRelease(picovoiceManager);
+        assertTrue(processErrors.isEmpty());
+    }
+
+    @Test
+    public void testProcessingThreadInvalidFrameBufferCapacity() throws PicovoiceException {
+        boolean didFail = false;
+        try {
+            getManagerBuilder()
+                    .setUseProcessingThread(true)
+                    .setFrameBufferCapacity(0)
+                    .build(appContext);
+        } catch (PicovoiceInvalidArgumentException e) {
+            didFail = true;
+        }
+        assertTrue(didFail);
+    }
+}
@@ -1,5 +1,7 @@
 package ai.picovoice.picovoice.testapp;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
@@ -7,9 +9,13 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 import ai.picovoice.picovoice.Picovoice;
 import ai.picovoice.picovoice.PicovoiceException;
+import ai.picovoice.picovoice.PicovoiceRuntimeException;
+import ai.picovoice.rhino.RhinoInference;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 
 @RunWith(AndroidJUnit4.class)
@@ -356,4 +362,108 @@ public class StandardTests extends BaseTest {
         assertTrue(isWakeWordDetected);
         assertNull(inferenceResult);
     }
+
+    Picovoice.Builder getCountingBuilder(final List<RhinoInference> inferences, final int[] numWakeWords) {
+        File keywordPath = new File(testResourcesPath, "keyword_files/en/picovoice_android.ppn");
+        File contextPath = new File(testResourcesPath, "context_files/en/coffee_maker_android.rhn");
+        return new Picovoice.Builder()
+                .setAccessKey(accessKey)
+                .setKeywordPath(keywordPath.getAbsolutePath())
+                .setContextPath(contextPath.getAbsolutePath())
+                .setWakeWordCallback(() -> numWakeWords[0]++)
+                .setInferenceCallback(inferences::add)
+                .setCallbackExecutor(Picovoice.DIRECT_EXECUTOR);
+    }
+
+    void assertCoffeeOrder(RhinoInference inference) {
+        assertTrue(inference.getIsUnderstood());
+        assertEquals("orderBeverage", inference.getIntent());
+        assertEquals("large", inference.getSlots().get("size"));
+        assertEquals("coffee", inference.getSlots().get("beverage"));
+    }
+
+    @Test
+    public void testProcessAfterUnloadRhino() throws Exception {
+        final List<RhinoInference> inferences = new ArrayList<>();
+        final int[] numWakeWords = new int[1];
+        // without waiting for the endpoint, the command ends within the audio buffered during the reload
+        picovoice = getCountingBuilder(inferences, numWakeWords)
+                .setRequireEndpoint(false)
+                .build(appContext);
+
+        // what PicovoiceManager does from onTrimMemory()
+        picovoice.unloadRhino();
+        assertFalse(picovoice.getIsRhinoLoaded());
+
+        File testAudio = new File(testResourcesPath, "audio_samples/picovoice-coffee.wav");
+        List<short[]> frames = readTestAudio(picovoice.getFrameLength(), testAudio);
+
+        int i = 0;
+        while (i < frames.size() && numWakeWords[0] == 0) {
+            picovoice.process(frames.get(i++));
+        }
+        assertEquals(1, numWakeWords[0]);
+
+        // the command is buffered while Rhino is recreated, within the three seconds allowed
+        final int lastBufferedFrame = Math.min(frames.size(), i + 90);
+        while (i < lastBufferedFrame) {
+            picovoice.process(frames.get(i++));
+        }
+        Thread.sleep(2000);
+
+        // the buffered audio is replayed, and the audio after the end of the command goes back to Porcupine
+        while (i < frames.size()) {
+            picovoice.process(frames.get(i++));
+        }
+        for (short[] frame : frames) {
+            picovoice.process(frame);
+        }
+
+        assertTrue(picovoice.getIsRhinoLoaded());
+        assertEquals(2, numWakeWords[0]);
+        assertEquals(2, inferences.size());
+        assertCoffeeOrder(inferences.get(0));
+        assertCoffeeOrder(inferences.get(1));
+    }
+
+    @Test
+    public void testProcessWhenRhinoIsNotReloadedInTime() throws Exception {
+        final List<RhinoInference> inferences = new ArrayList<>();
+        final int[] numWakeWords = new int[1];
+        picovoice = getCountingBuilder(inferences, numWakeWords).build(appContext);
+
+        picovoice.unloadRhino();
+
+        File testAudio = new File(testResourcesPath, "audio_samples/picovoice-coffee.wav");
+        List<short[]> frames = readTestAudio(picovoice.getFrameLength(), testAudio);
+
+        // buffering takes far less time than recreating Rhino, so three seconds of audio arrive first
+        PicovoiceException error = null;
+        int i = 0;
+        while (i < frames.size() && error == null) {
+            try {
+                picovoice.process(frames.get(i++));
+            } catch (PicovoiceRuntimeException e) {
+                error = e;
+            }
+        }
+        assertEquals(1, numWakeWords[0]);
+        assertTrue(error != null && error.getMessage().contains("not reloaded"));
+        assertTrue(inferences.isEmpty());
+
+        // the abandoned command is not inferred, and the next one uses the Rhino instance that finished loading
+        Thread.sleep(2000);
+        while (i < frames.size()) {
+            picovoice.process(frames.get(i++));
+        }
+        assertTrue(inferences.isEmpty());
+        for (short[] frame : frames) {
+            picovoice.process(frame);
+        }
+
+        assertTrue(picovoice.getIsRhinoLoaded());
+        assertEquals(2, numWakeWords[0]);
+        assertEquals(1, inferences.size());
+        assertCoffeeOrder(inferences.get(0));
+    }
 }
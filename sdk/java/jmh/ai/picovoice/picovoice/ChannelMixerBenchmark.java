@@ -0,0 +1,77 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of mixing a block of 8-channel interleaved audio down to a single channel.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChannelMixerBenchmark {
+
+    private static final int NUM_CHANNELS = 8;
+    private static final int NUM_FRAMES = 4096;
+
+    @Param({"SELECT", "AVERAGE", "MAX_ENERGY"})
+    public ChannelMixer.Mode mode;
+
+    private ChannelMixer mixer;
+    private short[] pcm;
+    private float[] floatPcm;
+    private short[] output;
+
+    /**
+     * Creates the mixer and a block of 8-channel white noise.
+     */
+    @Setup
+    public void setup() throws PicovoiceException {
+        mixer = new ChannelMixer(NUM_CHANNELS, mode);
+        pcm = new short[NUM_FRAMES * NUM_CHANNELS];
+        floatPcm = new float[NUM_FRAMES * NUM_CHANNELS];
+        Random random = new Random(0);
+        for (int i = 0; i < pcm.length; i++) {
+            pcm[i] = (short) random.nextInt();
+            floatPcm[i] = pcm[i] / 32768f;
+        }
+        output = new short[NUM_FRAMES];
+    }
+
+    @Benchmark
+    public int processShort() {
+        return mixer.process(pcm, 0, NUM_FRAMES, output, 0);
+    }
+
+    @Benchmark
+    public int processFloat() {
+        return mixer.process(floatPcm, 0, NUM_FRAMES, output, 0);
+    }
+}
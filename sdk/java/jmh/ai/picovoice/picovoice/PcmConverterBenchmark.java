@@ -0,0 +1,81 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of converting one 512-sample frame from each supported PCM format to 16 bits.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PcmConverterBenchmark {
+
+    private static final int FRAME_LENGTH = 512;
+
+    private float[] floatPcm;
+    private int[] int32Pcm;
+    private byte[] packed24Pcm;
+    private short[] output;
+
+    /**
+     * Fills one frame of white noise in every input format.
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        floatPcm = new float[FRAME_LENGTH];
+        int32Pcm = new int[FRAME_LENGTH];
+        packed24Pcm = new byte[FRAME_LENGTH * 3];
+        for (int i = 0; i < FRAME_LENGTH; i++) {
+            floatPcm[i] = random.nextFloat() * 2.2f - 1.1f;
+            int32Pcm[i] = random.nextInt();
+        }
+        random.nextBytes(packed24Pcm);
+        output = new short[FRAME_LENGTH];
+    }
+
+    @Benchmark
+    public short[] fromFloat() {
+        PcmConverter.fromFloat(floatPcm, 0, output, 0, FRAME_LENGTH);
+        return output;
+    }
+
+    @Benchmark
+    public short[] fromInt32() {
+        PcmConverter.fromInt32(int32Pcm, 0, output, 0, FRAME_LENGTH);
+        return output;
+    }
+
+    @Benchmark
+    public short[] fromPacked24() {
+        PcmConverter.fromPacked24(packed24Pcm, 0, output, 0, FRAME_LENGTH, false);
+        return output;
+    }
+}
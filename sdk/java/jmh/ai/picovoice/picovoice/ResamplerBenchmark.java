@@ -0,0 +1,69 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of converting 10 ms of native-rate audio to 16 kHz.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResamplerBenchmark {
+
+    @Param({"44100", "48000"})
+    public int inputSampleRate;
+
+    @Param({"LOW", "MEDIUM", "HIGH"})
+    public Resampler.Quality quality;
+
+    private Resampler resampler;
+    private short[] input;
+    private short[] output;
+
+    /**
+     * Creates the resampler and a chunk of white noise at the input sample rate.
+     */
+    @Setup
+    public void setup() throws PicovoiceException {
+        resampler = new Resampler(inputSampleRate, 16000, quality);
+        input = new short[inputSampleRate / 100];
+        Random random = new Random(0);
+        for (int i = 0; i < input.length; i++) {
+            input[i] = (short) random.nextInt();
+        }
+        output = new short[resampler.getMaxOutputLength(input.length)];
+    }
+
+    @Benchmark
+    public int process() {
+        return resampler.process(input, 0, input.length, output, 0);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of decoding and upsampling a 20ms G.711 RTP payload into 16kHz frames.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TelephonyInputBenchmark {
+
+    @Param({"MU_LAW", "A_LAW"})
+    public TelephonyInput.Encoding encoding;
+
+    private TelephonyInput telephonyInput;
+    private byte[] payload;
+
+    /**
+     * Creates the adapter, feeding frames into a blackhole, and a random 160-byte payload.
+     */
+    @Setup
+    public void setup(Blackhole blackhole) throws PicovoiceException {
+        FrameAssembler frameAssembler = new FrameAssembler(512, blackhole::consume);
+        telephonyInput = new TelephonyInput(encoding, 16000, frameAssembler);
+        payload = new byte[160];
+        new Random(0).nextBytes(payload);
+    }
+
+    @Benchmark
+    public void process() throws PicovoiceException {
+        telephonyInput.process(payload, 0, payload.length);
+    }
+}
@@ -0,0 +1,326 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoiceserver;
+
+import ai.picovoice.picovoice.Picovoice;
+import ai.picovoice.picovoice.PicovoiceException;
+import ai.picovoice.rhino.RhinoInference;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * A single PCM stream and the Picovoice instance processing it.
+ *
+ * <p>The selector thread only detects readiness: it clears the key's interest set and hands the connection to its
+ * worker, which reads from the socket, frames the audio out of direct buffers, processes it and writes events back.
+ * The worker then asks the selector to restore the interest set. A connection is therefore only ever run by one
+ * thread at a time, and the Picovoice instance is only used from its worker.
+ *
+ * <p>Raw TCP connections carry 16-bit little-endian PCM and receive events as JSON lines. WebSocket connections
+ * carry the same PCM in binary messages and receive events as text messages.
+ */
+final class Connection implements Runnable {
+    private static final int INBOUND_CAPACITY = 16 * 1024;
+    private static final int OUTBOUND_CAPACITY = 16 * 1024;
+    private static final int MAX_READS_PER_DISPATCH = 8;
+
+    private final PicovoiceServer server;
+    private final SocketChannel channel;
+    private final Executor worker;
+    private final boolean isWebSocket;
+    private final ByteBuffer inbound;
+    private final ByteBuffer outbound;
+    private SelectionKey key;
+    private WebSocket webSocket;
+    private ByteBuffer pcm;
+    private short[] frame;
+    private int frameBytes;
+    private Picovoice picovoice;
+    private long numSamples = 0;
+    private boolean isHandshakeDone = false;
+    private boolean isOutboundOverflowed = false;
+    private boolean isClosed = false;
+
+    Connection(PicovoiceServer server, SocketChannel channel, Executor worker, boolean isWebSocket) {
+        this.server = server;
+        this.channel = channel;
+        this.worker = worker;
+        this.isWebSocket = isWebSocket;
+        this.inbound = ByteBuffer.allocateDirect(INBOUND_CAPACITY);
+        this.outbound = ByteBuffer.allocateDirect(OUTBOUND_CAPACITY);
+        if (!isWebSocket) {
+            inbound.order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    void setKey(SelectionKey key) {
+        this.key = key;
+    }
+
+    SelectionKey getKey() {
+        return key;
+    }
+
+    Executor getWorker() {
+        return worker;
+    }
+
+    int getInterestOps() {
+        return outbound.position() > 0 ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ;
+    }
+
+    @Override
+    public void run() {
+        if (isClosed) {
+            return;
+        }
+        try {
+            if (picovoice == null) {
+                open();
+            }
+            flush();
+
+            for (int i = 0; i < MAX_READS_PER_DISPATCH; i++) {
+                final int numRead = channel.read(inbound);
+                if (numRead < 0) {
+                    close();
+                    return;
+                }
+                if (numRead == 0 || !consume()) {
+                    break;
+                }
+            }
+            if (isOutboundOverflowed) {
+                // the client is not reading its events
+                close();
+            }
+            if (isClosed) {
+                return;
+            }
+
+            flush();
+            server.rearm(this);
+        } catch (IOException | PicovoiceException e) {
+            if (e instanceof PicovoiceException && e.getMessage() != null) {
+                sendEvent(String.format("{\"event\":\"error\",\"message\":\"%s\"}", escape(e.getMessage())));
+                try {
+                    flush();
+                } catch (IOException ignored) {
+                    // the connection is closed below
+                }
+            }
+            close();
+        } catch (RuntimeException e) {
+            // the selector no longer watches this connection, so it has to be closed here or it leaks
+            System.err.println("Connection failed: " + e);
+            close();
+        }
+    }
+
+    private void open() throws PicovoiceException {
+        picovoice = server.createPicovoice(this::onWakeWord, this::onInference);
+        frame = new short[picovoice.getFrameLength()];
+        frameBytes = frame.length * 2;
+        if (isWebSocket) {
+            webSocket = new WebSocket();
+            pcm = ByteBuffer.allocateDirect(frameBytes * 4).order(ByteOrder.LITTLE_ENDIAN);
+        } else {
+            pcm = inbound;
+        }
+    }
+
+    /**
+     * Processes the bytes read so far.
+     *
+     * @return Whether the connection is still open.
+     */
+    private boolean consume() throws IOException, PicovoiceException {
+        inbound.flip();
+        try {
+            if (!isWebSocket) {
+                processFrames(inbound);
+                return true;
+            }
+            if (!isHandshakeDone && (!handshake() || !isHandshakeDone)) {
+                return !isClosed;
+            }
+
+            while (true) {
+                final WebSocket.Result result = webSocket.decode(inbound, pcm);
+                pcm.flip();
+                processFrames(pcm);
+                pcm.compact();
+
+                switch (result) {
+                    case NEED_INPUT:
+                        return true;
+                    case OUTPUT_FULL:
+                        break;
+                    case PING:
+                        final ByteBuffer payload = webSocket.getControlPayload();
+                        if (!hasRoom(payload.remaining())) {
+                            // the client is pinging without reading
+                            close();
+                            return false;
+                        }
+                        WebSocket.writeFrameHeader(outbound, WebSocket.OPCODE_PONG, payload.remaining());
+                        outbound.put(payload);
+                        break;
+                    case CLOSE:
+                        if (hasRoom(0)) {
+                            WebSocket.writeFrameHeader(outbound, WebSocket.OPCODE_CLOSE, 0);
+                            flush();
+                        }
+                        close();
+                        return false;
+                    case PROTOCOL_ERROR:
+                    default:
+                        close();
+                        return false;
+                }
+            }
+        } finally {
+            if (!isClosed) {
+                inbound.compact();
+            }
+        }
+    }
+
+    private boolean handshake() throws IOException {
+        final int headerLength = WebSocket.findHeaderEnd(inbound);
+        if (headerLength < 0) {
+            if (inbound.limit() == inbound.capacity()) {
+                close();
+                return false;
+            }
+            return true;
+        }
+
+        final byte[] header = new byte[headerLength];
+        inbound.get(header);
+        final String response = WebSocket.handshakeResponse(new String(header, StandardCharsets.US_ASCII));
+        if (response == null) {
+            outbound.put("HTTP/1.1 400 Bad Request\r\nConnection: close\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            flush();
+            close();
+            return false;
+        }
+        outbound.put(response.getBytes(StandardCharsets.US_ASCII));
+        isHandshakeDone = true;
+        return true;
+    }
+
+    private void processFrames(ByteBuffer buffer) throws PicovoiceException {
+        while (buffer.remaining() >= frameBytes) {
+            for (int i = 0; i < frame.length; i++) {
+                frame[i] = buffer.getShort();
+            }
+            numSamples += frame.length;
+            picovoice.process(frame);
+        }
+    }
+
+    private void onWakeWord() {
+        sendEvent(String.format("{\"event\":\"wake_word\",\"sample\":%d}", numSamples));
+    }
+
+    private void onInference(RhinoInference inference) {
+        final StringBuilder event = new StringBuilder()
+                .append("{\"event\":\"inference\",\"sample\":").append(numSamples)
+                .append(",\"is_understood\":").append(inference.getIsUnderstood());
+        if (inference.getIsUnderstood()) {
+            event.append(",\"intent\":\"").append(escape(inference.getIntent())).append("\",\"slots\":{");
+            boolean isFirst = true;
+            for (Map.Entry<String, String> slot : inference.getSlots().entrySet()) {
+                event.append(isFirst ? "\"" : ",\"").append(escape(slot.getKey())).append("\":\"")
+                        .append(escape(slot.getValue())).append('"');
+                isFirst = false;
+            }
+            event.append('}');
+        }
+        sendEvent(event.append('}').toString());
+    }
+
+    private void sendEvent(String json) {
+        final byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        final int length = isWebSocket ? bytes.length : bytes.length + 1;
+        if (!hasRoom(length)) {
+            isOutboundOverflowed = true;
+            return;
+        }
+        if (isWebSocket) {
+            WebSocket.writeFrameHeader(outbound, WebSocket.OPCODE_TEXT, bytes.length);
+            outbound.put(bytes);
+        } else {
+            outbound.put(bytes).put((byte) '\n');
+        }
+    }
+
+    /**
+     * Checks whether the outbound buffer can take a message, including its WebSocket frame header.
+     */
+    private boolean hasRoom(int length) {
+        return outbound.remaining() >= length + 10;
+    }
+
+    private void flush() throws IOException {
+        if (isClosed || outbound.position() == 0) {
+            return;
+        }
+        outbound.flip();
+        channel.write(outbound);
+        outbound.compact();
+    }
+
+    void close() {
+        if (isClosed) {
+            return;
+        }
+        isClosed = true;
+        if (picovoice != null) {
+            picovoice.delete();
+            picovoice = null;
+        }
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // nothing left to release
+        }
+        server.onClosed(this);
+    }
+
+    static String escape(String s) {
+        final StringBuilder escaped = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < 0x20) {
+                escaped.append(String.format("\\u%04x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
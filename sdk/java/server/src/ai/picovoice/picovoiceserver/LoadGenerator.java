@@ -0,0 +1,373 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoiceserver;
+
+import org.apache.commons.cli.*;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Load generator for PicovoiceServer. Opens many raw PCM streams to the server's TCP port and replays audio files
+ * on each of them, either paced at (a multiple of) real time or as fast as the server accepts it.
+ *
+ * <p>Every event the server sends carries the number of samples the stream had processed when the event was
+ * raised. The latency of an event is measured from when the chunk holding that sample was written to the socket
+ * to when the event was received. At the end, the generator reports throughput and latency percentiles.
+ */
+public class LoadGenerator {
+    private static final int SAMPLE_RATE = 16000;
+    private static final int BYTES_PER_SAMPLE = 2;
+    private static final long DRAIN_NANOS = 2_000_000_000L;
+
+    private static final class Stream {
+        final SocketChannel channel;
+        final ByteBuffer audio;
+        final long[] chunkSentNanos;
+        final ByteBuffer inbound = ByteBuffer.allocate(4096);
+        long startNanos;
+        long numBytesSent = 0;
+
+        Stream(SocketChannel channel, ByteBuffer audio, int numChunks) {
+            this.channel = channel;
+            this.audio = audio;
+            this.chunkSentNanos = new long[numChunks];
+        }
+    }
+
+    private final int chunkBytes;
+    private final long chunkNanos;
+    private final long numBytesPerStream;
+    private final double speed;
+    private final List<Stream> streams = new ArrayList<>();
+    private long[] latencies = new long[1024];
+    private int numLatencies = 0;
+    private long numWakeWords = 0;
+    private long numInferences = 0;
+    private long numErrors = 0;
+
+    private LoadGenerator(int chunkSamples, double durationSec, double speed) {
+        this.chunkBytes = chunkSamples * BYTES_PER_SAMPLE;
+        this.chunkNanos = 1_000_000_000L * chunkSamples / SAMPLE_RATE;
+        this.numBytesPerStream = (long) Math.ceil(durationSec * SAMPLE_RATE / chunkSamples) * chunkBytes;
+        this.speed = speed;
+    }
+
+    private void run(InetSocketAddress address, List<ByteBuffer> audioFiles, int numStreams) throws IOException {
+        final Selector selector = Selector.open();
+        final int numChunks = (int) (numBytesPerStream / chunkBytes);
+        for (int i = 0; i < numStreams; i++) {
+            final SocketChannel channel = SocketChannel.open(address);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.configureBlocking(false);
+            final Stream stream = new Stream(channel, audioFiles.get(i % audioFiles.size()).duplicate(), numChunks);
+            channel.register(selector, SelectionKey.OP_READ, stream);
+            streams.add(stream);
+        }
+
+        final long startNanos = System.nanoTime();
+        for (int i = 0; i < streams.size(); i++) {
+            // stagger the streams over a chunk so their frames don't arrive in bursts
+            streams.get(i).startNanos = startNanos + chunkNanos * i / streams.size();
+        }
+
+        long lastSendNanos = startNanos;
+        boolean isSending = true;
+        while (true) {
+            final long now = System.nanoTime();
+            if (isSending) {
+                isSending = false;
+                for (Stream stream : streams) {
+                    isSending |= send(stream, now);
+                }
+                lastSendNanos = now;
+            } else if (now - lastSendNanos > DRAIN_NANOS) {
+                break;
+            }
+
+            if (selector.select(1) > 0) {
+                final long receivedNanos = System.nanoTime();
+                for (SelectionKey key : selector.selectedKeys()) {
+                    receive((Stream) key.attachment(), receivedNanos);
+                }
+                selector.selectedKeys().clear();
+            }
+        }
+        final long endNanos = lastSendNanos;
+
+        for (Stream stream : streams) {
+            stream.channel.close();
+        }
+        selector.close();
+        report(startNanos, endNanos);
+    }
+
+    /**
+     * Writes whatever audio of the stream is due.
+     *
+     * @return Whether the stream has audio left to send.
+     */
+    private boolean send(Stream stream, long now) throws IOException {
+        if (!stream.channel.isOpen()) {
+            return false;
+        }
+        long numBytesDue = numBytesPerStream;
+        if (speed > 0) {
+            final long numChunksDue = (long) ((now - stream.startNanos) * speed / chunkNanos) + 1;
+            numBytesDue = Math.max(0, Math.min(numBytesPerStream, numChunksDue * chunkBytes));
+        }
+
+        while (stream.numBytesSent < numBytesDue) {
+            if (!stream.audio.hasRemaining()) {
+                stream.audio.rewind();
+            }
+            final int limit = stream.audio.limit();
+            final long numBytesLeft = numBytesDue - stream.numBytesSent;
+            if (stream.audio.remaining() > numBytesLeft) {
+                stream.audio.limit(stream.audio.position() + (int) numBytesLeft);
+            }
+            final long chunksBefore = stream.numBytesSent / chunkBytes;
+            final int numWritten = stream.channel.write(stream.audio);
+            stream.audio.limit(limit);
+            stream.numBytesSent += numWritten;
+            for (long chunk = chunksBefore; chunk < stream.numBytesSent / chunkBytes; chunk++) {
+                stream.chunkSentNanos[(int) chunk] = now;
+            }
+            if (numWritten == 0) {
+                // the server is not keeping up; the socket buffer is full
+                break;
+            }
+        }
+        return stream.numBytesSent < numBytesPerStream;
+    }
+
+    private void receive(Stream stream, long receivedNanos) throws IOException {
+        if (stream.channel.read(stream.inbound) < 0) {
+            stream.channel.close();
+            return;
+        }
+        stream.inbound.flip();
+        int lineStart = stream.inbound.position();
+        for (int i = lineStart; i < stream.inbound.limit(); i++) {
+            if (stream.inbound.get(i) == '\n') {
+                final byte[] line = new byte[i - lineStart];
+                stream.inbound.get(line);
+                stream.inbound.get();
+                onEvent(stream, new String(line, StandardCharsets.UTF_8), receivedNanos);
+                lineStart = i + 1;
+            }
+        }
+        stream.inbound.compact();
+    }
+
+    private void onEvent(Stream stream, String event, long receivedNanos) {
+        if (event.contains("\"event\":\"wake_word\"")) {
+            numWakeWords++;
+        } else if (event.contains("\"event\":\"inference\"")) {
+            numInferences++;
+        } else {
+            numErrors++;
+            System.err.println(event);
+            return;
+        }
+
+        final int start = event.indexOf("\"sample\":") + "\"sample\":".length();
+        int end = start;
+        while (end < event.length() && Character.isDigit(event.charAt(end))) {
+            end++;
+        }
+        final long sample = Long.parseLong(event.substring(start, end));
+        final int chunk = (int) ((sample - 1) * BYTES_PER_SAMPLE / chunkBytes);
+        if (chunk >= 0 && chunk < stream.chunkSentNanos.length && stream.chunkSentNanos[chunk] != 0) {
+            if (numLatencies == latencies.length) {
+                latencies = Arrays.copyOf(latencies, latencies.length * 2);
+            }
+            latencies[numLatencies++] = receivedNanos - stream.chunkSentNanos[chunk];
+        }
+    }
+
+    private void report(long startNanos, long endNanos) {
+        final double wallSec = (endNanos - startNanos) / 1e9;
+        long numBytesSent = 0;
+        for (Stream stream : streams) {
+            numBytesSent += stream.numBytesSent;
+        }
+        final double audioSec = (double) numBytesSent / BYTES_PER_SAMPLE / SAMPLE_RATE;
+
+        System.out.printf("Streams:          %d%n", streams.size());
+        System.out.printf("Audio sent:       %.1f s in %.1f s%n", audioSec, wallSec);
+        System.out.printf("Throughput:       %.1fx real time (%.1f s of audio per stream per second)%n",
+                audioSec / wallSec,
+                audioSec / wallSec / streams.size());
+        System.out.printf("Events:           %d wake words, %d inferences, %d errors%n",
+                numWakeWords,
+                numInferences,
+                numErrors);
+        if (numLatencies > 0) {
+            final long[] sorted = Arrays.copyOf(latencies, numLatencies);
+            Arrays.sort(sorted);
+            System.out.printf("Event latency:    p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                    percentile(sorted, 0.50) / 1e6,
+                    percentile(sorted, 0.99) / 1e6,
+                    sorted[sorted.length - 1] / 1e6);
+        }
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)];
+    }
+
+    private static ByteBuffer loadAudio(File file) throws IOException, UnsupportedAudioFileException {
+        try (AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(file)) {
+            final AudioFormat format = audioInputStream.getFormat();
+            if (format.getSampleRate() != SAMPLE_RATE || format.getSampleSizeInBits() != 16 ||
+                    format.getChannels() != 1 || format.isBigEndian()) {
+                return null;
+            }
+            final byte[] bytes = audioInputStream.readAllBytes();
+            return ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+        }
+    }
+
+    /**
+     * Runs the load generator from the command line and prints its report.
+     *
+     * @param args Command-line arguments. Pass {@code --help} for a description.
+     */
+    public static void main(String[] args) {
+        Options options = buildCommandLineOptions();
+        CommandLineParser parser = new DefaultParser();
+        HelpFormatter formatter = new HelpFormatter();
+
+        CommandLine cmd;
+        try {
+            cmd = parser.parse(options, args);
+        } catch (ParseException e) {
+            System.out.println(e.getMessage());
+            formatter.printHelp("picovoiceloadgenerator", options);
+            System.exit(1);
+            return;
+        }
+
+        if (cmd.hasOption("help")) {
+            formatter.printHelp("picovoiceloadgenerator", options);
+            return;
+        }
+
+        String host = cmd.getOptionValue("host", "127.0.0.1");
+        int port = Integer.parseInt(cmd.getOptionValue("port", "9000"));
+        int numStreams = Integer.parseInt(cmd.getOptionValue("num_streams", "100"));
+        double durationSec = Double.parseDouble(cmd.getOptionValue("duration", "30"));
+        double speed = Double.parseDouble(cmd.getOptionValue("speed", "1"));
+        int chunkSamples = Integer.parseInt(cmd.getOptionValue("chunk_samples", "512"));
+        File audioDir = new File(cmd.getOptionValue("audio_dir", "../../../resources/audio_samples"));
+
+        if (numStreams <= 0 || durationSec <= 0 || speed < 0 || chunkSamples <= 0) {
+            throw new IllegalArgumentException(
+                    "Number of streams, duration and chunk size must be positive and speed non-negative.");
+        }
+
+        final File[] files = audioDir.listFiles((dir, name) -> name.endsWith(".wav"));
+        if (files == null || files.length == 0) {
+            throw new IllegalArgumentException(String.format("No .wav files found in '%s'", audioDir));
+        }
+        Arrays.sort(files);
+
+        try {
+            final List<ByteBuffer> audioFiles = new ArrayList<>();
+            for (File file : files) {
+                final ByteBuffer audio = loadAudio(file);
+                if (audio != null) {
+                    audioFiles.add(audio);
+                } else {
+                    System.err.printf("Skipping '%s': expected 16kHz, 16-bit, mono audio%n", file.getName());
+                }
+            }
+            if (audioFiles.isEmpty()) {
+                throw new IllegalArgumentException(String.format("No usable audio files found in '%s'", audioDir));
+            }
+
+            new LoadGenerator(chunkSamples, durationSec, speed)
+                    .run(new InetSocketAddress(host, port), audioFiles, numStreams);
+        } catch (IOException | UnsupportedAudioFileException e) {
+            System.err.println("Load generation failed: " + e);
+            System.exit(1);
+        }
+    }
+
+    private static Options buildCommandLineOptions() {
+        Options options = new Options();
+
+        options.addOption(Option.builder("H")
+                .longOpt("host")
+                .hasArg(true)
+                .desc("Server address. Defaults to 127.0.0.1.")
+                .build());
+
+        options.addOption(Option.builder("p")
+                .longOpt("port")
+                .hasArg(true)
+                .desc("Server TCP port. Defaults to 9000.")
+                .build());
+
+        options.addOption(Option.builder("n")
+                .longOpt("num_streams")
+                .hasArg(true)
+                .desc("Number of concurrent streams. Defaults to 100.")
+                .build());
+
+        options.addOption(Option.builder("d")
+                .longOpt("duration")
+                .hasArg(true)
+                .desc("Seconds of audio sent on each stream. Defaults to 30.")
+                .build());
+
+        options.addOption(Option.builder("s")
+                .longOpt("speed")
+                .hasArg(true)
+                .desc("Pace of each stream as a multiple of real time, or 0 to send as fast as possible. " +
+                        "Defaults to 1.")
+                .build());
+
+        options.addOption(Option.builder("cs")
+                .longOpt("chunk_samples")
+                .hasArg(true)
+                .desc("Number of samples written at a time. Defaults to 512.")
+                .build());
+
+        options.addOption(Option.builder("i")
+                .longOpt("audio_dir")
+                .hasArg(true)
+                .desc("Directory of 16kHz, 16-bit, mono .wav files to replay. " +
+                        "Defaults to ../../../resources/audio_samples.")
+                .build());
+
+        options.addOption(new Option("h", "help", false, ""));
+
+        return options;
+    }
+}
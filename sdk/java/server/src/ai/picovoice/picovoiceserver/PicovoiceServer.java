@@ -0,0 +1,508 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoiceserver;
+
+import ai.picovoice.picovoice.Picovoice;
+import ai.picovoice.picovoice.PicovoiceException;
+import ai.picovoice.picovoice.PicovoiceInferenceCallback;
+import ai.picovoice.picovoice.PicovoiceWakeWordCallback;
+import org.apache.commons.cli.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streaming ingest server running Picovoice on raw PCM streams received over TCP or WebSocket.
+ *
+ * <p>A single selector thread accepts connections and watches them for readiness. Each connection is pinned to one
+ * of a fixed set of workers (one per core by default), which reads, frames and processes its audio and pushes wake
+ * word and inference events back on the same connection. Every connection gets its own Picovoice instance.
+ */
+public class PicovoiceServer {
+
+    /**
+     * Creates the Picovoice instance of a new connection.
+     */
+    public interface PicovoiceFactory {
+        Picovoice create(
+                PicovoiceWakeWordCallback wakeWordCallback,
+                PicovoiceInferenceCallback inferenceCallback) throws PicovoiceException;
+    }
+
+    private final PicovoiceFactory picovoiceFactory;
+    private final Selector selector;
+    private final ServerSocketChannel tcpChannel;
+    private final ServerSocketChannel webSocketChannel;
+    private final ExecutorService[] workers;
+    private final Queue<Connection> rearmQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger numConnections = new AtomicInteger(0);
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private final Thread selectorThread;
+    private volatile boolean isRunning = true;
+    private int nextWorker = 0;
+
+    private PicovoiceServer(
+            PicovoiceFactory picovoiceFactory,
+            InetSocketAddress tcpAddress,
+            InetSocketAddress webSocketAddress,
+            int numWorkers) throws IOException {
+        this.picovoiceFactory = picovoiceFactory;
+        this.selector = Selector.open();
+        this.tcpChannel = tcpAddress != null ? listen(tcpAddress, false) : null;
+        this.webSocketChannel = webSocketAddress != null ? listen(webSocketAddress, true) : null;
+
+        this.workers = new ExecutorService[numWorkers];
+        for (int i = 0; i < numWorkers; i++) {
+            final String name = "PicovoiceServerWorker-" + i;
+            workers[i] = Executors.newSingleThreadExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        this.selectorThread = new Thread(this::select, "PicovoiceServerSelector");
+        selectorThread.start();
+    }
+
+    private ServerSocketChannel listen(InetSocketAddress address, boolean isWebSocket) throws IOException {
+        final ServerSocketChannel channel = ServerSocketChannel.open();
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        channel.bind(address, 1024);
+        channel.register(selector, SelectionKey.OP_ACCEPT, isWebSocket);
+        return channel;
+    }
+
+    private void select() {
+        try {
+            while (isRunning) {
+                selector.select();
+
+                Connection connection;
+                while ((connection = rearmQueue.poll()) != null) {
+                    final SelectionKey key = connection.getKey();
+                    try {
+                        key.interestOps(connection.getInterestOps());
+                    } catch (CancelledKeyException ignored) {
+                        // closed by its worker in the meantime
+                    }
+                }
+
+                for (SelectionKey key : selector.selectedKeys()) {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept((ServerSocketChannel) key.channel(), (Boolean) key.attachment());
+                    } else {
+                        // the worker owns the connection until it asks to be rearmed
+                        try {
+                            key.interestOps(0);
+                        } catch (CancelledKeyException ignored) {
+                            continue;
+                        }
+                        final Connection ready = (Connection) key.attachment();
+                        ready.getWorker().execute(ready);
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        } catch (IOException e) {
+            System.err.println("Selector failed: " + e);
+        } finally {
+            shutdown();
+        }
+    }
+
+    /**
+     * Accepts pending connections. A connection that fails to be accepted or set up is dropped without affecting
+     * the others.
+     */
+    private void accept(ServerSocketChannel serverChannel, boolean isWebSocket) {
+        while (true) {
+            final SocketChannel channel;
+            try {
+                channel = serverChannel.accept();
+            } catch (IOException e) {
+                // e.g. out of file descriptors; pending connections are retried on the next select
+                System.err.println("Accept failed: " + e);
+                return;
+            }
+            if (channel == null) {
+                return;
+            }
+
+            try {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                final Connection connection = new Connection(this, channel, workers[nextWorker], isWebSocket);
+                nextWorker = (nextWorker + 1) % workers.length;
+                connection.setKey(channel.register(selector, SelectionKey.OP_READ, connection));
+                numConnections.incrementAndGet();
+            } catch (IOException e) {
+                // e.g. reset by the peer before it could be set up
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // nothing left to release
+                }
+            }
+        }
+    }
+
+    private void shutdown() {
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Connection) {
+                final Connection connection = (Connection) key.attachment();
+                connection.getWorker().execute(connection::close);
+            }
+        }
+        for (ExecutorService worker : workers) {
+            worker.shutdown();
+        }
+        try {
+            for (ExecutorService worker : workers) {
+                worker.awaitTermination(10, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (tcpChannel != null) {
+                tcpChannel.close();
+            }
+            if (webSocketChannel != null) {
+                webSocketChannel.close();
+            }
+            selector.close();
+        } catch (IOException ignored) {
+            // shutting down
+        }
+        stopped.countDown();
+    }
+
+    Picovoice createPicovoice(
+            PicovoiceWakeWordCallback wakeWordCallback,
+            PicovoiceInferenceCallback inferenceCallback) throws PicovoiceException {
+        return picovoiceFactory.create(wakeWordCallback, inferenceCallback);
+    }
+
+    void rearm(Connection connection) {
+        rearmQueue.add(connection);
+        selector.wakeup();
+    }
+
+    void onClosed(Connection connection) {
+        numConnections.decrementAndGet();
+    }
+
+    /**
+     * Stops accepting connections, closes the open ones and waits for the workers to finish.
+     *
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public void stop() throws InterruptedException {
+        isRunning = false;
+        selector.wakeup();
+        stopped.await();
+    }
+
+    /**
+     * Waits until the server is stopped.
+     *
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public void awaitStop() throws InterruptedException {
+        stopped.await();
+    }
+
+    /**
+     * Getter for the port accepting raw PCM over TCP.
+     *
+     * @return Port, or -1 if TCP is disabled.
+     */
+    public int getTcpPort() {
+        return tcpChannel != null ? tcpChannel.socket().getLocalPort() : -1;
+    }
+
+    /**
+     * Getter for the port accepting PCM over WebSocket.
+     *
+     * @return Port, or -1 if WebSocket is disabled.
+     */
+    public int getWebSocketPort() {
+        return webSocketChannel != null ? webSocketChannel.socket().getLocalPort() : -1;
+    }
+
+    /**
+     * Getter for the number of open connections.
+     *
+     * @return Number of open connections.
+     */
+    public int getNumConnections() {
+        return numConnections.get();
+    }
+
+    /**
+     * Builder for creating an instance of PicovoiceServer.
+     */
+    public static class Builder {
+        private PicovoiceFactory picovoiceFactory = null;
+        private String host = "0.0.0.0";
+        private int tcpPort = -1;
+        private int webSocketPort = -1;
+        private int numWorkers = Runtime.getRuntime().availableProcessors();
+
+        public PicovoiceServer.Builder setPicovoiceFactory(PicovoiceFactory picovoiceFactory) {
+            this.picovoiceFactory = picovoiceFactory;
+            return this;
+        }
+
+        public PicovoiceServer.Builder setHost(String host) {
+            this.host = host;
+            return this;
+        }
+
+        /**
+         * Setter for the port accepting raw PCM over TCP.
+         *
+         * @param tcpPort Port. 0 picks a free port and -1 (the default) disables TCP.
+         * @return This builder.
+         */
+        public PicovoiceServer.Builder setTcpPort(int tcpPort) {
+            this.tcpPort = tcpPort;
+            return this;
+        }
+
+        /**
+         * Setter for the port accepting PCM over WebSocket.
+         *
+         * @param webSocketPort Port. 0 picks a free port and -1 (the default) disables WebSocket.
+         * @return This builder.
+         */
+        public PicovoiceServer.Builder setWebSocketPort(int webSocketPort) {
+            this.webSocketPort = webSocketPort;
+            return this;
+        }
+
+        public PicovoiceServer.Builder setNumWorkers(int numWorkers) {
+            this.numWorkers = numWorkers;
+            return this;
+        }
+
+        /**
+         * Validates properties, binds the listening sockets and starts the server.
+         *
+         * @return A running instance of PicovoiceServer.
+         * @throws IOException if a listening socket cannot be bound.
+         */
+        public PicovoiceServer start() throws IOException {
+            if (picovoiceFactory == null) {
+                throw new IllegalArgumentException("Picovoice factory is required");
+            }
+            if (tcpPort < 0 && webSocketPort < 0) {
+                throw new IllegalArgumentException("At least one of the TCP and WebSocket ports is required");
+            }
+            if (numWorkers <= 0) {
+                throw new IllegalArgumentException(
+                        String.format("Number of workers must be a positive number. Received %d.", numWorkers));
+            }
+            return new PicovoiceServer(
+                    picovoiceFactory,
+                    tcpPort >= 0 ? new InetSocketAddress(host, tcpPort) : null,
+                    webSocketPort >= 0 ? new InetSocketAddress(host, webSocketPort) : null,
+                    numWorkers);
+        }
+    }
+
+    /**
+     * Runs the server from the command line until it is interrupted.
+     *
+     * @param args Command-line arguments. Pass {@code --help} for a description.
+     */
+    public static void main(String[] args) {
+        Options options = buildCommandLineOptions();
+        CommandLineParser parser = new DefaultParser();
+        HelpFormatter formatter = new HelpFormatter();
+
+        CommandLine cmd;
+        try {
+            cmd = parser.parse(options, args);
+        } catch (ParseException e) {
+            System.out.println(e.getMessage());
+            formatter.printHelp("picovoiceserver", options);
+            System.exit(1);
+            return;
+        }
+
+        if (cmd.hasOption("help")) {
+            formatter.printHelp("picovoiceserver", options);
+            return;
+        }
+
+        String accessKey = cmd.getOptionValue("access_key");
+        String keywordPath = cmd.getOptionValue("keyword_path");
+        String contextPath = cmd.getOptionValue("context_path");
+        String porcupineModelPath = cmd.getOptionValue("porcupine_model_path");
+        String rhinoModelPath = cmd.getOptionValue("rhino_model_path");
+        float porcupineSensitivity = Float.parseFloat(cmd.getOptionValue("porcupine_sensitivity", "0.5"));
+        float rhinoSensitivity = Float.parseFloat(cmd.getOptionValue("rhino_sensitivity", "0.5"));
+        String host = cmd.getOptionValue("host", "0.0.0.0");
+        int tcpPort = Integer.parseInt(cmd.getOptionValue("tcp_port", "9000"));
+        int webSocketPort = Integer.parseInt(cmd.getOptionValue("websocket_port", "9001"));
+        int numWorkers = Integer.parseInt(cmd.getOptionValue(
+                "num_workers",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+
+        if (accessKey == null || accessKey.length() == 0) {
+            throw new IllegalArgumentException("AccessKey is required for Picovoice.");
+        }
+        if (keywordPath == null || !new File(keywordPath).exists()) {
+            throw new IllegalArgumentException(String.format("Keyword file at path '%s' does not exist", keywordPath));
+        }
+        if (contextPath == null || !new File(contextPath).exists()) {
+            throw new IllegalArgumentException(String.format("Context file at path '%s' does not exist", contextPath));
+        }
+
+        try {
+            PicovoiceServer server = new PicovoiceServer.Builder()
+                    .setPicovoiceFactory((wakeWordCallback, inferenceCallback) -> new Picovoice.Builder()
+                            .setAccessKey(accessKey)
+                            .setKeywordPath(keywordPath)
+                            .setPorcupineModelPath(porcupineModelPath)
+                            .setPorcupineSensitivity(porcupineSensitivity)
+                            .setWakeWordCallback(wakeWordCallback)
+                            .setContextPath(contextPath)
+                            .setRhinoModelPath(rhinoModelPath)
+                            .setRhinoSensitivity(rhinoSensitivity)
+                            .setInferenceCallback(inferenceCallback)
+                            .build())
+                    .setHost(host)
+                    .setTcpPort(tcpPort)
+                    .setWebSocketPort(webSocketPort)
+                    .setNumWorkers(numWorkers)
+                    .start();
+
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    server.stop();
+                } catch (InterruptedException ignored) {
+                    // exiting
+                }
+            }));
+
+            System.out.printf(
+                    "Listening for PCM on tcp://%s:%d and ws://%s:%d with %d workers. Press Ctrl+C to exit.%n",
+                    host,
+                    server.getTcpPort(),
+                    host,
+                    server.getWebSocketPort(),
+                    numWorkers);
+            server.awaitStop();
+        } catch (IOException e) {
+            System.err.println("Failed to start server: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException ignored) {
+            // exiting
+        }
+    }
+
+    private static Options buildCommandLineOptions() {
+        Options options = new Options();
+
+        options.addOption(Option.builder("a")
+                .longOpt("access_key")
+                .hasArg(true)
+                .desc("AccessKey obtained from Picovoice Console (https://console.picovoice.ai/).")
+                .build());
+
+        options.addOption(Option.builder("k")
+                .longOpt("keyword_path")
+                .hasArg(true)
+                .desc("Absolute path to a Porcupine keyword file.")
+                .build());
+
+        options.addOption(Option.builder("c")
+                .longOpt("context_path")
+                .hasArg(true)
+                .desc("Absolute path to a Rhino context file.")
+                .build());
+
+        options.addOption(Option.builder("pm")
+                .longOpt("porcupine_model_path")
+                .hasArg(true)
+                .desc("Absolute path to the file containing Porcupine model parameters.")
+                .build());
+
+        options.addOption(Option.builder("ps")
+                .longOpt("porcupine_sensitivity")
+                .hasArg(true)
+                .desc("Sensitivity for detecting wake word. Each value should be a number within [0, 1].")
+                .build());
+
+        options.addOption(Option.builder("rm")
+                .longOpt("rhino_model_path")
+                .hasArg(true)
+                .desc("Absolute path to the file containing Rhino model parameters.")
+                .build());
+
+        options.addOption(Option.builder("rs")
+                .longOpt("rhino_sensitivity")
+                .hasArg(true)
+                .desc("Inference sensitivity. It should be a number within [0, 1].")
+                .build());
+
+        options.addOption(Option.builder("H")
+                .longOpt("host")
+                .hasArg(true)
+                .desc("Address to listen on. Defaults to 0.0.0.0.")
+                .build());
+
+        options.addOption(Option.builder("tp")
+                .longOpt("tcp_port")
+                .hasArg(true)
+                .desc("Port accepting raw 16-bit little-endian PCM over TCP, or -1 to disable. Defaults to 9000.")
+                .build());
+
+        options.addOption(Option.builder("wp")
+                .longOpt("websocket_port")
+                .hasArg(true)
+                .desc("Port accepting PCM in WebSocket binary messages, or -1 to disable. Defaults to 9001.")
+                .build());
+
+        options.addOption(Option.builder("w")
+                .longOpt("num_workers")
+                .hasArg(true)
+                .desc("Number of worker threads processing audio. Defaults to the number of cores.")
+                .build());
+
+        options.addOption(new Option("h", "help", false, ""));
+
+        return options;
+    }
+}
@@ -0,0 +1,246 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoiceserver;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Locale;
+
+/**
+ * The parts of the WebSocket protocol (RFC 6455) the server needs: the opening handshake, an incremental decoder
+ * for client frames and server frame headers.
+ *
+ * <p>The decoder unmasks the payload of binary messages straight into the caller's buffer, so a stream of PCM can
+ * be split over frames (and frames over reads) arbitrarily. Text messages are ignored.
+ */
+final class WebSocket {
+
+    enum Result {
+        NEED_INPUT,
+        OUTPUT_FULL,
+        PING,
+        CLOSE,
+        PROTOCOL_ERROR
+    }
+
+    static final int OPCODE_CONTINUATION = 0x0;
+    static final int OPCODE_TEXT = 0x1;
+    static final int OPCODE_BINARY = 0x2;
+    static final int OPCODE_CLOSE = 0x8;
+    static final int OPCODE_PING = 0x9;
+    static final int OPCODE_PONG = 0xA;
+
+    private static final String ACCEPT_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    private static final int MAX_CONTROL_PAYLOAD = 125;
+
+    private final byte[] mask = new byte[4];
+    private final ByteBuffer controlPayload = ByteBuffer.allocate(MAX_CONTROL_PAYLOAD);
+    private boolean isInFrame = false;
+    private boolean isBinaryMessage = false;
+    private int opcode;
+    private long payloadRemaining;
+    private int maskIndex;
+
+    /**
+     * Decodes client frames from {@code in} until it runs out of input, the output is full or a control frame
+     * needs the caller's attention.
+     *
+     * @param in  Bytes received from the client, ready to be read.
+     * @param out Buffer receiving the payload of binary messages.
+     * @return Why decoding stopped.
+     */
+    Result decode(ByteBuffer in, ByteBuffer out) {
+        while (true) {
+            if (!isInFrame) {
+                final Result headerResult = decodeHeader(in);
+                if (headerResult != null) {
+                    return headerResult;
+                }
+            }
+
+            if (opcode >= OPCODE_CLOSE) {
+                while (payloadRemaining > 0 && in.hasRemaining()) {
+                    controlPayload.put((byte) (in.get() ^ mask[maskIndex++ & 3]));
+                    payloadRemaining--;
+                }
+                if (payloadRemaining > 0) {
+                    return Result.NEED_INPUT;
+                }
+                isInFrame = false;
+                controlPayload.flip();
+                if (opcode == OPCODE_CLOSE) {
+                    return Result.CLOSE;
+                }
+                if (opcode == OPCODE_PING) {
+                    return Result.PING;
+                }
+                continue;
+            }
+
+            final int n = (int) Math.min(payloadRemaining, in.remaining());
+            if (isBinaryMessage) {
+                final int length = Math.min(n, out.remaining());
+                for (int i = 0; i < length; i++) {
+                    out.put((byte) (in.get() ^ mask[maskIndex++ & 3]));
+                }
+                payloadRemaining -= length;
+                if (length < n || (payloadRemaining > 0 && !out.hasRemaining())) {
+                    return Result.OUTPUT_FULL;
+                }
+            } else {
+                in.position(in.position() + n);
+                payloadRemaining -= n;
+            }
+            if (payloadRemaining > 0) {
+                return Result.NEED_INPUT;
+            }
+            isInFrame = false;
+        }
+    }
+
+    private Result decodeHeader(ByteBuffer in) {
+        if (in.remaining() < 2) {
+            return Result.NEED_INPUT;
+        }
+        final int start = in.position();
+        final int b0 = in.get(start) & 0xFF;
+        final int b1 = in.get(start + 1) & 0xFF;
+        final int length7 = b1 & 0x7F;
+        final boolean isMasked = (b1 & 0x80) != 0;
+        final int headerLength = 2 + (length7 == 126 ? 2 : length7 == 127 ? 8 : 0) + (isMasked ? 4 : 0);
+        if (in.remaining() < headerLength) {
+            return Result.NEED_INPUT;
+        }
+
+        in.position(start + 2);
+        if (length7 == 126) {
+            payloadRemaining = in.getShort() & 0xFFFF;
+        } else if (length7 == 127) {
+            payloadRemaining = in.getLong();
+        } else {
+            payloadRemaining = length7;
+        }
+        if (payloadRemaining < 0) {
+            return Result.PROTOCOL_ERROR;
+        }
+        if (isMasked) {
+            in.get(mask);
+        } else {
+            // clients must mask their frames
+            return Result.PROTOCOL_ERROR;
+        }
+
+        opcode = b0 & 0x0F;
+        maskIndex = 0;
+        isInFrame = true;
+        if (opcode >= OPCODE_CLOSE) {
+            if (payloadRemaining > MAX_CONTROL_PAYLOAD) {
+                return Result.PROTOCOL_ERROR;
+            }
+            controlPayload.clear();
+        } else if (opcode == OPCODE_BINARY || opcode == OPCODE_TEXT) {
+            isBinaryMessage = opcode == OPCODE_BINARY;
+        } else if (opcode != OPCODE_CONTINUATION) {
+            return Result.PROTOCOL_ERROR;
+        }
+        return null;
+    }
+
+    /**
+     * Getter for the payload of the last ping or close frame.
+     *
+     * @return Payload, ready to be read.
+     */
+    ByteBuffer getControlPayload() {
+        return controlPayload;
+    }
+
+    /**
+     * Writes the header of an unmasked, unfragmented server frame.
+     *
+     * @param out           Buffer receiving the header.
+     * @param opcode        Frame opcode.
+     * @param payloadLength Length of the payload that follows the header.
+     */
+    static void writeFrameHeader(ByteBuffer out, int opcode, int payloadLength) {
+        out.put((byte) (0x80 | opcode));
+        if (payloadLength < 126) {
+            out.put((byte) payloadLength);
+        } else if (payloadLength <= 0xFFFF) {
+            out.put((byte) 126);
+            out.putShort((short) payloadLength);
+        } else {
+            out.put((byte) 127);
+            out.putLong(payloadLength);
+        }
+    }
+
+    /**
+     * Finds the end of an HTTP request header.
+     *
+     * @param in Bytes received from the client, ready to be read.
+     * @return Length of the header including the terminating empty line, or -1 if it is incomplete.
+     */
+    static int findHeaderEnd(ByteBuffer in) {
+        for (int i = in.position(); i + 3 < in.limit(); i++) {
+            if (in.get(i) == '\r' && in.get(i + 1) == '\n' && in.get(i + 2) == '\r' && in.get(i + 3) == '\n') {
+                return i + 4 - in.position();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Builds the response to a client's opening handshake.
+     *
+     * @param request HTTP request header sent by the client.
+     * @return The response switching protocols, or null if the request is not a WebSocket upgrade.
+     */
+    static String handshakeResponse(String request) {
+        String key = null;
+        boolean isUpgrade = false;
+        for (String line : request.split("\r\n")) {
+            final int colon = line.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+            final String name = line.substring(0, colon).trim().toLowerCase(Locale.ENGLISH);
+            final String value = line.substring(colon + 1).trim();
+            if (name.equals("sec-websocket-key")) {
+                key = value;
+            } else if (name.equals("upgrade")) {
+                isUpgrade = value.equalsIgnoreCase("websocket");
+            }
+        }
+        if (!request.startsWith("GET ") || !isUpgrade || key == null) {
+            return null;
+        }
+        return "HTTP/1.1 101 Switching Protocols\r\n" +
+                "Upgrade: websocket\r\n" +
+                "Connection: Upgrade\r\n" +
+                "Sec-WebSocket-Accept: " + acceptKey(key) + "\r\n\r\n";
+    }
+
+    static String acceptKey(String key) {
+        try {
+            final MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            final byte[] digest = sha1.digest((key + ACCEPT_GUID).getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+    }
+}
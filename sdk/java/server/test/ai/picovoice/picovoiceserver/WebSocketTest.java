@@ -0,0 +1,149 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoiceserver;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WebSocketTest {
+
+    private static final byte[] MASK = {0x12, 0x34, 0x56, 0x78};
+
+    private static void putClientFrame(ByteBuffer out, int opcode, boolean isFinal, byte[] payload) {
+        out.put((byte) ((isFinal ? 0x80 : 0) | opcode));
+        if (payload.length < 126) {
+            out.put((byte) (0x80 | payload.length));
+        } else {
+            out.put((byte) (0x80 | 126));
+            out.putShort((short) payload.length);
+        }
+        out.put(MASK);
+        for (int i = 0; i < payload.length; i++) {
+            out.put((byte) (payload[i] ^ MASK[i & 3]));
+        }
+    }
+
+    private static byte[] sequence(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) i;
+        }
+        return bytes;
+    }
+
+    @Test
+    void testAcceptKey() {
+        // example from RFC 6455, section 1.3
+        assertEquals("s3pPLMBiTxaQ9kYGzzhZRbK+xOo=", WebSocket.acceptKey("dGhlIHNhbXBsZSBub25jZQ=="));
+    }
+
+    @Test
+    void testHandshake() {
+        String request = "GET /stream HTTP/1.1\r\n" +
+                "Host: localhost:9001\r\n" +
+                "Upgrade: websocket\r\n" +
+                "Connection: Upgrade\r\n" +
+                "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\n" +
+                "Sec-WebSocket-Version: 13\r\n\r\n";
+        ByteBuffer in = ByteBuffer.wrap(request.getBytes(StandardCharsets.US_ASCII));
+        assertEquals(request.length(), WebSocket.findHeaderEnd(in));
+
+        String response = WebSocket.handshakeResponse(request);
+        assertTrue(response.startsWith("HTTP/1.1 101 Switching Protocols\r\n"));
+        assertTrue(response.contains("Sec-WebSocket-Accept: s3pPLMBiTxaQ9kYGzzhZRbK+xOo=\r\n"));
+
+        assertNull(WebSocket.handshakeResponse("GET / HTTP/1.1\r\nHost: localhost\r\n\r\n"));
+        in = ByteBuffer.wrap("GET / HTTP/1.1\r\nHost:".getBytes(StandardCharsets.US_ASCII));
+        assertEquals(-1, WebSocket.findHeaderEnd(in));
+    }
+
+    @Test
+    void testFragmentedBinaryMessage() {
+        byte[] payload = sequence(1000);
+        ByteBuffer in = ByteBuffer.allocate(2048);
+        putClientFrame(in, WebSocket.OPCODE_TEXT, true, "ignored".getBytes(StandardCharsets.US_ASCII));
+        putClientFrame(in, WebSocket.OPCODE_BINARY, false, Arrays.copyOfRange(payload, 0, 300));
+        putClientFrame(in, WebSocket.OPCODE_PING, true, new byte[0]);
+        putClientFrame(in, WebSocket.OPCODE_CONTINUATION, true, Arrays.copyOfRange(payload, 300, 1000));
+        in.flip();
+
+        // feed the bytes a few at a time into a small output buffer
+        WebSocket webSocket = new WebSocket();
+        ByteBuffer received = ByteBuffer.allocate(payload.length);
+        ByteBuffer out = ByteBuffer.allocate(64);
+        ByteBuffer chunk = ByteBuffer.allocate(in.limit());
+        while (in.hasRemaining()) {
+            int n = Math.min(7, in.remaining());
+            for (int i = 0; i < n; i++) {
+                chunk.put(in.get());
+            }
+            chunk.flip();
+            WebSocket.Result result;
+            do {
+                result = webSocket.decode(chunk, out);
+                out.flip();
+                received.put(out);
+                out.clear();
+            } while (result == WebSocket.Result.OUTPUT_FULL || result == WebSocket.Result.PING);
+            assertEquals(WebSocket.Result.NEED_INPUT, result);
+            chunk.compact();
+        }
+        assertEquals(0, chunk.position());
+        assertArrayEquals(payload, received.array());
+    }
+
+    @Test
+    void testControlFrames() {
+        ByteBuffer in = ByteBuffer.allocate(64);
+        putClientFrame(in, WebSocket.OPCODE_PING, true, "ping".getBytes(StandardCharsets.US_ASCII));
+        putClientFrame(in, WebSocket.OPCODE_CLOSE, true, new byte[0]);
+        in.flip();
+
+        WebSocket webSocket = new WebSocket();
+        ByteBuffer out = ByteBuffer.allocate(64);
+        assertEquals(WebSocket.Result.PING, webSocket.decode(in, out));
+        ByteBuffer controlPayload = webSocket.getControlPayload();
+        byte[] ping = new byte[controlPayload.remaining()];
+        controlPayload.get(ping);
+        assertEquals("ping", new String(ping, StandardCharsets.US_ASCII));
+        assertEquals(WebSocket.Result.CLOSE, webSocket.decode(in, out));
+        assertEquals(0, out.position());
+    }
+
+    @Test
+    void testUnmaskedFrameIsRejected() {
+        ByteBuffer in = ByteBuffer.wrap(new byte[]{(byte) 0x82, 0x02, 0x01, 0x02});
+        assertEquals(WebSocket.Result.PROTOCOL_ERROR, new WebSocket().decode(in, ByteBuffer.allocate(16)));
+    }
+
+    @Test
+    void testServerFrameHeader() {
+        ByteBuffer out = ByteBuffer.allocate(16);
+        WebSocket.writeFrameHeader(out, WebSocket.OPCODE_TEXT, 5);
+        assertArrayEquals(new byte[]{(byte) 0x81, 5}, Arrays.copyOf(out.array(), out.position()));
+
+        out.clear();
+        WebSocket.writeFrameHeader(out, WebSocket.OPCODE_BINARY, 300);
+        assertArrayEquals(
+                new byte[]{(byte) 0x82, 126, 0x01, 0x2C},
+                Arrays.copyOf(out.array(), out.position()));
+    }
+}
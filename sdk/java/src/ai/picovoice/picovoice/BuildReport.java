@@ -0,0 +1,88 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import java.util.Locale;
+
+/**
+ * Time spent in each phase of creating a ${@link Picovoice} or ${@link MicArrayPicovoice} instance.
+ */
+public final class BuildReport {
+
+    /**
+     * Phases of creating an instance, in the order they run.
+     */
+    public enum Phase {
+        /** Initializing the Porcupine and Rhino classes, which unpack their packaged files from their JARs. */
+        LOAD_ENGINES,
+        /** Resolving the packaged libraries and models through the extraction cache. */
+        RESOLVE_FILES,
+        /** Creating Porcupine: loading its library, parsing its model and keyword and validating the AccessKey. */
+        PORCUPINE_INIT,
+        /** Creating Rhino: loading its library, parsing its model and context and validating the AccessKey. */
+        RHINO_INIT,
+        /** Checking the engine versions and that the engines agree on frame length and sample rate. */
+        VERSION_CHECKS,
+        /** Setting up barge-in, trigger rate limiting and real-time monitoring. */
+        CONFIGURE,
+        /** Feeding synthetic frames through the engines, if enabled. */
+        PREWARM
+    }
+
+    private final long[] phaseNanos = new long[Phase.values().length];
+
+    BuildReport() { }
+
+    /**
+     * Adds the time elapsed since {@code startNanos} to a phase.
+     *
+     * @return The current time, which starts the next phase.
+     */
+    long lap(Phase phase, long startNanos) {
+        final long nowNanos = System.nanoTime();
+        phaseNanos[phase.ordinal()] += nowNanos - startNanos;
+        return nowNanos;
+    }
+
+    /**
+     * Getter for the time spent in a phase.
+     *
+     * @param phase Phase.
+     * @return Time spent in the phase, in nanoseconds. 0 if the phase did not run.
+     */
+    public long getPhaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * Getter for the time spent in all phases.
+     *
+     * @return Total time, in nanoseconds.
+     */
+    public long getTotalNanos() {
+        long totalNanos = 0;
+        for (long nanos : phaseNanos) {
+            totalNanos += nanos;
+        }
+        return totalNanos;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("BuildReport{");
+        for (Phase phase : Phase.values()) {
+            builder.append(String.format(Locale.ROOT, "%s=%.3fms, ", phase, getPhaseNanos(phase) / 1e6));
+        }
+        return builder.append(String.format(Locale.ROOT, "total=%.3fms}", getTotalNanos() / 1e6)).toString();
+    }
+}
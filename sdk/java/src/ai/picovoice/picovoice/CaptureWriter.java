@@ -0,0 +1,309 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Writes a capture of frames and events on a background thread, with a fixed amount of memory.
+ *
+ * <p>The capture format is little-endian throughout:
+ * <pre>
+ * header:     "PVCP", int version, int sample rate, int frame length, int number of properties,
+ *             (string key, string value) per property
+ * record:     byte tag followed by
+ *   FRAME     frame length 16-bit samples
+ *   WAKE_WORD long sample index
+ *   INFERENCE long sample index, byte is understood, string intent, int number of slots,
+ *             (string slot, string value) per slot
+ *   END       byte is truncated
+ * string:     int length in bytes (-1 for null), UTF-8 bytes
+ * </pre>
+ * Events follow the frame that raised them and their sample index counts the samples processed up to
+ * and including that frame. A frame and its events are always written to the same chunk, so a
+ * capture never holds a frame without the events it raised.
+ *
+ * <p>Records are appended to fixed-size chunks that the writer thread drains to the output. The
+ * caller never blocks on I/O; if the output falls so far behind that every chunk is in use,
+ * recording stops and the capture ends with the truncated flag set, so that it is always a
+ * consistent prefix of the stream.
+ */
+final class CaptureWriter {
+
+    static final byte[] MAGIC = {'P', 'V', 'C', 'P'};
+    static final int VERSION = 1;
+    static final byte TAG_END = 0;
+    static final byte TAG_FRAME = 1;
+    static final byte TAG_WAKE_WORD = 2;
+    static final byte TAG_INFERENCE = 3;
+
+    private static final ByteBuffer END_OF_CHUNKS = ByteBuffer.allocate(0);
+
+    private final OutputStream output;
+    private final int frameLength;
+    private final ArrayBlockingQueue<ByteBuffer> freeChunks;
+    private final ArrayBlockingQueue<ByteBuffer> filledChunks;
+    private final Thread writerThread;
+    private ByteBuffer chunk;
+    private int frameStart = -1;
+    private boolean isTruncated = false;
+    private boolean isClosed = false;
+    private long numFrames = 0;
+    private volatile IOException writeError = null;
+
+    CaptureWriter(
+            OutputStream output,
+            int sampleRate,
+            int frameLength,
+            Map<String, String> properties,
+            int numChunks,
+            int chunkBytes) throws PicovoiceIOException {
+        this.output = output;
+        this.frameLength = frameLength;
+        this.freeChunks = new ArrayBlockingQueue<>(numChunks);
+        this.filledChunks = new ArrayBlockingQueue<>(numChunks + 1);
+        for (int i = 1; i < numChunks; i++) {
+            freeChunks.add(newChunk(chunkBytes));
+        }
+        this.chunk = newChunk(chunkBytes);
+
+        final ByteBuffer header = newChunk(headerBytes(properties));
+        header.put(MAGIC);
+        header.putInt(VERSION);
+        header.putInt(sampleRate);
+        header.putInt(frameLength);
+        header.putInt(properties.size());
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+            putString(header, property.getKey());
+            putString(header, property.getValue());
+        }
+        try {
+            output.write(header.array(), 0, header.position());
+        } catch (IOException e) {
+            throw new PicovoiceIOException("Failed to write the capture header", e);
+        }
+
+        this.writerThread = new Thread(this::drain, "PicovoiceCaptureWriter");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Appends a frame. Frames of the wrong length are ignored, as Picovoice rejects them.
+     */
+    void writeFrame(short[] pcm) {
+        if (pcm == null || pcm.length != frameLength || !reserve(1 + 2 * frameLength)) {
+            return;
+        }
+        frameStart = chunk.position();
+        chunk.put(TAG_FRAME);
+        for (short sample : pcm) {
+            chunk.putShort(sample);
+        }
+        numFrames++;
+    }
+
+    /**
+     * Appends an event raised by the last frame.
+     */
+    void writeEvent(CapturedEvent event) {
+        if (event.getType() == PicovoiceEvent.Type.WAKE_WORD) {
+            if (reserveEvent(1 + 8)) {
+                chunk.put(TAG_WAKE_WORD);
+                chunk.putLong(event.getSampleIndex());
+            }
+            return;
+        }
+
+        int numBytes = 1 + 8 + 1 + stringBytes(event.getIntent()) + 4;
+        for (Map.Entry<String, String> slot : event.getSlots().entrySet()) {
+            numBytes += stringBytes(slot.getKey()) + stringBytes(slot.getValue());
+        }
+        if (reserveEvent(numBytes)) {
+            chunk.put(TAG_INFERENCE);
+            chunk.putLong(event.getSampleIndex());
+            chunk.put((byte) (event.getIsUnderstood() ? 1 : 0));
+            putString(chunk, event.getIntent());
+            chunk.putInt(event.getSlots().size());
+            for (Map.Entry<String, String> slot : event.getSlots().entrySet()) {
+                putString(chunk, slot.getKey());
+                putString(chunk, slot.getValue());
+            }
+        }
+    }
+
+    long getNumFrames() {
+        return numFrames;
+    }
+
+    boolean getIsTruncated() {
+        return isTruncated;
+    }
+
+    /**
+     * Writes out the remaining records and the end of the capture, and closes the output.
+     *
+     * @throws PicovoiceIOException if writing to the output failed at any point.
+     */
+    void close() throws PicovoiceIOException {
+        if (isClosed) {
+            return;
+        }
+        isClosed = true;
+
+        submit();
+        filledChunks.add(END_OF_CHUNKS);
+        boolean isInterrupted = false;
+        while (writerThread.isAlive()) {
+            try {
+                writerThread.join();
+            } catch (InterruptedException e) {
+                isInterrupted = true;
+            }
+        }
+        if (isInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            try {
+                if (writeError == null) {
+                    output.write(new byte[]{TAG_END, (byte) (isTruncated ? 1 : 0)});
+                }
+            } finally {
+                output.close();
+            }
+        } catch (IOException e) {
+            if (writeError == null) {
+                writeError = e;
+            }
+        }
+        if (writeError != null) {
+            throw new PicovoiceIOException("Failed to write the capture", writeError);
+        }
+    }
+
+    private boolean reserve(int numBytes) {
+        if (isTruncated || isClosed) {
+            return false;
+        }
+        if (chunk.remaining() >= numBytes) {
+            return true;
+        }
+        if (numBytes <= chunk.capacity()) {
+            submit();
+            chunk = freeChunks.poll();
+        }
+        if (chunk == null || chunk.remaining() < numBytes) {
+            isTruncated = true;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reserves room for an event of the last frame. When the event needs a new chunk, the frame and its
+     * earlier events move along to it; when no chunk is free, the frame is taken back out of the capture
+     * and recording stops before it.
+     */
+    private boolean reserveEvent(int numBytes) {
+        if (isTruncated || isClosed) {
+            return false;
+        }
+        if (chunk.remaining() >= numBytes) {
+            return true;
+        }
+
+        final int frameBytes = frameStart >= 0 ? chunk.position() - frameStart : 0;
+        final ByteBuffer next = frameBytes + numBytes <= chunk.capacity() ? freeChunks.poll() : null;
+        if (next == null) {
+            if (frameStart >= 0) {
+                chunk.position(frameStart);
+                numFrames--;
+            }
+            isTruncated = true;
+            return false;
+        }
+
+        next.put(chunk.array(), chunk.position() - frameBytes, frameBytes);
+        chunk.position(chunk.position() - frameBytes);
+        submit();
+        chunk = next;
+        frameStart = frameBytes > 0 ? 0 : -1;
+        return true;
+    }
+
+    private void submit() {
+        frameStart = -1;
+        if (chunk != null && chunk.position() > 0) {
+            chunk.flip();
+            filledChunks.add(chunk);
+            chunk = null;
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            final ByteBuffer filled;
+            try {
+                filled = filledChunks.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (filled == END_OF_CHUNKS) {
+                return;
+            }
+            if (writeError == null) {
+                try {
+                    output.write(filled.array(), 0, filled.limit());
+                } catch (IOException e) {
+                    writeError = e;
+                }
+            }
+            filled.clear();
+            freeChunks.add(filled);
+        }
+    }
+
+    private static ByteBuffer newChunk(int numBytes) {
+        return ByteBuffer.allocate(numBytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int headerBytes(Map<String, String> properties) {
+        int numBytes = MAGIC.length + 4 * 4;
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+            numBytes += stringBytes(property.getKey()) + stringBytes(property.getValue());
+        }
+        return numBytes;
+    }
+
+    private static int stringBytes(String value) {
+        return 4 + (value != null ? value.getBytes(StandardCharsets.UTF_8).length : 0);
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+}
@@ -0,0 +1,140 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import ai.picovoice.rhino.RhinoInference;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * A wake word or inference event stored in a capture, or raised while replaying one. Events compare
+ * equal when their type, sample index and inference match.
+ */
+public final class CapturedEvent {
+
+    private final PicovoiceEvent.Type type;
+    private final long sampleIndex;
+    private final boolean isUnderstood;
+    private final String intent;
+    private final Map<String, String> slots;
+
+    CapturedEvent(
+            PicovoiceEvent.Type type,
+            long sampleIndex,
+            boolean isUnderstood,
+            String intent,
+            Map<String, String> slots) {
+        this.type = type;
+        this.sampleIndex = sampleIndex;
+        this.isUnderstood = isUnderstood;
+        this.intent = intent;
+        this.slots = Collections.unmodifiableMap(new TreeMap<>(slots));
+    }
+
+    static CapturedEvent wakeWord(long sampleIndex) {
+        return new CapturedEvent(PicovoiceEvent.Type.WAKE_WORD, sampleIndex, false, null, Collections.emptyMap());
+    }
+
+    static CapturedEvent inference(long sampleIndex, RhinoInference inference) {
+        final Map<String, String> slots = inference.getSlots();
+        return new CapturedEvent(
+                PicovoiceEvent.Type.INFERENCE,
+                sampleIndex,
+                inference.getIsUnderstood(),
+                inference.getIntent(),
+                slots != null ? slots : Collections.emptyMap());
+    }
+
+    /**
+     * Getter for the kind of event.
+     *
+     * @return ${@link PicovoiceEvent.Type#WAKE_WORD} or ${@link PicovoiceEvent.Type#INFERENCE}.
+     */
+    public PicovoiceEvent.Type getType() {
+        return type;
+    }
+
+    /**
+     * Getter for the position of the event in the stream.
+     *
+     * @return Number of samples processed when the event was raised, including the frame that raised it.
+     */
+    public long getSampleIndex() {
+        return sampleIndex;
+    }
+
+    /**
+     * Getter for whether the command of an inference event was understood.
+     *
+     * @return Whether the command was understood. False for wake word events.
+     */
+    public boolean getIsUnderstood() {
+        return isUnderstood;
+    }
+
+    /**
+     * Getter for the intent of an inference event.
+     *
+     * @return Intent, or null if the command was not understood or for wake word events.
+     */
+    public String getIntent() {
+        return intent;
+    }
+
+    /**
+     * Getter for the slots of an inference event.
+     *
+     * @return Slot values keyed by slot name. Empty for wake word events.
+     */
+    public Map<String, String> getSlots() {
+        return slots;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CapturedEvent)) {
+            return false;
+        }
+        final CapturedEvent other = (CapturedEvent) o;
+        return type == other.type &&
+                sampleIndex == other.sampleIndex &&
+                isUnderstood == other.isUnderstood &&
+                Objects.equals(intent, other.intent) &&
+                slots.equals(other.slots);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, sampleIndex, isUnderstood, intent, slots);
+    }
+
+    @Override
+    public String toString() {
+        if (type == PicovoiceEvent.Type.WAKE_WORD) {
+            return String.format("CapturedEvent{type=%s, sampleIndex=%d}", type, sampleIndex);
+        }
+        return String.format(
+                "CapturedEvent{type=%s, sampleIndex=%d, isUnderstood=%b, intent=%s, slots=%s}",
+                type,
+                sampleIndex,
+                isUnderstood,
+                intent,
+                slots);
+    }
+}
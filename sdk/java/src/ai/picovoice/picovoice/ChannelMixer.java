@@ -0,0 +1,308 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import java.util.Arrays;
+
+/**
+ * Turns interleaved multichannel audio into the single-channel 16-bit audio Picovoice operates on.
+ *
+ * <p>Input can be 16-bit linearly-encoded samples ({@code short[]}) or 32-bit floating-point samples within
+ * [-1, 1] ({@code float[]}). The ${@link Mode} decides how a mono sample is derived from each interleaved frame:
+ * a single selected channel, the average of all channels, or the channel with the most energy.
+ *
+ * <p>The mixer works on whole blocks of frames at a time and does not allocate while processing. Each mode is a
+ * separate tight loop over the block so the JIT can unroll it, rather than a per-sample dispatch.
+ */
+public class ChannelMixer {
+
+    /**
+     * How a single channel is derived from an interleaved frame.
+     */
+    public enum Mode {
+        /**
+         * Keeps one channel (the leftmost channel by default) and drops the others.
+         */
+        SELECT,
+        /**
+         * Averages all channels.
+         */
+        AVERAGE,
+        /**
+         * Keeps the channel with the highest (smoothed) energy. The choice is re-evaluated once per block, and a
+         * new channel has to be noticeably louder than the current one before the mixer switches to it.
+         */
+        MAX_ENERGY
+    }
+
+    private static final double ENERGY_HALF_LIFE_FRAMES = 256;
+    private static final double SWITCH_RATIO = 1.25;
+
+    private final int numChannels;
+    private final Mode mode;
+    private final int averageShift;
+    private final double[] channelEnergies;
+    private final int initialChannelIndex;
+    private int channelIndex;
+    private int decayFrames = 0;
+    private double decay = 1;
+
+    /**
+     * Constructor.
+     *
+     * @param numChannels  Number of interleaved channels in the input.
+     * @param mode         Channel mixing mode.
+     * @param channelIndex Index of the channel kept in ${@link Mode#SELECT} mode. For ${@link Mode#MAX_ENERGY} it
+     *                     is the channel used until enough audio has been seen to pick the loudest one.
+     * @throws PicovoiceInvalidArgumentException if the number of channels, mode or channel index is invalid.
+     */
+    public ChannelMixer(int numChannels, Mode mode, int channelIndex) throws PicovoiceInvalidArgumentException {
+        if (numChannels <= 0) {
+            throw new PicovoiceInvalidArgumentException(
+                    String.format("Number of channels must be a positive number. Received %d.", numChannels));
+        }
+        if (mode == null) {
+            throw new PicovoiceInvalidArgumentException("Channel mixing mode is required");
+        }
+        if (channelIndex < 0 || channelIndex >= numChannels) {
+            throw new PicovoiceInvalidArgumentException(
+                    String.format("Channel index must be within [0, %d). Received %d.", numChannels, channelIndex));
+        }
+
+        this.numChannels = numChannels;
+        this.mode = mode;
+        this.initialChannelIndex = channelIndex;
+        this.channelIndex = channelIndex;
+        this.averageShift = Integer.bitCount(numChannels) == 1 ? Integer.numberOfTrailingZeros(numChannels) : -1;
+        this.channelEnergies = new double[numChannels];
+    }
+
+    /**
+     * Constructor that starts from the leftmost channel.
+     *
+     * @param numChannels Number of interleaved channels in the input.
+     * @param mode        Channel mixing mode.
+     * @throws PicovoiceInvalidArgumentException if the number of channels or mode is invalid.
+     */
+    public ChannelMixer(int numChannels, Mode mode) throws PicovoiceInvalidArgumentException {
+        this(numChannels, mode, 0);
+    }
+
+    /**
+     * Mixes a block of interleaved 16-bit audio down to a single channel.
+     *
+     * @param pcm          Interleaved 16-bit linearly-encoded samples.
+     * @param offset       Index of the first sample of the first frame.
+     * @param numFrames    Number of interleaved frames (samples per channel) to mix.
+     * @param output       Buffer receiving {@code numFrames} single-channel samples.
+     * @param outputOffset Index at which to write the first mixed sample.
+     * @return Number of samples written to {@code output}, which is {@code numFrames}.
+     */
+    public int process(short[] pcm, int offset, int numFrames, short[] output, int outputOffset) {
+        if (numChannels == 1) {
+            System.arraycopy(pcm, offset, output, outputOffset, numFrames);
+            return numFrames;
+        }
+
+        switch (mode) {
+            case AVERAGE:
+                average(pcm, offset, numFrames, output, outputOffset);
+                break;
+            case MAX_ENERGY:
+                updateLoudestChannel(pcm, offset, numFrames);
+                select(pcm, offset, numFrames, output, outputOffset);
+                break;
+            case SELECT:
+            default:
+                select(pcm, offset, numFrames, output, outputOffset);
+                break;
+        }
+        return numFrames;
+    }
+
+    /**
+     * Mixes a block of interleaved floating-point audio down to a single channel of 16-bit samples. Values outside
+     * of [-1, 1] are saturated.
+     *
+     * @param pcm          Interleaved floating-point samples within [-1, 1].
+     * @param offset       Index of the first sample of the first frame.
+     * @param numFrames    Number of interleaved frames (samples per channel) to mix.
+     * @param output       Buffer receiving {@code numFrames} single-channel samples.
+     * @param outputOffset Index at which to write the first mixed sample.
+     * @return Number of samples written to {@code output}, which is {@code numFrames}.
+     */
+    public int process(float[] pcm, int offset, int numFrames, short[] output, int outputOffset) {
+        switch (numChannels == 1 ? Mode.SELECT : mode) {
+            case AVERAGE:
+                average(pcm, offset, numFrames, output, outputOffset);
+                break;
+            case MAX_ENERGY:
+                updateLoudestChannel(pcm, offset, numFrames);
+                select(pcm, offset, numFrames, output, outputOffset);
+                break;
+            case SELECT:
+            default:
+                select(pcm, offset, numFrames, output, outputOffset);
+                break;
+        }
+        return numFrames;
+    }
+
+    /**
+     * Forgets the channel energies accumulated in ${@link Mode#MAX_ENERGY} mode and goes back to the channel the
+     * mixer was created with. It should be called before processing a new stream of audio.
+     */
+    public void reset() {
+        Arrays.fill(channelEnergies, 0);
+        channelIndex = initialChannelIndex;
+    }
+
+    /**
+     * Getter for the channel currently being kept. In ${@link Mode#AVERAGE} mode all channels are used and the
+     * value is not meaningful.
+     *
+     * @return Index of the selected channel.
+     */
+    public int getChannelIndex() {
+        return channelIndex;
+    }
+
+    /**
+     * Getter for number of interleaved input channels.
+     *
+     * @return Number of channels.
+     */
+    public int getNumChannels() {
+        return numChannels;
+    }
+
+    /**
+     * Getter for the channel mixing mode.
+     *
+     * @return Channel mixing mode.
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    private void select(short[] pcm, int offset, int numFrames, short[] output, int outputOffset) {
+        int src = offset + channelIndex;
+        for (int i = 0; i < numFrames; i++) {
+            output[outputOffset + i] = pcm[src];
+            src += numChannels;
+        }
+    }
+
+    private void select(float[] pcm, int offset, int numFrames, short[] output, int outputOffset) {
+        int src = offset + channelIndex;
+        for (int i = 0; i < numFrames; i++) {
+            output[outputOffset + i] = PcmConverter.floatToShort(pcm[src]);
+            src += numChannels;
+        }
+    }
+
+    private void average(short[] pcm, int offset, int numFrames, short[] output, int outputOffset) {
+        int src = offset;
+        if (averageShift >= 0) {
+            // common layouts (2, 4, 8 channels) average with a shift instead of an integer division per sample
+            for (int i = 0; i < numFrames; i++) {
+                int sum = 0;
+                for (int c = 0; c < numChannels; c++) {
+                    sum += pcm[src + c];
+                }
+                output[outputOffset + i] = (short) (sum >> averageShift);
+                src += numChannels;
+            }
+        } else {
+            for (int i = 0; i < numFrames; i++) {
+                int sum = 0;
+                for (int c = 0; c < numChannels; c++) {
+                    sum += pcm[src + c];
+                }
+                output[outputOffset + i] = (short) (sum / numChannels);
+                src += numChannels;
+            }
+        }
+    }
+
+    private void average(float[] pcm, int offset, int numFrames, short[] output, int outputOffset) {
+        final float scale = 1.0f / numChannels;
+        int src = offset;
+        for (int i = 0; i < numFrames; i++) {
+            float sum = 0f;
+            for (int c = 0; c < numChannels; c++) {
+                sum += pcm[src + c];
+            }
+            output[outputOffset + i] = PcmConverter.floatToShort(sum * scale);
+            src += numChannels;
+        }
+    }
+
+    private void updateLoudestChannel(short[] pcm, int offset, int numFrames) {
+        if (numFrames <= 0) {
+            return;
+        }
+        final double blockDecay = decayFor(numFrames);
+        for (int c = 0; c < numChannels; c++) {
+            long energy = 0;
+            int src = offset + c;
+            for (int i = 0; i < numFrames; i++) {
+                final int sample = pcm[src];
+                energy += sample * sample;
+                src += numChannels;
+            }
+            channelEnergies[c] = channelEnergies[c] * blockDecay + (energy / (double) numFrames) * (1 - blockDecay);
+        }
+        selectLoudestChannel();
+    }
+
+    private void updateLoudestChannel(float[] pcm, int offset, int numFrames) {
+        if (numFrames <= 0) {
+            return;
+        }
+        final double blockDecay = decayFor(numFrames);
+        for (int c = 0; c < numChannels; c++) {
+            double energy = 0;
+            int src = offset + c;
+            for (int i = 0; i < numFrames; i++) {
+                final float sample = pcm[src];
+                energy += sample * sample;
+                src += numChannels;
+            }
+            channelEnergies[c] = channelEnergies[c] * blockDecay + (energy / numFrames) * (1 - blockDecay);
+        }
+        selectLoudestChannel();
+    }
+
+    // channel energies are moving averages of the power per sample, so the smoothing time constant is the same
+    // whatever block size the caller uses
+    private double decayFor(int numFrames) {
+        if (numFrames != decayFrames) {
+            decay = Math.pow(0.5, numFrames / ENERGY_HALF_LIFE_FRAMES);
+            decayFrames = numFrames;
+        }
+        return decay;
+    }
+
+    private void selectLoudestChannel() {
+        int loudest = channelIndex;
+        for (int c = 0; c < numChannels; c++) {
+            if (channelEnergies[c] > channelEnergies[loudest]) {
+                loudest = c;
+            }
+        }
+        if (channelEnergies[loudest] > channelEnergies[channelIndex] * SWITCH_RATIO) {
+            channelIndex = loudest;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import ai.picovoice.porcupine.Porcupine;
+import ai.picovoice.porcupine.PorcupineException;
+import ai.picovoice.rhino.Rhino;
+import ai.picovoice.rhino.RhinoException;
+
+import java.nio.file.Path;
+
+/**
+ * Creates the Porcupine and Rhino instances behind ${@link Picovoice} and the classes built on it. Packaged
+ * libraries and models are resolved through the extraction cache once, every engine is checked against the
+ * versions this SDK supports, and the time spent is added to a ${@link BuildReport}.
+ */
+final class EngineFactory {
+
+    private final String accessKey;
+    private final String porcupineLibraryPath;
+    private final String porcupineModelPath;
+    private final String rhinoLibraryPath;
+    private final String rhinoModelPath;
+    private final BuildReport buildReport;
+    private long lapStartNanos;
+
+    EngineFactory(
+            String accessKey,
+            String porcupineLibraryPath,
+            String porcupineModelPath,
+            String rhinoLibraryPath,
+            String rhinoModelPath,
+            Path cacheDirectory,
+            BuildReport buildReport) throws PicovoiceException {
+        this.accessKey = accessKey;
+        this.buildReport = buildReport;
+
+        lapStartNanos = System.nanoTime();
+        // reading the packaged paths initializes the engine classes, which unpack their files
+        final String packagedPorcupineLibraryPath = Porcupine.LIBRARY_PATH;
+        final String packagedPorcupineModelPath = Porcupine.MODEL_PATH;
+        final String packagedRhinoLibraryPath = Rhino.LIBRARY_PATH;
+        final String packagedRhinoModelPath = Rhino.MODEL_PATH;
+        lapStartNanos = buildReport.lap(BuildReport.Phase.LOAD_ENGINES, lapStartNanos);
+
+        this.porcupineLibraryPath = ExtractionCache.resolve(
+                porcupineLibraryPath, packagedPorcupineLibraryPath, "porcupine", cacheDirectory);
+        this.porcupineModelPath = ExtractionCache.resolve(
+                porcupineModelPath, packagedPorcupineModelPath, "porcupine", cacheDirectory);
+        this.rhinoLibraryPath = ExtractionCache.resolve(
+                rhinoLibraryPath, packagedRhinoLibraryPath, "rhino", cacheDirectory);
+        this.rhinoModelPath = ExtractionCache.resolve(
+                rhinoModelPath, packagedRhinoModelPath, "rhino", cacheDirectory);
+        lapStartNanos = buildReport.lap(BuildReport.Phase.RESOLVE_FILES, lapStartNanos);
+    }
+
+    /**
+     * Creates a Porcupine instance and checks its version.
+     */
+    Porcupine createPorcupine(String keywordPath, float sensitivity) throws PicovoiceException {
+        final Porcupine porcupine;
+        try {
+            porcupine = new Porcupine.Builder()
+                    .setAccessKey(accessKey)
+                    .setLibraryPath(porcupineLibraryPath)
+                    .setModelPath(porcupineModelPath)
+                    .setSensitivity(sensitivity)
+                    .setKeywordPath(keywordPath)
+                    .build();
+        } catch (PorcupineException e) {
+            throw Picovoice.mapToPicovoiceException(e);
+        }
+        lapStartNanos = buildReport.lap(BuildReport.Phase.PORCUPINE_INIT, lapStartNanos);
+
+        if (!porcupine.getVersion().startsWith("3.0.")) {
+            final String message = String.format(
+                    "Expected Porcupine library with version '3.0.x' but received %s",
+                    porcupine.getVersion());
+            porcupine.delete();
+            throw new PicovoiceException(message);
+        }
+        lapStartNanos = buildReport.lap(BuildReport.Phase.VERSION_CHECKS, lapStartNanos);
+        return porcupine;
+    }
+
+    /**
+     * Creates a Rhino instance and checks its version and that its audio format matches Porcupine's.
+     */
+    Rhino createRhino(
+            Porcupine porcupine,
+            String contextPath,
+            float sensitivity,
+            float endpointDurationSec,
+            boolean requireEndpoint) throws PicovoiceException {
+        final Rhino rhino;
+        try {
+            rhino = new Rhino.Builder()
+                    .setAccessKey(accessKey)
+                    .setLibraryPath(rhinoLibraryPath)
+                    .setModelPath(rhinoModelPath)
+                    .setContextPath(contextPath)
+                    .setSensitivity(sensitivity)
+                    .setEndpointDuration(endpointDurationSec)
+                    .setRequireEndpoint(requireEndpoint)
+                    .build();
+        } catch (RhinoException e) {
+            throw Picovoice.mapToPicovoiceException(e);
+        }
+        lapStartNanos = buildReport.lap(BuildReport.Phase.RHINO_INIT, lapStartNanos);
+
+        String message = null;
+        if (!rhino.getVersion().startsWith("3.0.")) {
+            message = String.format(
+                    "Expected Rhino library with version '3.0.x' but received %s",
+                    rhino.getVersion());
+        } else if (rhino.getFrameLength() != porcupine.getFrameLength()) {
+            message = String.format(
+                    "Incompatible frame lengths for Porcupine and Rhino engines: '%d' and '%d' samples",
+                    porcupine.getFrameLength(),
+                    rhino.getFrameLength());
+        } else if (rhino.getSampleRate() != porcupine.getSampleRate()) {
+            message = String.format(
+                    "Incompatible sample rates for Porcupine and Rhino engines: '%d' and '%d' Hz",
+                    porcupine.getSampleRate(),
+                    rhino.getSampleRate());
+        }
+        if (message != null) {
+            rhino.delete();
+            throw new PicovoiceException(message);
+        }
+        lapStartNanos = buildReport.lap(BuildReport.Phase.VERSION_CHECKS, lapStartNanos);
+        return rhino;
+    }
+
+    /**
+     * Gets the time the last phase ended, which starts the next one.
+     */
+    long getLapStartNanos() {
+        return lapStartNanos;
+    }
+}
@@ -0,0 +1,237 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.zip.CRC32;
+
+/**
+ * Extracts the engine libraries and models packaged on the classpath into a persistent cache.
+ *
+ * <p>Each file is stored under {@code <cache>/<resource directory>/<key>/<file name>}, where the
+ * key is the CRC-32 and size of its content. A warm start finds the file already in place and skips
+ * extraction entirely; for files packaged in a JAR the key comes from the JAR's directory, so the
+ * content is not even read. Extraction writes a temporary file and atomically renames it into
+ * place while holding a lock file, so concurrent processes sharing a cache neither race nor see
+ * partial files.
+ *
+ * <p>Every resolution refreshes the modification time of its version directory. Versions with a
+ * different key, left behind by upgrades, are removed while extracting once they have not been
+ * used for a week. Processes still running an older version, e.g. during a rolling upgrade,
+ * therefore keep their files.
+ *
+ * <p>Porcupine and Rhino find their packaged files by extracting them from the JAR that holds the
+ * engine classes. A GraalVM native image has no such JAR, so the files are embedded in the image
+ * as resources (see {@code META-INF/native-image}) and always resolved through a cache, in the
+ * temporary directory unless another one is set.
+ */
+final class ExtractionCache {
+
+    private static final boolean IS_NATIVE_IMAGE =
+            System.getProperty("org.graalvm.nativeimage.imagecode") != null;
+
+    private static final String LOCK_FILE_NAME = ".lock";
+
+    static final long UNUSED_VERSION_RETENTION_MILLIS = TimeUnit.DAYS.toMillis(7);
+
+    private ExtractionCache() { }
+
+    static boolean isNativeImage() {
+        return IS_NATIVE_IMAGE;
+    }
+
+    /**
+     * Resolves a library or model path.
+     *
+     * @param path           Path set by the user, or null for the packaged default.
+     * @param packagedPath   Default path computed by the engine, e.g. {@code Porcupine.LIBRARY_PATH}.
+     * @param engine         Name of the engine's resource directory, i.e. {@code porcupine} or {@code rhino}.
+     * @param cacheDirectory Cache to extract packaged files to, or null for none.
+     * @return The given path when set, null when no cache is set and not running as a native image,
+     *         otherwise the path of the cached file.
+     * @throws PicovoiceIOException if the packaged file cannot be found or extracted.
+     */
+    static String resolve(
+            String path,
+            String packagedPath,
+            String engine,
+            Path cacheDirectory) throws PicovoiceIOException {
+        if (path != null) {
+            return path;
+        }
+        if (cacheDirectory == null) {
+            if (!IS_NATIVE_IMAGE) {
+                return null;
+            }
+            cacheDirectory = Paths.get(System.getProperty("java.io.tmpdir"), "picovoice-cache");
+        }
+        return extract(cacheDirectory, toResourceName(packagedPath, engine)).toString();
+    }
+
+    static String toResourceName(String packagedPath, String engine) throws PicovoiceIOException {
+        final String normalized = packagedPath.replace('\\', '/');
+        final int start = normalized.lastIndexOf("/" + engine + "/lib/");
+        if (start < 0) {
+            throw new PicovoiceIOException(String.format(
+                    "Cannot map '%s' to a resource of the %s package", packagedPath, engine));
+        }
+        return normalized.substring(start + 1);
+    }
+
+    static Path extract(Path cacheDirectory, String resourceName) throws PicovoiceIOException {
+        final URL resource = ExtractionCache.class.getResource("/" + resourceName);
+        if (resource == null) {
+            throw new PicovoiceIOException(String.format("Resource '%s' is not on the classpath", resourceName));
+        }
+
+        final int separator = resourceName.lastIndexOf('/');
+        final Path parent = cacheDirectory.resolve(resourceName.substring(0, separator));
+        final String key;
+        try {
+            key = contentKey(resource);
+        } catch (IOException e) {
+            throw new PicovoiceIOException(String.format("Failed to read resource '%s'", resourceName), e);
+        }
+        final Path target = parent.resolve(key).resolve(resourceName.substring(separator + 1));
+        markUsed(target.getParent());
+        if (Files.exists(target)) {
+            return target;
+        }
+
+        // the lock file serializes processes and the monitor serializes threads of this one, as a
+        // file lock is held on behalf of the whole JVM
+        synchronized (ExtractionCache.class) {
+            try {
+                Files.createDirectories(parent);
+                try (FileChannel lockChannel = FileChannel.open(
+                        parent.resolve(LOCK_FILE_NAME),
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE)) {
+                    final FileLock lock = lockChannel.lock();
+                    try {
+                        if (!Files.exists(target)) {
+                            write(resource, target);
+                        }
+                        removeOtherVersions(parent, key);
+                    } finally {
+                        lock.release();
+                    }
+                }
+            } catch (IOException e) {
+                throw new PicovoiceIOException(
+                        String.format("Failed to extract resource '%s' to '%s'", resourceName, target), e);
+            }
+        }
+        return target;
+    }
+
+    private static String contentKey(URL resource) throws IOException {
+        final URLConnection connection = resource.openConnection();
+        if (connection instanceof JarURLConnection) {
+            final JarEntry entry = ((JarURLConnection) connection).getJarEntry();
+            if (entry.getCrc() != -1 && entry.getSize() != -1) {
+                return formatKey(entry.getCrc(), entry.getSize());
+            }
+        }
+
+        final CRC32 crc = new CRC32();
+        long size = 0;
+        try (InputStream in = connection.getInputStream()) {
+            final byte[] buffer = new byte[64 * 1024];
+            int numRead;
+            while ((numRead = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, numRead);
+                size += numRead;
+            }
+        }
+        return formatKey(crc.getValue(), size);
+    }
+
+    static String formatKey(long crc, long size) {
+        return String.format(Locale.ROOT, "%08x-%d", crc, size);
+    }
+
+    private static void write(URL resource, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        final Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (InputStream in = resource.openStream()) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void markUsed(Path version) {
+        try {
+            Files.setLastModifiedTime(version, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ignored) {
+            // not extracted yet, or a read-only cache that is never cleaned up by this process
+        }
+    }
+
+    private static void removeOtherVersions(Path parent, String key) throws IOException {
+        final long unusedSinceMillis = System.currentTimeMillis() - UNUSED_VERSION_RETENTION_MILLIS;
+        try (DirectoryStream<Path> versions = Files.newDirectoryStream(parent, Files::isDirectory)) {
+            for (Path version : versions) {
+                if (!version.getFileName().toString().equals(key) &&
+                        Files.getLastModifiedTime(version).toMillis() < unusedSinceMillis) {
+                    deleteQuietly(version);
+                }
+            }
+        }
+    }
+
+    private static void deleteQuietly(Path directory) {
+        // a library still loaded by another process cannot be deleted on Windows; it is retried on
+        // the next extraction
+        try {
+            Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                    Files.deleteIfExists(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                    Files.deleteIfExists(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException ignored) {
+            // left for the next extraction
+        }
+    }
+}
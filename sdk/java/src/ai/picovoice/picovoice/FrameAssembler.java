@@ -0,0 +1,121 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+/**
+ * Collects audio samples arriving in chunks of arbitrary size into frames of a fixed length and
+ * hands every completed frame to a ${@link PicovoiceFrameCallback} (e.g. {@code picovoice::process}).
+ *
+ * <p>A single frame buffer is allocated at construction and reused for every frame, so writing
+ * samples does not allocate. The frame passed to the callback is only valid for the duration of
+ * the call.
+ */
+public class FrameAssembler {
+    private final short[] frame;
+    private final PicovoiceFrameCallback frameCallback;
+    private int frameIndex = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param frameLength   Number of samples per frame. Usually ${@link Picovoice#getFrameLength()}.
+     * @param frameCallback Callback invoked with every completed frame.
+     * @throws PicovoiceInvalidArgumentException if the frame length is not positive or the callback is null.
+     */
+    public FrameAssembler(
+            int frameLength,
+            PicovoiceFrameCallback frameCallback) throws PicovoiceInvalidArgumentException {
+        if (frameLength <= 0) {
+            throw new PicovoiceInvalidArgumentException(
+                    String.format("Frame length must be a positive number. Received %d.", frameLength));
+        }
+        if (frameCallback == null) {
+            throw new PicovoiceInvalidArgumentException("Frame callback is required");
+        }
+
+        this.frame = new short[frameLength];
+        this.frameCallback = frameCallback;
+    }
+
+    /**
+     * Constructor that feeds completed frames to an instance of Picovoice.
+     *
+     * @param picovoice An instance of Picovoice.
+     * @throws PicovoiceInvalidArgumentException if the instance is null or has been released.
+     */
+    public FrameAssembler(Picovoice picovoice) throws PicovoiceInvalidArgumentException {
+        this(picovoice != null ? picovoice.getFrameLength() : 0, picovoice != null ? picovoice::process : null);
+    }
+
+    /**
+     * Appends a single sample, processing the frame if it becomes complete.
+     *
+     * @param sample A 16-bit linearly-encoded sample.
+     * @throws PicovoiceException if the frame callback fails to process a completed frame.
+     */
+    public void write(short sample) throws PicovoiceException {
+        frame[frameIndex++] = sample;
+        if (frameIndex == frame.length) {
+            frameIndex = 0;
+            frameCallback.invoke(frame);
+        }
+    }
+
+    /**
+     * Appends a chunk of samples, processing every frame that becomes complete.
+     *
+     * @param pcm    Buffer holding 16-bit linearly-encoded samples.
+     * @param offset Index of the first sample to append.
+     * @param length Number of samples to append.
+     * @throws PicovoiceException if the frame callback fails to process a completed frame.
+     */
+    public void write(short[] pcm, int offset, int length) throws PicovoiceException {
+        while (length > 0) {
+            final int numToCopy = Math.min(length, frame.length - frameIndex);
+            System.arraycopy(pcm, offset, frame, frameIndex, numToCopy);
+            frameIndex += numToCopy;
+            offset += numToCopy;
+            length -= numToCopy;
+
+            if (frameIndex == frame.length) {
+                frameIndex = 0;
+                frameCallback.invoke(frame);
+            }
+        }
+    }
+
+    /**
+     * Discards any samples of an incomplete frame.
+     */
+    public void reset() {
+        frameIndex = 0;
+    }
+
+    /**
+     * Getter for the number of samples currently held in the incomplete frame.
+     *
+     * @return Number of buffered samples.
+     */
+    public int getBufferedLength() {
+        return frameIndex;
+    }
+
+    /**
+     * Getter for number of audio samples per frame.
+     *
+     * @return Number of audio samples per frame.
+     */
+    public int getFrameLength() {
+        return frame.length;
+    }
+}
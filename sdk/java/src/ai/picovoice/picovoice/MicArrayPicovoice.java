@@ -0,0 +1,456 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import ai.picovoice.porcupine.Porcupine;
+import ai.picovoice.porcupine.PorcupineException;
+import ai.picovoice.rhino.Rhino;
+import ai.picovoice.rhino.RhinoException;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Picovoice for microphone arrays. Each channel of the array (or each beam of a beamformer) gets its own wake word
+ * engine, and the engines process every frame in parallel across cores.
+ *
+ * <p>Once any channel detects the wake word, a single Rhino instance is committed to the channel with the highest
+ * recent energy for the duration of the follow-on command. Wake word engines are not run while the command is being
+ * inferred, so only one channel is processed until the inference completes.
+ *
+ * <p>Audio is passed as interleaved frames of ${@link #getFrameLength()} samples per channel. Callbacks are invoked
+ * on the thread calling ${@link #process(short[])}.
+ */
+public class MicArrayPicovoice {
+    private static final int NO_CHANNEL = -1;
+    private static final double ENERGY_DECAY = 0.75;
+
+    private final int numChannels;
+    private final int frameLength;
+    private final Porcupine[] porcupines;
+    private final Rhino rhino;
+    private final PicovoiceWakeWordCallback wakeWordCallback;
+    private final PicovoiceInferenceCallback inferenceCallback;
+    private final short[][] channelFrames;
+    private final double[] channelEnergies;
+    private final boolean[] isChannelDetected;
+    private final PorcupineException[] errors;
+    private final int[][] partitions;
+    private final PartitionedWorkerPool workerPool;
+    private final BuildReport buildReport;
+    private short[] sharedFrame;
+    private int commandChannel = NO_CHANNEL;
+    private boolean isDeleted = false;
+
+    private MicArrayPicovoice(
+            Porcupine[] porcupines,
+            Rhino rhino,
+            PicovoiceWakeWordCallback wakeWordCallback,
+            PicovoiceInferenceCallback inferenceCallback,
+            int numThreads,
+            BuildReport buildReport) {
+        this.numChannels = porcupines.length;
+        this.frameLength = rhino.getFrameLength();
+        this.porcupines = porcupines;
+        this.rhino = rhino;
+        this.wakeWordCallback = wakeWordCallback;
+        this.inferenceCallback = inferenceCallback;
+        this.channelFrames = new short[numChannels][frameLength];
+        this.channelEnergies = new double[numChannels];
+        this.isChannelDetected = new boolean[numChannels];
+        this.errors = new PorcupineException[numChannels];
+        this.buildReport = buildReport;
+
+        // channels are spread round-robin over the threads; partition 0 runs on the caller
+        final int numPartitions = Math.max(1, Math.min(numThreads, numChannels));
+        this.partitions = new int[numPartitions][];
+        for (int p = 0; p < numPartitions; p++) {
+            final int size = (numChannels - p + numPartitions - 1) / numPartitions;
+            partitions[p] = new int[size];
+            for (int i = 0; i < size; i++) {
+                partitions[p][i] = p + i * numPartitions;
+            }
+        }
+        this.workerPool = new PartitionedWorkerPool(numPartitions, "MicArrayPicovoice", this::processPartition);
+    }
+
+    /**
+     * Processes an interleaved frame of multichannel audio. While listening for the wake word every channel is
+     * processed; while inferring a command only the committed channel is.
+     *
+     * @param pcm Interleaved frame of audio samples, ${@link #getFrameLength()} samples per channel. The incoming
+     *            audio needs to have a sample rate equal to ${@link #getSampleRate()} and be 16-bit
+     *            linearly-encoded.
+     * @throws PicovoiceException if there is an error while processing the audio frame.
+     */
+    public void process(short[] pcm) throws PicovoiceException {
+        if (isDeleted) {
+            throw new PicovoiceInvalidStateException("Cannot process frame - resources have been released");
+        }
+        if (pcm == null) {
+            throw new PicovoiceInvalidArgumentException("Passed null frame to Picovoice process.");
+        }
+        if (pcm.length != frameLength * numChannels) {
+            throw new PicovoiceInvalidArgumentException(
+                    String.format("Picovoice process requires interleaved frames of length %d (%d channels). " +
+                            "Received frame of size %d.", frameLength * numChannels, numChannels, pcm.length));
+        }
+
+        if (commandChannel != NO_CHANNEL) {
+            final short[] frame = channelFrames[commandChannel];
+            deinterleave(pcm, commandChannel, frame);
+            try {
+                if (rhino.process(frame)) {
+                    commandChannel = NO_CHANNEL;
+                    inferenceCallback.invoke(rhino.getInference());
+                }
+            } catch (RhinoException e) {
+                throw Picovoice.mapToPicovoiceException(e);
+            }
+            return;
+        }
+
+        sharedFrame = pcm;
+        workerPool.run();
+        sharedFrame = null;
+
+        boolean isWakeWordDetected = false;
+        for (int c = 0; c < numChannels; c++) {
+            if (errors[c] != null) {
+                final PorcupineException error = errors[c];
+                Arrays.fill(errors, null);
+                Arrays.fill(isChannelDetected, false);
+                throw Picovoice.mapToPicovoiceException(error);
+            }
+            isWakeWordDetected |= isChannelDetected[c];
+            isChannelDetected[c] = false;
+        }
+
+        if (isWakeWordDetected) {
+            int loudest = 0;
+            for (int c = 1; c < numChannels; c++) {
+                if (channelEnergies[c] > channelEnergies[loudest]) {
+                    loudest = c;
+                }
+            }
+            commandChannel = loudest;
+            wakeWordCallback.invoke();
+        }
+    }
+
+    private void processPartition(int partition) {
+        final short[] pcm = sharedFrame;
+        for (int c : partitions[partition]) {
+            final short[] frame = channelFrames[c];
+            final double energy = deinterleave(pcm, c, frame);
+            channelEnergies[c] = ENERGY_DECAY * channelEnergies[c] + (1 - ENERGY_DECAY) * energy;
+            try {
+                isChannelDetected[c] = porcupines[c].process(frame) == 0;
+            } catch (PorcupineException e) {
+                errors[c] = e;
+            }
+        }
+    }
+
+    private double deinterleave(short[] pcm, int channel, short[] frame) {
+        long energy = 0;
+        int src = channel;
+        for (int i = 0; i < frameLength; i++) {
+            final short sample = pcm[src];
+            frame[i] = sample;
+            energy += sample * sample;
+            src += numChannels;
+        }
+        return (double) energy / frameLength;
+    }
+
+    /**
+     * Resets the internal state. It should be called before processing a new stream of audio or when processing
+     * was stopped while a command was being inferred.
+     *
+     * @throws PicovoiceException if reset fails.
+     */
+    public void reset() throws PicovoiceException {
+        commandChannel = NO_CHANNEL;
+        Arrays.fill(channelEnergies, 0);
+        try {
+            rhino.reset();
+        } catch (RhinoException e) {
+            throw Picovoice.mapToPicovoiceException(e);
+        }
+    }
+
+    /**
+     * Releases resources acquired and stops the worker threads.
+     */
+    public void delete() {
+        if (isDeleted) {
+            return;
+        }
+        isDeleted = true;
+        workerPool.delete();
+        for (Porcupine porcupine : porcupines) {
+            porcupine.delete();
+        }
+        rhino.delete();
+    }
+
+    /**
+     * Getter for the channel Rhino is committed to while a command is being inferred.
+     *
+     * @return Index of the channel, or -1 if listening for the wake word.
+     */
+    public int getCommandChannel() {
+        return commandChannel;
+    }
+
+    /**
+     * Getter for number of interleaved input channels.
+     *
+     * @return Number of channels.
+     */
+    public int getNumChannels() {
+        return numChannels;
+    }
+
+    /**
+     * Getter for the number of threads processing channels, including the caller.
+     *
+     * @return Number of threads.
+     */
+    public int getNumThreads() {
+        return workerPool.getNumPartitions();
+    }
+
+    /**
+     * Getter for the time spent in each phase of creating this instance. Porcupine phases add up over all
+     * channels.
+     *
+     * @return Build report.
+     */
+    public BuildReport getBuildReport() {
+        return buildReport;
+    }
+
+    /**
+     * Getter for number of audio samples per channel in a frame.
+     *
+     * @return Number of audio samples per channel in a frame.
+     */
+    public int getFrameLength() {
+        return frameLength;
+    }
+
+    /**
+     * Getter for audio sample rate accepted by Picovoice.
+     *
+     * @return Audio sample rate accepted by Picovoice.
+     */
+    public int getSampleRate() {
+        return rhino.getSampleRate();
+    }
+
+    /**
+     * Builder for creating an instance of MicArrayPicovoice with a mixture of default arguments.
+     */
+    public static class Builder {
+
+        private String accessKey = null;
+        private String porcupineLibraryPath = null;
+        private String porcupineModelPath = null;
+        private String keywordPath = null;
+        private float porcupineSensitivity = 0.5f;
+        private PicovoiceWakeWordCallback wakeWordCallback = null;
+        private String rhinoLibraryPath = null;
+        private String rhinoModelPath = null;
+        private String contextPath = null;
+        private float rhinoSensitivity = 0.5f;
+        private float rhinoEndpointDuration = 1.0f;
+        private boolean requireEndpoint = true;
+        private PicovoiceInferenceCallback inferenceCallback = null;
+        private int numChannels = 0;
+        private int numThreads = 0;
+        private String cacheDirectory = null;
+        private PicovoiceBuildReportCallback buildReportCallback = null;
+
+        public MicArrayPicovoice.Builder setAccessKey(String accessKey) {
+            this.accessKey = accessKey;
+            return this;
+        }
+
+        public MicArrayPicovoice.Builder setPorcupineLibraryPath(String porcupineLibraryPath) {
+            this.porcupineLibraryPath = porcupineLibraryPath;
+            return this;
+        }
+
+        public MicArrayPicovoice.Builder setPorcupineModelPath(String porcupineModelPath) {
+            this.porcupineModelPath = porcupineModelPath;
+            return this;
+        }
+
+        public MicArrayPicovoice.Builder setKeywordPath(String keywordPath) {
+            this.keywordPath = keywordPath;
+            return this;
+        }
+
+        public MicArrayPicovoice.Builder setPorcupineSensitivity(float porcupineSensitivity) {
+            this.porcupineSensitivity = porcupineSensitivity;
+            return this;
+        }
+
+        public MicArrayPicovoice.Builder setWakeWordCallback(PicovoiceWakeWordCallback wakeWordCallback) {
+            this.wakeWordCallback = wakeWordCallback;
+            return this;
+        }
+
+        public MicArrayPicovoice.Builder setRhinoLibraryPath(String rhinoLibraryPath) {
+            this.rhinoLibraryPath = rhinoLibraryPath;
+            return this;
+        }
+
+        public MicArrayPicovoice.Builder setRhinoModelPath(String rhinoModelPath) {
+            this.rhinoModelPath = rhinoModelPath;
+            return this;
+        }
+
+        public MicArrayPicovoice.Builder setContextPath(String contextPath) {
+            this.contextPath = contextPath;
+            return this;
+        }
+
+        public MicArrayPicovoice.Builder setRhinoSensitivity(float rhinoSensitivity) {
+            this.rhinoSensitivity = rhinoSensitivity;
+            return this;
+        }
+
+        public MicArrayPicovoice.Builder setRhinoEndpointDuration(float rhinoEndpointDuration) {
+            this.rhinoEndpointDuration = rhinoEndpointDuration;
+            return this;
+        }
+
+        public MicArrayPicovoice.Builder setRequireEndpoint(boolean requireEndpoint) {
+            this.requireEndpoint = requireEndpoint;
+            return this;
+        }
+
+        public MicArrayPicovoice.Builder setInferenceCallback(PicovoiceInferenceCallback inferenceCallback) {
+            this.inferenceCallback = inferenceCallback;
+            return this;
+        }
+
+        public MicArrayPicovoice.Builder setNumChannels(int numChannels) {
+            this.numChannels = numChannels;
+            return this;
+        }
+
+        /**
+         * Setter for the number of threads running wake word engines, including the thread calling
+         * ${@link MicArrayPicovoice#process(short[])}.
+         *
+         * @param numThreads Number of threads. Defaults to the smaller of the number of channels and the number of
+         *                   available processors.
+         * @return This builder.
+         */
+        public MicArrayPicovoice.Builder setNumThreads(int numThreads) {
+            this.numThreads = numThreads;
+            return this;
+        }
+
+        /**
+         * Sets a directory in which to keep the packaged engine libraries and models, as
+         * ${@link Picovoice.Builder#setCacheDirectory(String)} does.
+         *
+         * @param cacheDirectory Path of the cache directory, which is created if needed.
+         * @return This builder.
+         */
+        public MicArrayPicovoice.Builder setCacheDirectory(String cacheDirectory) {
+            this.cacheDirectory = cacheDirectory;
+            return this;
+        }
+
+        /**
+         * Sets a callback that receives the ${@link BuildReport} of every instance this builder creates, as
+         * ${@link Picovoice.Builder#setBuildReportCallback(PicovoiceBuildReportCallback)} does.
+         *
+         * @param buildReportCallback Callback, or null for none.
+         * @return This builder.
+         */
+        public MicArrayPicovoice.Builder setBuildReportCallback(PicovoiceBuildReportCallback buildReportCallback) {
+            this.buildReportCallback = buildReportCallback;
+            return this;
+        }
+
+        /**
+         * Validates properties and creates an instance of MicArrayPicovoice.
+         *
+         * @return An instance of MicArrayPicovoice
+         * @throws PicovoiceException if there is an error while initializing.
+         */
+        public MicArrayPicovoice build() throws PicovoiceException {
+            if (numChannels <= 0) {
+                throw new PicovoiceInvalidArgumentException(
+                        String.format("Number of channels must be a positive number. Received %d.", numChannels));
+            }
+            if (wakeWordCallback == null) {
+                throw new PicovoiceInvalidArgumentException("Wake word callback is required");
+            }
+            if (inferenceCallback == null) {
+                throw new PicovoiceInvalidArgumentException("Inference callback is required");
+            }
+
+            final BuildReport buildReport = new BuildReport();
+            final EngineFactory engineFactory = new EngineFactory(
+                    accessKey,
+                    porcupineLibraryPath,
+                    porcupineModelPath,
+                    rhinoLibraryPath,
+                    rhinoModelPath,
+                    cacheDirectory != null ? Paths.get(cacheDirectory) : null,
+                    buildReport);
+            final Porcupine[] porcupines = new Porcupine[numChannels];
+            final Rhino rhino;
+            try {
+                for (int c = 0; c < numChannels; c++) {
+                    porcupines[c] = engineFactory.createPorcupine(keywordPath, porcupineSensitivity);
+                }
+                rhino = engineFactory.createRhino(
+                        porcupines[0],
+                        contextPath,
+                        rhinoSensitivity,
+                        rhinoEndpointDuration,
+                        requireEndpoint);
+            } catch (PicovoiceException e) {
+                for (Porcupine porcupine : porcupines) {
+                    if (porcupine != null) {
+                        porcupine.delete();
+                    }
+                }
+                throw e;
+            }
+
+            final long configureStartNanos = System.nanoTime();
+            final MicArrayPicovoice micArrayPicovoice = new MicArrayPicovoice(
+                    porcupines,
+                    rhino,
+                    wakeWordCallback,
+                    inferenceCallback,
+                    numThreads > 0 ? numThreads : Runtime.getRuntime().availableProcessors(),
+                    buildReport);
+            buildReport.lap(BuildReport.Phase.CONFIGURE, configureStartNanos);
+            if (buildReportCallback != null) {
+                buildReportCallback.invoke(buildReport);
+            }
+            return micArrayPicovoice;
+        }
+    }
+}
@@ -0,0 +1,339 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import ai.picovoice.rhino.RhinoInference;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs several language configurations of Picovoice on the same input stream. Each language has
+ * its own instance (and model pair), and the instances process every frame in parallel across
+ * cores.
+ *
+ * <p>All instances read the caller's frame directly; nothing is copied per language. Since
+ * ${@link #process(short[])} returns only after every instance has finished with the frame, the
+ * caller can reuse its buffer for the next frame.
+ *
+ * <p>Optionally, once a language detects its wake word the other languages are suspended until
+ * that language completes its inference, so only one instance runs during a command. Callbacks
+ * are invoked on the thread processing the language that raised them and can run concurrently
+ * for different languages.
+ */
+public class MultiLanguagePicovoice {
+    private static final int NO_ACTIVE_LANGUAGE = -1;
+
+    private final String[] languages;
+    private final Picovoice[] picovoices;
+    private final PicovoiceException[] errors;
+    private final int[][] partitions;
+    private final PartitionedWorkerPool workerPool;
+    private final boolean suspendOthersOnWakeWord;
+    private final AtomicInteger activeLanguage = new AtomicInteger(NO_ACTIVE_LANGUAGE);
+    private volatile boolean isResetPending = false;
+    private short[] sharedFrame;
+
+    private MultiLanguagePicovoice(
+            String[] languages,
+            Picovoice[] picovoices,
+            int numThreads,
+            boolean suspendOthersOnWakeWord) {
+        this.languages = languages;
+        this.picovoices = picovoices;
+        this.errors = new PicovoiceException[picovoices.length];
+        this.suspendOthersOnWakeWord = suspendOthersOnWakeWord;
+
+        // languages are spread round-robin over the threads; partition 0 runs on the caller
+        final int numPartitions = Math.max(1, Math.min(numThreads, picovoices.length));
+        this.partitions = new int[numPartitions][];
+        for (int p = 0; p < numPartitions; p++) {
+            final int size = (picovoices.length - p + numPartitions - 1) / numPartitions;
+            partitions[p] = new int[size];
+            for (int i = 0; i < size; i++) {
+                partitions[p][i] = p + i * numPartitions;
+            }
+        }
+        this.workerPool = new PartitionedWorkerPool(numPartitions, "MultiLanguagePicovoice", this::processPartition);
+    }
+
+    /**
+     * Processes a frame of the incoming audio stream with every language that is not suspended.
+     *
+     * @param pcm A frame of audio samples. The number of samples per frame can be attained by calling
+     *            ${@link #getFrameLength()}. The incoming audio needs to have a sample rate equal
+     *            to ${@link #getSampleRate()} and be 16-bit linearly-encoded. The frame is only read.
+     * @throws PicovoiceException if there is an error while processing the audio frame. If several
+     *                            languages fail, the error of the first one is thrown.
+     */
+    public void process(short[] pcm) throws PicovoiceException {
+        if (picovoices[0] == null) {
+            throw new PicovoiceInvalidStateException("Cannot process frame - resources have been released");
+        }
+        if (pcm == null) {
+            throw new PicovoiceInvalidArgumentException("Passed null frame to Picovoice process.");
+        }
+        if (pcm.length != getFrameLength()) {
+            throw new PicovoiceInvalidArgumentException(
+                    String.format("Picovoice process requires frames of length %d. " +
+                            "Received frame of size %d.", getFrameLength(), pcm.length));
+        }
+
+        if (isResetPending) {
+            // the suspended languages missed the command audio; restart them from wake word detection
+            isResetPending = false;
+            for (Picovoice picovoice : picovoices) {
+                picovoice.reset();
+            }
+        }
+
+        final int active = activeLanguage.get();
+        if (active != NO_ACTIVE_LANGUAGE) {
+            picovoices[active].process(pcm);
+            return;
+        }
+
+        sharedFrame = pcm;
+        workerPool.run();
+        sharedFrame = null;
+
+        for (int i = 0; i < errors.length; i++) {
+            if (errors[i] != null) {
+                final PicovoiceException error = errors[i];
+                Arrays.fill(errors, null);
+                throw error;
+            }
+        }
+    }
+
+    private void processPartition(int partition) {
+        final short[] frame = sharedFrame;
+        for (int index : partitions[partition]) {
+            try {
+                picovoices[index].process(frame);
+            } catch (PicovoiceException e) {
+                errors[index] = e;
+            }
+        }
+    }
+
+    private void onWakeWord(int index, MultiLanguageWakeWordCallback wakeWordCallback) {
+        if (suspendOthersOnWakeWord) {
+            activeLanguage.compareAndSet(NO_ACTIVE_LANGUAGE, index);
+        }
+        if (wakeWordCallback != null) {
+            wakeWordCallback.invoke(languages[index]);
+        }
+    }
+
+    private void onInference(
+            int index,
+            RhinoInference inference,
+            MultiLanguageInferenceCallback inferenceCallback) {
+        if (inferenceCallback != null) {
+            inferenceCallback.invoke(languages[index], inference);
+        }
+        if (activeLanguage.compareAndSet(index, NO_ACTIVE_LANGUAGE)) {
+            isResetPending = true;
+        }
+    }
+
+    /**
+     * Resets every language and resumes suspended languages. It should be called before processing a
+     * new stream of audio.
+     *
+     * @throws PicovoiceException if reset fails.
+     */
+    public void reset() throws PicovoiceException {
+        activeLanguage.set(NO_ACTIVE_LANGUAGE);
+        isResetPending = false;
+        for (Picovoice picovoice : picovoices) {
+            picovoice.reset();
+        }
+    }
+
+    /**
+     * Releases resources acquired by every language and stops the worker threads.
+     */
+    public void delete() {
+        workerPool.delete();
+        for (int i = 0; i < picovoices.length; i++) {
+            if (picovoices[i] != null) {
+                picovoices[i].delete();
+                picovoices[i] = null;
+            }
+        }
+    }
+
+    /**
+     * Getter for the language currently holding the command, if other languages are suspended.
+     *
+     * @return Active language, or null if all languages are listening for their wake word.
+     */
+    public String getActiveLanguage() {
+        final int active = activeLanguage.get();
+        return active != NO_ACTIVE_LANGUAGE ? languages[active] : null;
+    }
+
+    /**
+     * Getter for the configured languages, in the order they were added.
+     *
+     * @return Languages.
+     */
+    public List<String> getLanguages() {
+        final List<String> result = new ArrayList<>();
+        Collections.addAll(result, languages);
+        return result;
+    }
+
+    /**
+     * Getter for the number of threads processing languages, including the caller.
+     *
+     * @return Number of threads.
+     */
+    public int getNumThreads() {
+        return workerPool.getNumPartitions();
+    }
+
+    /**
+     * Getter for number of audio samples per frame.
+     *
+     * @return Number of audio samples per frame.
+     */
+    public int getFrameLength() {
+        return picovoices[0] != null ? picovoices[0].getFrameLength() : 0;
+    }
+
+    /**
+     * Getter for audio sample rate accepted by Picovoice.
+     *
+     * @return Audio sample rate accepted by Picovoice.
+     */
+    public int getSampleRate() {
+        return picovoices[0] != null ? picovoices[0].getSampleRate() : 0;
+    }
+
+    /**
+     * Builder for creating an instance of MultiLanguagePicovoice.
+     */
+    public static class Builder {
+        private final Map<String, Picovoice.Builder> picovoiceBuilders = new LinkedHashMap<>();
+        private MultiLanguageWakeWordCallback wakeWordCallback = null;
+        private MultiLanguageInferenceCallback inferenceCallback = null;
+        private int numThreads = 0;
+        private boolean suspendOthersOnWakeWord = false;
+
+        /**
+         * Adds a language configuration. The wake word and inference callbacks set on the builder are
+         * replaced by the callbacks of this builder.
+         *
+         * @param language         Name of the language, reported with its events.
+         * @param picovoiceBuilder Builder configured with the language's model, keyword and context.
+         * @return This builder.
+         */
+        public MultiLanguagePicovoice.Builder addLanguage(String language, Picovoice.Builder picovoiceBuilder) {
+            this.picovoiceBuilders.put(language, picovoiceBuilder);
+            return this;
+        }
+
+        public MultiLanguagePicovoice.Builder setWakeWordCallback(MultiLanguageWakeWordCallback wakeWordCallback) {
+            this.wakeWordCallback = wakeWordCallback;
+            return this;
+        }
+
+        public MultiLanguagePicovoice.Builder setInferenceCallback(MultiLanguageInferenceCallback inferenceCallback) {
+            this.inferenceCallback = inferenceCallback;
+            return this;
+        }
+
+        /**
+         * Setter for the number of threads processing languages, including the thread calling
+         * ${@link MultiLanguagePicovoice#process(short[])}.
+         *
+         * @param numThreads Number of threads. Defaults to the smaller of the number of languages and
+         *                   the number of available processors.
+         * @return This builder.
+         */
+        public MultiLanguagePicovoice.Builder setNumThreads(int numThreads) {
+            this.numThreads = numThreads;
+            return this;
+        }
+
+        /**
+         * Setter for suspending the other languages while one is inferring a command.
+         *
+         * @param suspendOthersOnWakeWord If true, the first language to detect its wake word is the only
+         *                                one processing audio until its inference completes.
+         * @return This builder.
+         */
+        public MultiLanguagePicovoice.Builder setSuspendOthersOnWakeWord(boolean suspendOthersOnWakeWord) {
+            this.suspendOthersOnWakeWord = suspendOthersOnWakeWord;
+            return this;
+        }
+
+        /**
+         * Validates properties and creates an instance of MultiLanguagePicovoice.
+         *
+         * @return An instance of MultiLanguagePicovoice
+         * @throws PicovoiceException if a language cannot be initialized or the languages expect
+         *                            different audio formats.
+         */
+        public MultiLanguagePicovoice build() throws PicovoiceException {
+            if (picovoiceBuilders.isEmpty()) {
+                throw new PicovoiceInvalidArgumentException("At least one language is required");
+            }
+
+            final String[] languages = picovoiceBuilders.keySet().toArray(new String[0]);
+            final Picovoice[] picovoices = new Picovoice[languages.length];
+            final MultiLanguagePicovoice[] instance = new MultiLanguagePicovoice[1];
+            try {
+                for (int i = 0; i < languages.length; i++) {
+                    final int index = i;
+                    final MultiLanguageWakeWordCallback wakeWordCallback = this.wakeWordCallback;
+                    final MultiLanguageInferenceCallback inferenceCallback = this.inferenceCallback;
+                    picovoices[i] = picovoiceBuilders.get(languages[i])
+                            .setWakeWordCallback(() -> instance[0].onWakeWord(index, wakeWordCallback))
+                            .setInferenceCallback(inference ->
+                                    instance[0].onInference(index, inference, inferenceCallback))
+                            .build();
+                    if (picovoices[i].getFrameLength() != picovoices[0].getFrameLength() ||
+                            picovoices[i].getSampleRate() != picovoices[0].getSampleRate()) {
+                        throw new PicovoiceInvalidArgumentException(String.format(
+                                "Languages '%s' and '%s' expect different audio formats",
+                                languages[0],
+                                languages[i]));
+                    }
+                }
+            } catch (PicovoiceException e) {
+                for (Picovoice picovoice : picovoices) {
+                    if (picovoice != null) {
+                        picovoice.delete();
+                    }
+                }
+                throw e;
+            }
+
+            instance[0] = new MultiLanguagePicovoice(
+                    languages,
+                    picovoices,
+                    numThreads > 0 ? numThreads : Runtime.getRuntime().availableProcessors(),
+                    suspendOthersOnWakeWord);
+            return instance[0];
+        }
+    }
+}
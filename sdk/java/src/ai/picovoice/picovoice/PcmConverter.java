@@ -0,0 +1,97 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+/**
+ * Converts audio samples in other PCM formats to the 16-bit linearly-encoded samples Picovoice operates on.
+ *
+ * <p>Supported formats are floating-point samples within [-1, 1], 32-bit integer samples and packed 24-bit samples
+ * (three bytes per sample). Floating-point values outside of [-1, 1] are saturated; integer formats are reduced
+ * to their 16 most significant bits. Every conversion writes into a caller-provided buffer and does not allocate.
+ *
+ * <p>The loops are straight element-wise passes without branches (clamping uses {@code Math.min}/{@code Math.max})
+ * so the JIT's superword optimization can turn them into SIMD code where the platform supports it.
+ */
+public final class PcmConverter {
+
+    private PcmConverter() { }
+
+    /**
+     * Converts floating-point samples within [-1, 1] to 16-bit samples. Out-of-range values are saturated.
+     *
+     * @param input        Floating-point samples.
+     * @param inputOffset  Index of the first input sample.
+     * @param output       Buffer receiving the 16-bit samples.
+     * @param outputOffset Index at which to write the first converted sample.
+     * @param length       Number of samples to convert.
+     */
+    public static void fromFloat(float[] input, int inputOffset, short[] output, int outputOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            output[outputOffset + i] = floatToShort(input[inputOffset + i]);
+        }
+    }
+
+    /**
+     * Converts 32-bit integer samples to 16-bit samples by keeping their 16 most significant bits.
+     *
+     * @param input        32-bit integer samples.
+     * @param inputOffset  Index of the first input sample.
+     * @param output       Buffer receiving the 16-bit samples.
+     * @param outputOffset Index at which to write the first converted sample.
+     * @param length       Number of samples to convert.
+     */
+    public static void fromInt32(int[] input, int inputOffset, short[] output, int outputOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            output[outputOffset + i] = (short) (input[inputOffset + i] >> 16);
+        }
+    }
+
+    /**
+     * Converts packed 24-bit samples (three bytes per sample) to 16-bit samples by keeping their two most
+     * significant bytes.
+     *
+     * @param input        Packed 24-bit samples.
+     * @param inputOffset  Index of the first byte of the first sample.
+     * @param output       Buffer receiving the 16-bit samples.
+     * @param outputOffset Index at which to write the first converted sample.
+     * @param length       Number of samples to convert.
+     * @param isBigEndian  Whether the most significant byte of each sample comes first.
+     */
+    public static void fromPacked24(
+            byte[] input,
+            int inputOffset,
+            short[] output,
+            int outputOffset,
+            int length,
+            boolean isBigEndian) {
+        // the least significant byte is dropped, so only the two upper bytes of each sample are read
+        final int msb = isBigEndian ? 0 : 2;
+        final int mid = 1;
+        int src = inputOffset;
+        for (int i = 0; i < length; i++) {
+            output[outputOffset + i] = (short) ((input[src + msb] << 8) | (input[src + mid] & 0xFF));
+            src += 3;
+        }
+    }
+
+    /**
+     * Converts a single floating-point sample within [-1, 1] to 16 bits, saturating out-of-range values. The value
+     * is truncated rather than rounded, which keeps the conversion branch-free.
+     *
+     * @param sample Floating-point sample.
+     * @return 16-bit sample.
+     */
+    public static short floatToShort(float sample) {
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, sample * 32768.0f));
+    }
+}
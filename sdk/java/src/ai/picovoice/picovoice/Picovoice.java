@@ -15,6 +15,14 @@ package ai.picovoice.picovoice;
 import ai.picovoice.porcupine.*;
 import ai.picovoice.rhino.*;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 /**
  * Java binding for Picovoice end-to-end platform. Picovoice enables building voice experiences
  * similar to Alexa but runs entirely on-device (offline).
@@ -31,11 +39,47 @@ import ai.picovoice.rhino.*;
  * engine for intent inference.
  */
 public class Picovoice {
+
+    private static final Logger LOGGER = Logger.getLogger(Picovoice.class.getName());
+    private static final int DEFAULT_NUM_TIMED_FRAMES = 10;
+    private static final int PREWARM_NOISE_AMPLITUDE = 64;
+
+    /**
+     * What to do with frames while processing has fallen behind real time.
+     */
+    public enum LoadSheddingPolicy {
+        /**
+         * Processes every frame.
+         */
+        NONE,
+        /**
+         * Skips wake word detection on incoming frames until the stream has caught up. Frames of a command in
+         * progress are always processed.
+         */
+        SKIP_WAKE_WORD_FRAMES
+    }
+
     private Porcupine porcupine;
     private final PicovoiceWakeWordCallback wakeWordCallback;
     private boolean isWakeWordDetected = false;
     private Rhino rhino;
     private final PicovoiceInferenceCallback inferenceCallback;
+    private final short[] conversionBuffer;
+    private final PartitionedWorkerPool bargeInWorkerPool;
+    private short[] bargeInFrame;
+    private boolean isBargeInWakeWordDetected;
+    private boolean isBargeInInferenceFinalized;
+    private PorcupineException bargeInPorcupineError;
+    private RhinoException bargeInRhinoError;
+    private TriggerRateLimiter triggerRateLimiter = null;
+    private long frameIndex = 0;
+    private RealTimeMonitor realTimeMonitor = null;
+    private PicovoiceBackpressureCallback backpressureCallback = null;
+    private LoadSheddingPolicy loadSheddingPolicy = LoadSheddingPolicy.NONE;
+    private long numShedFrames = 0;
+    private long[] firstFrameLatenciesNanos = new long[DEFAULT_NUM_TIMED_FRAMES];
+    private int numTimedFrames = 0;
+    private final BuildReport buildReport = new BuildReport();
 
     /**
      * Constructor.
@@ -84,6 +128,94 @@ public class Picovoice {
             float endpointDurationSec,
             boolean requireEndpoint,
             PicovoiceInferenceCallback inferenceCallback) throws PicovoiceException {
+        this(
+                accessKey,
+                porcupineLibraryPath,
+                porcupineModelPath,
+                keywordPath,
+                porcupineSensitivity,
+                wakeWordCallback,
+                rhinoLibraryPath,
+                rhinoModelPath,
+                contextPath,
+                rhinoSensitivity,
+                endpointDurationSec,
+                requireEndpoint,
+                inferenceCallback,
+                false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param accessKey            AccessKey obtained from Picovoice Console (https://console.picovoice.ai/)
+     * @param porcupineModelPath   Absolute path to the file containing Porcupine's model parameters.
+     * @param keywordPath          Absolute path to Porcupine's keyword model file.
+     * @param porcupineSensitivity Wake word detection sensitivity.
+     * @param wakeWordCallback     User-defined callback invoked upon detection of the wake phrase.
+     * @param rhinoModelPath       Absolute path to the file containing Rhino's model parameters.
+     * @param contextPath          Absolute path to file containing context parameters.
+     * @param rhinoSensitivity     Inference sensitivity.
+     * @param endpointDurationSec  Endpoint duration in seconds.
+     * @param requireEndpoint      If set to `true`, Rhino requires an endpoint after the spoken command.
+     * @param inferenceCallback    User-defined callback invoked upon completion of intent inference.
+     * @param bargeIn              If set to `true`, Porcupine keeps listening on a second thread while Rhino infers
+     *                             a command, and a new wake word restarts the command.
+     * @throws PicovoiceException  if there is an error while initializing.
+     */
+    public Picovoice(
+            String accessKey,
+            String porcupineLibraryPath,
+            String porcupineModelPath,
+            String keywordPath,
+            float porcupineSensitivity,
+            PicovoiceWakeWordCallback wakeWordCallback,
+            String rhinoLibraryPath,
+            String rhinoModelPath,
+            String contextPath,
+            float rhinoSensitivity,
+            float endpointDurationSec,
+            boolean requireEndpoint,
+            PicovoiceInferenceCallback inferenceCallback,
+            boolean bargeIn) throws PicovoiceException {
+        this(
+                accessKey,
+                porcupineLibraryPath,
+                porcupineModelPath,
+                keywordPath,
+                porcupineSensitivity,
+                wakeWordCallback,
+                rhinoLibraryPath,
+                rhinoModelPath,
+                contextPath,
+                rhinoSensitivity,
+                endpointDurationSec,
+                requireEndpoint,
+                inferenceCallback,
+                bargeIn,
+                null);
+    }
+
+    /**
+     * Constructor that also takes the directory that packaged libraries and models are extracted to, or null to use
+     * the engines' own extraction.
+     */
+    Picovoice(
+            String accessKey,
+            String porcupineLibraryPath,
+            String porcupineModelPath,
+            String keywordPath,
+            float porcupineSensitivity,
+            PicovoiceWakeWordCallback wakeWordCallback,
+            String rhinoLibraryPath,
+            String rhinoModelPath,
+            String contextPath,
+            float rhinoSensitivity,
+            float endpointDurationSec,
+            boolean requireEndpoint,
+            PicovoiceInferenceCallback inferenceCallback,
+            boolean bargeIn,
+            Path cacheDirectory) throws PicovoiceException {
 
         if (wakeWordCallback == null) {
             final String message = String.format("Wake word callback is required");
@@ -95,67 +227,44 @@ public class Picovoice {
             throw new PicovoiceInvalidArgumentException(message);
         }
 
+        final EngineFactory engineFactory = new EngineFactory(
+                accessKey,
+                porcupineLibraryPath,
+                porcupineModelPath,
+                rhinoLibraryPath,
+                rhinoModelPath,
+                cacheDirectory,
+                buildReport);
+        porcupine = engineFactory.createPorcupine(keywordPath, porcupineSensitivity);
         try {
-            porcupine = new Porcupine.Builder()
-                    .setAccessKey(accessKey)
-                    .setLibraryPath(porcupineLibraryPath)
-                    .setModelPath(porcupineModelPath)
-                    .setSensitivity(porcupineSensitivity)
-                    .setKeywordPath(keywordPath)
-                    .build();
-
-            if (!porcupine.getVersion().startsWith("3.0.")) {
-                final String message = String.format(
-                        "Expected Porcupine library with version '3.0.x' but received %s",
-                        porcupine.getVersion());
-                throw new PicovoiceException(message);
-            }
-
-            this.wakeWordCallback = wakeWordCallback;
-
-            rhino = new Rhino.Builder()
-                    .setAccessKey(accessKey)
-                    .setLibraryPath(rhinoLibraryPath)
-                    .setModelPath(rhinoModelPath)
-                    .setContextPath(contextPath)
-                    .setSensitivity(rhinoSensitivity)
-                    .setEndpointDuration(endpointDurationSec)
-                    .setRequireEndpoint(requireEndpoint)
-                    .build();
-
-            if (!rhino.getVersion().startsWith("3.0.")) {
-                final String message = String.format(
-                        "Expected Rhino library with version '3.0.x' but received %s",
-                        rhino.getVersion());
-                throw new PicovoiceException(message);
-            }
-
-            if (rhino.getFrameLength() != porcupine.getFrameLength()) {
-                final String message = String.format(
-                        "Incompatible frame lengths for Porcupine and Rhino engines: '%d' and '%d' samples",
-                        porcupine.getFrameLength(),
-                        rhino.getFrameLength());
-                throw new PicovoiceException(message);
-            }
-
-            if (rhino.getSampleRate() != porcupine.getSampleRate()) {
-                final String message = String.format(
-                        "Incompatible sample rates for Porcupine and Rhino engines: '%d' and '%d' Hz",
-                        porcupine.getSampleRate(),
-                        rhino.getSampleRate());
-                throw new PicovoiceException(message);
-            }
-
-            this.inferenceCallback = inferenceCallback;
-        } catch (PorcupineException | RhinoException e) {
-            throw mapToPicovoiceException(e);
+            rhino = engineFactory.createRhino(
+                    porcupine,
+                    contextPath,
+                    rhinoSensitivity,
+                    endpointDurationSec,
+                    requireEndpoint);
+        } catch (PicovoiceException e) {
+            porcupine.delete();
+            throw e;
         }
+
+        final long lapStartNanos = engineFactory.getLapStartNanos();
+        this.wakeWordCallback = wakeWordCallback;
+        this.inferenceCallback = inferenceCallback;
+        this.conversionBuffer = new short[porcupine.getFrameLength()];
+        this.bargeInWorkerPool = bargeIn ?
+                new PartitionedWorkerPool(2, "PicovoiceBargeIn", this::processBargeInPartition) :
+                null;
+        buildReport.lap(BuildReport.Phase.CONFIGURE, lapStartNanos);
     }
 
     /**
      * Releases resources acquired.
      */
     public void delete() {
+        if (bargeInWorkerPool != null) {
+            bargeInWorkerPool.delete();
+        }
         if (porcupine != null) {
             porcupine.delete();
             porcupine = null;
@@ -191,18 +300,177 @@ public class Picovoice {
                             "Received frame of size %d.", getFrameLength(), pcm.length));
         }
 
+        final boolean isTimed = numTimedFrames < firstFrameLatenciesNanos.length;
+        final long startNanos = realTimeMonitor != null || isTimed ? System.nanoTime() : 0;
         try {
+            frameIndex++;
             if (!isWakeWordDetected) {
-                isWakeWordDetected = (porcupine.process(pcm) == 0);
-                if (isWakeWordDetected) {
-                    wakeWordCallback.invoke();
+                if (loadSheddingPolicy == LoadSheddingPolicy.SKIP_WAKE_WORD_FRAMES && realTimeMonitor.isOverloaded()) {
+                    numShedFrames++;
+                } else {
+                    isWakeWordDetected = porcupine.process(pcm) == 0 && isWakeWordAccepted();
+                    if (isWakeWordDetected) {
+                        wakeWordCallback.invoke();
+                    }
                 }
+            } else if (bargeInWorkerPool != null) {
+                processBargeIn(pcm);
             } else {
                 if (rhino.process(pcm)) {
-                    inferenceCallback.invoke(rhino.getInference());
-                    isWakeWordDetected = false;
+                    onInference(rhino.getInference());
+                }
+            }
+        } catch (PorcupineException | RhinoException e) {
+            throw mapToPicovoiceException(e);
+        }
+
+        final long endNanos = realTimeMonitor != null || isTimed ? System.nanoTime() : 0;
+        if (isTimed) {
+            firstFrameLatenciesNanos[numTimedFrames++] = endNanos - startNanos;
+        }
+        if (realTimeMonitor != null && realTimeMonitor.onFrame(startNanos, endNanos) &&
+                backpressureCallback != null) {
+            backpressureCallback.invoke(realTimeMonitor.isOverloaded(), realTimeMonitor.getLagNanos());
+        }
+    }
+
+    /**
+     * Processes a frame of floating-point audio. Samples are converted to 16 bits into a buffer that is reused
+     * across calls; values outside of [-1, 1] are saturated.
+     *
+     * @param pcm A frame of floating-point audio samples within [-1, 1]. The number of samples per frame can be
+     *            attained by calling ${@link #getFrameLength()}.
+     * @throws PicovoiceException if there is an error while processing the audio frame.
+     */
+    public void process(float[] pcm) throws PicovoiceException {
+        if (pcm == null) {
+            throw new PicovoiceInvalidArgumentException("Passed null frame to Picovoice process.");
+        }
+        if (pcm.length != conversionBuffer.length) {
+            throw new PicovoiceInvalidArgumentException(
+                    String.format("Picovoice process requires frames of length %d. " +
+                            "Received frame of size %d.", conversionBuffer.length, pcm.length));
+        }
+
+        PcmConverter.fromFloat(pcm, 0, conversionBuffer, 0, pcm.length);
+        process(conversionBuffer);
+    }
+
+    /**
+     * Processes a frame of 32-bit integer audio. Samples are reduced to their 16 most significant bits into a
+     * buffer that is reused across calls.
+     *
+     * @param pcm A frame of 32-bit linearly-encoded audio samples. The number of samples per frame can be
+     *            attained by calling ${@link #getFrameLength()}.
+     * @throws PicovoiceException if there is an error while processing the audio frame.
+     */
+    public void process(int[] pcm) throws PicovoiceException {
+        if (pcm == null) {
+            throw new PicovoiceInvalidArgumentException("Passed null frame to Picovoice process.");
+        }
+        if (pcm.length != conversionBuffer.length) {
+            throw new PicovoiceInvalidArgumentException(
+                    String.format("Picovoice process requires frames of length %d. " +
+                            "Received frame of size %d.", conversionBuffer.length, pcm.length));
+        }
+
+        PcmConverter.fromInt32(pcm, 0, conversionBuffer, 0, pcm.length);
+        process(conversionBuffer);
+    }
+
+    private void processBargeIn(short[] pcm) throws PorcupineException, RhinoException {
+        bargeInFrame = pcm;
+        bargeInWorkerPool.run();
+        bargeInFrame = null;
+
+        if (bargeInRhinoError != null || bargeInPorcupineError != null) {
+            final RhinoException rhinoError = bargeInRhinoError;
+            final PorcupineException porcupineError = bargeInPorcupineError;
+            bargeInRhinoError = null;
+            bargeInPorcupineError = null;
+            if (rhinoError != null) {
+                throw rhinoError;
+            }
+            throw porcupineError;
+        }
+
+        if (isBargeInWakeWordDetected && isWakeWordAccepted()) {
+            // a new wake word aborts the command in progress, even if it was finalized on the same frame
+            rhino.reset();
+            wakeWordCallback.invoke();
+        } else if (isBargeInInferenceFinalized) {
+            onInference(rhino.getInference());
+        }
+    }
+
+    private boolean isWakeWordAccepted() {
+        return triggerRateLimiter == null || triggerRateLimiter.onWakeWord(frameIndex);
+    }
+
+    private void onInference(RhinoInference inference) {
+        isWakeWordDetected = false;
+        if (triggerRateLimiter != null) {
+            triggerRateLimiter.onInference(frameIndex, inference.getIsUnderstood());
+        }
+        inferenceCallback.invoke(inference);
+    }
+
+    /**
+     * Abandons the command in progress, if any, and goes back to listening for the wake word. The abandoned
+     * command counts as one that was not understood.
+     */
+    void abortCommand() throws PicovoiceException {
+        if (!isWakeWordDetected) {
+            return;
+        }
+        isWakeWordDetected = false;
+        if (triggerRateLimiter != null) {
+            triggerRateLimiter.onInference(frameIndex, false);
+        }
+        try {
+            rhino.reset();
+        } catch (RhinoException e) {
+            throw mapToPicovoiceException(e);
+        }
+    }
+
+    private void processBargeInPartition(int partition) {
+        // Rhino runs on the calling thread and Porcupine on the worker thread
+        if (partition == 0) {
+            try {
+                isBargeInInferenceFinalized = rhino.process(bargeInFrame);
+            } catch (RhinoException e) {
+                isBargeInInferenceFinalized = false;
+                bargeInRhinoError = e;
+            }
+        } else {
+            try {
+                isBargeInWakeWordDetected = porcupine.process(bargeInFrame) == 0;
+            } catch (PorcupineException e) {
+                isBargeInWakeWordDetected = false;
+                bargeInPorcupineError = e;
+            }
+        }
+    }
+
+    /**
+     * Feeds frames of quiet synthetic noise through both engines and resets Rhino, so that the first frames of real
+     * audio do not pay for lazy native initialization and cold caches. Porcupine cannot be reset, and is left having
+     * heard what sounds like a quiet room.
+     */
+    void prewarm(int numFrames) throws PicovoiceException {
+        final short[] frame = new short[getFrameLength()];
+        int seed = 1;
+        try {
+            for (int i = 0; i < numFrames; i++) {
+                for (int j = 0; j < frame.length; j++) {
+                    seed = seed * 1103515245 + 12345;
+                    frame[j] = (short) ((seed >>> 16) % (2 * PREWARM_NOISE_AMPLITUDE + 1) - PREWARM_NOISE_AMPLITUDE);
                 }
+                porcupine.process(frame);
+                rhino.process(frame);
             }
+            rhino.reset();
         } catch (PorcupineException | RhinoException e) {
             throw mapToPicovoiceException(e);
         }
@@ -217,12 +485,105 @@ public class Picovoice {
     public void reset() throws PicovoiceException {
         try {
             this.isWakeWordDetected = false;
+            if (this.triggerRateLimiter != null) {
+                this.triggerRateLimiter.reset();
+            }
+            if (this.realTimeMonitor != null) {
+                this.realTimeMonitor.reset();
+            }
             this.rhino.reset();
         } catch (RhinoException e) {
             throw mapToPicovoiceException(e);
         }
     }
 
+    /**
+     * Getter for the number of wake words ignored because they were detected within the refractory period.
+     *
+     * @return Number of wake words ignored.
+     */
+    public long getNumRefractorySuppressedWakeWords() {
+        return triggerRateLimiter != null ? triggerRateLimiter.getNumRefractorySuppressed() : 0;
+    }
+
+    /**
+     * Getter for the number of wake words ignored during a trigger storm backoff.
+     *
+     * @return Number of wake words ignored.
+     */
+    public long getNumStormSuppressedWakeWords() {
+        return triggerRateLimiter != null ? triggerRateLimiter.getNumStormSuppressed() : 0;
+    }
+
+    /**
+     * Getter for whether wake words are currently ignored because of a trigger storm.
+     *
+     * @return Whether wake words are ignored.
+     */
+    public boolean getIsWakeWordGated() {
+        return triggerRateLimiter != null && triggerRateLimiter.isGated(frameIndex);
+    }
+
+    /**
+     * Getter for how far behind real time processing of the stream is. Requires a real-time monitor to be set on
+     * the Builder.
+     *
+     * @return Time between when the last frame became available and when it finished processing, in nanoseconds.
+     */
+    public long getLagNanos() {
+        return realTimeMonitor != null ? realTimeMonitor.getLagNanos() : 0;
+    }
+
+    /**
+     * Getter for the smoothed real-time factor: processing time of a frame over its duration. Requires a real-time
+     * monitor to be set on the Builder.
+     *
+     * @return Real-time factor. Values above 1 can't keep up with a live stream.
+     */
+    public double getRealTimeFactor() {
+        return realTimeMonitor != null ? realTimeMonitor.getRealTimeFactor() : 0;
+    }
+
+    /**
+     * Getter for whether processing has fallen behind real time by more than the maximum lag.
+     *
+     * @return Whether the stream is overloaded.
+     */
+    public boolean getIsOverloaded() {
+        return realTimeMonitor != null && realTimeMonitor.isOverloaded();
+    }
+
+    /**
+     * Getter for the number of frames skipped by the load shedding policy.
+     *
+     * @return Number of frames skipped.
+     */
+    public long getNumShedFrames() {
+        return numShedFrames;
+    }
+
+    /**
+     * Getter for how long processing each of the first frames took. These frames are the slowest after creating an
+     * instance, which ${@link Builder#setPrewarmFrames(int)} addresses; comparing them with later frames shows how
+     * far off the steady state a user speaking right after launch is.
+     *
+     * @return Processing time of each of the first frames passed to ${@link #process(short[])}, in nanoseconds and in
+     *         order. Frames fed while prewarming are not included. Holds fewer entries until enough frames have been
+     *         processed; the number of frames timed is set with ${@link Builder#setNumTimedFrames(int)}.
+     */
+    public long[] getFirstFrameLatenciesNanos() {
+        return Arrays.copyOf(firstFrameLatenciesNanos, numTimedFrames);
+    }
+
+    /**
+     * Getter for the time spent in each phase of creating this instance.
+     *
+     * @return Build report.
+     */
+    public BuildReport getBuildReport() {
+        return buildReport;
+    }
+
     /**
      * Getter for version.
      *
@@ -284,7 +645,7 @@ public class Picovoice {
     /**
      * Maps Porcupine/Rhino Exception to Picovoice Exception.
      */
-    private static PicovoiceException mapToPicovoiceException(Exception e) {
+    static PicovoiceException mapToPicovoiceException(Exception e) {
         if (e instanceof PorcupineActivationException || e instanceof RhinoActivationException) {
             return new PicovoiceActivationException(e.getMessage(), e);
         } else if (e instanceof PorcupineActivationLimitException || e instanceof RhinoActivationLimitException) {
@@ -336,6 +697,18 @@ public class Picovoice {
         private float rhinoEndpointDuration = 1.0f;
         private boolean requireEndpoint = true;
         private PicovoiceInferenceCallback inferenceCallback = null;
+        private boolean bargeIn = false;
+        private float refractoryPeriodSec = 0f;
+        private int stormThreshold = 0;
+        private float stormWindowSec = 0f;
+        private float stormBackoffSec = 0f;
+        private float maxLagSec = 0f;
+        private PicovoiceBackpressureCallback backpressureCallback = null;
+        private LoadSheddingPolicy loadSheddingPolicy = LoadSheddingPolicy.NONE;
+        private String cacheDirectory = null;
+        private int prewarmFrames = 0;
+        private int numTimedFrames = DEFAULT_NUM_TIMED_FRAMES;
+        private PicovoiceBuildReportCallback buildReportCallback = null;
 
         public Picovoice.Builder setAccessKey(String accessKey) {
             this.accessKey = accessKey;
@@ -402,6 +775,152 @@ public class Picovoice {
             return this;
         }
 
+        /**
+         * Setter for barge-in mode. When enabled, Porcupine keeps processing audio while Rhino infers a command,
+         * with each engine on its own thread so the time to process a frame does not grow. Detecting the wake word
+         * again aborts the command in progress and starts a new one.
+         *
+         * @param bargeIn Whether to enable barge-in.
+         * @return This builder.
+         */
+        public Picovoice.Builder setBargeIn(boolean bargeIn) {
+            this.bargeIn = bargeIn;
+            return this;
+        }
+
+        /**
+         * Setter for the refractory period. A wake word detected within this period after the previous wake word
+         * or the end of the previous command is ignored.
+         *
+         * @param refractoryPeriodSec Refractory period in seconds of audio. Defaults to 0 (disabled).
+         * @return This builder.
+         */
+        public Picovoice.Builder setRefractoryPeriodSec(float refractoryPeriodSec) {
+            this.refractoryPeriodSec = refractoryPeriodSec;
+            return this;
+        }
+
+        /**
+         * Setter for trigger storm suppression. When {@code numFalseTriggers} commands within {@code windowSec}
+         * are not understood, wake words are ignored for {@code backoffSec}. Each consecutive storm doubles the
+         * backoff, up to 8 times its initial length, and an understood command restores it.
+         *
+         * @param numFalseTriggers Number of not-understood commands that start a backoff. 0 disables suppression.
+         * @param windowSec        Window the commands are counted over, in seconds of audio.
+         * @param backoffSec       Initial backoff, in seconds of audio.
+         * @return This builder.
+         */
+        public Picovoice.Builder setTriggerStormSuppression(int numFalseTriggers, float windowSec, float backoffSec) {
+            this.stormThreshold = numFalseTriggers;
+            this.stormWindowSec = windowSec;
+            this.stormBackoffSec = backoffSec;
+            return this;
+        }
+
+        /**
+         * Enables monitoring of a live stream against real time. Once processing falls behind by more than
+         * {@code maxLagSec}, the stream is overloaded until the lag falls below half of it. A pause in the input, e.g.
+         * a stalled source or suppressed silence, is not counted as lag. The callback is invoked on the processing
+         * thread whenever the stream becomes overloaded or recovers.
+         *
+         * @param maxLagSec            Maximum lag, in seconds.
+         * @param backpressureCallback Callback invoked when the overload state changes. Can be null.
+         * @return This builder.
+         */
+        public Picovoice.Builder setRealTimeMonitor(
+                float maxLagSec,
+                PicovoiceBackpressureCallback backpressureCallback) {
+            this.maxLagSec = maxLagSec;
+            this.backpressureCallback = backpressureCallback;
+            return this;
+        }
+
+        /**
+         * Setter for what to do with frames while the stream is overloaded. Requires a real-time monitor.
+         *
+         * @param loadSheddingPolicy Load shedding policy. Defaults to ${@link LoadSheddingPolicy#NONE}.
+         * @return This builder.
+         */
+        public Picovoice.Builder setLoadSheddingPolicy(LoadSheddingPolicy loadSheddingPolicy) {
+            this.loadSheddingPolicy = loadSheddingPolicy;
+            return this;
+        }
+
+        /**
+         * Sets a directory in which to keep the packaged engine libraries and models that are used
+         * when no library or model path is set. Files are extracted once and reused across runs and
+         * processes, and versions left behind by upgrades are removed once unused for a week.
+         *
+         * @param cacheDirectory Path of the cache directory, which is created if needed.
+         * @return This builder.
+         */
+        public Picovoice.Builder setCacheDirectory(String cacheDirectory) {
+            this.cacheDirectory = cacheDirectory;
+            return this;
+        }
+
+        /**
+         * Sets a number of frames of quiet synthetic noise to feed through both engines before the instance is
+         * returned, so that the first frames of real audio are processed as fast as later ones. Rhino is reset
+         * afterwards.
+         *
+         * @param numFrames Number of frames. 0 disables prewarming, which is the default.
+         * @return This builder.
+         */
+        public Picovoice.Builder setPrewarmFrames(int numFrames) {
+            this.prewarmFrames = numFrames;
+            return this;
+        }
+
+        /**
+         * Setter for the number of first frames whose processing time is reported by
+         * ${@link Picovoice#getFirstFrameLatenciesNanos()}.
+         *
+         * @param numTimedFrames Number of frames. Defaults to 10.
+         * @return This builder.
+         */
+        public Picovoice.Builder setNumTimedFrames(int numTimedFrames) {
+            this.numTimedFrames = numTimedFrames;
+            return this;
+        }
+
+        /**
+         * Sets a callback that receives the ${@link BuildReport} of every instance this builder creates, e.g. to
+         * record startup time as a metric. It is invoked on the thread calling ${@link #build()}, once the instance
+         * is ready.
+         *
+         * @param buildReportCallback Callback, or null for none.
+         * @return This builder.
+         */
+        public Picovoice.Builder setBuildReportCallback(PicovoiceBuildReportCallback buildReportCallback) {
+            this.buildReportCallback = buildReportCallback;
+            return this;
+        }
+
+        /**
+         * Gets the settings that decide which events are raised for a given stream of audio, keyed by the name
+         * ${@link PicovoiceRecorder} stores them under.
+         */
+        Map<String, String> getEventSettings() {
+            final Map<String, String> settings = new LinkedHashMap<>();
+            settings.put("porcupine.sensitivity", String.valueOf(porcupineSensitivity));
+            settings.put("rhino.sensitivity", String.valueOf(rhinoSensitivity));
+            settings.put("rhino.endpoint_duration_sec", String.valueOf(rhinoEndpointDuration));
+            settings.put("rhino.require_endpoint", String.valueOf(requireEndpoint));
+            settings.put("picovoice.barge_in", String.valueOf(bargeIn));
+            settings.put("picovoice.refractory_period_sec", String.valueOf(refractoryPeriodSec));
+            settings.put("picovoice.storm_threshold", String.valueOf(stormThreshold));
+            settings.put("picovoice.storm_window_sec", String.valueOf(stormWindowSec));
+            settings.put("picovoice.storm_backoff_sec", String.valueOf(stormBackoffSec));
+            settings.put("picovoice.load_shedding_policy", String.valueOf(loadSheddingPolicy));
+            settings.put("picovoice.prewarm_frames", String.valueOf(prewarmFrames));
+            return settings;
+        }
+
+        LoadSheddingPolicy getLoadSheddingPolicy() {
+            return loadSheddingPolicy;
+        }
+
         /**
          * Validates properties and creates an instance of the Picovoice end-to-end platform.
          *
@@ -409,7 +928,35 @@ public class Picovoice {
          * @throws PicovoiceException if there is an error while initializing Picovoice.
          */
         public Picovoice build() throws PicovoiceException {
-            return new Picovoice(
+            if (refractoryPeriodSec < 0) {
+                throw new PicovoiceInvalidArgumentException(String.format(
+                        "Refractory period must be a non-negative number. Received %f.", refractoryPeriodSec));
+            }
+            if (stormThreshold < 0 || (stormThreshold > 0 && (stormWindowSec <= 0 || stormBackoffSec <= 0))) {
+                throw new PicovoiceInvalidArgumentException(String.format(
+                        "Trigger storm suppression requires a non-negative number of false triggers and a positive " +
+                                "window and backoff. Received %d, %f and %f.",
+                        stormThreshold,
+                        stormWindowSec,
+                        stormBackoffSec));
+            }
+
+            if (maxLagSec < 0) {
+                throw new PicovoiceInvalidArgumentException(String.format(
+                        "Maximum lag must be a non-negative number. Received %f.", maxLagSec));
+            }
+            if (loadSheddingPolicy == null ||
+                    (loadSheddingPolicy != LoadSheddingPolicy.NONE && maxLagSec == 0)) {
+                throw new PicovoiceInvalidArgumentException("Load shedding requires a real-time monitor");
+            }
+            if (prewarmFrames < 0 || numTimedFrames < 0) {
+                throw new PicovoiceInvalidArgumentException(String.format(
+                        "Numbers of prewarm and timed frames must be non-negative. Received %d and %d.",
+                        prewarmFrames,
+                        numTimedFrames));
+            }
+
+            final Picovoice picovoice = new Picovoice(
                     accessKey,
                     porcupineLibraryPath,
                     porcupineModelPath,
@@ -422,7 +969,46 @@ public class Picovoice {
                     rhinoSensitivity,
                     rhinoEndpointDuration,
                     requireEndpoint,
-                    inferenceCallback);
+                    inferenceCallback,
+                    bargeIn,
+                    cacheDirectory != null ? Paths.get(cacheDirectory) : null);
+
+            final long configureStartNanos = System.nanoTime();
+            if (refractoryPeriodSec > 0 || stormThreshold > 0) {
+                final float framesPerSec = (float) picovoice.getSampleRate() / picovoice.getFrameLength();
+                picovoice.triggerRateLimiter = new TriggerRateLimiter(
+                        Math.round(refractoryPeriodSec * framesPerSec),
+                        stormThreshold,
+                        Math.round(stormWindowSec * framesPerSec),
+                        Math.round(stormBackoffSec * framesPerSec));
+            }
+            if (maxLagSec > 0) {
+                picovoice.realTimeMonitor = new RealTimeMonitor(
+                        1_000_000_000L * picovoice.getFrameLength() / picovoice.getSampleRate(),
+                        (long) (maxLagSec * 1e9));
+                picovoice.backpressureCallback = backpressureCallback;
+                picovoice.loadSheddingPolicy = loadSheddingPolicy;
+            }
+            picovoice.firstFrameLatenciesNanos = new long[numTimedFrames];
+            final long prewarmStartNanos = picovoice.buildReport.lap(BuildReport.Phase.CONFIGURE, configureStartNanos);
+
+            if (prewarmFrames > 0) {
+                try {
+                    picovoice.prewarm(prewarmFrames);
+                } catch (PicovoiceException e) {
+                    picovoice.delete();
+                    throw e;
+                }
+                picovoice.buildReport.lap(BuildReport.Phase.PREWARM, prewarmStartNanos);
+            }
+
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine(picovoice.buildReport.toString());
+            }
+            if (buildReportCallback != null) {
+                buildReportCallback.invoke(picovoice.buildReport);
+            }
+            return picovoice;
         }
     }
 }
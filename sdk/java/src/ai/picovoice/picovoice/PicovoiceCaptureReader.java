@@ -0,0 +1,202 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a capture written by ${@link PicovoiceRecorder}, frame by frame.
+ */
+public final class PicovoiceCaptureReader implements Closeable {
+
+    private final DataInputStream input;
+    private final int sampleRate;
+    private final int frameLength;
+    private final Map<String, String> properties;
+    private final byte[] frameBytes;
+    private final ByteBuffer scratch = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+    private boolean isEnded = false;
+    private boolean isTruncated = false;
+
+    /**
+     * Constructor. Reads the header of the capture.
+     *
+     * @param input Stream positioned at the start of a capture. It is closed by ${@link #close()}.
+     * @throws PicovoiceIOException if the stream does not hold a capture or cannot be read.
+     */
+    public PicovoiceCaptureReader(InputStream input) throws PicovoiceIOException {
+        this.input = new DataInputStream(new BufferedInputStream(input));
+        try {
+            final byte[] magic = new byte[CaptureWriter.MAGIC.length];
+            this.input.readFully(magic);
+            if (!Arrays.equals(magic, CaptureWriter.MAGIC)) {
+                throw new PicovoiceIOException("Stream does not hold a Picovoice capture");
+            }
+            final int version = readInt();
+            if (version != CaptureWriter.VERSION) {
+                throw new PicovoiceIOException(String.format("Unsupported capture version %d", version));
+            }
+            this.sampleRate = readInt();
+            this.frameLength = readInt();
+            final int numProperties = readInt();
+            final Map<String, String> properties = new LinkedHashMap<>();
+            for (int i = 0; i < numProperties; i++) {
+                properties.put(readString(), readString());
+            }
+            this.properties = Collections.unmodifiableMap(properties);
+        } catch (IOException e) {
+            throw new PicovoiceIOException("Failed to read the capture header", e);
+        }
+        this.frameBytes = new byte[2 * frameLength];
+    }
+
+    /**
+     * Reads the next frame, and the events recorded before it.
+     *
+     * @param pcm    Buffer of ${@link #getFrameLength()} samples that receives the frame.
+     * @param events List that the events recorded before the frame are appended to. Events follow the
+     *               frame that raised them, so these belong to the previous frame.
+     * @return Whether a frame was read. Once false, the capture has ended and any events after the last
+     *         frame have been appended.
+     * @throws PicovoiceException if the buffer has the wrong length or the capture is corrupt.
+     */
+    public boolean readFrame(short[] pcm, List<CapturedEvent> events) throws PicovoiceException {
+        if (pcm == null || pcm.length != frameLength) {
+            throw new PicovoiceInvalidArgumentException(String.format(
+                    "Frames of this capture have %d samples", frameLength));
+        }
+
+        try {
+            while (!isEnded) {
+                final int tag = input.read();
+                switch (tag) {
+                    case CaptureWriter.TAG_FRAME:
+                        input.readFully(frameBytes);
+                        ByteBuffer.wrap(frameBytes).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().get(pcm);
+                        return true;
+                    case CaptureWriter.TAG_WAKE_WORD:
+                        events.add(CapturedEvent.wakeWord(readLong()));
+                        break;
+                    case CaptureWriter.TAG_INFERENCE:
+                        events.add(readInference());
+                        break;
+                    case CaptureWriter.TAG_END:
+                        isTruncated = input.readByte() != 0;
+                        isEnded = true;
+                        break;
+                    case -1:
+                        // the recording process stopped without closing the capture
+                        isTruncated = true;
+                        isEnded = true;
+                        break;
+                    default:
+                        throw new PicovoiceIOException(String.format("Unknown capture record %d", tag));
+                }
+            }
+        } catch (EOFException e) {
+            isTruncated = true;
+            isEnded = true;
+        } catch (IOException e) {
+            throw new PicovoiceIOException("Failed to read the capture", e);
+        }
+        return false;
+    }
+
+    /**
+     * Getter for the sample rate of the captured audio.
+     *
+     * @return Sample rate.
+     */
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Getter for the number of samples per captured frame.
+     *
+     * @return Frame length.
+     */
+    public int getFrameLength() {
+        return frameLength;
+    }
+
+    /**
+     * Getter for the configuration stored with the capture, i.e. the engine versions, Rhino's context
+     * information and any properties set on ${@link PicovoiceRecorder.Builder#putProperty(String, String)}.
+     *
+     * @return Properties keyed by name.
+     */
+    public Map<String, String> getProperties() {
+        return properties;
+    }
+
+    /**
+     * Getter for whether the capture is incomplete, because the recorder ran out of buffer space or the
+     * recording process stopped without closing it. Only known once ${@link #readFrame} returns false.
+     *
+     * @return Whether the capture is truncated.
+     */
+    public boolean getIsTruncated() {
+        return isTruncated;
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    private CapturedEvent readInference() throws IOException {
+        final long sampleIndex = readLong();
+        final boolean isUnderstood = input.readByte() != 0;
+        final String intent = readString();
+        final int numSlots = readInt();
+        final Map<String, String> slots = new LinkedHashMap<>();
+        for (int i = 0; i < numSlots; i++) {
+            slots.put(readString(), readString());
+        }
+        return new CapturedEvent(PicovoiceEvent.Type.INFERENCE, sampleIndex, isUnderstood, intent, slots);
+    }
+
+    private int readInt() throws IOException {
+        input.readFully(scratch.array(), 0, 4);
+        return scratch.getInt(0);
+    }
+
+    private long readLong() throws IOException {
+        input.readFully(scratch.array(), 0, 8);
+        return scratch.getLong(0);
+    }
+
+    private String readString() throws IOException {
+        final int numBytes = readInt();
+        if (numBytes < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[numBytes];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import ai.picovoice.rhino.RhinoInference;
+
+/**
+ * An event published by ${@link PicovoiceEventPublisher}.
+ */
+public final class PicovoiceEvent {
+
+    /**
+     * Kinds of event.
+     */
+    public enum Type {
+        /** The wake word was detected. */
+        WAKE_WORD,
+        /** Rhino finalized the inference of the command that followed the wake word. */
+        INFERENCE,
+        /** The command did not finalize within the command timeout and was abandoned. */
+        TIMEOUT,
+        /** Processing a frame failed. */
+        ERROR
+    }
+
+    private final Type type;
+    private final long sampleIndex;
+    private final RhinoInference inference;
+    private final PicovoiceException error;
+
+    PicovoiceEvent(Type type, long sampleIndex, RhinoInference inference, PicovoiceException error) {
+        this.type = type;
+        this.sampleIndex = sampleIndex;
+        this.inference = inference;
+        this.error = error;
+    }
+
+    /**
+     * Getter for the kind of event.
+     *
+     * @return Event type.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Getter for the position of the event in the stream.
+     *
+     * @return Number of samples processed when the event was raised, including the frame that raised it.
+     */
+    public long getSampleIndex() {
+        return sampleIndex;
+    }
+
+    /**
+     * Getter for the inference of an ${@link Type#INFERENCE} event.
+     *
+     * @return Inference, or null for other events.
+     */
+    public RhinoInference getInference() {
+        return inference;
+    }
+
+    /**
+     * Getter for the error of an ${@link Type#ERROR} event.
+     *
+     * @return Error, or null for other events.
+     */
+    public PicovoiceException getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PicovoiceEvent{type=%s, sampleIndex=%d}", type, sampleIndex);
+    }
+}
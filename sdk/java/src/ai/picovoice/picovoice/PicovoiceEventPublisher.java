@@ -0,0 +1,450 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import ai.picovoice.rhino.RhinoInference;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Publishes the events of an instance of Picovoice as a ${@link Flow.Publisher}, in place of the
+ * wake word and inference callbacks.
+ *
+ * <p>Every subscriber gets its own bounded buffer and its own ${@link DropPolicy} for when that
+ * buffer is full, and receives events only as it requests them. With
+ * ${@link DropPolicy#BLOCK}, ${@link #process(short[])} waits for a slow subscriber, so
+ * backpressure reaches the audio source instead of events being lost. Events are delivered either
+ * on the thread calling ${@link #process(short[])} or on the thread calling
+ * ${@link Flow.Subscription#request(long)}, never concurrently for the same subscriber.
+ */
+public class PicovoiceEventPublisher implements Flow.Publisher<PicovoiceEvent> {
+
+    /**
+     * What to do with a new event when a subscriber's buffer is full.
+     */
+    public enum DropPolicy {
+        /** Wait in ${@link #process(short[])} until the subscriber requests more events. */
+        BLOCK,
+        /** Discard the oldest buffered event. */
+        DROP_OLDEST,
+        /** Discard the new event. */
+        DROP_NEWEST
+    }
+
+    private static final long NO_COMMAND = -1;
+
+    private final int defaultBufferSize;
+    private final DropPolicy defaultDropPolicy;
+    private final List<EventSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final AtomicLong numDroppedEvents = new AtomicLong(0);
+    private volatile boolean isDeleted = false;
+    private Picovoice picovoice = null;
+    private long commandTimeoutSamples = 0;
+    private long numSamples = 0;
+    private long eventSampleIndex = 0;
+    private long commandStartSample = NO_COMMAND;
+
+    PicovoiceEventPublisher(int defaultBufferSize, DropPolicy defaultDropPolicy) {
+        this.defaultBufferSize = defaultBufferSize;
+        this.defaultDropPolicy = defaultDropPolicy;
+    }
+
+    /**
+     * Subscribes with the buffer size and drop policy the publisher was built with.
+     *
+     * @param subscriber Subscriber to receive events.
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super PicovoiceEvent> subscriber) {
+        subscribe(subscriber, defaultBufferSize, defaultDropPolicy);
+    }
+
+    /**
+     * Subscribes with a buffer size and drop policy of its own.
+     *
+     * @param subscriber Subscriber to receive events.
+     * @param bufferSize Number of events buffered while the subscriber has no outstanding demand.
+     * @param dropPolicy What to do with new events while the buffer is full.
+     */
+    public void subscribe(Flow.Subscriber<? super PicovoiceEvent> subscriber, int bufferSize, DropPolicy dropPolicy) {
+        Objects.requireNonNull(subscriber, "Subscriber is required");
+        if (bufferSize <= 0 || dropPolicy == null) {
+            throw new IllegalArgumentException(String.format(
+                    "Subscriptions require a positive buffer size and a drop policy. Received %d and %s.",
+                    bufferSize,
+                    dropPolicy));
+        }
+
+        final EventSubscription subscription = new EventSubscription(subscriber, bufferSize, dropPolicy);
+        subscriber.onSubscribe(subscription);
+        subscriptions.add(subscription);
+        if (isDeleted) {
+            subscription.complete();
+        }
+    }
+
+    /**
+     * Processes a frame of the incoming audio stream and publishes the events it raises. If processing
+     * fails, an ${@link PicovoiceEvent.Type#ERROR} event is published before the exception is thrown.
+     *
+     * @param pcm A frame of audio samples. The number of samples per frame can be attained by calling
+     *            ${@link #getFrameLength()}.
+     * @throws PicovoiceException if there is an error while processing the audio frame.
+     */
+    public void process(short[] pcm) throws PicovoiceException {
+        if (picovoice == null) {
+            throw new PicovoiceInvalidStateException("Cannot process frame - resources have been released");
+        }
+
+        eventSampleIndex = numSamples + picovoice.getFrameLength();
+        try {
+            picovoice.process(pcm);
+            numSamples = eventSampleIndex;
+            if (commandStartSample != NO_COMMAND && commandTimeoutSamples > 0 &&
+                    numSamples - commandStartSample >= commandTimeoutSamples) {
+                commandStartSample = NO_COMMAND;
+                picovoice.abortCommand();
+                publish(new PicovoiceEvent(PicovoiceEvent.Type.TIMEOUT, numSamples, null, null));
+            }
+        } catch (PicovoiceException e) {
+            publish(new PicovoiceEvent(PicovoiceEvent.Type.ERROR, eventSampleIndex, null, e));
+            throw e;
+        }
+    }
+
+    private void onWakeWord() {
+        commandStartSample = eventSampleIndex;
+        publish(new PicovoiceEvent(PicovoiceEvent.Type.WAKE_WORD, eventSampleIndex, null, null));
+    }
+
+    private void onInference(RhinoInference inference) {
+        commandStartSample = NO_COMMAND;
+        publish(new PicovoiceEvent(PicovoiceEvent.Type.INFERENCE, eventSampleIndex, inference, null));
+    }
+
+    void publish(PicovoiceEvent event) {
+        for (EventSubscription subscription : subscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+    /**
+     * Completes every subscription once its buffered events are delivered and releases the resources
+     * of Picovoice.
+     */
+    public void delete() {
+        isDeleted = true;
+        for (EventSubscription subscription : subscriptions) {
+            subscription.complete();
+        }
+        if (picovoice != null) {
+            picovoice.delete();
+            picovoice = null;
+        }
+    }
+
+    /**
+     * Getter for the number of events discarded across all subscribers because their buffers were full.
+     *
+     * @return Number of events discarded.
+     */
+    public long getNumDroppedEvents() {
+        return numDroppedEvents.get();
+    }
+
+    /**
+     * Getter for the number of subscribers that have neither cancelled nor been completed.
+     *
+     * @return Number of subscribers.
+     */
+    public int getNumSubscribers() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Getter for number of audio samples per frame.
+     *
+     * @return Number of audio samples per frame.
+     */
+    public int getFrameLength() {
+        return picovoice.getFrameLength();
+    }
+
+    /**
+     * Getter for audio sample rate accepted by Picovoice.
+     *
+     * @return Audio sample rate accepted by Picovoice.
+     */
+    public int getSampleRate() {
+        return picovoice.getSampleRate();
+    }
+
+    /**
+     * One subscriber's buffer and demand. Events are delivered by a drain loop that runs on whichever
+     * thread publishes or requests; the work-in-progress counter lets only one thread deliver at a time.
+     */
+    private final class EventSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super PicovoiceEvent> subscriber;
+        private final DropPolicy dropPolicy;
+        private final PicovoiceEvent[] buffer;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notFull = lock.newCondition();
+        private final AtomicInteger workInProgress = new AtomicInteger(0);
+        private int head = 0;
+        private int count = 0;
+        private long demand = 0;
+        private boolean isCancelled = false;
+        private boolean isComplete = false;
+        private boolean isTerminated = false;
+        private Throwable error = null;
+
+        EventSubscription(Flow.Subscriber<? super PicovoiceEvent> subscriber, int bufferSize, DropPolicy dropPolicy) {
+            this.subscriber = subscriber;
+            this.dropPolicy = dropPolicy;
+            this.buffer = new PicovoiceEvent[bufferSize];
+        }
+
+        void offer(PicovoiceEvent event) {
+            lock.lock();
+            try {
+                while (count == buffer.length && !isCancelled && !isComplete && error == null) {
+                    if (dropPolicy == DropPolicy.DROP_NEWEST) {
+                        numDroppedEvents.incrementAndGet();
+                        return;
+                    }
+                    if (dropPolicy == DropPolicy.DROP_OLDEST) {
+                        poll();
+                        numDroppedEvents.incrementAndGet();
+                        break;
+                    }
+                    try {
+                        notFull.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        numDroppedEvents.incrementAndGet();
+                        return;
+                    }
+                }
+                if (isCancelled || isComplete || error != null) {
+                    return;
+                }
+                buffer[(head + count) % buffer.length] = event;
+                count++;
+            } finally {
+                lock.unlock();
+            }
+            drain();
+        }
+
+        void complete() {
+            lock.lock();
+            try {
+                isComplete = true;
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            lock.lock();
+            try {
+                if (n <= 0) {
+                    // rule 3.9 of the reactive streams specification
+                    error = new IllegalArgumentException(String.format(
+                            "Subscribers must request a positive number of events. Received %d.", n));
+                    clear();
+                } else {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+            } finally {
+                lock.unlock();
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            lock.lock();
+            try {
+                isCancelled = true;
+                clear();
+            } finally {
+                lock.unlock();
+            }
+            subscriptions.remove(this);
+        }
+
+        private PicovoiceEvent poll() {
+            final PicovoiceEvent event = buffer[head];
+            buffer[head] = null;
+            head = (head + 1) % buffer.length;
+            count--;
+            notFull.signal();
+            return event;
+        }
+
+        private void clear() {
+            while (count > 0) {
+                poll();
+            }
+            notFull.signalAll();
+        }
+
+        private void drain() {
+            if (workInProgress.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                while (true) {
+                    final PicovoiceEvent event;
+                    lock.lock();
+                    try {
+                        if (isCancelled || isTerminated || error != null || count == 0 || demand == 0) {
+                            break;
+                        }
+                        event = poll();
+                        if (demand != Long.MAX_VALUE) {
+                            demand--;
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                    try {
+                        subscriber.onNext(event);
+                    } catch (RuntimeException e) {
+                        // rule 2.13: a subscriber that throws is considered cancelled
+                        cancel();
+                    }
+                }
+
+                boolean isTerminating = false;
+                lock.lock();
+                try {
+                    if (!isCancelled && !isTerminated && (error != null || (isComplete && count == 0))) {
+                        isTerminated = true;
+                        isTerminating = true;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                if (isTerminating) {
+                    subscriptions.remove(this);
+                    if (error != null) {
+                        subscriber.onError(error);
+                    } else {
+                        subscriber.onComplete();
+                    }
+                }
+                missed = workInProgress.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+
+    /**
+     * Builder for creating an instance of PicovoiceEventPublisher.
+     */
+    public static class Builder {
+        private Picovoice.Builder picovoiceBuilder = null;
+        private int bufferSize = 16;
+        private DropPolicy dropPolicy = DropPolicy.BLOCK;
+        private float commandTimeoutSec = 0f;
+
+        /**
+         * Setter for the configuration of Picovoice. The wake word and inference callbacks set on the
+         * builder are replaced by the publisher.
+         *
+         * @param picovoiceBuilder Builder configured with the model, keyword and context.
+         * @return This builder.
+         */
+        public PicovoiceEventPublisher.Builder setPicovoiceBuilder(Picovoice.Builder picovoiceBuilder) {
+            this.picovoiceBuilder = picovoiceBuilder;
+            return this;
+        }
+
+        /**
+         * Setter for the default size of each subscriber's buffer.
+         *
+         * @param bufferSize Number of events buffered per subscriber. Defaults to 16.
+         * @return This builder.
+         */
+        public PicovoiceEventPublisher.Builder setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * Setter for the default policy when a subscriber's buffer is full.
+         *
+         * @param dropPolicy Drop policy. Defaults to ${@link DropPolicy#BLOCK}.
+         * @return This builder.
+         */
+        public PicovoiceEventPublisher.Builder setDropPolicy(DropPolicy dropPolicy) {
+            this.dropPolicy = dropPolicy;
+            return this;
+        }
+
+        /**
+         * Setter for the command timeout. A command that does not finalize within this time after its
+         * wake word is abandoned and a ${@link PicovoiceEvent.Type#TIMEOUT} event is published.
+         *
+         * @param commandTimeoutSec Command timeout in seconds of audio. Defaults to 0 (disabled).
+         * @return This builder.
+         */
+        public PicovoiceEventPublisher.Builder setCommandTimeoutSec(float commandTimeoutSec) {
+            this.commandTimeoutSec = commandTimeoutSec;
+            return this;
+        }
+
+        /**
+         * Validates properties and creates an instance of PicovoiceEventPublisher.
+         *
+         * @return An instance of PicovoiceEventPublisher
+         * @throws PicovoiceException if there is an error while initializing Picovoice.
+         */
+        public PicovoiceEventPublisher build() throws PicovoiceException {
+            if (picovoiceBuilder == null) {
+                throw new PicovoiceInvalidArgumentException("Picovoice builder is required");
+            }
+            if (bufferSize <= 0) {
+                throw new PicovoiceInvalidArgumentException(String.format(
+                        "Buffer size must be a positive number. Received %d.", bufferSize));
+            }
+            if (dropPolicy == null) {
+                throw new PicovoiceInvalidArgumentException("Drop policy is required");
+            }
+            if (commandTimeoutSec < 0) {
+                throw new PicovoiceInvalidArgumentException(String.format(
+                        "Command timeout must be a non-negative number. Received %f.", commandTimeoutSec));
+            }
+
+            final PicovoiceEventPublisher publisher = new PicovoiceEventPublisher(bufferSize, dropPolicy);
+            publisher.picovoice = picovoiceBuilder
+                    .setWakeWordCallback(publisher::onWakeWord)
+                    .setInferenceCallback(publisher::onInference)
+                    .build();
+            publisher.commandTimeoutSamples = Math.round(commandTimeoutSec * publisher.picovoice.getSampleRate());
+            return publisher;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import ai.picovoice.rhino.RhinoInference;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Runs Picovoice and records exactly what it processed, and the events it raised, to a capture that
+ * ${@link PicovoiceReplay} can play back.
+ *
+ * <p>Frames and events are written by a background thread, so ${@link #process(short[])} does not
+ * block on the output and memory use is bounded by the buffer size. If the output cannot keep up and
+ * the buffer fills, recording stops and the capture is marked as truncated; Picovoice itself keeps
+ * processing.
+ *
+ * <p>The capture stores the engine versions and every setting of ${@link Picovoice.Builder} that
+ * affects which events are raised, so that ${@link PicovoiceReplay} can refuse a differently
+ * configured replay. Load shedding depends on how fast frames are processed rather than on the audio,
+ * so it cannot be recorded.
+ */
+public class PicovoiceRecorder {
+
+    private static final int CHUNK_FRAMES = 32;
+    private static final Set<String> RESERVED_PROPERTIES = new HashSet<>(Arrays.asList(
+            "picovoice.version", "porcupine.version", "rhino.version", "rhino.context"));
+
+    private final PicovoiceWakeWordCallback wakeWordCallback;
+    private final PicovoiceInferenceCallback inferenceCallback;
+    private Picovoice picovoice;
+    private CaptureWriter captureWriter;
+    private long sampleIndex = 0;
+
+    private PicovoiceRecorder(
+            PicovoiceWakeWordCallback wakeWordCallback,
+            PicovoiceInferenceCallback inferenceCallback) {
+        this.wakeWordCallback = wakeWordCallback;
+        this.inferenceCallback = inferenceCallback;
+    }
+
+    /**
+     * Records a frame and processes it with Picovoice.
+     *
+     * @param pcm A frame of audio samples. The number of samples per frame can be attained by calling
+     *            ${@link #getFrameLength()}.
+     * @throws PicovoiceException if there is an error while processing the audio frame.
+     */
+    public void process(short[] pcm) throws PicovoiceException {
+        if (picovoice == null) {
+            throw new PicovoiceInvalidStateException("Cannot process frame - resources have been released");
+        }
+        captureWriter.writeFrame(pcm);
+        if (pcm != null && pcm.length == picovoice.getFrameLength()) {
+            sampleIndex += pcm.length;
+        }
+        picovoice.process(pcm);
+    }
+
+    /**
+     * Finishes the capture and releases the resources of Picovoice.
+     *
+     * @throws PicovoiceIOException if writing the capture failed.
+     */
+    public void delete() throws PicovoiceIOException {
+        if (picovoice != null) {
+            picovoice.delete();
+            picovoice = null;
+        }
+        captureWriter.close();
+    }
+
+    /**
+     * Getter for the number of frames written to the capture.
+     *
+     * @return Number of frames recorded.
+     */
+    public long getNumRecordedFrames() {
+        return captureWriter.getNumFrames();
+    }
+
+    /**
+     * Getter for whether recording stopped because the output could not keep up.
+     *
+     * @return Whether the capture is truncated.
+     */
+    public boolean getIsTruncated() {
+        return captureWriter.getIsTruncated();
+    }
+
+    /**
+     * Getter for number of audio samples per frame.
+     *
+     * @return Number of audio samples per frame.
+     */
+    public int getFrameLength() {
+        return picovoice != null ? picovoice.getFrameLength() : 0;
+    }
+
+    /**
+     * Getter for audio sample rate accepted by Picovoice.
+     *
+     * @return Audio sample rate accepted by Picovoice.
+     */
+    public int getSampleRate() {
+        return picovoice != null ? picovoice.getSampleRate() : 0;
+    }
+
+    private void onWakeWord() {
+        captureWriter.writeEvent(CapturedEvent.wakeWord(sampleIndex));
+        if (wakeWordCallback != null) {
+            wakeWordCallback.invoke();
+        }
+    }
+
+    private void onInference(RhinoInference inference) {
+        captureWriter.writeEvent(CapturedEvent.inference(sampleIndex, inference));
+        if (inferenceCallback != null) {
+            inferenceCallback.invoke(inference);
+        }
+    }
+
+    /**
+     * Builder for creating an instance of PicovoiceRecorder.
+     */
+    public static class Builder {
+        private Picovoice.Builder picovoiceBuilder = null;
+        private OutputStream outputStream = null;
+        private PicovoiceWakeWordCallback wakeWordCallback = null;
+        private PicovoiceInferenceCallback inferenceCallback = null;
+        private int bufferFrames = 1024;
+        private final Map<String, String> properties = new LinkedHashMap<>();
+
+        /**
+         * Setter for the configuration of Picovoice. The wake word and inference callbacks set on the
+         * builder are replaced by the recorder, which forwards events to the callbacks set on this builder.
+         * Load shedding must be disabled.
+         *
+         * @param picovoiceBuilder Builder configured with the model, keyword and context.
+         * @return This builder.
+         */
+        public PicovoiceRecorder.Builder setPicovoiceBuilder(Picovoice.Builder picovoiceBuilder) {
+            this.picovoiceBuilder = picovoiceBuilder;
+            return this;
+        }
+
+        /**
+         * Setter for where the capture is written. The stream is closed by ${@link PicovoiceRecorder#delete()}.
+         *
+         * @param outputStream Output stream, e.g. a file.
+         * @return This builder.
+         */
+        public PicovoiceRecorder.Builder setOutputStream(OutputStream outputStream) {
+            this.outputStream = outputStream;
+            return this;
+        }
+
+        public PicovoiceRecorder.Builder setWakeWordCallback(PicovoiceWakeWordCallback wakeWordCallback) {
+            this.wakeWordCallback = wakeWordCallback;
+            return this;
+        }
+
+        public PicovoiceRecorder.Builder setInferenceCallback(PicovoiceInferenceCallback inferenceCallback) {
+            this.inferenceCallback = inferenceCallback;
+            return this;
+        }
+
+        /**
+         * Setter for how far the output may fall behind before recording stops.
+         *
+         * @param bufferFrames Number of frames buffered. Defaults to 1024, about 32 seconds of audio.
+         * @return This builder.
+         */
+        public PicovoiceRecorder.Builder setBufferFrames(int bufferFrames) {
+            this.bufferFrames = bufferFrames;
+            return this;
+        }
+
+        /**
+         * Adds a property to the configuration stored with the capture, e.g. the keyword and context used or
+         * where the audio came from.
+         *
+         * @param key   Name of the property. It must not be one the recorder stores itself, such as
+         *              {@code rhino.version} or {@code porcupine.sensitivity}.
+         * @param value Value of the property.
+         * @return This builder.
+         */
+        public PicovoiceRecorder.Builder putProperty(String key, String value) {
+            this.properties.put(key, value);
+            return this;
+        }
+
+        /**
+         * Validates properties, creates Picovoice and writes the header of the capture.
+         *
+         * @return An instance of PicovoiceRecorder
+         * @throws PicovoiceException if there is an error while initializing Picovoice or writing the capture.
+         */
+        public PicovoiceRecorder build() throws PicovoiceException {
+            if (picovoiceBuilder == null) {
+                throw new PicovoiceInvalidArgumentException("Picovoice builder is required");
+            }
+            if (outputStream == null) {
+                throw new PicovoiceInvalidArgumentException("Output stream is required");
+            }
+            if (bufferFrames < CHUNK_FRAMES) {
+                throw new PicovoiceInvalidArgumentException(String.format(
+                        "Buffer must hold at least %d frames. Received %d.", CHUNK_FRAMES, bufferFrames));
+            }
+            if (picovoiceBuilder.getLoadSheddingPolicy() != Picovoice.LoadSheddingPolicy.NONE) {
+                throw new PicovoiceInvalidArgumentException(
+                        "Cannot record with load shedding, as the frames it skips depend on processing time");
+            }
+            final Map<String, String> eventSettings = picovoiceBuilder.getEventSettings();
+            for (String key : properties.keySet()) {
+                if (eventSettings.containsKey(key) || RESERVED_PROPERTIES.contains(key)) {
+                    throw new PicovoiceInvalidArgumentException(
+                            String.format("Property '%s' is stored by the recorder", key));
+                }
+            }
+
+            final PicovoiceRecorder recorder = new PicovoiceRecorder(wakeWordCallback, inferenceCallback);
+            recorder.picovoice = picovoiceBuilder
+                    .setWakeWordCallback(recorder::onWakeWord)
+                    .setInferenceCallback(recorder::onInference)
+                    .build();
+
+            final Picovoice picovoice = recorder.picovoice;
+            try {
+                final Map<String, String> captureProperties = new LinkedHashMap<>();
+                captureProperties.put("picovoice.version", picovoice.getVersion());
+                captureProperties.put("porcupine.version", picovoice.getPorcupineVersion());
+                captureProperties.put("rhino.version", picovoice.getRhinoVersion());
+                captureProperties.put("rhino.context", picovoice.getContextInformation());
+                captureProperties.putAll(eventSettings);
+                captureProperties.putAll(properties);
+
+                // a chunk holds whole frame records, plus room for the events they raise
+                final int chunkBytes = CHUNK_FRAMES * (1 + 2 * picovoice.getFrameLength()) + 4096;
+                recorder.captureWriter = new CaptureWriter(
+                        outputStream,
+                        picovoice.getSampleRate(),
+                        picovoice.getFrameLength(),
+                        captureProperties,
+                        (bufferFrames + CHUNK_FRAMES - 1) / CHUNK_FRAMES,
+                        chunkBytes);
+            } catch (PicovoiceException e) {
+                picovoice.delete();
+                throw e;
+            }
+            return recorder;
+        }
+    }
+}
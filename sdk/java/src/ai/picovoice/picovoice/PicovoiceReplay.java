@@ -0,0 +1,241 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Feeds a capture written by ${@link PicovoiceRecorder} through Picovoice as fast as possible and
+ * compares the events it raises with the recorded ones.
+ *
+ * <p>Picovoice processes audio deterministically, so replaying a capture with the same engine versions,
+ * models, keyword, context and settings reproduces the recorded events exactly. Differences point at a
+ * change in any of these, which makes captures of production traffic usable as regression tests and
+ * as benchmarks of throughput on real workloads.
+ */
+public final class PicovoiceReplay {
+
+    private PicovoiceReplay() { }
+
+    /**
+     * Replays a capture.
+     *
+     * @param captureReader    Capture, positioned after its header.
+     * @param picovoiceBuilder Builder configured like the one that was recorded. Its wake word and inference
+     *                         callbacks are replaced.
+     * @return Outcome of the replay.
+     * @throws PicovoiceException if Picovoice cannot be created, its settings or audio format do not match the
+     *                            capture's, or the capture cannot be read.
+     */
+    public static Result replay(
+            PicovoiceCaptureReader captureReader,
+            Picovoice.Builder picovoiceBuilder) throws PicovoiceException {
+        final List<String> mismatches = new ArrayList<>();
+        for (Map.Entry<String, String> setting : picovoiceBuilder.getEventSettings().entrySet()) {
+            final String recorded = captureReader.getProperties().get(setting.getKey());
+            if (!setting.getValue().equals(recorded)) {
+                mismatches.add(String.format(
+                        "%s is %s but was recorded as %s", setting.getKey(), setting.getValue(), recorded));
+            }
+        }
+        if (!mismatches.isEmpty()) {
+            throw new PicovoiceInvalidArgumentException(String.format(
+                    "Picovoice is not configured like the capture: %s", String.join(", ", mismatches)));
+        }
+
+        final List<CapturedEvent> actualEvents = new ArrayList<>();
+        final long[] sampleIndex = {0};
+        final Picovoice picovoice = picovoiceBuilder
+                .setWakeWordCallback(() -> actualEvents.add(CapturedEvent.wakeWord(sampleIndex[0])))
+                .setInferenceCallback(inference ->
+                        actualEvents.add(CapturedEvent.inference(sampleIndex[0], inference)))
+                .build();
+
+        try {
+            if (picovoice.getSampleRate() != captureReader.getSampleRate() ||
+                    picovoice.getFrameLength() != captureReader.getFrameLength()) {
+                throw new PicovoiceInvalidArgumentException(String.format(
+                        "Capture has frames of %d samples at %d Hz but Picovoice expects %d samples at %d Hz",
+                        captureReader.getFrameLength(),
+                        captureReader.getSampleRate(),
+                        picovoice.getFrameLength(),
+                        picovoice.getSampleRate()));
+            }
+
+            final List<CapturedEvent> expectedEvents = new ArrayList<>();
+            final short[] pcm = new short[captureReader.getFrameLength()];
+            long numFrames = 0;
+            long processNanos = 0;
+            while (captureReader.readFrame(pcm, expectedEvents)) {
+                sampleIndex[0] += pcm.length;
+                final long startNanos = System.nanoTime();
+                picovoice.process(pcm);
+                processNanos += System.nanoTime() - startNanos;
+                numFrames++;
+            }
+
+            return new Result(
+                    expectedEvents,
+                    actualEvents,
+                    numFrames,
+                    (double) sampleIndex[0] / captureReader.getSampleRate(),
+                    processNanos,
+                    captureReader.getIsTruncated());
+        } finally {
+            picovoice.delete();
+        }
+    }
+
+    static List<String> diff(List<CapturedEvent> expectedEvents, List<CapturedEvent> actualEvents) {
+        final List<String> differences = new ArrayList<>();
+        for (int i = 0; i < Math.max(expectedEvents.size(), actualEvents.size()); i++) {
+            if (i >= actualEvents.size()) {
+                differences.add(String.format("missing %s", expectedEvents.get(i)));
+            } else if (i >= expectedEvents.size()) {
+                differences.add(String.format("unexpected %s", actualEvents.get(i)));
+            } else if (!expectedEvents.get(i).equals(actualEvents.get(i))) {
+                differences.add(String.format(
+                        "expected %s but got %s", expectedEvents.get(i), actualEvents.get(i)));
+            }
+        }
+        return differences;
+    }
+
+    /**
+     * Outcome of replaying a capture.
+     */
+    public static final class Result {
+        private final List<CapturedEvent> expectedEvents;
+        private final List<CapturedEvent> actualEvents;
+        private final List<String> differences;
+        private final long numFrames;
+        private final double audioDurationSec;
+        private final long processNanos;
+        private final boolean isTruncated;
+
+        Result(
+                List<CapturedEvent> expectedEvents,
+                List<CapturedEvent> actualEvents,
+                long numFrames,
+                double audioDurationSec,
+                long processNanos,
+                boolean isTruncated) {
+            this.expectedEvents = Collections.unmodifiableList(expectedEvents);
+            this.actualEvents = Collections.unmodifiableList(actualEvents);
+            this.differences = Collections.unmodifiableList(diff(expectedEvents, actualEvents));
+            this.numFrames = numFrames;
+            this.audioDurationSec = audioDurationSec;
+            this.processNanos = processNanos;
+            this.isTruncated = isTruncated;
+        }
+
+        /**
+         * Getter for whether the replay raised exactly the recorded events.
+         *
+         * @return Whether the events match.
+         */
+        public boolean getIsMatch() {
+            return differences.isEmpty();
+        }
+
+        /**
+         * Getter for the differences between the recorded events and the events raised by the replay,
+         * compared in order.
+         *
+         * @return Description of each difference. Empty if the events match.
+         */
+        public List<String> getDifferences() {
+            return differences;
+        }
+
+        /**
+         * Getter for the events stored in the capture.
+         *
+         * @return Recorded events, in order.
+         */
+        public List<CapturedEvent> getExpectedEvents() {
+            return expectedEvents;
+        }
+
+        /**
+         * Getter for the events raised while replaying.
+         *
+         * @return Replayed events, in order.
+         */
+        public List<CapturedEvent> getActualEvents() {
+            return actualEvents;
+        }
+
+        /**
+         * Getter for the number of frames replayed.
+         *
+         * @return Number of frames.
+         */
+        public long getNumFrames() {
+            return numFrames;
+        }
+
+        /**
+         * Getter for the duration of the replayed audio.
+         *
+         * @return Duration in seconds.
+         */
+        public double getAudioDurationSec() {
+            return audioDurationSec;
+        }
+
+        /**
+         * Getter for the time spent in ${@link Picovoice#process(short[])}, excluding reading the capture.
+         *
+         * @return Processing time in nanoseconds.
+         */
+        public long getProcessNanos() {
+            return processNanos;
+        }
+
+        /**
+         * Getter for the processing time relative to the duration of the audio.
+         *
+         * @return Processing time divided by audio duration. 0.1 means the capture was processed ten times
+         *         faster than real time.
+         */
+        public double getRealTimeFactor() {
+            return audioDurationSec > 0 ? processNanos / 1e9 / audioDurationSec : 0;
+        }
+
+        /**
+         * Getter for whether the capture was incomplete, in which case only its recorded prefix was replayed.
+         *
+         * @return Whether the capture is truncated.
+         */
+        public boolean getIsTruncated() {
+            return isTruncated;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "Result{numFrames=%d, audioDurationSec=%.2f, realTimeFactor=%.4f, isMatch=%b, " +
+                            "numDifferences=%d, isTruncated=%b}",
+                    numFrames,
+                    audioDurationSec,
+                    getRealTimeFactor(),
+                    getIsMatch(),
+                    differences.size(),
+                    isTruncated);
+        }
+    }
+}
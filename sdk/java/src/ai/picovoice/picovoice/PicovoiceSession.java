@@ -0,0 +1,194 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Runs a single blocking audio stream on a thread of its own. The session reads 16-bit
+ * little-endian PCM from an {@link InputStream} (e.g. a socket, a pipe or an
+ * {@code AudioInputStream} wrapping a microphone line), assembles frames and hands them to a
+ * ${@link PicovoiceFrameCallback} until the stream ends, processing fails or the session is
+ * stopped.
+ *
+ * <p>On JDK 21 and later every session runs on a virtual thread, so an application can keep one
+ * session per stream for tens of thousands of streams. On older JDKs it runs on a platform
+ * thread. The read loop reuses its buffers and holds no monitors, so a virtual thread blocked on
+ * the stream unmounts from its carrier. Processing a frame is a native call, which does occupy a
+ * carrier while it runs.
+ */
+public class PicovoiceSession {
+    private static final int READ_BUFFER_FRAMES = 4;
+
+    private final InputStream pcm;
+    private final PicovoiceFrameCallback frameCallback;
+    private final short[] frame;
+    private final byte[] readBuffer;
+    private final Thread thread;
+    private volatile boolean isStopped = false;
+    private volatile long numFrames = 0;
+    private volatile PicovoiceException error = null;
+
+    /**
+     * Constructor.
+     *
+     * @param name          Name of the session's thread.
+     * @param pcm           Stream of 16-bit little-endian single-channel PCM.
+     * @param frameLength   Number of samples per frame. Usually ${@link Picovoice#getFrameLength()}.
+     * @param frameCallback Callback invoked with every frame on the session's thread.
+     * @throws PicovoiceInvalidArgumentException if the stream or callback is null or the frame length is not positive.
+     */
+    public PicovoiceSession(
+            String name,
+            InputStream pcm,
+            int frameLength,
+            PicovoiceFrameCallback frameCallback) throws PicovoiceInvalidArgumentException {
+        if (pcm == null) {
+            throw new PicovoiceInvalidArgumentException("PCM stream is required");
+        }
+        if (frameLength <= 0) {
+            throw new PicovoiceInvalidArgumentException(
+                    String.format("Frame length must be a positive number. Received %d.", frameLength));
+        }
+        if (frameCallback == null) {
+            throw new PicovoiceInvalidArgumentException("Frame callback is required");
+        }
+
+        this.pcm = pcm;
+        this.frameCallback = frameCallback;
+        this.frame = new short[frameLength];
+        this.readBuffer = new byte[frameLength * 2 * READ_BUFFER_FRAMES];
+        this.thread = StreamThreads.newThread(name, this::run);
+    }
+
+    /**
+     * Constructor that feeds frames to an instance of Picovoice. The instance must not be used by
+     * any other thread while the session runs.
+     *
+     * @param name      Name of the session's thread.
+     * @param pcm       Stream of 16-bit little-endian single-channel PCM at ${@link Picovoice#getSampleRate()}.
+     * @param picovoice An instance of Picovoice.
+     * @throws PicovoiceInvalidArgumentException if the stream or instance is null.
+     */
+    public PicovoiceSession(
+            String name,
+            InputStream pcm,
+            Picovoice picovoice) throws PicovoiceInvalidArgumentException {
+        this(
+                name,
+                pcm,
+                picovoice != null ? picovoice.getFrameLength() : 0,
+                picovoice != null ? picovoice::process : null);
+    }
+
+    /**
+     * Starts reading and processing the stream.
+     */
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Stops the session and closes its stream, which unblocks a pending read. Frames that were
+     * already read may still be processed; use ${@link #join()} to wait for the session to finish.
+     */
+    public void stop() {
+        isStopped = true;
+        try {
+            pcm.close();
+        } catch (IOException ignored) {
+            // the session is stopping anyway
+        }
+    }
+
+    /**
+     * Waits for the session to finish.
+     *
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     * @throws PicovoiceException   if reading the stream or processing a frame failed. An unchecked exception
+     *                              thrown by the frame callback is wrapped in a ${@link PicovoiceRuntimeException}.
+     */
+    public void join() throws InterruptedException, PicovoiceException {
+        thread.join();
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Getter for whether the session is still reading or processing.
+     *
+     * @return Whether the session is running.
+     */
+    public boolean getIsRunning() {
+        return thread.isAlive();
+    }
+
+    /**
+     * Getter for the number of frames processed so far.
+     *
+     * @return Number of frames processed.
+     */
+    public long getNumFrames() {
+        return numFrames;
+    }
+
+    /**
+     * Getter for whether sessions run on virtual threads, which is the case on JDK 21 and later.
+     *
+     * @return Whether sessions run on virtual threads.
+     */
+    public static boolean getIsVirtualThreaded() {
+        return StreamThreads.isVirtual();
+    }
+
+    private void run() {
+        int frameIndex = 0;
+        int numBytes = 0;
+        try {
+            while (!isStopped) {
+                final int numRead = pcm.read(readBuffer, numBytes, readBuffer.length - numBytes);
+                if (numRead < 0) {
+                    break;
+                }
+                numBytes += numRead;
+
+                int i = 0;
+                for (; i + 1 < numBytes; i += 2) {
+                    frame[frameIndex++] = (short) ((readBuffer[i] & 0xFF) | (readBuffer[i + 1] << 8));
+                    if (frameIndex == frame.length) {
+                        frameIndex = 0;
+                        frameCallback.invoke(frame);
+                        numFrames++;
+                    }
+                }
+                // keep the first byte of a sample that is split across reads
+                if (i < numBytes) {
+                    readBuffer[0] = readBuffer[i];
+                    numBytes = 1;
+                } else {
+                    numBytes = 0;
+                }
+            }
+        } catch (IOException e) {
+            if (!isStopped) {
+                error = new PicovoiceIOException("Failed to read from the PCM stream", e);
+            }
+        } catch (PicovoiceException e) {
+            error = e;
+        } catch (RuntimeException e) {
+            error = new PicovoiceRuntimeException("Frame callback failed", e);
+        }
+    }
+}
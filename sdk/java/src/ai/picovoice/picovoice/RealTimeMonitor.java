@@ -0,0 +1,101 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+/**
+ * Compares wall-clock progress of a live stream with the duration of the audio processed so far.
+ *
+ * <p>Each frame of a live stream becomes available one frame duration after the previous one. The lag is how long
+ * after that point the frame finished processing: it stays around the processing time of a frame while the stream
+ * keeps up and grows without bound when it falls behind. The stream is reported overloaded once the lag exceeds the
+ * maximum, and recovered once it falls below half of it.
+ *
+ * <p>A caller that was idle before a late frame was waiting for it, so nothing was queued behind: the input paused
+ * (e.g. a stalled source or suppressed silence) rather than processing falling behind. The frame's arrival is then
+ * taken as the new reference, so a pause does not turn into a permanent lag.
+ */
+final class RealTimeMonitor {
+    private static final double RTF_SMOOTHING = 0.95;
+
+    private final long frameDurationNanos;
+    private final long maxLagNanos;
+    private long frameAvailableNanos = 0;
+    private long lastEndNanos = 0;
+    private long numFrames = 0;
+    private long lagNanos = 0;
+    private double realTimeFactor = 0;
+    private boolean isOverloaded = false;
+
+    RealTimeMonitor(long frameDurationNanos, long maxLagNanos) {
+        this.frameDurationNanos = frameDurationNanos;
+        this.maxLagNanos = maxLagNanos;
+    }
+
+    /**
+     * Records a processed (or shed) frame.
+     *
+     * @param startNanos Time at which processing of the frame started.
+     * @param endNanos   Time at which processing of the frame ended.
+     * @return Whether the overload state changed with this frame.
+     */
+    boolean onFrame(long startNanos, long endNanos) {
+        final long dueNanos = frameAvailableNanos + frameDurationNanos;
+        if (numFrames == 0 || (startNanos > lastEndNanos && startNanos > dueNanos)) {
+            frameAvailableNanos = startNanos;
+        } else {
+            frameAvailableNanos = dueNanos;
+        }
+        lastEndNanos = endNanos;
+        lagNanos = Math.max(0, endNanos - frameAvailableNanos);
+        numFrames++;
+
+        final double frameRealTimeFactor = (double) (endNanos - startNanos) / frameDurationNanos;
+        realTimeFactor = numFrames == 1 ?
+                frameRealTimeFactor :
+                RTF_SMOOTHING * realTimeFactor + (1 - RTF_SMOOTHING) * frameRealTimeFactor;
+
+        if (!isOverloaded && lagNanos > maxLagNanos) {
+            isOverloaded = true;
+            return true;
+        }
+        if (isOverloaded && lagNanos < maxLagNanos / 2) {
+            isOverloaded = false;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Starts measuring a new stream.
+     */
+    void reset() {
+        frameAvailableNanos = 0;
+        lastEndNanos = 0;
+        numFrames = 0;
+        lagNanos = 0;
+        realTimeFactor = 0;
+        isOverloaded = false;
+    }
+
+    boolean isOverloaded() {
+        return isOverloaded;
+    }
+
+    long getLagNanos() {
+        return lagNanos;
+    }
+
+    double getRealTimeFactor() {
+        return realTimeFactor;
+    }
+}
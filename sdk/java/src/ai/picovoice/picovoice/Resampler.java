@@ -0,0 +1,308 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import java.util.Arrays;
+
+/**
+ * Streaming sample rate converter for 16-bit single-channel audio. It lets audio captured at a device's native
+ * rate (e.g. 44.1 kHz or 48 kHz) be fed to Picovoice, which requires ${@link Picovoice#getSampleRate()}.
+ *
+ * <p>The converter is a polyphase windowed-sinc (Kaiser window) filter. The conversion ratio is reduced to
+ * {@code L / M} and the prototype low-pass filter is split into {@code L} phases, so each output sample costs a
+ * single dot product over the taps of one phase. The ${@link Quality} trades filter length (CPU) for stop-band
+ * attenuation and pass-band width.
+ *
+ * <p>All buffers are allocated at construction. Processing is allocation-free and keeps the filter history
+ * between calls, so input can be supplied in chunks of any size.
+ */
+public class Resampler {
+
+    /**
+     * Trade-off between conversion quality and CPU cost.
+     */
+    public enum Quality {
+        LOW(8, 0.80, 5.0),
+        MEDIUM(16, 0.90, 7.0),
+        HIGH(32, 0.94, 9.0);
+
+        private final int zeroCrossings;
+        private final double rolloff;
+        private final double kaiserBeta;
+
+        Quality(int zeroCrossings, double rolloff, double kaiserBeta) {
+            this.zeroCrossings = zeroCrossings;
+            this.rolloff = rolloff;
+            this.kaiserBeta = kaiserBeta;
+        }
+    }
+
+    private final int inputSampleRate;
+    private final int outputSampleRate;
+    private final int upFactor;
+    private final int downFactor;
+    private final int numTaps;
+    private final float[] coefficients;
+    private final float[] history;
+    private int historyIndex = 0;
+    private int phase = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param inputSampleRate  Sample rate of the incoming audio in Hz.
+     * @param outputSampleRate Sample rate of the produced audio in Hz. Usually ${@link Picovoice#getSampleRate()}.
+     * @param quality          Conversion quality. ${@link Quality#MEDIUM} is a reasonable default for speech.
+     * @throws PicovoiceInvalidArgumentException if a sample rate is not positive or quality is null.
+     */
+    public Resampler(
+            int inputSampleRate,
+            int outputSampleRate,
+            Quality quality) throws PicovoiceInvalidArgumentException {
+        if (inputSampleRate <= 0 || outputSampleRate <= 0) {
+            throw new PicovoiceInvalidArgumentException(
+                    String.format("Sample rates must be positive numbers. Received '%d' and '%d' Hz",
+                            inputSampleRate,
+                            outputSampleRate));
+        }
+        if (quality == null) {
+            throw new PicovoiceInvalidArgumentException("Resampler quality is required");
+        }
+
+        this.inputSampleRate = inputSampleRate;
+        this.outputSampleRate = outputSampleRate;
+
+        final int divisor = gcd(inputSampleRate, outputSampleRate);
+        this.upFactor = outputSampleRate / divisor;
+        this.downFactor = inputSampleRate / divisor;
+
+        if (upFactor == downFactor) {
+            this.numTaps = 0;
+            this.coefficients = new float[0];
+            this.history = new float[0];
+            return;
+        }
+
+        // when decimating, the cut-off drops below the input Nyquist frequency and the filter has to be
+        // stretched accordingly to keep the same transition band relative to the output rate
+        final double ratio = Math.max(1.0, (double) downFactor / upFactor);
+        final int halfTaps = (int) Math.ceil(quality.zeroCrossings * ratio);
+        this.numTaps = 2 * halfTaps;
+        this.coefficients = designFilter(upFactor, numTaps, quality.rolloff / ratio, quality.kaiserBeta);
+        this.history = new float[2 * numTaps];
+    }
+
+    /**
+     * Constructor using ${@link Quality#MEDIUM}.
+     *
+     * @param inputSampleRate  Sample rate of the incoming audio in Hz.
+     * @param outputSampleRate Sample rate of the produced audio in Hz.
+     * @throws PicovoiceInvalidArgumentException if a sample rate is not positive.
+     */
+    public Resampler(int inputSampleRate, int outputSampleRate) throws PicovoiceInvalidArgumentException {
+        this(inputSampleRate, outputSampleRate, Quality.MEDIUM);
+    }
+
+    /**
+     * Converts a chunk of audio.
+     *
+     * @param input        Buffer holding 16-bit linearly-encoded samples at the input sample rate.
+     * @param inputOffset  Index of the first input sample.
+     * @param inputLength  Number of input samples.
+     * @param output       Buffer receiving the converted samples. It must have room for at least
+     *                     ${@link #getMaxOutputLength(int)} samples after {@code outputOffset}.
+     * @param outputOffset Index at which to write the first converted sample.
+     * @return Number of samples written to {@code output}.
+     */
+    public int process(short[] input, int inputOffset, int inputLength, short[] output, int outputOffset) {
+        if (numTaps == 0) {
+            System.arraycopy(input, inputOffset, output, outputOffset, inputLength);
+            return inputLength;
+        }
+
+        int outputIndex = outputOffset;
+        final int end = inputOffset + inputLength;
+        for (int i = inputOffset; i < end; i++) {
+            push(input[i]);
+            while (phase < upFactor) {
+                output[outputIndex++] = toShort(convolve(phase));
+                phase += downFactor;
+            }
+            phase -= upFactor;
+        }
+        return outputIndex - outputOffset;
+    }
+
+    /**
+     * Converts a chunk of audio and writes the converted samples straight into a ${@link FrameAssembler}, which
+     * processes every frame as soon as it is complete. No intermediate buffer is used.
+     *
+     * @param input       Buffer holding 16-bit linearly-encoded samples at the input sample rate.
+     * @param inputOffset Index of the first input sample.
+     * @param inputLength Number of input samples.
+     * @param assembler   Frame assembler receiving the converted samples.
+     * @throws PicovoiceException if processing a completed frame fails.
+     */
+    public void process(
+            short[] input,
+            int inputOffset,
+            int inputLength,
+            FrameAssembler assembler) throws PicovoiceException {
+        if (numTaps == 0) {
+            assembler.write(input, inputOffset, inputLength);
+            return;
+        }
+
+        final int end = inputOffset + inputLength;
+        for (int i = inputOffset; i < end; i++) {
+            push(input[i]);
+            while (phase < upFactor) {
+                assembler.write(toShort(convolve(phase)));
+                phase += downFactor;
+            }
+            phase -= upFactor;
+        }
+    }
+
+    /**
+     * Clears the filter history. It should be called before converting a new stream of audio.
+     */
+    public void reset() {
+        Arrays.fill(history, 0f);
+        historyIndex = 0;
+        phase = 0;
+    }
+
+    /**
+     * Getter for the maximum number of samples ${@link #process(short[], int, int, short[], int)} can produce
+     * for a given number of input samples.
+     *
+     * @param inputLength Number of input samples.
+     * @return Maximum number of output samples.
+     */
+    public int getMaxOutputLength(int inputLength) {
+        if (numTaps == 0) {
+            return inputLength;
+        }
+        return (int) (((long) inputLength * upFactor + downFactor - 1) / downFactor) + 1;
+    }
+
+    /**
+     * Getter for the group delay introduced by the filter.
+     *
+     * @return Delay in output samples.
+     */
+    public int getDelay() {
+        if (numTaps == 0) {
+            return 0;
+        }
+        return (int) Math.round(((numTaps * upFactor - 1) / 2.0) / downFactor);
+    }
+
+    /**
+     * Getter for input sample rate.
+     *
+     * @return Input sample rate in Hz.
+     */
+    public int getInputSampleRate() {
+        return inputSampleRate;
+    }
+
+    /**
+     * Getter for output sample rate.
+     *
+     * @return Output sample rate in Hz.
+     */
+    public int getOutputSampleRate() {
+        return outputSampleRate;
+    }
+
+    private void push(short sample) {
+        // the history is stored twice so that the most recent `numTaps` samples are always contiguous
+        history[historyIndex] = sample;
+        history[historyIndex + numTaps] = sample;
+        historyIndex++;
+        if (historyIndex == numTaps) {
+            historyIndex = 0;
+        }
+    }
+
+    private float convolve(int phaseIndex) {
+        final int coefficientOffset = phaseIndex * numTaps;
+        float acc = 0f;
+        for (int k = 0; k < numTaps; k++) {
+            acc += coefficients[coefficientOffset + k] * history[historyIndex + k];
+        }
+        return acc;
+    }
+
+    private static short toShort(float value) {
+        final int rounded = Math.round(value);
+        if (rounded > Short.MAX_VALUE) {
+            return Short.MAX_VALUE;
+        } else if (rounded < Short.MIN_VALUE) {
+            return Short.MIN_VALUE;
+        }
+        return (short) rounded;
+    }
+
+    /**
+     * Designs the prototype low-pass filter at {@code upFactor} times the input rate and lays it out as
+     * {@code upFactor} phases of {@code numTaps} coefficients, each phase reversed so it can be applied to the
+     * history from oldest to newest sample.
+     */
+    private static float[] designFilter(int upFactor, int numTaps, double cutoff, double beta) {
+        final int length = upFactor * numTaps;
+        final double center = (length - 1) / 2.0;
+        final double normalizedCutoff = cutoff / (2.0 * upFactor);
+        final double windowNorm = besselI0(beta);
+
+        final float[] phases = new float[length];
+        for (int p = 0; p < upFactor; p++) {
+            for (int t = 0; t < numTaps; t++) {
+                final int j = p + upFactor * t;
+                final double x = j - center;
+                final double sinc = (x == 0) ?
+                        2.0 * normalizedCutoff :
+                        Math.sin(2.0 * Math.PI * normalizedCutoff * x) / (Math.PI * x);
+                final double r = x / center;
+                final double window = besselI0(beta * Math.sqrt(Math.max(0.0, 1.0 - r * r))) / windowNorm;
+                phases[p * numTaps + (numTaps - 1 - t)] = (float) (sinc * window * upFactor);
+            }
+        }
+        return phases;
+    }
+
+    static double besselI0(double x) {
+        double sum = 1.0;
+        double term = 1.0;
+        final double halfX = x / 2.0;
+        for (int k = 1; k < 50; k++) {
+            term *= (halfX / k) * (halfX / k);
+            sum += term;
+            if (term < sum * 1e-12) {
+                break;
+            }
+        }
+        return sum;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            final int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
@@ -0,0 +1,36 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+/**
+ * Creates the thread that runs a single audio stream.
+ *
+ * <p>This is the Java 11 version, which uses daemon platform threads. The SDK is packaged as a
+ * multi-release JAR and {@code META-INF/versions/21} holds a version of this class that uses
+ * virtual threads, so on JDK 21 and later a blocked stream only parks its virtual thread rather
+ * than holding an OS thread.
+ */
+final class StreamThreads {
+
+    private StreamThreads() { }
+
+    static Thread newThread(String name, Runnable task) {
+        final Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    static boolean isVirtual() {
+        return false;
+    }
+}
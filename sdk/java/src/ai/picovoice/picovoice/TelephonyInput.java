@@ -0,0 +1,235 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import java.util.Arrays;
+
+/**
+ * Input adapter for telephony audio. It takes G.711 (mu-law or A-law) encoded 8kHz audio, e.g. RTP payloads,
+ * and turns it into frames for Picovoice.
+ *
+ * <p>Decoding is a lookup into a 256-entry table per byte. When Picovoice runs at 16kHz the decoded audio is
+ * upsampled by two with a half-band interpolation filter: every other output sample is a (delayed) input sample
+ * and only the samples in between are filtered. Other output rates fall back to a ${@link Resampler}. The
+ * audio is converted in blocks of up to 20ms into a preallocated buffer and handed to a ${@link FrameAssembler}, so
+ * payloads of any size (e.g. 160-byte, 20ms RTP packets) can be pushed. Processing does not allocate.
+ */
+public class TelephonyInput {
+
+    /**
+     * G.711 companding law.
+     */
+    public enum Encoding {
+        MU_LAW,
+        A_LAW
+    }
+
+    /**
+     * Sample rate of G.711 audio in Hz.
+     */
+    public static final int SAMPLE_RATE = 8000;
+
+    private static final short[] MU_LAW_TABLE = new short[256];
+    private static final short[] A_LAW_TABLE = new short[256];
+
+    private static final int HALF_BAND_TAPS = 8;
+    private static final int BLOCK_LENGTH = 160;
+    private static final float[] HALF_BAND_COEFFICIENTS = new float[HALF_BAND_TAPS];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            MU_LAW_TABLE[i] = decodeMuLaw(i);
+            A_LAW_TABLE[i] = decodeALaw(i);
+        }
+
+        // odd phase of a Kaiser-windowed half-band interpolator; the even phase is a pure delay
+        final double beta = 6.0;
+        final double halfLength = HALF_BAND_TAPS + 0.5;
+        for (int k = 0; k < HALF_BAND_TAPS; k++) {
+            final double t = k + 0.5;
+            final double sinc = Math.sin(Math.PI * t) / (Math.PI * t);
+            final double r = t / halfLength;
+            final double window = Resampler.besselI0(beta * Math.sqrt(1.0 - r * r)) / Resampler.besselI0(beta);
+            HALF_BAND_COEFFICIENTS[k] = (float) (sinc * window);
+        }
+    }
+
+    private final short[] decodeTable;
+    private final FrameAssembler frameAssembler;
+    private final Resampler resampler;
+    private final short[] decodeBuffer;
+    private final float[] history;
+
+    /**
+     * Constructor.
+     *
+     * @param encoding         G.711 companding law of the incoming audio.
+     * @param outputSampleRate Sample rate of the produced audio. Usually ${@link Picovoice#getSampleRate()}.
+     * @param frameAssembler   Frame assembler receiving the decoded and upsampled audio.
+     * @throws PicovoiceInvalidArgumentException if an argument is invalid.
+     */
+    public TelephonyInput(
+            Encoding encoding,
+            int outputSampleRate,
+            FrameAssembler frameAssembler) throws PicovoiceInvalidArgumentException {
+        if (encoding == null) {
+            throw new PicovoiceInvalidArgumentException("Telephony encoding is required");
+        }
+        if (outputSampleRate <= 0) {
+            throw new PicovoiceInvalidArgumentException(
+                    String.format("Sample rate must be a positive number. Received %d.", outputSampleRate));
+        }
+        if (frameAssembler == null) {
+            throw new PicovoiceInvalidArgumentException("Frame assembler is required");
+        }
+
+        this.decodeTable = encoding == Encoding.MU_LAW ? MU_LAW_TABLE : A_LAW_TABLE;
+        this.frameAssembler = frameAssembler;
+        if (outputSampleRate == 2 * SAMPLE_RATE) {
+            this.resampler = null;
+            this.decodeBuffer = new short[2 * BLOCK_LENGTH];
+            this.history = new float[2 * HALF_BAND_TAPS + BLOCK_LENGTH];
+        } else if (outputSampleRate == SAMPLE_RATE) {
+            this.resampler = null;
+            this.decodeBuffer = new short[0];
+            this.history = new float[0];
+        } else {
+            this.resampler = new Resampler(SAMPLE_RATE, outputSampleRate);
+            this.decodeBuffer = new short[BLOCK_LENGTH];
+            this.history = new float[0];
+        }
+    }
+
+    /**
+     * Constructor that feeds an instance of Picovoice.
+     *
+     * @param encoding  G.711 companding law of the incoming audio.
+     * @param picovoice An instance of Picovoice.
+     * @throws PicovoiceInvalidArgumentException if an argument is invalid.
+     */
+    public TelephonyInput(Encoding encoding, Picovoice picovoice) throws PicovoiceInvalidArgumentException {
+        this(encoding, picovoice != null ? picovoice.getSampleRate() : 0, new FrameAssembler(picovoice));
+    }
+
+    /**
+     * Decodes a chunk of G.711 audio and processes every frame that becomes complete.
+     *
+     * @param payload G.711 encoded bytes, one byte per 8kHz sample.
+     * @param offset  Index of the first byte.
+     * @param length  Number of bytes.
+     * @throws PicovoiceException if processing a completed frame fails.
+     */
+    public void process(byte[] payload, int offset, int length) throws PicovoiceException {
+        final int end = offset + length;
+        if (history.length > 0) {
+            while (offset < end) {
+                final int numSamples = Math.min(BLOCK_LENGTH, end - offset);
+                upsample(payload, offset, numSamples);
+                offset += numSamples;
+            }
+        } else if (resampler == null) {
+            for (int i = offset; i < end; i++) {
+                frameAssembler.write(decodeTable[payload[i] & 0xFF]);
+            }
+        } else {
+            while (offset < end) {
+                final int numSamples = Math.min(decodeBuffer.length, end - offset);
+                for (int i = 0; i < numSamples; i++) {
+                    decodeBuffer[i] = decodeTable[payload[offset + i] & 0xFF];
+                }
+                resampler.process(decodeBuffer, 0, numSamples, frameAssembler);
+                offset += numSamples;
+            }
+        }
+    }
+
+    /**
+     * Clears the filter history and any incomplete frame. It should be called before processing a new call.
+     */
+    public void reset() {
+        Arrays.fill(history, 0f);
+        if (resampler != null) {
+            resampler.reset();
+        }
+        frameAssembler.reset();
+    }
+
+    /**
+     * Decodes G.711 audio to 16-bit linearly-encoded samples.
+     *
+     * @param encoding     G.711 companding law.
+     * @param payload      G.711 encoded bytes.
+     * @param offset       Index of the first byte.
+     * @param length       Number of bytes.
+     * @param output       Buffer receiving {@code length} samples.
+     * @param outputOffset Index at which to write the first sample.
+     */
+    public static void decode(
+            Encoding encoding,
+            byte[] payload,
+            int offset,
+            int length,
+            short[] output,
+            int outputOffset) {
+        final short[] table = encoding == Encoding.MU_LAW ? MU_LAW_TABLE : A_LAW_TABLE;
+        for (int i = 0; i < length; i++) {
+            output[outputOffset + i] = table[payload[offset + i] & 0xFF];
+        }
+    }
+
+    private void upsample(byte[] payload, int offset, int numSamples) throws PicovoiceException {
+        // `history` holds the last 2K input samples followed by the new block, oldest first
+        final int numHistory = 2 * HALF_BAND_TAPS;
+        for (int i = 0; i < numSamples; i++) {
+            history[numHistory + i] = decodeTable[payload[offset + i] & 0xFF];
+        }
+
+        // for each new sample, emit the delayed input sample and the point half-way to its successor
+        for (int i = 0; i < numSamples; i++) {
+            final int left = i + HALF_BAND_TAPS;
+            float acc = 0f;
+            for (int k = 0; k < HALF_BAND_TAPS; k++) {
+                acc += HALF_BAND_COEFFICIENTS[k] * (history[left - k] + history[left + 1 + k]);
+            }
+            decodeBuffer[2 * i] = (short) history[left];
+            decodeBuffer[2 * i + 1] = toShort(acc);
+        }
+        frameAssembler.write(decodeBuffer, 0, 2 * numSamples);
+
+        System.arraycopy(history, numSamples, history, 0, numHistory);
+    }
+
+    private static short toShort(float value) {
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+    }
+
+    private static short decodeMuLaw(int encoded) {
+        final int value = ~encoded & 0xFF;
+        final int exponent = (value >> 4) & 0x07;
+        final int mantissa = value & 0x0F;
+        final int magnitude = (((mantissa << 3) + 0x84) << exponent) - 0x84;
+        return (short) ((value & 0x80) != 0 ? -magnitude : magnitude);
+    }
+
+    private static short decodeALaw(int encoded) {
+        final int value = encoded ^ 0x55;
+        final int segment = (value & 0x70) >> 4;
+        int magnitude = (value & 0x0F) << 4;
+        if (segment == 0) {
+            magnitude += 8;
+        } else {
+            magnitude = (magnitude + 0x108) << (segment - 1);
+        }
+        return (short) ((value & 0x80) != 0 ? magnitude : -magnitude);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+/**
+ * Decides whether a detected wake word is acted upon. Time is measured in frames of audio, so decisions do not
+ * depend on how fast the stream is processed.
+ *
+ * <p>A wake word is ignored during the refractory period following the previous accepted wake word or completed
+ * inference. Independently, if {@code stormThreshold} inferences within {@code stormWindowFrames} are not
+ * understood, the triggers are treated as false alarms from a noise source (e.g. a television) and wake words are
+ * ignored for a backoff period. The backoff doubles on every consecutive storm, up to
+ * ${@link #MAX_BACKOFF_MULTIPLIER} times the initial period, and returns to the initial period once an inference is
+ * understood.
+ */
+final class TriggerRateLimiter {
+    static final int MAX_BACKOFF_MULTIPLIER = 8;
+
+    private final long refractoryFrames;
+    private final long stormWindowFrames;
+    private final long backoffFrames;
+    private final long[] falseTriggerFrames;
+    private int falseTriggerHead = 0;
+    private int numFalseTriggers = 0;
+    private int backoffMultiplier = 1;
+    private long lastEventFrame = Long.MIN_VALUE;
+    private long gatedUntilFrame = Long.MIN_VALUE;
+    private long numRefractorySuppressed = 0;
+    private long numStormSuppressed = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param refractoryFrames  Frames after an accepted wake word or a completed inference during which wake words
+     *                          are ignored. 0 disables the refractory period.
+     * @param stormThreshold    Number of not-understood inferences within the window that starts a backoff. 0
+     *                          disables storm suppression.
+     * @param stormWindowFrames Length of the window, in frames.
+     * @param backoffFrames     Initial length of the backoff, in frames.
+     */
+    TriggerRateLimiter(long refractoryFrames, int stormThreshold, long stormWindowFrames, long backoffFrames) {
+        this.refractoryFrames = refractoryFrames;
+        this.stormWindowFrames = stormWindowFrames;
+        this.backoffFrames = backoffFrames;
+        this.falseTriggerFrames = new long[stormThreshold];
+    }
+
+    /**
+     * Called when Porcupine detects the wake word.
+     *
+     * @param frameIndex Index of the frame the wake word was detected on.
+     * @return Whether the wake word should be acted upon.
+     */
+    boolean onWakeWord(long frameIndex) {
+        if (frameIndex < gatedUntilFrame) {
+            numStormSuppressed++;
+            return false;
+        }
+        if (refractoryFrames > 0 && lastEventFrame != Long.MIN_VALUE &&
+                frameIndex - lastEventFrame < refractoryFrames) {
+            numRefractorySuppressed++;
+            return false;
+        }
+        lastEventFrame = frameIndex;
+        return true;
+    }
+
+    /**
+     * Called when Rhino completes an inference.
+     *
+     * @param frameIndex   Index of the frame the inference was completed on.
+     * @param isUnderstood Whether the command was understood.
+     */
+    void onInference(long frameIndex, boolean isUnderstood) {
+        lastEventFrame = frameIndex;
+        if (isUnderstood) {
+            backoffMultiplier = 1;
+            return;
+        }
+        if (falseTriggerFrames.length == 0) {
+            return;
+        }
+
+        falseTriggerFrames[falseTriggerHead] = frameIndex;
+        falseTriggerHead = (falseTriggerHead + 1) % falseTriggerFrames.length;
+        numFalseTriggers = Math.min(numFalseTriggers + 1, falseTriggerFrames.length);
+
+        // once the buffer is full, the oldest entry is the one the threshold is counted from
+        final long oldest = falseTriggerFrames[falseTriggerHead];
+        if (numFalseTriggers == falseTriggerFrames.length && frameIndex - oldest < stormWindowFrames) {
+            gatedUntilFrame = frameIndex + backoffFrames * backoffMultiplier;
+            backoffMultiplier = Math.min(backoffMultiplier * 2, MAX_BACKOFF_MULTIPLIER);
+            numFalseTriggers = 0;
+        }
+    }
+
+    /**
+     * Forgets the recent history. Counters are kept.
+     */
+    void reset() {
+        falseTriggerHead = 0;
+        numFalseTriggers = 0;
+        backoffMultiplier = 1;
+        lastEventFrame = Long.MIN_VALUE;
+        gatedUntilFrame = Long.MIN_VALUE;
+    }
+
+    boolean isGated(long frameIndex) {
+        return frameIndex < gatedUntilFrame;
+    }
+
+    long getNumRefractorySuppressed() {
+        return numRefractorySuppressed;
+    }
+
+    long getNumStormSuppressed() {
+        return numStormSuppressed;
+    }
+}
@@ -0,0 +1,33 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+/**
+ * Creates the thread that runs a single audio stream.
+ *
+ * <p>This is the JDK 21 version, packaged under {@code META-INF/versions/21} of the multi-release
+ * JAR. It runs every stream on its own virtual thread, so tens of thousands of blocking streams
+ * only need as many OS threads as there are cores.
+ */
+final class StreamThreads {
+
+    private StreamThreads() { }
+
+    static Thread newThread(String name, Runnable task) {
+        return Thread.ofVirtual().name(name).unstarted(task);
+    }
+
+    static boolean isVirtual() {
+        return true;
+    }
+}
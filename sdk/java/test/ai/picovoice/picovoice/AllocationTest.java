@@ -0,0 +1,109 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class AllocationTest {
+
+    private static final int FRAME_LENGTH = 512;
+    private static final int NUM_WARMUP_CALLS = 20000;
+    private static final int NUM_MEASURED_CALLS = 10000;
+
+    interface Step {
+        void run() throws Exception;
+    }
+
+    /**
+     * Runs a step until it has been compiled and returns the number of bytes the current thread allocates per call
+     * afterwards. The measurement itself allocates a constant amount, which the integer division discards.
+     */
+    static long allocatedBytesPerCall(Step step) throws Exception {
+        final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled());
+
+        for (int i = 0; i < NUM_WARMUP_CALLS; i++) {
+            step.run();
+        }
+
+        final long threadId = Thread.currentThread().getId();
+        final long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < NUM_MEASURED_CALLS; i++) {
+            step.run();
+        }
+        final long after = threadBean.getThreadAllocatedBytes(threadId);
+        return (after - before) / NUM_MEASURED_CALLS;
+    }
+
+    private static short[] noise(int length) {
+        Random random = new Random(0);
+        short[] pcm = new short[length];
+        for (int i = 0; i < length; i++) {
+            pcm[i] = (short) (random.nextGaussian() * 3000);
+        }
+        return pcm;
+    }
+
+    @Test
+    void testCapturePipeline() throws Exception {
+        final int numChannels = 2;
+        final int chunkFrames = 441;
+        final short[] interleaved = noise(chunkFrames * numChannels);
+        final short[] mono = new short[chunkFrames];
+        final long[] numFrames = {0};
+
+        final ChannelMixer channelMixer = new ChannelMixer(numChannels, ChannelMixer.Mode.MAX_ENERGY);
+        final Resampler resampler = new Resampler(44100, 16000);
+        final FrameAssembler frameAssembler = new FrameAssembler(FRAME_LENGTH, frame -> numFrames[0]++);
+
+        final long bytesPerCall = allocatedBytesPerCall(() -> {
+            channelMixer.process(interleaved, 0, chunkFrames, mono, 0);
+            resampler.process(mono, 0, chunkFrames, frameAssembler);
+        });
+        assertEquals(0, bytesPerCall);
+    }
+
+    @Test
+    void testTelephonyPipeline() throws Exception {
+        final byte[] payload = new byte[160];
+        new Random(0).nextBytes(payload);
+        final FrameAssembler frameAssembler = new FrameAssembler(FRAME_LENGTH, frame -> { });
+        final TelephonyInput telephonyInput = new TelephonyInput(TelephonyInput.Encoding.A_LAW, 16000, frameAssembler);
+
+        final long bytesPerCall = allocatedBytesPerCall(() -> telephonyInput.process(payload, 0, payload.length));
+        assertEquals(0, bytesPerCall);
+    }
+
+    @Test
+    void testPcmConversion() throws Exception {
+        final float[] floatPcm = new float[FRAME_LENGTH];
+        final byte[] packed24Pcm = new byte[FRAME_LENGTH * 3];
+        final short[] output = new short[FRAME_LENGTH];
+        final FrameAssembler frameAssembler = new FrameAssembler(FRAME_LENGTH, frame -> { });
+
+        final long bytesPerCall = allocatedBytesPerCall(() -> {
+            PcmConverter.fromFloat(floatPcm, 0, output, 0, FRAME_LENGTH);
+            PcmConverter.fromPacked24(packed24Pcm, 0, output, 0, FRAME_LENGTH, true);
+            frameAssembler.write(output, 0, FRAME_LENGTH);
+        });
+        assertEquals(0, bytesPerCall);
+    }
+}
@@ -0,0 +1,48 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BuildReportTest {
+
+    @Test
+    void testLapsAccumulate() {
+        final BuildReport buildReport = new BuildReport();
+        long startNanos = System.nanoTime() - 3_000_000;
+        startNanos = buildReport.lap(BuildReport.Phase.PORCUPINE_INIT, startNanos);
+        startNanos = buildReport.lap(BuildReport.Phase.VERSION_CHECKS, startNanos - 1_000_000);
+        buildReport.lap(BuildReport.Phase.VERSION_CHECKS, startNanos - 2_000_000);
+
+        assertTrue(buildReport.getPhaseNanos(BuildReport.Phase.PORCUPINE_INIT) >= 3_000_000);
+        assertTrue(buildReport.getPhaseNanos(BuildReport.Phase.VERSION_CHECKS) >= 3_000_000);
+        assertEquals(0, buildReport.getPhaseNanos(BuildReport.Phase.RHINO_INIT));
+        assertEquals(
+                buildReport.getPhaseNanos(BuildReport.Phase.PORCUPINE_INIT) +
+                        buildReport.getPhaseNanos(BuildReport.Phase.VERSION_CHECKS),
+                buildReport.getTotalNanos());
+    }
+
+    @Test
+    void testToString() {
+        final BuildReport buildReport = new BuildReport();
+        assertEquals(
+                "BuildReport{LOAD_ENGINES=0.000ms, RESOLVE_FILES=0.000ms, PORCUPINE_INIT=0.000ms, " +
+                        "RHINO_INIT=0.000ms, VERSION_CHECKS=0.000ms, CONFIGURE=0.000ms, PREWARM=0.000ms, " +
+                        "total=0.000ms}",
+                buildReport.toString());
+    }
+}
@@ -0,0 +1,151 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChannelMixerTest {
+
+    private static final int NUM_CHANNELS = 8;
+    private static final int NUM_FRAMES = 256;
+
+    private static short[] interleave(int loudChannel) {
+        short[] pcm = new short[NUM_FRAMES * NUM_CHANNELS];
+        for (int i = 0; i < NUM_FRAMES; i++) {
+            for (int c = 0; c < NUM_CHANNELS; c++) {
+                int amplitude = c == loudChannel ? 8000 : 100 * (c + 1);
+                pcm[i * NUM_CHANNELS + c] = (short) ((i % 2 == 0 ? 1 : -1) * amplitude);
+            }
+        }
+        return pcm;
+    }
+
+    private static short[] channel(short[] pcm, int channelIndex) {
+        short[] mono = new short[NUM_FRAMES];
+        for (int i = 0; i < NUM_FRAMES; i++) {
+            mono[i] = pcm[i * NUM_CHANNELS + channelIndex];
+        }
+        return mono;
+    }
+
+    @Test
+    void testSelect() throws PicovoiceException {
+        short[] pcm = interleave(5);
+        short[] output = new short[NUM_FRAMES];
+
+        new ChannelMixer(NUM_CHANNELS, ChannelMixer.Mode.SELECT).process(pcm, 0, NUM_FRAMES, output, 0);
+        assertArrayEquals(channel(pcm, 0), output);
+
+        new ChannelMixer(NUM_CHANNELS, ChannelMixer.Mode.SELECT, 3).process(pcm, 0, NUM_FRAMES, output, 0);
+        assertArrayEquals(channel(pcm, 3), output);
+    }
+
+    @Test
+    void testAverage() throws PicovoiceException {
+        short[] pcm = new short[NUM_FRAMES * NUM_CHANNELS];
+        for (int i = 0; i < pcm.length; i++) {
+            pcm[i] = (short) ((i % NUM_CHANNELS) * 1000);
+        }
+        short[] output = new short[NUM_FRAMES];
+        new ChannelMixer(NUM_CHANNELS, ChannelMixer.Mode.AVERAGE).process(pcm, 0, NUM_FRAMES, output, 0);
+        for (short sample : output) {
+            assertEquals(3500, sample);
+        }
+
+        float[] floatPcm = new float[NUM_FRAMES * NUM_CHANNELS];
+        for (int i = 0; i < floatPcm.length; i++) {
+            floatPcm[i] = (i % NUM_CHANNELS) * 1000 / 32768f;
+        }
+        new ChannelMixer(NUM_CHANNELS, ChannelMixer.Mode.AVERAGE).process(floatPcm, 0, NUM_FRAMES, output, 0);
+        for (short sample : output) {
+            assertEquals(3500, sample);
+        }
+    }
+
+    @Test
+    void testMaxEnergy() throws PicovoiceException {
+        ChannelMixer mixer = new ChannelMixer(NUM_CHANNELS, ChannelMixer.Mode.MAX_ENERGY);
+        short[] output = new short[NUM_FRAMES];
+
+        short[] pcm = interleave(6);
+        mixer.process(pcm, 0, NUM_FRAMES, output, 0);
+        assertEquals(6, mixer.getChannelIndex());
+        assertArrayEquals(channel(pcm, 6), output);
+
+        pcm = interleave(2);
+        mixer.process(pcm, 0, NUM_FRAMES, output, 0);
+        mixer.process(pcm, 0, NUM_FRAMES, output, 0);
+        assertEquals(2, mixer.getChannelIndex());
+        assertArrayEquals(channel(pcm, 2), output);
+    }
+
+    @Test
+    void testResetRestoresChannel() throws PicovoiceException {
+        ChannelMixer mixer = new ChannelMixer(NUM_CHANNELS, ChannelMixer.Mode.MAX_ENERGY, 1);
+        short[] output = new short[NUM_FRAMES];
+        mixer.process(interleave(6), 0, NUM_FRAMES, output, 0);
+        assertEquals(6, mixer.getChannelIndex());
+
+        mixer.reset();
+        assertEquals(1, mixer.getChannelIndex());
+    }
+
+    private static int framesUntilSwitch(int blockFrames) throws PicovoiceException {
+        ChannelMixer mixer = new ChannelMixer(NUM_CHANNELS, ChannelMixer.Mode.MAX_ENERGY);
+        short[] output = new short[NUM_FRAMES];
+        short[] loud6 = interleave(6);
+        short[] loud2 = interleave(2);
+        for (int i = 0; i < 16; i++) {
+            for (int offset = 0; offset < NUM_FRAMES; offset += blockFrames) {
+                mixer.process(loud6, offset * NUM_CHANNELS, blockFrames, output, 0);
+            }
+        }
+        int numFrames = 0;
+        while (mixer.getChannelIndex() != 2) {
+            for (int offset = 0; offset < NUM_FRAMES && mixer.getChannelIndex() != 2; offset += blockFrames) {
+                mixer.process(loud2, offset * NUM_CHANNELS, blockFrames, output, 0);
+                numFrames += blockFrames;
+            }
+        }
+        return numFrames;
+    }
+
+    @Test
+    void testMaxEnergyIndependentOfBlockSize() throws PicovoiceException {
+        int smallBlocks = framesUntilSwitch(16);
+        int largeBlocks = framesUntilSwitch(NUM_FRAMES);
+        assertTrue(Math.abs(smallBlocks - largeBlocks) <= NUM_FRAMES,
+                String.format("switched after %d and %d frames", smallBlocks, largeBlocks));
+    }
+
+    @Test
+    void testFloatSaturation() throws PicovoiceException {
+        float[] pcm = {-2.0f, -1.0f, 0.0f, 0.5f, 1.0f, 2.0f};
+        short[] output = new short[pcm.length];
+        new ChannelMixer(1, ChannelMixer.Mode.SELECT).process(pcm, 0, pcm.length, output, 0);
+        assertArrayEquals(new short[]{-32768, -32768, 0, 16384, 32767, 32767}, output);
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(PicovoiceInvalidArgumentException.class, () -> new ChannelMixer(0, ChannelMixer.Mode.SELECT));
+        assertThrows(PicovoiceInvalidArgumentException.class, () -> new ChannelMixer(2, null));
+        assertThrows(PicovoiceInvalidArgumentException.class,
+                () -> new ChannelMixer(2, ChannelMixer.Mode.SELECT, 2));
+    }
+}
@@ -0,0 +1,139 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ExtractionCacheTest {
+
+    private static final String MODEL_RESOURCE = "porcupine/lib/common/porcupine_params.pv";
+
+    @Test
+    void testResourceNames() throws Exception {
+        assertEquals(
+                "porcupine/lib/java/linux/x86_64/libpv_porcupine_jni.so",
+                ExtractionCache.toResourceName(
+                        "/opt/app/porcupine/lib/java/linux/x86_64/libpv_porcupine_jni.so", "porcupine"));
+        assertEquals(
+                "rhino/lib/common/rhino_params.pv",
+                ExtractionCache.toResourceName("C:\\app\\rhino\\lib\\common\\rhino_params.pv", "rhino"));
+        assertThrows(
+                PicovoiceIOException.class,
+                () -> ExtractionCache.toResourceName("/opt/app/lib/rhino_params.pv", "rhino"));
+    }
+
+    @Test
+    void testPathsUnchangedWithoutCache() throws Exception {
+        assertFalse(ExtractionCache.isNativeImage());
+        assertEquals("/models/porcupine_params.pv", ExtractionCache.resolve(
+                "/models/porcupine_params.pv", "/opt/app/porcupine/lib/common/porcupine_params.pv", "porcupine", null));
+        assertNull(ExtractionCache.resolve(
+                null, "/opt/app/porcupine/lib/common/porcupine_params.pv", "porcupine", null));
+    }
+
+    @Test
+    void testExtractionIsReused(@TempDir Path cache) throws Exception {
+        final String path = ExtractionCache.resolve(
+                null, "/opt/app/porcupine/lib/common/porcupine_params.pv", "porcupine", cache);
+        final Path model = Paths.get(path);
+        assertTrue(model.startsWith(cache.resolve("porcupine/lib/common")));
+        assertEquals("porcupine_params.pv", model.getFileName().toString());
+        try (InputStream expected = getClass().getResourceAsStream("/" + MODEL_RESOURCE)) {
+            assertArrayEquals(expected.readAllBytes(), Files.readAllBytes(model));
+        }
+
+        final FileTime modified = FileTime.fromMillis(0);
+        Files.setLastModifiedTime(model, modified);
+        assertEquals(model, ExtractionCache.extract(cache, MODEL_RESOURCE));
+        assertEquals(modified, Files.getLastModifiedTime(model));
+    }
+
+    @Test
+    void testUnusedVersionsAreRemoved(@TempDir Path cache) throws Exception {
+        final Path stale = cache.resolve("porcupine/lib/common")
+                .resolve(ExtractionCache.formatKey(0, 1))
+                .resolve("porcupine_params.pv");
+        Files.createDirectories(stale.getParent());
+        Files.write(stale, new byte[1]);
+        Files.setLastModifiedTime(stale.getParent(), FileTime.fromMillis(
+                System.currentTimeMillis() - ExtractionCache.UNUSED_VERSION_RETENTION_MILLIS - 60_000));
+        final Path recent = cache.resolve("porcupine/lib/common")
+                .resolve(ExtractionCache.formatKey(0, 2))
+                .resolve("porcupine_params.pv");
+        Files.createDirectories(recent.getParent());
+        Files.write(recent, new byte[2]);
+
+        final Path model = ExtractionCache.extract(cache, MODEL_RESOURCE);
+        assertTrue(Files.exists(model));
+        assertFalse(Files.exists(stale.getParent()));
+        // e.g. still used by a process running the previous SDK during a rolling upgrade
+        assertTrue(Files.exists(recent));
+    }
+
+    @Test
+    void testResolutionMarksVersionUsed(@TempDir Path cache) throws Exception {
+        final Path model = ExtractionCache.extract(cache, MODEL_RESOURCE);
+        final FileTime unused = FileTime.fromMillis(0);
+        Files.setLastModifiedTime(model.getParent(), unused);
+
+        assertEquals(model, ExtractionCache.extract(cache, MODEL_RESOURCE));
+        assertTrue(Files.getLastModifiedTime(model.getParent()).compareTo(unused) > 0);
+    }
+
+    @Test
+    void testConcurrentExtraction(@TempDir Path cache) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Path>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> ExtractionCache.extract(cache, MODEL_RESOURCE)));
+            }
+            final Path model = results.get(0).get();
+            for (Future<Path> result : results) {
+                assertEquals(model, result.get());
+            }
+            try (Stream<Path> files = Files.list(model.getParent())) {
+                assertEquals(1, files.count());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testMissingResource(@TempDir Path cache) {
+        assertThrows(
+                PicovoiceIOException.class,
+                () -> ExtractionCache.extract(cache, "porcupine/lib/common/missing.pv"));
+    }
+}
@@ -0,0 +1,156 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+public class PartitionedWorkerPoolTest {
+
+    private static final int NUM_PARTITIONS = 4;
+    private static final int NUM_ROUNDS = 10000;
+
+    @Test
+    void testEveryPartitionRunsOncePerRound() {
+        final AtomicIntegerArray counts = new AtomicIntegerArray(NUM_PARTITIONS);
+        final PartitionedWorkerPool pool = new PartitionedWorkerPool(
+                NUM_PARTITIONS,
+                "PartitionedWorkerPoolTest",
+                counts::incrementAndGet);
+        try {
+            for (int round = 1; round <= NUM_ROUNDS; round++) {
+                pool.run();
+                for (int p = 0; p < NUM_PARTITIONS; p++) {
+                    assertEquals(round, counts.get(p));
+                }
+            }
+        } finally {
+            pool.delete();
+        }
+    }
+
+    @Test
+    void testPartitionThreads() {
+        final Thread caller = Thread.currentThread();
+        final Thread[] threads = new Thread[NUM_PARTITIONS];
+        final PartitionedWorkerPool pool = new PartitionedWorkerPool(
+                NUM_PARTITIONS,
+                "PartitionedWorkerPoolTest",
+                partition -> threads[partition] = Thread.currentThread());
+        try {
+            pool.run();
+        } finally {
+            pool.delete();
+        }
+
+        assertSame(caller, threads[0]);
+        for (int p = 1; p < NUM_PARTITIONS; p++) {
+            assertNotEquals(caller, threads[p]);
+        }
+    }
+
+    @Test
+    void testWorkerExceptionIsRethrownAndWorkerSurvives() {
+        final AtomicIntegerArray counts = new AtomicIntegerArray(NUM_PARTITIONS);
+        final RuntimeException failure = new IllegalStateException("partition 2 failed");
+        final PartitionedWorkerPool pool = new PartitionedWorkerPool(
+                NUM_PARTITIONS,
+                "PartitionedWorkerPoolTest",
+                partition -> {
+                    if (counts.incrementAndGet(partition) == 1 && partition == 2) {
+                        throw failure;
+                    }
+                });
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                assertSame(failure, assertThrows(IllegalStateException.class, pool::run));
+                pool.run();
+                pool.run();
+            });
+            for (int p = 0; p < NUM_PARTITIONS; p++) {
+                assertEquals(3, counts.get(p));
+            }
+        } finally {
+            pool.delete();
+        }
+    }
+
+    @Test
+    void testCallerExceptionWaitsForWorkers() {
+        final AtomicIntegerArray counts = new AtomicIntegerArray(NUM_PARTITIONS);
+        final PartitionedWorkerPool pool = new PartitionedWorkerPool(
+                NUM_PARTITIONS,
+                "PartitionedWorkerPoolTest",
+                partition -> {
+                    if (partition == 0) {
+                        if (counts.incrementAndGet(0) == 1) {
+                            throw new IllegalStateException("partition 0 failed");
+                        }
+                        return;
+                    }
+                    try {
+                        Thread.sleep(20);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    counts.incrementAndGet(partition);
+                });
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                assertThrows(IllegalStateException.class, pool::run);
+                // run() only returns once the workers have finished their partitions
+                for (int p = 1; p < NUM_PARTITIONS; p++) {
+                    assertEquals(1, counts.get(p));
+                }
+                pool.run();
+            });
+            for (int p = 0; p < NUM_PARTITIONS; p++) {
+                assertEquals(2, counts.get(p));
+            }
+        } finally {
+            pool.delete();
+        }
+    }
+
+    @Test
+    void testSinglePartition() {
+        final int[] count = new int[1];
+        final PartitionedWorkerPool pool = new PartitionedWorkerPool(1, "PartitionedWorkerPoolTest", p -> count[0]++);
+        pool.run();
+        pool.run();
+        pool.delete();
+        assertEquals(1, pool.getNumPartitions());
+        assertEquals(2, count[0]);
+    }
+
+    @Test
+    void testRunDoesNotAllocate() throws Exception {
+        final PartitionedWorkerPool pool = new PartitionedWorkerPool(
+                NUM_PARTITIONS,
+                "PartitionedWorkerPoolTest",
+                p -> { });
+        try {
+            assertEquals(0, AllocationTest.allocatedBytesPerCall(pool::run));
+        } finally {
+            pool.delete();
+        }
+    }
+}
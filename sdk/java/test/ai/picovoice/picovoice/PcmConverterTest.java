@@ -0,0 +1,56 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+public class PcmConverterTest {
+
+    @Test
+    void testFromFloat() {
+        float[] input = {-1.5f, -1.0f, -0.5f, 0.0f, 0.25f, 1.0f, 1.5f};
+        short[] output = new short[input.length + 1];
+        PcmConverter.fromFloat(input, 0, output, 1, input.length);
+        assertArrayEquals(new short[]{0, -32768, -32768, -16384, 0, 8192, 32767, 32767}, output);
+    }
+
+    @Test
+    void testFromInt32() {
+        int[] input = {Integer.MIN_VALUE, -65536, 0, 65535, 65536, Integer.MAX_VALUE};
+        short[] output = new short[input.length];
+        PcmConverter.fromInt32(input, 0, output, 0, input.length);
+        assertArrayEquals(new short[]{-32768, -1, 0, 0, 1, 32767}, output);
+    }
+
+    @Test
+    void testFromPacked24() {
+        int[] samples = {-8388608, -256, 0, 0x123456, 8388607};
+        byte[] littleEndian = new byte[samples.length * 3];
+        byte[] bigEndian = new byte[samples.length * 3];
+        for (int i = 0; i < samples.length; i++) {
+            for (int b = 0; b < 3; b++) {
+                littleEndian[3 * i + b] = (byte) (samples[i] >> (8 * b));
+                bigEndian[3 * i + b] = (byte) (samples[i] >> (8 * (2 - b)));
+            }
+        }
+        short[] expected = {-32768, -1, 0, 0x1234, 32767};
+
+        short[] output = new short[samples.length];
+        PcmConverter.fromPacked24(littleEndian, 0, output, 0, samples.length, false);
+        assertArrayEquals(expected, output);
+        PcmConverter.fromPacked24(bigEndian, 0, output, 0, samples.length, true);
+        assertArrayEquals(expected, output);
+    }
+}
@@ -0,0 +1,292 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PicovoiceCaptureTest {
+
+    private static final int SAMPLE_RATE = 16000;
+    private static final int FRAME_LENGTH = 4;
+
+    private static CapturedEvent inference(long sampleIndex, String intent, Map<String, String> slots) {
+        return new CapturedEvent(PicovoiceEvent.Type.INFERENCE, sampleIndex, intent != null, intent, slots);
+    }
+
+    private static short[] frame(int value) {
+        final short[] pcm = new short[FRAME_LENGTH];
+        Arrays.fill(pcm, (short) value);
+        return pcm;
+    }
+
+    /**
+     * Writes the header through and blocks every later write until released.
+     */
+    private static OutputStream stall(ByteArrayOutputStream output, CountDownLatch isReleased) {
+        return new OutputStream() {
+            private boolean isHeaderWritten = false;
+
+            @Override
+            public void write(int b) {
+                output.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (isHeaderWritten) {
+                    try {
+                        isReleased.await();
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                }
+                isHeaderWritten = true;
+                output.write(b, off, len);
+            }
+        };
+    }
+
+    @Test
+    void testRoundTrip() throws PicovoiceException, IOException {
+        final Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("rhino.context", "coffee_maker");
+        properties.put("source", "unit test");
+        final Map<String, String> slots = new HashMap<>();
+        slots.put("size", "large");
+        slots.put("beverage", "café");
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final CaptureWriter writer = new CaptureWriter(output, SAMPLE_RATE, FRAME_LENGTH, properties, 4, 256);
+        writer.writeFrame(frame(1));
+        writer.writeEvent(CapturedEvent.wakeWord(4));
+        writer.writeFrame(frame(-2));
+        writer.writeFrame(new short[FRAME_LENGTH + 1]);
+        writer.writeFrame(frame(Short.MAX_VALUE));
+        writer.writeEvent(inference(12, "orderBeverage", slots));
+        writer.writeEvent(inference(12, null, Collections.emptyMap()));
+        writer.close();
+        assertEquals(3, writer.getNumFrames());
+        assertFalse(writer.getIsTruncated());
+
+        final PicovoiceCaptureReader reader =
+                new PicovoiceCaptureReader(new ByteArrayInputStream(output.toByteArray()));
+        assertEquals(SAMPLE_RATE, reader.getSampleRate());
+        assertEquals(FRAME_LENGTH, reader.getFrameLength());
+        assertEquals(properties, reader.getProperties());
+
+        final short[] pcm = new short[FRAME_LENGTH];
+        final List<CapturedEvent> events = new ArrayList<>();
+        assertTrue(reader.readFrame(pcm, events));
+        assertArrayEquals(frame(1), pcm);
+        assertTrue(events.isEmpty());
+        assertTrue(reader.readFrame(pcm, events));
+        assertArrayEquals(frame(-2), pcm);
+        assertEquals(Collections.singletonList(CapturedEvent.wakeWord(4)), events);
+        assertTrue(reader.readFrame(pcm, events));
+        assertArrayEquals(frame(Short.MAX_VALUE), pcm);
+        assertFalse(reader.readFrame(pcm, events));
+        assertFalse(reader.readFrame(pcm, events));
+        assertFalse(reader.getIsTruncated());
+        reader.close();
+
+        assertEquals(
+                Arrays.asList(
+                        CapturedEvent.wakeWord(4),
+                        inference(12, "orderBeverage", slots),
+                        inference(12, null, Collections.emptyMap())),
+                events);
+    }
+
+    @Test
+    void testOverflowTruncates() throws PicovoiceException, IOException {
+        final CountDownLatch isReleased = new CountDownLatch(1);
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final OutputStream stalledOutput = stall(output, isReleased);
+
+        final int frameBytes = 1 + 2 * FRAME_LENGTH;
+        final CaptureWriter writer = new CaptureWriter(
+                stalledOutput, SAMPLE_RATE, FRAME_LENGTH, Collections.emptyMap(), 2, 2 * frameBytes);
+        for (int i = 0; i < 100; i++) {
+            writer.writeFrame(frame(i));
+        }
+        assertTrue(writer.getIsTruncated());
+        assertTrue(writer.getNumFrames() < 100);
+        isReleased.countDown();
+        writer.close();
+
+        final PicovoiceCaptureReader reader =
+                new PicovoiceCaptureReader(new ByteArrayInputStream(output.toByteArray()));
+        final short[] pcm = new short[FRAME_LENGTH];
+        final List<CapturedEvent> events = new ArrayList<>();
+        int numFrames = 0;
+        while (reader.readFrame(pcm, events)) {
+            assertArrayEquals(frame(numFrames), pcm);
+            numFrames++;
+        }
+        assertEquals(writer.getNumFrames(), numFrames);
+        assertTrue(reader.getIsTruncated());
+    }
+
+    @Test
+    void testEventsStayWithTheirFrame() throws PicovoiceException, IOException {
+        final CountDownLatch isReleased = new CountDownLatch(1);
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final OutputStream stalledOutput = stall(output, isReleased);
+
+        // a chunk holds two frames and one wake word, so every second wake word needs a new chunk
+        final int frameBytes = 1 + 2 * FRAME_LENGTH;
+        final CaptureWriter writer = new CaptureWriter(
+                stalledOutput, SAMPLE_RATE, FRAME_LENGTH, Collections.emptyMap(), 3, 2 * frameBytes + 1 + 8);
+        for (int i = 0; i < 10; i++) {
+            writer.writeFrame(frame(i));
+            writer.writeEvent(CapturedEvent.wakeWord((long) (i + 1) * FRAME_LENGTH));
+        }
+        assertTrue(writer.getIsTruncated());
+        assertEquals(3, writer.getNumFrames());
+        isReleased.countDown();
+        writer.close();
+
+        final PicovoiceCaptureReader reader =
+                new PicovoiceCaptureReader(new ByteArrayInputStream(output.toByteArray()));
+        final short[] pcm = new short[FRAME_LENGTH];
+        final List<CapturedEvent> events = new ArrayList<>();
+        int numFrames = 0;
+        while (reader.readFrame(pcm, events)) {
+            assertArrayEquals(frame(numFrames), pcm);
+            numFrames++;
+        }
+        assertEquals(3, numFrames);
+        assertEquals(
+                Arrays.asList(
+                        CapturedEvent.wakeWord(FRAME_LENGTH),
+                        CapturedEvent.wakeWord(2 * FRAME_LENGTH),
+                        CapturedEvent.wakeWord(3 * FRAME_LENGTH)),
+                events);
+        assertTrue(reader.getIsTruncated());
+    }
+
+    @Test
+    void testUnclosedCaptureIsTruncated() throws PicovoiceException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final CaptureWriter writer =
+                new CaptureWriter(output, SAMPLE_RATE, FRAME_LENGTH, Collections.emptyMap(), 2, 64);
+        writer.writeFrame(frame(7));
+        writer.writeFrame(frame(8));
+        writer.close();
+
+        final byte[] bytes = output.toByteArray();
+        final PicovoiceCaptureReader reader = new PicovoiceCaptureReader(
+                new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 2 - FRAME_LENGTH)));
+        final short[] pcm = new short[FRAME_LENGTH];
+        final List<CapturedEvent> events = new ArrayList<>();
+        assertTrue(reader.readFrame(pcm, events));
+        assertArrayEquals(frame(7), pcm);
+        assertFalse(reader.readFrame(pcm, events));
+        assertTrue(reader.getIsTruncated());
+    }
+
+    @Test
+    void testInvalidCapture() throws PicovoiceException {
+        assertThrows(
+                PicovoiceIOException.class,
+                () -> new PicovoiceCaptureReader(new ByteArrayInputStream("RIFF....WAVE".getBytes())));
+        assertThrows(
+                PicovoiceIOException.class,
+                () -> new PicovoiceCaptureReader(new ByteArrayInputStream(new byte[]{'P', 'V'})));
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new CaptureWriter(output, SAMPLE_RATE, FRAME_LENGTH, Collections.emptyMap(), 2, 64).close();
+        final PicovoiceCaptureReader reader =
+                new PicovoiceCaptureReader(new ByteArrayInputStream(output.toByteArray()));
+        assertThrows(
+                PicovoiceInvalidArgumentException.class,
+                () -> reader.readFrame(new short[FRAME_LENGTH + 1], new ArrayList<>()));
+    }
+
+    @Test
+    void testReplayRejectsDifferentSettings() throws PicovoiceException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new CaptureWriter(
+                output,
+                SAMPLE_RATE,
+                FRAME_LENGTH,
+                new Picovoice.Builder().setPorcupineSensitivity(0.7f).getEventSettings(),
+                2,
+                64).close();
+        final PicovoiceCaptureReader reader =
+                new PicovoiceCaptureReader(new ByteArrayInputStream(output.toByteArray()));
+        assertEquals("0.7", reader.getProperties().get("porcupine.sensitivity"));
+
+        final PicovoiceInvalidArgumentException e = assertThrows(
+                PicovoiceInvalidArgumentException.class,
+                () -> PicovoiceReplay.replay(reader, new Picovoice.Builder().setBargeIn(true)));
+        assertTrue(e.getMessage().contains("porcupine.sensitivity is 0.5 but was recorded as 0.7"));
+        assertTrue(e.getMessage().contains("picovoice.barge_in is true but was recorded as false"));
+    }
+
+    @Test
+    void testRecorderRejectsUnreplayableConfiguration() {
+        assertThrows(
+                PicovoiceInvalidArgumentException.class,
+                () -> new PicovoiceRecorder.Builder()
+                        .setPicovoiceBuilder(new Picovoice.Builder()
+                                .setRealTimeMonitor(0.5f, null)
+                                .setLoadSheddingPolicy(Picovoice.LoadSheddingPolicy.SKIP_WAKE_WORD_FRAMES))
+                        .setOutputStream(new ByteArrayOutputStream())
+                        .build());
+        assertThrows(
+                PicovoiceInvalidArgumentException.class,
+                () -> new PicovoiceRecorder.Builder()
+                        .setPicovoiceBuilder(new Picovoice.Builder())
+                        .setOutputStream(new ByteArrayOutputStream())
+                        .putProperty("rhino.sensitivity", "0.9")
+                        .build());
+    }
+
+    @Test
+    void testDiff() {
+        final CapturedEvent wakeWord = CapturedEvent.wakeWord(512);
+        final CapturedEvent coffee = inference(1024, "orderBeverage", Collections.singletonMap("size", "large"));
+        final CapturedEvent tea = inference(1024, "orderBeverage", Collections.singletonMap("size", "small"));
+
+        assertTrue(PicovoiceReplay.diff(Arrays.asList(wakeWord, coffee), Arrays.asList(wakeWord, coffee)).isEmpty());
+        assertEquals(
+                Collections.singletonList(String.format("expected %s but got %s", coffee, tea)),
+                PicovoiceReplay.diff(Arrays.asList(wakeWord, coffee), Arrays.asList(wakeWord, tea)));
+        assertEquals(
+                Collections.singletonList(String.format("missing %s", coffee)),
+                PicovoiceReplay.diff(Arrays.asList(wakeWord, coffee), Collections.singletonList(wakeWord)));
+        assertEquals(
+                Collections.singletonList(String.format("unexpected %s", wakeWord)),
+                PicovoiceReplay.diff(Collections.emptyList(), Collections.singletonList(wakeWord)));
+    }
+}
@@ -0,0 +1,210 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PicovoiceEventPublisherTest {
+
+    private static class RecordingSubscriber implements Flow.Subscriber<PicovoiceEvent> {
+        final List<Long> sampleIndices = Collections.synchronizedList(new ArrayList<>());
+        volatile Flow.Subscription subscription;
+        volatile boolean isComplete = false;
+        volatile Throwable error = null;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(PicovoiceEvent event) {
+            sampleIndices.add(event.getSampleIndex());
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            isComplete = true;
+        }
+    }
+
+    private static PicovoiceEvent event(long sampleIndex) {
+        return new PicovoiceEvent(PicovoiceEvent.Type.WAKE_WORD, sampleIndex, null, null);
+    }
+
+    private static void publishRange(PicovoiceEventPublisher publisher, int from, int to) {
+        for (int i = from; i < to; i++) {
+            publisher.publish(event(i));
+        }
+    }
+
+    @Test
+    void testEventsFollowDemand() {
+        final PicovoiceEventPublisher publisher =
+                new PicovoiceEventPublisher(8, PicovoiceEventPublisher.DropPolicy.BLOCK);
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+
+        publishRange(publisher, 0, 5);
+        assertEquals(List.of(), subscriber.sampleIndices);
+        subscriber.subscription.request(2);
+        assertEquals(List.of(0L, 1L), subscriber.sampleIndices);
+        subscriber.subscription.request(10);
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L), subscriber.sampleIndices);
+        publisher.publish(event(5));
+        assertEquals(6, subscriber.sampleIndices.size());
+
+        publisher.delete();
+        assertTrue(subscriber.isComplete);
+        assertEquals(0, publisher.getNumSubscribers());
+        assertEquals(0, publisher.getNumDroppedEvents());
+    }
+
+    @Test
+    void testCompletionWaitsForBufferedEvents() {
+        final PicovoiceEventPublisher publisher =
+                new PicovoiceEventPublisher(8, PicovoiceEventPublisher.DropPolicy.BLOCK);
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+        publishRange(publisher, 0, 3);
+
+        publisher.delete();
+        assertFalse(subscriber.isComplete);
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertEquals(List.of(0L, 1L, 2L), subscriber.sampleIndices);
+        assertTrue(subscriber.isComplete);
+
+        final RecordingSubscriber late = new RecordingSubscriber();
+        publisher.subscribe(late);
+        assertTrue(late.isComplete);
+    }
+
+    @Test
+    void testDropPolicies() {
+        final PicovoiceEventPublisher publisher =
+                new PicovoiceEventPublisher(2, PicovoiceEventPublisher.DropPolicy.BLOCK);
+        final RecordingSubscriber dropOldest = new RecordingSubscriber();
+        final RecordingSubscriber dropNewest = new RecordingSubscriber();
+        final RecordingSubscriber unbounded = new RecordingSubscriber();
+        publisher.subscribe(dropOldest, 2, PicovoiceEventPublisher.DropPolicy.DROP_OLDEST);
+        publisher.subscribe(dropNewest, 2, PicovoiceEventPublisher.DropPolicy.DROP_NEWEST);
+        publisher.subscribe(unbounded);
+        unbounded.subscription.request(Long.MAX_VALUE);
+
+        publishRange(publisher, 0, 5);
+        dropOldest.subscription.request(Long.MAX_VALUE);
+        dropNewest.subscription.request(Long.MAX_VALUE);
+
+        assertEquals(List.of(3L, 4L), dropOldest.sampleIndices);
+        assertEquals(List.of(0L, 1L), dropNewest.sampleIndices);
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L), unbounded.sampleIndices);
+        assertEquals(6, publisher.getNumDroppedEvents());
+    }
+
+    @Test
+    void testBlockingPolicyAppliesBackpressure() throws Exception {
+        final PicovoiceEventPublisher publisher =
+                new PicovoiceEventPublisher(1, PicovoiceEventPublisher.DropPolicy.BLOCK);
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+
+        final Thread source = new Thread(() -> publishRange(publisher, 0, 3));
+        source.start();
+        // the first event fills the buffer and the second one blocks the source
+        while (source.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        assertTrue(source.isAlive());
+
+        for (int i = 1; i <= 3; i++) {
+            subscriber.subscription.request(1);
+            while (subscriber.sampleIndices.size() < i) {
+                Thread.sleep(1);
+            }
+        }
+        source.join();
+        assertEquals(List.of(0L, 1L, 2L), subscriber.sampleIndices);
+        assertEquals(0, publisher.getNumDroppedEvents());
+    }
+
+    @Test
+    void testCancelReleasesBlockedSource() throws Exception {
+        final PicovoiceEventPublisher publisher =
+                new PicovoiceEventPublisher(1, PicovoiceEventPublisher.DropPolicy.BLOCK);
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+
+        final Thread source = new Thread(() -> publishRange(publisher, 0, 3));
+        source.start();
+        while (source.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        subscriber.subscription.cancel();
+        source.join();
+
+        assertEquals(0, publisher.getNumSubscribers());
+        assertEquals(List.of(), subscriber.sampleIndices);
+    }
+
+    @Test
+    void testNonPositiveRequestSignalsError() {
+        final PicovoiceEventPublisher publisher =
+                new PicovoiceEventPublisher(4, PicovoiceEventPublisher.DropPolicy.BLOCK);
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+        publisher.publish(event(0));
+
+        subscriber.subscription.request(0);
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+        assertEquals(0, publisher.getNumSubscribers());
+
+        subscriber.subscription.request(1);
+        publisher.publish(event(1));
+        assertEquals(List.of(), subscriber.sampleIndices);
+        assertFalse(subscriber.isComplete);
+    }
+
+    @Test
+    void testRequestFromOnNext() {
+        final PicovoiceEventPublisher publisher =
+                new PicovoiceEventPublisher(4, PicovoiceEventPublisher.DropPolicy.BLOCK);
+        final RecordingSubscriber subscriber = new RecordingSubscriber() {
+            @Override
+            public void onNext(PicovoiceEvent event) {
+                super.onNext(event);
+                subscription.request(1);
+            }
+        };
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(1);
+
+        publishRange(publisher, 0, 10);
+        assertEquals(10, subscriber.sampleIndices.size());
+        assertNull(subscriber.error);
+    }
+}
@@ -0,0 +1,168 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PicovoiceSessionTest {
+
+    private static final int FRAME_LENGTH = 512;
+
+    /**
+     * Returns at most a few bytes per read, so samples and frames are split across reads.
+     */
+    private static InputStream trickle(byte[] bytes) {
+        return new ByteArrayInputStream(bytes) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 3));
+            }
+        };
+    }
+
+    @Test
+    void testFramesAreAssembledFromLittleEndianBytes() throws Exception {
+        final int numFrames = 5;
+        final byte[] bytes = new byte[numFrames * FRAME_LENGTH * 2 + 3];
+        for (int i = 0; i < bytes.length / 2; i++) {
+            final short sample = (short) (i * 37 - 20000);
+            bytes[2 * i] = (byte) sample;
+            bytes[2 * i + 1] = (byte) (sample >> 8);
+        }
+
+        final List<short[]> frames = new ArrayList<>();
+        final PicovoiceSession session = new PicovoiceSession(
+                "PicovoiceSessionTest",
+                trickle(bytes),
+                FRAME_LENGTH,
+                frame -> frames.add(frame.clone()));
+        session.start();
+        session.join();
+
+        assertFalse(session.getIsRunning());
+        assertEquals(numFrames, session.getNumFrames());
+        assertEquals(numFrames, frames.size());
+        for (int f = 0; f < numFrames; f++) {
+            final short[] expected = new short[FRAME_LENGTH];
+            for (int i = 0; i < FRAME_LENGTH; i++) {
+                expected[i] = (short) ((f * FRAME_LENGTH + i) * 37 - 20000);
+            }
+            assertArrayEquals(expected, frames.get(f));
+        }
+    }
+
+    @Test
+    void testProcessingErrorIsRethrown() throws Exception {
+        final PicovoiceException error = new PicovoiceInvalidStateException("processing failed");
+        final PicovoiceSession session = new PicovoiceSession(
+                "PicovoiceSessionTest",
+                new ByteArrayInputStream(new byte[FRAME_LENGTH * 4]),
+                FRAME_LENGTH,
+                frame -> {
+                    throw error;
+                });
+        session.start();
+        final PicovoiceException thrown = assertThrows(PicovoiceException.class, session::join);
+        assertSame(error, thrown);
+        assertEquals(0, session.getNumFrames());
+    }
+
+    @Test
+    void testCallbackExceptionIsRethrown() throws Exception {
+        final IllegalStateException error = new IllegalStateException("callback failed");
+        final PicovoiceSession session = new PicovoiceSession(
+                "PicovoiceSessionTest",
+                new ByteArrayInputStream(new byte[FRAME_LENGTH * 4]),
+                FRAME_LENGTH,
+                frame -> {
+                    throw error;
+                });
+        session.start();
+        final PicovoiceException thrown = assertThrows(PicovoiceRuntimeException.class, session::join);
+        assertSame(error, thrown.getCause());
+        assertFalse(session.getIsRunning());
+        assertEquals(0, session.getNumFrames());
+    }
+
+    @Test
+    void testStopUnblocksRead() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+                Socket client = new Socket(server.getInetAddress(), server.getLocalPort());
+                Socket accepted = server.accept()) {
+            final PicovoiceSession session = new PicovoiceSession(
+                    "PicovoiceSessionTest",
+                    accepted.getInputStream(),
+                    FRAME_LENGTH,
+                    frame -> { });
+            session.start();
+            client.getOutputStream().write(new byte[FRAME_LENGTH * 2]);
+            client.getOutputStream().flush();
+            while (session.getNumFrames() < 1) {
+                Thread.sleep(1);
+            }
+
+            session.stop();
+            session.join();
+            assertFalse(session.getIsRunning());
+            assertEquals(1, session.getNumFrames());
+        }
+    }
+
+    @Test
+    void testSessionThread() throws Exception {
+        final Thread[] threads = new Thread[1];
+        final PicovoiceSession session = new PicovoiceSession(
+                "PicovoiceSessionTest-0",
+                new ByteArrayInputStream(new byte[FRAME_LENGTH * 2]),
+                FRAME_LENGTH,
+                frame -> threads[0] = Thread.currentThread());
+        session.start();
+        session.join();
+        assertEquals("PicovoiceSessionTest-0", threads[0].getName());
+        // both platform and virtual session threads must not keep the JVM alive
+        assertTrue(threads[0].isDaemon());
+
+        // the testJava21 task runs the tests on JDK 21 against the multi-release JAR
+        final boolean isVirtual =
+                Boolean.getBoolean("pvTestingMultiRelease") && Runtime.version().feature() >= 21;
+        assertEquals(isVirtual, PicovoiceSession.getIsVirtualThreaded());
+        assertEquals(isVirtual, threads[0].getClass().getName().equals("java.lang.VirtualThread"));
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(PicovoiceInvalidArgumentException.class,
+                () -> new PicovoiceSession("PicovoiceSessionTest", null, FRAME_LENGTH, frame -> { }));
+        assertThrows(PicovoiceInvalidArgumentException.class,
+                () -> new PicovoiceSession("PicovoiceSessionTest", new ByteArrayInputStream(new byte[0]), 0,
+                        frame -> { }));
+        assertThrows(PicovoiceInvalidArgumentException.class,
+                () -> new PicovoiceSession("PicovoiceSessionTest", new ByteArrayInputStream(new byte[0]),
+                        FRAME_LENGTH, null));
+    }
+}
@@ -24,6 +24,8 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -33,16 +35,21 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Flow;
 import java.util.stream.Stream;
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.UnsupportedAudioFileException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class PicovoiceTest {
@@ -123,7 +130,9 @@ public class PicovoiceTest {
 
     @AfterEach
     void tearDown() {
-        picovoice.delete();
+        if (picovoice != null) {
+            picovoice.delete();
+        }
     }
 
     @Test
@@ -156,6 +165,97 @@ public class PicovoiceTest {
         assertTrue(picovoice.getSampleRate() > 0);
     }
 
+    @Test
+    void testBuildReport() throws PicovoiceException {
+        final String language = "en";
+        final BuildReport[] reportedBuildReport = new BuildReport[1];
+        picovoice = new Picovoice.Builder()
+                .setAccessKey(accessKey)
+                .setPorcupineModelPath(getTestPorcupineModelPath(language))
+                .setKeywordPath(getTestKeywordPath(language, "picovoice"))
+                .setWakeWordCallback(wakeWordCallback)
+                .setRhinoModelPath(getTestRhinoModelPath(language))
+                .setContextPath(getTestContextPath(language, "coffee_maker"))
+                .setInferenceCallback(inferenceCallback)
+                .setBuildReportCallback(buildReport -> reportedBuildReport[0] = buildReport)
+                .build();
+        final BuildReport buildReport = picovoice.getBuildReport();
+        assertSame(buildReport, reportedBuildReport[0]);
+        assertTrue(buildReport.getPhaseNanos(BuildReport.Phase.PORCUPINE_INIT) > 0);
+        assertTrue(buildReport.getPhaseNanos(BuildReport.Phase.RHINO_INIT) > 0);
+        assertTrue(buildReport.getTotalNanos() >= buildReport.getPhaseNanos(BuildReport.Phase.PORCUPINE_INIT) +
+                buildReport.getPhaseNanos(BuildReport.Phase.RHINO_INIT));
+    }
+
+    @Test
+    void testPrewarm() throws PicovoiceException {
+        picovoice = new Picovoice.Builder()
+                .setAccessKey(accessKey)
+                .setKeywordPath(getTestKeywordPath("en", "picovoice"))
+                .setWakeWordCallback(wakeWordCallback)
+                .setContextPath(getTestContextPath("en", "coffee_maker"))
+                .setInferenceCallback(inferenceCallback)
+                .setPrewarmFrames(50)
+                .setNumTimedFrames(4)
+                .build();
+        assertTrue(picovoice.getBuildReport().getPhaseNanos(BuildReport.Phase.PREWARM) > 0);
+        assertEquals(0, picovoice.getFirstFrameLatenciesNanos().length);
+
+        final short[] frame = new short[picovoice.getFrameLength()];
+        for (int i = 0; i < 6; i++) {
+            picovoice.process(frame);
+        }
+        final long[] latencies = picovoice.getFirstFrameLatenciesNanos();
+        assertEquals(4, latencies.length);
+        for (long latency : latencies) {
+            assertTrue(latency > 0);
+        }
+    }
+
+    @Test
+    void testRecordAndReplay() throws PicovoiceException, IOException, UnsupportedAudioFileException {
+        final ByteArrayOutputStream capture = new ByteArrayOutputStream();
+        final PicovoiceRecorder recorder = new PicovoiceRecorder.Builder()
+                .setPicovoiceBuilder(new Picovoice.Builder()
+                        .setAccessKey(accessKey)
+                        .setKeywordPath(getTestKeywordPath("en", "picovoice"))
+                        .setContextPath(getTestContextPath("en", "coffee_maker")))
+                .setOutputStream(capture)
+                .putProperty("source", "picovoice-coffee.wav")
+                .build();
+
+        AudioInputStream audioInputStream =
+                AudioSystem.getAudioInputStream(new File(getTestAudioFilePath("picovoice-coffee.wav")));
+        byte[] pcm = new byte[recorder.getFrameLength() * audioInputStream.getFormat().getFrameSize()];
+        short[] frame = new short[recorder.getFrameLength()];
+        while (audioInputStream.read(pcm) == pcm.length) {
+            ByteBuffer.wrap(pcm).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().get(frame);
+            recorder.process(frame);
+        }
+        final long numRecordedFrames = recorder.getNumRecordedFrames();
+        recorder.delete();
+        assertFalse(recorder.getIsTruncated());
+
+        final PicovoiceCaptureReader reader =
+                new PicovoiceCaptureReader(new ByteArrayInputStream(capture.toByteArray()));
+        assertEquals("picovoice-coffee.wav", reader.getProperties().get("source"));
+        final PicovoiceReplay.Result result = PicovoiceReplay.replay(
+                reader,
+                new Picovoice.Builder()
+                        .setAccessKey(accessKey)
+                        .setKeywordPath(getTestKeywordPath("en", "picovoice"))
+                        .setContextPath(getTestContextPath("en", "coffee_maker")));
+        reader.close();
+
+        assertTrue(result.getIsMatch(), result.getDifferences().toString());
+        assertEquals(numRecordedFrames, result.getNumFrames());
+        assertEquals(2, result.getExpectedEvents().size());
+        assertEquals(PicovoiceEvent.Type.WAKE_WORD, result.getExpectedEvents().get(0).getType());
+        assertEquals("orderBeverage", result.getExpectedEvents().get(1).getIntent());
+        assertFalse(result.getIsTruncated());
+        assertTrue(result.getRealTimeFactor() > 0);
+    }
+
     @Test
     void testReset() throws PicovoiceException, IOException, UnsupportedAudioFileException {
         PicovoiceWakeWordCallback callback = new PicovoiceWakeWordCallback() {
@@ -182,6 +282,212 @@ public class PicovoiceTest {
         assertTrue(inferenceResult == null);
     }
 
+    @Test
+    void testProcessDoesNotAllocate() throws Exception {
+        picovoice = new Picovoice.Builder()
+                .setAccessKey(accessKey)
+                .setKeywordPath(getTestKeywordPath("en", "picovoice"))
+                .setWakeWordCallback(wakeWordCallback)
+                .setContextPath(getTestContextPath("en", "coffee_maker"))
+                .setInferenceCallback(inferenceCallback)
+                .build();
+
+        final short[] frame = new short[picovoice.getFrameLength()];
+        final float[] floatFrame = new float[picovoice.getFrameLength()];
+        assertEquals(0, AllocationTest.allocatedBytesPerCall(() -> picovoice.process(frame)));
+        assertEquals(0, AllocationTest.allocatedBytesPerCall(() -> picovoice.process(floatFrame)));
+    }
+
+    @Test
+    void testMultiLanguage() throws Exception {
+        final Map<String, RhinoInference> inferences = new HashMap<>();
+        final MultiLanguagePicovoice multiLanguagePicovoice = new MultiLanguagePicovoice.Builder()
+                .addLanguage("en", new Picovoice.Builder()
+                        .setAccessKey(accessKey)
+                        .setKeywordPath(getTestKeywordPath("en", "picovoice"))
+                        .setContextPath(getTestContextPath("en", "coffee_maker")))
+                .addLanguage("de", new Picovoice.Builder()
+                        .setAccessKey(accessKey)
+                        .setPorcupineModelPath(getTestPorcupineModelPath("de"))
+                        .setKeywordPath(getTestKeywordPath("de", "heuschrecke"))
+                        .setRhinoModelPath(getTestRhinoModelPath("de"))
+                        .setContextPath(getTestContextPath("de", "beleuchtung")))
+                .setInferenceCallback((language, inference) -> {
+                    synchronized (inferences) {
+                        inferences.put(language, inference);
+                    }
+                })
+                .setSuspendOthersOnWakeWord(true)
+                .build();
+
+        try {
+            final int frameLen = multiLanguagePicovoice.getFrameLength();
+            for (String audioFileName : new String[]{"picovoice-coffee.wav", "heuschrecke-beleuchtung_de.wav"}) {
+                AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(
+                        new File(getTestAudioFilePath(audioFileName)));
+                byte[] pcm = new byte[frameLen * audioInputStream.getFormat().getFrameSize()];
+                short[] frame = new short[frameLen];
+                while (audioInputStream.read(pcm) == pcm.length) {
+                    ByteBuffer.wrap(pcm).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().get(frame);
+                    multiLanguagePicovoice.process(frame);
+                }
+                multiLanguagePicovoice.reset();
+            }
+        } finally {
+            multiLanguagePicovoice.delete();
+        }
+
+        assertEquals("orderBeverage", inferences.get("en").getIntent());
+        assertEquals("changeState", inferences.get("de").getIntent());
+    }
+
+    @Test
+    void testMicArray() throws Exception {
+        final int numChannels = 4;
+        final int loudChannel = 2;
+        final int[] commandChannel = {-1};
+        final MicArrayPicovoice[] micArrayPicovoice = new MicArrayPicovoice[1];
+        micArrayPicovoice[0] = new MicArrayPicovoice.Builder()
+                .setAccessKey(accessKey)
+                .setKeywordPath(getTestKeywordPath("en", "picovoice"))
+                .setWakeWordCallback(() -> {
+                    isWakeWordDetected = true;
+                    commandChannel[0] = micArrayPicovoice[0].getCommandChannel();
+                })
+                .setContextPath(getTestContextPath("en", "coffee_maker"))
+                .setInferenceCallback(inferenceCallback)
+                .setNumChannels(numChannels)
+                .build();
+
+        isWakeWordDetected = false;
+        inferenceResult = null;
+        try {
+            final int frameLen = micArrayPicovoice[0].getFrameLength();
+            AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(
+                    new File(getTestAudioFilePath("picovoice-coffee.wav")));
+            byte[] pcm = new byte[frameLen * audioInputStream.getFormat().getFrameSize()];
+            short[] frame = new short[frameLen];
+            short[] interleaved = new short[frameLen * numChannels];
+            while (audioInputStream.read(pcm) == pcm.length) {
+                ByteBuffer.wrap(pcm).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().get(frame);
+                for (int i = 0; i < frameLen; i++) {
+                    for (int c = 0; c < numChannels; c++) {
+                        interleaved[i * numChannels + c] = c == loudChannel ? frame[i] : (short) (frame[i] / 4);
+                    }
+                }
+                micArrayPicovoice[0].process(interleaved);
+            }
+        } finally {
+            micArrayPicovoice[0].delete();
+        }
+
+        assertTrue(isWakeWordDetected);
+        assertEquals(loudChannel, commandChannel[0]);
+        assertEquals("orderBeverage", inferenceResult.getIntent());
+    }
+
+    @Test
+    void testBargeIn() throws Exception {
+        final int[] numWakeWords = {0};
+        picovoice = new Picovoice.Builder()
+                .setAccessKey(accessKey)
+                .setKeywordPath(getTestKeywordPath("en", "picovoice"))
+                .setWakeWordCallback(() -> numWakeWords[0]++)
+                .setContextPath(getTestContextPath("en", "coffee_maker"))
+                .setInferenceCallback(inferenceCallback)
+                .setBargeIn(true)
+                .build();
+
+        final int frameLen = picovoice.getFrameLength();
+        final List<short[]> frames = new ArrayList<>();
+        AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(
+                new File(getTestAudioFilePath("picovoice-coffee.wav")));
+        byte[] pcm = new byte[frameLen * audioInputStream.getFormat().getFrameSize()];
+        while (audioInputStream.read(pcm) == pcm.length) {
+            short[] frame = new short[frameLen];
+            ByteBuffer.wrap(pcm).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().get(frame);
+            frames.add(frame);
+        }
+
+        // start a command, then say the wake word again before it is complete
+        inferenceResult = null;
+        int i = 0;
+        while (numWakeWords[0] == 0) {
+            picovoice.process(frames.get(i++));
+        }
+        for (int j = 0; j < 5; j++) {
+            picovoice.process(frames.get(i++));
+        }
+        for (short[] frame : frames) {
+            picovoice.process(frame);
+        }
+
+        assertEquals(2, numWakeWords[0]);
+        assertEquals("orderBeverage", inferenceResult.getIntent());
+    }
+
+    @Test
+    void testEventPublisher() throws Exception {
+        final PicovoiceEventPublisher publisher = new PicovoiceEventPublisher.Builder()
+                .setPicovoiceBuilder(new Picovoice.Builder()
+                        .setAccessKey(accessKey)
+                        .setKeywordPath(getTestKeywordPath("en", "picovoice"))
+                        .setContextPath(getTestContextPath("en", "coffee_maker")))
+                .setCommandTimeoutSec(3f)
+                .build();
+
+        final List<PicovoiceEvent> events = new ArrayList<>();
+        publisher.subscribe(new Flow.Subscriber<PicovoiceEvent>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(PicovoiceEvent event) {
+                events.add(event);
+            }
+
+            @Override
+            public void onError(Throwable throwable) { }
+
+            @Override
+            public void onComplete() { }
+        });
+
+        final int frameLen = publisher.getFrameLength();
+        AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(
+                new File(getTestAudioFilePath("picovoice-coffee.wav")));
+        byte[] pcm = new byte[frameLen * audioInputStream.getFormat().getFrameSize()];
+        short[] frame = new short[frameLen];
+        while (audioInputStream.read(pcm) == pcm.length) {
+            ByteBuffer.wrap(pcm).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().get(frame);
+            publisher.process(frame);
+        }
+
+        assertEquals(2, events.size());
+        assertEquals(PicovoiceEvent.Type.WAKE_WORD, events.get(0).getType());
+        assertEquals(PicovoiceEvent.Type.INFERENCE, events.get(1).getType());
+        assertEquals("orderBeverage", events.get(1).getInference().getIntent());
+        assertTrue(events.get(0).getSampleIndex() < events.get(1).getSampleIndex());
+
+        // a command that never finalizes is abandoned after the timeout
+        events.clear();
+        audioInputStream = AudioSystem.getAudioInputStream(new File(getTestAudioFilePath("picovoice-coffee.wav")));
+        while (events.isEmpty() && audioInputStream.read(pcm) == pcm.length) {
+            ByteBuffer.wrap(pcm).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().get(frame);
+            publisher.process(frame);
+        }
+        Arrays.fill(frame, (short) 0);
+        for (int i = 0; i < 4 * publisher.getSampleRate() / frameLen; i++) {
+            publisher.process(frame);
+        }
+        assertEquals(PicovoiceEvent.Type.WAKE_WORD, events.get(0).getType());
+        assertEquals(PicovoiceEvent.Type.TIMEOUT, events.get(1).getType());
+
+        publisher.delete();
+    }
+
     void processFileHelper(String audioFileName) throws PicovoiceException, IOException, UnsupportedAudioFileException {
         int frameLen = picovoice.getFrameLength();
         File testAudioPath = new File(getTestAudioFilePath(audioFileName));
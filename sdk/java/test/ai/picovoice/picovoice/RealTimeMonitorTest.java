@@ -0,0 +1,115 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RealTimeMonitorTest {
+
+    private static final long FRAME_NANOS = 32_000_000L;
+    private static final long MAX_LAG_NANOS = 200_000_000L;
+
+    @Test
+    void testKeepingUp() {
+        RealTimeMonitor monitor = new RealTimeMonitor(FRAME_NANOS, MAX_LAG_NANOS);
+        for (int i = 0; i < 1000; i++) {
+            long start = i * FRAME_NANOS;
+            assertFalse(monitor.onFrame(start, start + FRAME_NANOS / 4));
+        }
+        assertFalse(monitor.isOverloaded());
+        assertEquals(FRAME_NANOS / 4, monitor.getLagNanos());
+        assertEquals(0.25, monitor.getRealTimeFactor(), 1e-6);
+    }
+
+    @Test
+    void testFallingBehindAndRecovering() {
+        RealTimeMonitor monitor = new RealTimeMonitor(FRAME_NANOS, MAX_LAG_NANOS);
+        long now = 0;
+        int frame = 0;
+        while (!monitor.isOverloaded()) {
+            // each frame takes twice its duration to process
+            long start = now;
+            now += 2 * FRAME_NANOS;
+            boolean isChanged = monitor.onFrame(start, now);
+            assertEquals(monitor.isOverloaded(), isChanged);
+            frame++;
+        }
+        assertTrue(monitor.getLagNanos() > MAX_LAG_NANOS);
+        assertEquals(6, frame);
+
+        // frames that are skipped cost almost nothing, so the stream catches up
+        while (monitor.isOverloaded()) {
+            long start = now;
+            now += FRAME_NANOS / 32;
+            monitor.onFrame(start, now);
+        }
+        assertTrue(monitor.getLagNanos() < MAX_LAG_NANOS / 2);
+    }
+
+    @Test
+    void testPauseInInput() {
+        RealTimeMonitor monitor = new RealTimeMonitor(FRAME_NANOS, MAX_LAG_NANOS);
+        long now = 0;
+        for (int i = 0; i < 100; i++) {
+            assertFalse(monitor.onFrame(now, now + FRAME_NANOS / 4));
+            now += FRAME_NANOS;
+        }
+
+        // no audio arrives for a second, then the stream continues in real time
+        now += 1_000_000_000L;
+        for (int i = 0; i < 100; i++) {
+            assertFalse(monitor.onFrame(now, now + FRAME_NANOS / 4));
+            assertEquals(FRAME_NANOS / 4, monitor.getLagNanos());
+            now += FRAME_NANOS;
+        }
+        assertFalse(monitor.isOverloaded());
+    }
+
+    @Test
+    void testRecoveringAfterPauseInInput() {
+        RealTimeMonitor monitor = new RealTimeMonitor(FRAME_NANOS, MAX_LAG_NANOS);
+        long now = 0;
+        while (!monitor.isOverloaded()) {
+            long start = now;
+            now += 2 * FRAME_NANOS;
+            monitor.onFrame(start, now);
+        }
+
+        // the caller waited for the first frame after the pause, so nothing is queued anymore
+        now += 1_000_000_000L;
+        assertTrue(monitor.onFrame(now, now + FRAME_NANOS / 4));
+        assertFalse(monitor.isOverloaded());
+        for (int i = 0; i < 100; i++) {
+            now += FRAME_NANOS;
+            assertFalse(monitor.onFrame(now, now + FRAME_NANOS / 4));
+        }
+        assertEquals(FRAME_NANOS / 4, monitor.getLagNanos());
+    }
+
+    @Test
+    void testReset() {
+        RealTimeMonitor monitor = new RealTimeMonitor(FRAME_NANOS, MAX_LAG_NANOS);
+        monitor.onFrame(0, 10 * MAX_LAG_NANOS);
+        assertTrue(monitor.isOverloaded());
+
+        monitor.reset();
+        assertFalse(monitor.isOverloaded());
+        assertEquals(0, monitor.getLagNanos());
+        monitor.onFrame(20 * MAX_LAG_NANOS, 20 * MAX_LAG_NANOS + FRAME_NANOS / 2);
+        assertFalse(monitor.isOverloaded());
+    }
+}
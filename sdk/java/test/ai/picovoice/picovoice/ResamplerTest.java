@@ -0,0 +1,154 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResamplerTest {
+
+    private static short[] sine(int sampleRate, double frequency, double amplitude, int numSamples) {
+        short[] pcm = new short[numSamples];
+        for (int i = 0; i < numSamples; i++) {
+            pcm[i] = (short) Math.round(amplitude * Math.sin(2 * Math.PI * frequency * i / sampleRate));
+        }
+        return pcm;
+    }
+
+    private static double rms(short[] pcm, int offset, int length) {
+        double sum = 0;
+        for (int i = offset; i < offset + length; i++) {
+            sum += (double) pcm[i] * pcm[i];
+        }
+        return Math.sqrt(sum / length);
+    }
+
+    private static short[] resample(Resampler resampler, short[] input) {
+        short[] output = new short[resampler.getMaxOutputLength(input.length)];
+        int numSamples = resampler.process(input, 0, input.length, output, 0);
+        return Arrays.copyOf(output, numSamples);
+    }
+
+    private static Stream<Arguments> sampleRateProvider() {
+        List<Arguments> args = new ArrayList<>();
+        for (int inputSampleRate : new int[]{8000, 22050, 32000, 44100, 48000}) {
+            for (Resampler.Quality quality : Resampler.Quality.values()) {
+                args.add(Arguments.of(inputSampleRate, quality));
+            }
+        }
+        return args.stream();
+    }
+
+    @ParameterizedTest(name = "testPassBand for {0} Hz ({1})")
+    @MethodSource("sampleRateProvider")
+    void testPassBand(int inputSampleRate, Resampler.Quality quality) throws PicovoiceException {
+        Resampler resampler = new Resampler(inputSampleRate, 16000, quality);
+        short[] input = sine(inputSampleRate, 1000, 10000, inputSampleRate);
+        short[] output = resample(resampler, input);
+
+        assertTrue(Math.abs(output.length - 16000) <= 1);
+
+        // least-squares fit of a 1 kHz sinusoid; the residual captures distortion and aliasing
+        int skip = resampler.getDelay() * 2;
+        int length = output.length - 2 * skip;
+        double sinSum = 0;
+        double cosSum = 0;
+        for (int i = skip; i < skip + length; i++) {
+            sinSum += output[i] * Math.sin(2 * Math.PI * 1000 * i / 16000);
+            cosSum += output[i] * Math.cos(2 * Math.PI * 1000 * i / 16000);
+        }
+        double a = 2 * sinSum / length;
+        double b = 2 * cosSum / length;
+        assertEquals(10000, Math.sqrt(a * a + b * b), 200);
+
+        double error = 0;
+        for (int i = skip; i < skip + length; i++) {
+            double fit = a * Math.sin(2 * Math.PI * 1000 * i / 16000) + b * Math.cos(2 * Math.PI * 1000 * i / 16000);
+            error += (output[i] - fit) * (output[i] - fit);
+        }
+        error = Math.sqrt(error / length);
+        assertTrue(error < 100, String.format("error %.1f", error));
+    }
+
+    @Test
+    void testStopBand() throws PicovoiceException {
+        for (Resampler.Quality quality : Resampler.Quality.values()) {
+            Resampler resampler = new Resampler(48000, 16000, quality);
+            short[] output = resample(resampler, sine(48000, 12000, 10000, 48000));
+            int skip = resampler.getDelay() * 2;
+            double level = rms(output, skip, output.length - 2 * skip);
+            assertTrue(level < 70, String.format("%s leaked %.1f", quality, level));
+        }
+    }
+
+    @Test
+    void testChunkedMatchesContiguous() throws PicovoiceException {
+        short[] input = sine(44100, 440, 20000, 44100);
+        short[] expected = resample(new Resampler(44100, 16000), input);
+
+        Resampler resampler = new Resampler(44100, 16000);
+        short[] output = new short[expected.length + 1];
+        int numOutput = 0;
+        int offset = 0;
+        int chunk = 1;
+        while (offset < input.length) {
+            int length = Math.min(chunk, input.length - offset);
+            numOutput += resampler.process(input, offset, length, output, numOutput);
+            offset += length;
+            chunk = chunk * 3 % 997 + 1;
+        }
+        assertArrayEquals(expected, Arrays.copyOf(output, numOutput));
+    }
+
+    @Test
+    void testFrameAssembler() throws PicovoiceException {
+        final int frameLength = 512;
+        short[] input = sine(48000, 440, 20000, 48000);
+        short[] expected = resample(new Resampler(48000, 16000), input);
+
+        List<short[]> frames = new ArrayList<>();
+        FrameAssembler assembler = new FrameAssembler(frameLength, frame -> frames.add(frame.clone()));
+        new Resampler(48000, 16000).process(input, 0, input.length, assembler);
+
+        assertEquals(expected.length / frameLength, frames.size());
+        assertEquals(expected.length % frameLength, assembler.getBufferedLength());
+        for (int i = 0; i < frames.size(); i++) {
+            assertArrayEquals(Arrays.copyOfRange(expected, i * frameLength, (i + 1) * frameLength), frames.get(i));
+        }
+    }
+
+    @Test
+    void testPassThrough() throws PicovoiceException {
+        short[] input = sine(16000, 440, 20000, 1000);
+        assertArrayEquals(input, resample(new Resampler(16000, 16000), input));
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(PicovoiceInvalidArgumentException.class, () -> new Resampler(0, 16000));
+        assertThrows(PicovoiceInvalidArgumentException.class, () -> new Resampler(48000, 16000, null));
+        assertThrows(PicovoiceInvalidArgumentException.class, () -> new FrameAssembler(0, frame -> { }));
+    }
+}
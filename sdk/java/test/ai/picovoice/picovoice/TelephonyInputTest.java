@@ -0,0 +1,92 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TelephonyInputTest {
+
+    private static byte encodeMuLaw(short sample) {
+        final int bias = 0x84;
+        int sign = (sample >> 8) & 0x80;
+        int magnitude = Math.min(Math.abs((int) sample), 32635) + bias;
+        int exponent = 7;
+        for (int mask = 0x4000; (magnitude & mask) == 0 && exponent > 0; mask >>= 1) {
+            exponent--;
+        }
+        int mantissa = (magnitude >> (exponent + 3)) & 0x0F;
+        return (byte) ~(sign | (exponent << 4) | mantissa);
+    }
+
+    @Test
+    void testDecodeTables() {
+        byte[] mulaw = {(byte) 0xFF, (byte) 0x7F, (byte) 0x00, (byte) 0x80};
+        short[] output = new short[mulaw.length];
+        TelephonyInput.decode(TelephonyInput.Encoding.MU_LAW, mulaw, 0, mulaw.length, output, 0);
+        assertEquals(0, output[0]);
+        assertEquals(0, output[1]);
+        assertEquals(-32124, output[2]);
+        assertEquals(32124, output[3]);
+
+        byte[] alaw = {(byte) 0xD5, (byte) 0x55, (byte) 0xAA, (byte) 0x2A};
+        TelephonyInput.decode(TelephonyInput.Encoding.A_LAW, alaw, 0, alaw.length, output, 0);
+        assertEquals(8, output[0]);
+        assertEquals(-8, output[1]);
+        assertEquals(32256, output[2]);
+        assertEquals(-32256, output[3]);
+    }
+
+    @Test
+    void testUpsampleToFrames() throws PicovoiceException {
+        final int frameLength = 512;
+        final int numPackets = 100;
+        byte[] packet = new byte[160];
+        List<short[]> frames = new ArrayList<>();
+        FrameAssembler assembler = new FrameAssembler(frameLength, frame -> frames.add(frame.clone()));
+        TelephonyInput input = new TelephonyInput(TelephonyInput.Encoding.MU_LAW, 16000, assembler);
+
+        int sampleIndex = 0;
+        for (int p = 0; p < numPackets; p++) {
+            for (int i = 0; i < packet.length; i++) {
+                packet[i] = encodeMuLaw((short) (10000 * Math.sin(2 * Math.PI * 500 * sampleIndex++ / 8000)));
+            }
+            input.process(packet, 0, packet.length);
+        }
+
+        assertEquals(numPackets * packet.length * 2 / frameLength, frames.size());
+
+        // the upsampled signal is a clean 500Hz tone at 16kHz
+        short[] frame = frames.get(frames.size() / 2);
+        double sinSum = 0;
+        double cosSum = 0;
+        for (int i = 0; i < frameLength; i++) {
+            sinSum += frame[i] * Math.sin(2 * Math.PI * 500 * i / 16000);
+            cosSum += frame[i] * Math.cos(2 * Math.PI * 500 * i / 16000);
+        }
+        double a = 2 * sinSum / frameLength;
+        double b = 2 * cosSum / frameLength;
+        double error = 0;
+        for (int i = 0; i < frameLength; i++) {
+            double fit = a * Math.sin(2 * Math.PI * 500 * i / 16000) + b * Math.cos(2 * Math.PI * 500 * i / 16000);
+            error += (frame[i] - fit) * (frame[i] - fit);
+        }
+        assertEquals(10000, Math.sqrt(a * a + b * b), 300);
+        assertTrue(Math.sqrt(error / frameLength) < 300);
+    }
+}
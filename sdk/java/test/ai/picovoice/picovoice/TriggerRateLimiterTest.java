@@ -0,0 +1,103 @@
+/*
+    Copyright 2024 Picovoice Inc.
+
+    You may not use this file except in compliance with the license. A copy of the license is
+    located in the "LICENSE" file accompanying this source.
+
+    Unless required by applicable law or agreed to in writing, software distributed under the
+    License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+    express or implied. See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package ai.picovoice.picovoice;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TriggerRateLimiterTest {
+
+    @Test
+    void testDisabled() {
+        TriggerRateLimiter limiter = new TriggerRateLimiter(0, 0, 0, 0);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.onWakeWord(i));
+            limiter.onInference(i, false);
+        }
+        assertEquals(0, limiter.getNumRefractorySuppressed());
+        assertEquals(0, limiter.getNumStormSuppressed());
+    }
+
+    @Test
+    void testRefractoryPeriod() {
+        TriggerRateLimiter limiter = new TriggerRateLimiter(10, 0, 0, 0);
+        assertTrue(limiter.onWakeWord(100));
+        limiter.onInference(120, true);
+        assertFalse(limiter.onWakeWord(125));
+        assertFalse(limiter.onWakeWord(129));
+        assertTrue(limiter.onWakeWord(130));
+        assertFalse(limiter.onWakeWord(131));
+        assertEquals(3, limiter.getNumRefractorySuppressed());
+    }
+
+    @Test
+    void testStormBackoff() {
+        TriggerRateLimiter limiter = new TriggerRateLimiter(0, 3, 100, 50);
+        limiter.onInference(10, false);
+        limiter.onInference(20, false);
+        assertFalse(limiter.isGated(21));
+        limiter.onInference(30, false);
+        assertTrue(limiter.isGated(31));
+
+        assertFalse(limiter.onWakeWord(40));
+        assertFalse(limiter.onWakeWord(79));
+        assertTrue(limiter.onWakeWord(80));
+        assertEquals(2, limiter.getNumStormSuppressed());
+
+        // a second storm backs off for twice as long
+        limiter.onInference(90, false);
+        limiter.onInference(100, false);
+        limiter.onInference(110, false);
+        assertTrue(limiter.isGated(209));
+        assertFalse(limiter.isGated(210));
+    }
+
+    @Test
+    void testFalseTriggersOutsideWindow() {
+        TriggerRateLimiter limiter = new TriggerRateLimiter(0, 3, 100, 50);
+        limiter.onInference(0, false);
+        limiter.onInference(60, false);
+        limiter.onInference(120, false);
+        assertFalse(limiter.isGated(121));
+        limiter.onInference(150, false);
+        assertTrue(limiter.isGated(151));
+    }
+
+    @Test
+    void testUnderstoodInferenceRestoresBackoff() {
+        TriggerRateLimiter limiter = new TriggerRateLimiter(0, 2, 100, 50);
+        limiter.onInference(0, false);
+        limiter.onInference(10, false);
+        assertTrue(limiter.isGated(59));
+        limiter.onInference(70, true);
+        limiter.onInference(80, false);
+        limiter.onInference(90, false);
+        assertTrue(limiter.isGated(139));
+        assertFalse(limiter.isGated(140));
+    }
+
+    @Test
+    void testBackoffIsCapped() {
+        TriggerRateLimiter limiter = new TriggerRateLimiter(0, 1, 100, 10);
+        long frame = 0;
+        for (int i = 0; i < 10; i++) {
+            limiter.onInference(frame, false);
+            frame += 1000;
+        }
+        assertTrue(limiter.isGated(frame - 1000 + 10 * TriggerRateLimiter.MAX_BACKOFF_MULTIPLIER - 1));
+        assertFalse(limiter.isGated(frame - 1000 + 10 * TriggerRateLimiter.MAX_BACKOFF_MULTIPLIER));
+    }
+}